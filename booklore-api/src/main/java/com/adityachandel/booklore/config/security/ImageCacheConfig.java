@@ -13,11 +13,7 @@ public class ImageCacheConfig {
     public FilterRegistrationBean<ImageCachingFilter> imageCachingFilterRegistration() {
         FilterRegistrationBean<ImageCachingFilter> registrationBean = new FilterRegistrationBean<>();
         registrationBean.setFilter(new ImageCachingFilter());
-        registrationBean.addUrlPatterns(
-                "/api/v1/media/book/*/cover",
-                "/api/v1/media/book/*/thumbnail",
-                "/api/v1/media/book/*/backup-cover"
-        );
+        registrationBean.addUrlPatterns("/api/v1/media/book/*/backup-cover");
         registrationBean.setOrder(Ordered.LOWEST_PRECEDENCE);
         return registrationBean;
     }
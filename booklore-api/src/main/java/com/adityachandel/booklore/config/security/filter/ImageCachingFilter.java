@@ -16,7 +16,8 @@ public class ImageCachingFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String uri = request.getRequestURI();
-        if (uri.startsWith("/api/v1/media/book/") && (uri.contains("/cover") || uri.contains("/thumbnail") || uri.contains("/backup-cover"))) {
+        // Covers and thumbnails set their own versioned caching headers in BookMediaController
+        if (uri.startsWith("/api/v1/media/book/") && uri.endsWith("/backup-cover")) {
             response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
             response.setHeader(HttpHeaders.EXPIRES, String.valueOf(System.currentTimeMillis() + 3600_000));
         }
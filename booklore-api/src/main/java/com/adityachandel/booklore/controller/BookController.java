@@ -11,6 +11,7 @@ import com.adityachandel.booklore.model.dto.request.ShelvesAssignmentRequest;
 import com.adityachandel.booklore.model.dto.response.BookDeletionResponse;
 import com.adityachandel.booklore.model.enums.ResetProgressType;
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.fileprocessor.BookEnrichmentService;
 import com.adityachandel.booklore.service.metadata.BookMetadataService;
 import com.adityachandel.booklore.service.recommender.BookRecommendationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -41,6 +42,7 @@ public class BookController {
     private final BookService bookService;
     private final BookRecommendationService bookRecommendationService;
     private final BookMetadataService bookMetadataService;
+    private final BookEnrichmentService bookEnrichmentService;
 
     @Operation(summary = "Get all books", description = "Retrieve a list of all books. Optionally include descriptions.")
     @ApiResponse(responseCode = "200", description = "List of books returned successfully")
@@ -61,6 +63,7 @@ public class BookController {
     public ResponseEntity<Book> getBook(
             @Parameter(description = "ID of the book to retrieve") @PathVariable long bookId,
             @Parameter(description = "Include book description in the response") @RequestParam(required = false, defaultValue = "false") boolean withDescription) {
+        bookEnrichmentService.prioritize(bookId);
         return ResponseEntity.ok(bookService.getBook(bookId, withDescription));
     }
 
@@ -1,7 +1,10 @@
 package com.adityachandel.booklore.controller;
 
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.book.CoverCacheService;
 import com.adityachandel.booklore.service.bookdrop.BookDropService;
+import com.adityachandel.booklore.service.file.CoverDerivativeService;
+import com.adityachandel.booklore.service.fileprocessor.BookEnrichmentService;
 import com.adityachandel.booklore.service.reader.CbxReaderService;
 import com.adityachandel.booklore.service.reader.PdfReaderService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +13,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
@@ -18,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
@@ -33,21 +38,38 @@ public class BookMediaController {
     private final PdfReaderService pdfReaderService;
     private final CbxReaderService cbxReaderService;
     private final BookDropService bookDropService;
+    private final BookEnrichmentService bookEnrichmentService;
+    private final CoverDerivativeService coverDerivativeService;
+    private final CoverCacheService coverCacheService;
 
-    @Operation(summary = "Get book thumbnail", description = "Retrieve the thumbnail image for a specific book.")
+    @Operation(summary = "Get book thumbnail", description = "Retrieve the thumbnail image for a specific book, optionally scaled from the cover to the displayed width.")
     @ApiResponse(responseCode = "200", description = "Book thumbnail returned successfully")
     @GetMapping("/book/{bookId}/thumbnail")
     public ResponseEntity<Resource> getBookThumbnail(
-            @Parameter(description = "ID of the book") @PathVariable long bookId) {
-        return ResponseEntity.ok(bookService.getBookThumbnail(bookId));
+            @Parameter(description = "ID of the book") @PathVariable long bookId,
+            @Parameter(description = "Displayed width in device pixels, rounded up to a cached size") @RequestParam(name = "w", required = false) Integer width,
+            @Parameter(description = "Cover version token, the cover update time") @RequestParam(name = "v", required = false) String version) {
+        // A thumbnail request means the book is on someone's screen
+        bookEnrichmentService.prioritize(bookId);
+        if (width != null && width > 0) {
+            var variant = coverDerivativeService.getVariant(bookId, width);
+            if (variant.isPresent()) {
+                return coverCacheService.ok(bookId, version, "w" + CoverDerivativeService.bucketFor(width))
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .body(new FileSystemResource(variant.get()));
+            }
+        }
+        return coverCacheService.ok(bookId, version, "thumbnail").body(bookService.getBookThumbnail(bookId));
     }
 
     @Operation(summary = "Get book cover", description = "Retrieve the cover image for a specific book.")
     @ApiResponse(responseCode = "200", description = "Book cover returned successfully")
     @GetMapping("/book/{bookId}/cover")
     public ResponseEntity<Resource> getBookCover(
-            @Parameter(description = "ID of the book") @PathVariable long bookId) {
-        return ResponseEntity.ok(bookService.getBookCover(bookId));
+            @Parameter(description = "ID of the book") @PathVariable long bookId,
+            @Parameter(description = "Cover version token, the cover update time") @RequestParam(name = "v", required = false) String version) {
+        bookEnrichmentService.prioritize(bookId);
+        return coverCacheService.ok(bookId, version, "cover").body(bookService.getBookCover(bookId));
     }
 
     @Operation(summary = "Get PDF page as image", description = "Retrieve a specific page from a PDF book as an image.")
@@ -79,8 +79,9 @@ public class KoboController {
             @Parameter(description = "Width of the thumbnail") @PathVariable int width,
             @Parameter(description = "Height of the thumbnail") @PathVariable int height) {
 
-        if (StringUtils.isNumeric(imageId)) {
-            return koboThumbnailService.getThumbnail(Long.valueOf(imageId));
+        Long bookId = KoboThumbnailService.parseBookId(imageId);
+        if (bookId != null) {
+            return koboThumbnailService.getThumbnail(bookId, width, height, false);
         } else {
             String cdnUrl = String.format("https://cdn.kobo.com/book-images/%s/%d/%d/image.jpg", imageId, width, height);
             return koboServerProxy.proxyExternalUrl(cdnUrl);
@@ -97,8 +98,9 @@ public class KoboController {
             @Parameter(description = "Quality of the thumbnail") @PathVariable int quality,
             @Parameter(description = "Is greyscale") @PathVariable boolean isGreyscale) {
 
-        if (StringUtils.isNumeric(bookId)) {
-            return koboThumbnailService.getThumbnail(Long.valueOf(bookId));
+        Long id = KoboThumbnailService.parseBookId(bookId);
+        if (id != null) {
+            return koboThumbnailService.getThumbnail(id, width, height, isGreyscale);
         } else {
             String cdnUrl = String.format("https://cdn.kobo.com/book-images/%s/%d/%d/%d/%b/image.jpg", bookId, width, height, quality, isGreyscale);
             return koboServerProxy.proxyExternalUrl(cdnUrl);
@@ -4,7 +4,11 @@ import com.adityachandel.booklore.config.security.annotation.CheckLibraryAccess;
 import com.adityachandel.booklore.model.dto.Book;
 import com.adityachandel.booklore.model.dto.Library;
 import com.adityachandel.booklore.model.dto.request.CreateLibraryRequest;
+import com.adityachandel.booklore.model.dto.response.LibraryWatcherStatus;
+import com.adityachandel.booklore.model.dto.response.PendingFileStatus;
 import com.adityachandel.booklore.service.library.LibraryService;
+import com.adityachandel.booklore.service.monitoring.MonitoringService;
+import com.adityachandel.booklore.service.watcher.WriteStabilityGate;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -25,6 +29,8 @@ import java.util.Map;
 public class LibraryController {
 
     private final LibraryService libraryService;
+    private final MonitoringService monitoringService;
+    private final WriteStabilityGate writeStabilityGate;
 
     @Operation(summary = "Get all libraries", description = "Retrieve a list of all libraries.")
     @ApiResponse(responseCode = "200", description = "Libraries returned successfully")
@@ -33,6 +39,22 @@ public class LibraryController {
         return ResponseEntity.ok(libraryService.getLibraries());
     }
 
+    @Operation(summary = "Get folder watcher status", description = "Retrieve the watcher backend of every watched library, with polling cost where folders are polled. Requires admin.")
+    @ApiResponse(responseCode = "200", description = "Watcher status returned successfully")
+    @GetMapping("/watchers")
+    @PreAuthorize("@securityUtil.isAdmin()")
+    public ResponseEntity<List<LibraryWatcherStatus>> getWatcherStatuses() {
+        return ResponseEntity.ok(monitoringService.getWatcherStatuses());
+    }
+
+    @Operation(summary = "Get files waiting to be ingested", description = "Retrieve new files the watcher holds back until they are completely written. Requires admin.")
+    @ApiResponse(responseCode = "200", description = "Pending files returned successfully")
+    @GetMapping("/watchers/pending")
+    @PreAuthorize("@securityUtil.isAdmin()")
+    public ResponseEntity<List<PendingFileStatus>> getPendingFiles() {
+        return ResponseEntity.ok(writeStabilityGate.getPendingFiles());
+    }
+
     @Operation(summary = "Get a library by ID", description = "Retrieve details of a specific library by its ID.")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Library details returned successfully"),
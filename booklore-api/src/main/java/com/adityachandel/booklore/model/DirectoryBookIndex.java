@@ -0,0 +1,87 @@
+package com.adityachandel.booklore.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory directory tree of the books in a folder-as-book library, built once at the start of a scan.
+ * <p>
+ * Each library path is a trie keyed by the segments of the books' sub-paths, so finding the book that
+ * owns a directory, or the nearest one above it, is a handful of map lookups instead of loading every
+ * book under a sub-path prefix. Books created during the scan are added as they are inserted, so the
+ * index stays valid for the remainder of the scan. When a directory holds several books the lowest id wins.
+ */
+public class DirectoryBookIndex {
+
+    private final Map<Long, Node> roots = new ConcurrentHashMap<>();
+
+    public void addBook(long libraryPathId, String fileSubPath, long bookId) {
+        Node node = roots.computeIfAbsent(libraryPathId, id -> new Node());
+        for (String segment : segments(fileSubPath)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.offer(bookId);
+    }
+
+    /**
+     * Book whose file sits directly in the given directory, or {@code null}.
+     */
+    public Long findBookInDirectory(long libraryPathId, String subPath) {
+        Node node = roots.get(libraryPathId);
+        for (String segment : segments(subPath)) {
+            if (node == null) {
+                return null;
+            }
+            node = node.children.get(segment);
+        }
+        return node != null ? node.bookId : null;
+    }
+
+    /**
+     * Nearest book in a directory above the given one, up to and including the library path root, or {@code null}.
+     */
+    public Long findBookAbove(long libraryPathId, String subPath) {
+        Node node = roots.get(libraryPathId);
+        Long nearest = null;
+        for (String segment : segments(subPath)) {
+            if (node == null) {
+                break;
+            }
+            if (node.bookId != null) {
+                nearest = node.bookId;
+            }
+            node = node.children.get(segment);
+        }
+        return nearest;
+    }
+
+    /**
+     * Splits a sub-path into its directory names, ignoring leading, trailing and repeated separators.
+     */
+    public static List<String> segments(String subPath) {
+        List<String> segments = new ArrayList<>();
+        if (subPath == null) {
+            return segments;
+        }
+        for (String segment : subPath.split("[/\\\\]")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private volatile Long bookId;
+
+        synchronized void offer(long id) {
+            if (bookId == null || id < bookId) {
+                bookId = id;
+            }
+        }
+    }
+}
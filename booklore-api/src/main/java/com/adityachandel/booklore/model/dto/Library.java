@@ -21,5 +21,6 @@ public class Library {
     private List<LibraryPath> paths;
     private LibraryScanMode scanMode;
     private BookFileType defaultBookFormat;
+    private boolean contentHashEnabled;
 }
 
@@ -11,4 +11,6 @@ public class LibraryPath {
     private Long id;
     private Long libraryId;
     private String path;
+    private Long ioBytesPerSecond;
+    private Integer ioMaxOpenFiles;
 }
@@ -24,4 +24,5 @@ public class CreateLibraryRequest {
     private boolean watch;
     private LibraryScanMode scanMode;
     private BookFileType defaultBookFormat;
+    private boolean contentHashEnabled;
 }
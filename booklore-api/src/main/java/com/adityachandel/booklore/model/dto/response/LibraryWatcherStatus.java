@@ -0,0 +1,28 @@
+package com.adityachandel.booklore.model.dto.response;
+
+import com.adityachandel.booklore.model.enums.WatcherBackend;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibraryWatcherStatus {
+    private Long libraryId;
+    private WatcherBackend backend;
+    private int watchedDirectories;
+    private boolean registering;
+    private long pollIntervalSeconds;
+    private long polls;
+    private long directoryStats;
+    private long directoryListings;
+    private long lastPollMillis;
+    private long totalPollMillis;
+    private long cpuMillis;
+    private Instant lastPolledAt;
+}
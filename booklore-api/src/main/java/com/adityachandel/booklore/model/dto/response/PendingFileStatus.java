@@ -0,0 +1,22 @@
+package com.adityachandel.booklore.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingFileStatus {
+    private Long libraryId;
+    private String path;
+    private long sizeBytes;
+    private int checks;
+    private Instant firstSeenAt;
+    private Instant lastChangedAt;
+    private Instant nextCheckAt;
+}
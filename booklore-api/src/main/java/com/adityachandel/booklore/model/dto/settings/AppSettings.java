@@ -33,4 +33,5 @@ public class AppSettings {
     private MetadataPersistenceSettings metadataPersistenceSettings;
     private MetadataPublicReviewsSettings metadataPublicReviewsSettings;
     private KoboSettings koboSettings;
+    private LibraryScanSettings libraryScanSettings;
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import com.adityachandel.booklore.model.enums.BookFileType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -19,6 +20,11 @@ public class LibraryFile {
     private String fileSubPath;
     private String fileName;
     private BookFileType bookFileType;
+    @EqualsAndHashCode.Exclude
+    private String hash;
+    // Create only the shell book and leave cover and embedded metadata to the enrichment queue
+    @EqualsAndHashCode.Exclude
+    private boolean deferEnrichment;
 
     public Path getFullPath() {
         if (fileSubPath == null || fileSubPath.isEmpty()) {
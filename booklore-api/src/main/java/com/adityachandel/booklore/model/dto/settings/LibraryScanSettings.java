@@ -0,0 +1,32 @@
+package com.adityachandel.booklore.model.dto.settings;
+
+import com.adityachandel.booklore.model.enums.WatcherBackend;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LibraryScanSettings {
+    private int hashingConcurrency;
+    private int processingConcurrency;
+    private int pipelineWindowSize;
+    private int ingestBatchSize;
+    private boolean incrementalRescan;
+    private long ioBytesPerSecondPerPath;
+    private int ioMaxOpenFilesPerPath;
+    private boolean deferredEnrichment;
+    private int enrichmentConcurrency;
+    private int maxConcurrentLibraryScans;
+    private int maxConcurrentScansPerMount;
+    private int scanDbWriterBudget;
+    private WatcherBackend watcherBackend;
+    private long pollIntervalMinSeconds;
+    private long pollIntervalMaxSeconds;
+    private long writeQuietPeriodSeconds;
+    private long writeCheckMaxIntervalSeconds;
+    private long pdfCoverRenderTimeoutSeconds;
+}
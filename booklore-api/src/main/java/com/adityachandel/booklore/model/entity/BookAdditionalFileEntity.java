@@ -7,6 +7,7 @@ import lombok.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Objects;
 
 @Entity
 @Getter
@@ -44,6 +45,13 @@ public class BookAdditionalFileEntity {
     @Column(name = "current_hash", length = 128)
     private String currentHash;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Set when the file could not be read for a content hash, so it is not retried every night
+    @Column(name = "content_hash_failed_at")
+    private Instant contentHashFailedAt;
+
     @Column(name = "alt_format_current_hash", insertable = false, updatable = false)
     private String altFormatCurrentHash;
 
@@ -53,6 +61,14 @@ public class BookAdditionalFileEntity {
     @Column(name = "added_on")
     private Instant addedOn;
 
+    public void setCurrentHash(String currentHash) {
+        if (!Objects.equals(this.currentHash, currentHash)) {
+            this.contentHash = null;
+            this.contentHashFailedAt = null;
+        }
+        this.currentHash = currentHash;
+    }
+
     public Path getFullFilePath() {
         if (book == null || book.getLibraryPath() == null || book.getLibraryPath().getPath() == null
                 || fileSubPath == null || fileName == null) {
@@ -11,6 +11,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 @Entity
@@ -22,8 +23,10 @@ import java.util.Set;
 @Table(name = "book")
 public class BookEntity {
 
+    // Sequence ids are assigned on persist, which lets Hibernate batch book inserts (see V65)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id_seq")
+    @SequenceGenerator(name = "book_id_seq", sequenceName = "book_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "file_name", length = 1000)
@@ -61,12 +64,23 @@ public class BookEntity {
     @Column(name = "current_hash", length = 128)
     private String currentHash;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Set when the file could not be read for a content hash, so it is not retried every night
+    @Column(name = "content_hash_failed_at")
+    private Instant contentHashFailedAt;
+
     @Column(name = "deleted")
     private Boolean deleted = Boolean.FALSE;
 
     @Column(name = "deleted_at")
     private Instant deletedAt;
 
+    // Cover and embedded metadata are still to be read by the background enrichment queue
+    @Column(name = "enrichment_pending", nullable = false)
+    private boolean enrichmentPending;
+
     @ManyToMany
     @JoinTable(
             name = "book_shelf_mapping",
@@ -82,6 +96,14 @@ public class BookEntity {
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<BookAdditionalFileEntity> additionalFiles;
 
+    public void setCurrentHash(String currentHash) {
+        if (!Objects.equals(this.currentHash, currentHash)) {
+            this.contentHash = null;
+            this.contentHashFailedAt = null;
+        }
+        this.currentHash = currentHash;
+    }
+
     public Path getFullFilePath() {
         if (libraryPath == null || libraryPath.getPath() == null || fileSubPath == null || fileName == null) {
             throw new IllegalStateException("Cannot construct file path: missing library path, file subpath, or file name");
@@ -0,0 +1,47 @@
+package com.adityachandel.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "file_fingerprint_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileFingerprintEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "path_hash", length = 32, nullable = false, unique = true)
+    private String pathHash;
+
+    @Column(name = "file_path", columnDefinition = "TEXT", nullable = false)
+    private String filePath;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    @Column(name = "last_modified", nullable = false)
+    private long lastModified;
+
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(name = "fingerprint", length = 128, nullable = false)
+    private String fingerprint;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = Instant.now();
+    }
+}
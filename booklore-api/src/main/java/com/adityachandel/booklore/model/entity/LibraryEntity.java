@@ -50,4 +50,7 @@ public class LibraryEntity {
     @Enumerated(EnumType.STRING)
     @Column(name = "default_book_format")
     private BookFileType defaultBookFormat;
+
+    @Column(name = "content_hash_enabled", nullable = false)
+    private boolean contentHashEnabled;
 }
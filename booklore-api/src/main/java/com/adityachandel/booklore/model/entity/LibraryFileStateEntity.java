@@ -0,0 +1,53 @@
+package com.adityachandel.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "library_file_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LibraryFileStateEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "library_id", nullable = false)
+    private Long libraryId;
+
+    @Column(name = "library_path_id", nullable = false)
+    private Long libraryPathId;
+
+    @Column(name = "file_sub_path", length = 512, nullable = false)
+    private String fileSubPath;
+
+    @Column(name = "file_name", length = 1000, nullable = false)
+    private String fileName;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    @Column(name = "last_modified", nullable = false)
+    private long lastModified;
+
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(name = "fingerprint", length = 128)
+    private String fingerprint;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = Instant.now();
+    }
+}
@@ -24,4 +24,10 @@ public class LibraryPathEntity {
 
     @Column(nullable = false)
     private String path;
+
+    @Column(name = "io_bytes_per_second")
+    private Long ioBytesPerSecond;
+
+    @Column(name = "io_max_open_files")
+    private Integer ioMaxOpenFiles;
 }
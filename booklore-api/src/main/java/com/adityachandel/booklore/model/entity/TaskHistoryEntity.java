@@ -54,4 +54,8 @@ public class TaskHistoryEntity {
     @Convert(converter = JpaJsonConverter.class)
     @Column(name = "task_options", columnDefinition = "TEXT")
     private Map<String, Object> taskOptions;
+
+    @Convert(converter = JpaJsonConverter.class)
+    @Column(name = "checkpoint", columnDefinition = "TEXT")
+    private Map<String, Object> checkpoint;
 }
\ No newline at end of file
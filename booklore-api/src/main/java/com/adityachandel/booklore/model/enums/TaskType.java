@@ -46,7 +46,7 @@ public enum TaskType {
     ),
     SYNC_LIBRARY_FILES(
             false,
-            false,
+            true,
             true,
             false,
             "Sync Library Files",
@@ -60,6 +60,14 @@ public enum TaskType {
             "Cleanup Temporary Metadata",
             "Removes temporary metadata files created during the bookdrop and manual metadata review processes."
     ),
+    COMPUTE_CONTENT_HASHES(
+            false,
+            true,
+            true,
+            false,
+            "Compute Content Hashes",
+            "Reads every file in libraries with content hashing enabled to compute a full-content hash used for duplicate detection."
+    ),
     REFRESH_METADATA_MANUAL(
             false,
             true,
@@ -17,5 +17,6 @@ public class TaskProgressPayload {
     private String message;
     private int progress; // 0-100 percentage
     private TaskStatus taskStatus;
+    private Integer queuePosition; // set while the task waits for a library scan slot
 }
 
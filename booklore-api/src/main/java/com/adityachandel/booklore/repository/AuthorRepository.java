@@ -1,11 +1,14 @@
 package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.AuthorEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -15,6 +18,19 @@ public interface AuthorRepository extends JpaRepository<AuthorEntity, Long> {
 
     Optional<AuthorEntity> findByName(String name);
 
+    @Query("SELECT a.id AS id, a.name AS name FROM AuthorEntity a")
+    List<NameIdProjection> findAllNameIds();
+
+    @Query("SELECT a.id AS id, a.name AS name FROM AuthorEntity a WHERE a.name IN :names")
+    List<NameIdProjection> findNameIdsByNameIn(@Param("names") Collection<String> names);
+
+    /**
+     * Locking read, which sees rows committed after the caller's snapshot was taken.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT a FROM AuthorEntity a WHERE a.id IN :ids")
+    List<AuthorEntity> findAllForShareByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT a FROM AuthorEntity a JOIN a.bookMetadataEntityList bm WHERE bm.bookId = :bookId")
     List<AuthorEntity> findAuthorsByBookId(@Param("bookId") Long bookId);
 }
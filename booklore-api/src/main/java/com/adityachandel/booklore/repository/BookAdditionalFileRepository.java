@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +43,13 @@ public interface BookAdditionalFileRepository extends JpaRepository<BookAddition
 
     @Query("SELECT af FROM BookAdditionalFileEntity af WHERE af.book.library.id = :libraryId")
     List<BookAdditionalFileEntity> findByLibraryId(@Param("libraryId") Long libraryId);
+
+    @Query("SELECT af.id AS id, af.book.libraryPath.id AS libraryPathId, af.fileSubPath AS fileSubPath, af.fileName AS fileName FROM BookAdditionalFileEntity af WHERE af.book.library.id = :libraryId")
+    List<BookRepository.FilePathEntry> findFilePathEntriesByLibraryId(@Param("libraryId") long libraryId);
+
+    @Query("SELECT af.id AS id, af.book.libraryPath.id AS libraryPathId, af.fileSubPath AS fileSubPath, af.fileName AS fileName FROM BookAdditionalFileEntity af WHERE af.book.library.id = :libraryId AND af.fileName IN :fileNames")
+    List<BookRepository.FilePathEntry> findFilePathEntriesByLibraryIdAndFileNameIn(@Param("libraryId") long libraryId, @Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT af.id FROM BookAdditionalFileEntity af WHERE af.book.library.contentHashEnabled = true AND af.contentHash IS NULL AND (af.contentHashFailedAt IS NULL OR af.contentHashFailedAt < :retryFailedBefore) AND af.additionalFileType = :additionalFileType")
+    List<Long> findIdsMissingContentHash(@Param("additionalFileType") AdditionalFileType additionalFileType, @Param("retryFailedBefore") Instant retryFailedBefore);
 }
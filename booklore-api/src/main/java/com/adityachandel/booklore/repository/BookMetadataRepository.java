@@ -5,13 +5,18 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookMetadataRepository extends JpaRepository<BookMetadataEntity, Long> {
 
     @Query("SELECT m FROM BookMetadataEntity m WHERE m.bookId IN :bookIds")
     List<BookMetadataEntity> getMetadataForBookIds(@Param("bookIds") List<Long> bookIds);
 
+    @Query("SELECT m.coverUpdatedOn FROM BookMetadataEntity m WHERE m.bookId = :bookId")
+    Optional<Instant> findCoverUpdatedOnByBookId(@Param("bookId") long bookId);
+
     List<BookMetadataEntity> findAllByAuthorsContaining(AuthorEntity author);
 
     List<BookMetadataEntity> findAllByCategoriesContaining(CategoryEntity category);
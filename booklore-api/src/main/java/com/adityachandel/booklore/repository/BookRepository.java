@@ -26,9 +26,60 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
 
     Optional<BookEntity> findByCurrentHashAndDeletedTrue(String currentHash);
 
+    List<BookEntity> findAllByCurrentHash(String currentHash);
+
+    List<BookEntity> findAllByCurrentHashIn(Collection<String> currentHashes);
+
+    List<BookEntity> findAllByCurrentHashAndDeletedTrue(String currentHash);
+
+    interface DirectoryEntry {
+        Long getId();
+
+        Long getLibraryPathId();
+
+        String getFileSubPath();
+    }
+
+    interface FilePathEntry {
+        Long getId();
+
+        Long getLibraryPathId();
+
+        String getFileSubPath();
+
+        String getFileName();
+    }
+
+    /**
+     * Returns 1 when any book or alternative format file has {@code hash}, or a book of the library
+     * already has {@code fileName}, and 0 otherwise. Each branch is answered from an index.
+     */
+    @Query(value = "SELECT EXISTS(SELECT 1 FROM book WHERE current_hash = :hash)" +
+            " OR EXISTS(SELECT 1 FROM book_additional_file WHERE alt_format_current_hash = :hash)" +
+            " OR EXISTS(SELECT 1 FROM book WHERE file_name = :fileName AND library_id = :libraryId)", nativeQuery = true)
+    int countMatchingHashOrFileName(@Param("hash") String hash, @Param("fileName") String fileName, @Param("libraryId") long libraryId);
+
+    @Query("SELECT b.id AS id, b.libraryPath.id AS libraryPathId, b.fileSubPath AS fileSubPath FROM BookEntity b WHERE b.library.id = :libraryId")
+    List<DirectoryEntry> findDirectoryEntriesByLibraryId(@Param("libraryId") long libraryId);
+
+    @Query("SELECT b.id AS id, b.libraryPath.id AS libraryPathId, b.fileSubPath AS fileSubPath, b.fileName AS fileName FROM BookEntity b WHERE b.library.id = :libraryId AND (b.deleted IS NULL OR b.deleted = false)")
+    List<FilePathEntry> findFilePathEntriesByLibraryId(@Param("libraryId") long libraryId);
+
+    @Query("SELECT b.id AS id, b.libraryPath.id AS libraryPathId, b.fileSubPath AS fileSubPath, b.fileName AS fileName FROM BookEntity b WHERE b.library.id = :libraryId AND b.fileName IN :fileNames AND (b.deleted IS NULL OR b.deleted = false)")
+    List<FilePathEntry> findFilePathEntriesByLibraryIdAndFileNameIn(@Param("libraryId") long libraryId, @Param("fileNames") Collection<String> fileNames);
+
     @Query("SELECT b.id FROM BookEntity b WHERE b.library.id = :libraryId AND (b.deleted IS NULL OR b.deleted = false)")
     Set<Long> findBookIdsByLibraryId(@Param("libraryId") long libraryId);
 
+    @Query("SELECT b FROM BookEntity b WHERE b.library.id = :libraryId AND b.deleted = true")
+    List<BookEntity> findDeletedByLibraryId(@Param("libraryId") Long libraryId);
+
+    @Query("SELECT b.id FROM BookEntity b WHERE b.library.contentHashEnabled = true AND b.contentHash IS NULL AND (b.contentHashFailedAt IS NULL OR b.contentHashFailedAt < :retryFailedBefore) AND (b.deleted IS NULL OR b.deleted = false)")
+    List<Long> findIdsMissingContentHash(@Param("retryFailedBefore") Instant retryFailedBefore);
+
+    @Query("SELECT COUNT(b) FROM BookEntity b WHERE b.library.contentHashEnabled = true AND b.contentHash IS NULL AND (b.deleted IS NULL OR b.deleted = false)")
+    long countMissingContentHash();
+
     List<BookEntity> findAllByLibraryPathIdAndFileSubPathStartingWith(Long libraryPathId, String fileSubPathPrefix);
 
     @Query("SELECT b FROM BookEntity b WHERE b.libraryPath.id = :libraryPathId AND b.fileSubPath = :fileSubPath AND b.fileName = :fileName AND (b.deleted IS NULL OR b.deleted = false)")
@@ -39,6 +90,12 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
     @Query("SELECT b.id FROM BookEntity b WHERE b.libraryPath.id IN :libraryPathIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<Long> findAllBookIdsByLibraryPathIdIn(@Param("libraryPathIds") Collection<Long> libraryPathIds);
 
+    @Query("SELECT b.id FROM BookEntity b WHERE b.library.id = :libraryId AND (b.deleted IS NULL OR b.deleted = false) ORDER BY b.id")
+    List<Long> findActiveBookIdsByLibraryId(@Param("libraryId") Long libraryId);
+
+    @Query("SELECT b.id FROM BookEntity b WHERE b.enrichmentPending = true AND (b.deleted IS NULL OR b.deleted = false) ORDER BY b.id")
+    List<Long> findEnrichmentPendingBookIds();
+
     @EntityGraph(attributePaths = {"metadata", "shelves", "libraryPath"})
     @Query("SELECT b FROM BookEntity b WHERE (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadata();
@@ -1,9 +1,15 @@
 package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.CategoryEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +18,17 @@ public interface CategoryRepository extends JpaRepository<CategoryEntity, Long>
     Optional<CategoryEntity> findByName(String categoryName);
 
     Optional<CategoryEntity> findByNameIgnoreCase(String categoryName);
+
+    @Query("SELECT c.id AS id, c.name AS name FROM CategoryEntity c")
+    List<NameIdProjection> findAllNameIds();
+
+    @Query("SELECT c.id AS id, c.name AS name FROM CategoryEntity c WHERE c.name IN :names")
+    List<NameIdProjection> findNameIdsByNameIn(@Param("names") Collection<String> names);
+
+    /**
+     * Locking read, which sees rows committed after the caller's snapshot was taken.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM CategoryEntity c WHERE c.id IN :ids")
+    List<CategoryEntity> findAllForShareByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,25 @@
+package com.adityachandel.booklore.repository;
+
+import com.adityachandel.booklore.model.entity.FileFingerprintEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface FileFingerprintRepository extends JpaRepository<FileFingerprintEntity, Long> {
+
+    Optional<FileFingerprintEntity> findByPathHash(String pathHash);
+
+    @Modifying
+    @Query("DELETE FROM FileFingerprintEntity f WHERE f.pathHash IN :pathHashes")
+    int deleteByPathHashIn(@Param("pathHashes") Collection<String> pathHashes);
+
+    @Modifying
+    @Query("DELETE FROM FileFingerprintEntity f WHERE SUBSTRING(f.filePath, 1, LENGTH(:prefix)) = :prefix")
+    int deleteByFilePathPrefix(@Param("prefix") String prefix);
+}
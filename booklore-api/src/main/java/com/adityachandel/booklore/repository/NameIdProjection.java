@@ -0,0 +1,7 @@
+package com.adityachandel.booklore.repository;
+
+public interface NameIdProjection {
+    Long getId();
+
+    String getName();
+}
@@ -1,10 +1,12 @@
 package com.adityachandel.booklore.repository;
 
 import com.adityachandel.booklore.model.entity.TaskHistoryEntity;
+import com.adityachandel.booklore.task.TaskStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +16,6 @@ public interface TaskHistoryRepository extends JpaRepository<TaskHistoryEntity,
            "(SELECT MAX(t2.createdAt) FROM TaskHistoryEntity t2 WHERE t2.type = t.type) " +
            "ORDER BY t.createdAt DESC")
     List<TaskHistoryEntity> findLatestTaskForEachType();
+
+    List<TaskHistoryEntity> findByStatusInOrderByCreatedAtDesc(Collection<TaskStatus> statuses);
 }
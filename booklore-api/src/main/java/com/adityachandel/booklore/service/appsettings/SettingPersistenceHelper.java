@@ -4,6 +4,7 @@ import com.adityachandel.booklore.model.dto.request.MetadataRefreshOptions;
 import com.adityachandel.booklore.model.dto.settings.*;
 import com.adityachandel.booklore.model.entity.AppSettingEntity;
 import com.adityachandel.booklore.model.enums.MetadataProvider;
+import com.adityachandel.booklore.model.enums.WatcherBackend;
 import com.adityachandel.booklore.repository.AppSettingsRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -255,4 +256,27 @@ public class SettingPersistenceHelper {
                 .conversionLimitInMb(100)
                 .build();
     }
-}
\ No newline at end of file
+
+    public LibraryScanSettings getDefaultLibraryScanSettings() {
+        return LibraryScanSettings.builder()
+                .hashingConcurrency(4)
+                .processingConcurrency(2)
+                .pipelineWindowSize(64)
+                .ingestBatchSize(32)
+                .incrementalRescan(true)
+                .ioBytesPerSecondPerPath(0)
+                .ioMaxOpenFilesPerPath(8)
+                .deferredEnrichment(true)
+                .enrichmentConcurrency(2)
+                .maxConcurrentLibraryScans(2)
+                .maxConcurrentScansPerMount(1)
+                .scanDbWriterBudget(6)
+                .watcherBackend(WatcherBackend.AUTO)
+                .pollIntervalMinSeconds(15)
+                .pollIntervalMaxSeconds(600)
+                .writeQuietPeriodSeconds(5)
+                .writeCheckMaxIntervalSeconds(120)
+                .pdfCoverRenderTimeoutSeconds(15)
+                .build();
+    }
+}
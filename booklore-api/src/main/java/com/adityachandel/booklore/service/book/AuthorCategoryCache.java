@@ -0,0 +1,223 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.model.entity.AuthorEntity;
+import com.adityachandel.booklore.model.entity.CategoryEntity;
+import com.adityachandel.booklore.repository.AuthorRepository;
+import com.adityachandel.booklore.repository.CategoryRepository;
+import com.adityachandel.booklore.repository.NameIdProjection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resolves author and category names to entities without a lookup query per name.
+ * <p>
+ * Name to id mappings are loaded once from the database and kept in memory. Names that are not
+ * known yet are created together with a single {@code INSERT IGNORE} batch and read back with a
+ * single query, so concurrent ingest workers creating the same author do not fail on the unique
+ * constraint. Creating and looking up names runs in its own read-committed transaction: the
+ * caller's transaction may hold a repeatable-read snapshot taken before another worker committed
+ * the name, in which the insert is ignored but the row stays invisible. The ids are committed when
+ * they enter the shared cache, so a name created for a book that then fails to import remains as
+ * an author or category without books.
+ * <p>
+ * The entities themselves are loaded by id in the caller's transaction with a locking read, which
+ * sees the latest committed rows regardless of the snapshot, and any cached id that no longer
+ * matches its name (deleted or renamed) is dropped and resolved again.
+ */
+@Slf4j
+@Service
+public class AuthorCategoryCache {
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final NameIndex<AuthorEntity> authors;
+    private final NameIndex<CategoryEntity> categories;
+
+    public AuthorCategoryCache(AuthorRepository authorRepository,
+                               CategoryRepository categoryRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        TransactionTemplate lookupTemplate = new TransactionTemplate(transactionManager);
+        lookupTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        lookupTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.authors = new NameIndex<>("author", jdbcTemplate, lookupTemplate,
+                authorRepository::findAllNameIds,
+                authorRepository::findNameIdsByNameIn,
+                authorRepository::findAllForShareByIdIn,
+                authorRepository::findByName,
+                AuthorEntity::getId,
+                AuthorEntity::getName);
+        this.categories = new NameIndex<>("category", jdbcTemplate, lookupTemplate,
+                categoryRepository::findAllNameIds,
+                categoryRepository::findNameIdsByNameIn,
+                categoryRepository::findAllForShareByIdIn,
+                categoryRepository::findByName,
+                CategoryEntity::getId,
+                CategoryEntity::getName);
+    }
+
+    public Set<AuthorEntity> resolveAuthors(Collection<String> names) {
+        return authors.resolve(names);
+    }
+
+    public Set<CategoryEntity> resolveCategories(Collection<String> names) {
+        return categories.resolve(names);
+    }
+
+    private static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.length() <= MAX_NAME_LENGTH ? name : name.substring(0, MAX_NAME_LENGTH);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class NameIndex<E> {
+
+        private final String table;
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate lookupTemplate;
+        private final Supplier<List<NameIdProjection>> loadAll;
+        private final Function<Collection<String>, List<NameIdProjection>> loadByNames;
+        private final Function<Collection<Long>, List<E>> loadByIds;
+        private final Function<String, Optional<E>> loadByName;
+        private final Function<E, Long> idOf;
+        private final Function<E, String> nameOf;
+
+        private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+        private volatile boolean warmed;
+
+        NameIndex(String table,
+                  JdbcTemplate jdbcTemplate,
+                  TransactionTemplate lookupTemplate,
+                  Supplier<List<NameIdProjection>> loadAll,
+                  Function<Collection<String>, List<NameIdProjection>> loadByNames,
+                  Function<Collection<Long>, List<E>> loadByIds,
+                  Function<String, Optional<E>> loadByName,
+                  Function<E, Long> idOf,
+                  Function<E, String> nameOf) {
+            this.table = table;
+            this.jdbcTemplate = jdbcTemplate;
+            this.lookupTemplate = lookupTemplate;
+            this.loadAll = loadAll;
+            this.loadByNames = loadByNames;
+            this.loadByIds = loadByIds;
+            this.loadByName = loadByName;
+            this.idOf = idOf;
+            this.nameOf = nameOf;
+        }
+
+        Set<E> resolve(Collection<String> rawNames) {
+            Map<String, String> namesByKey = new LinkedHashMap<>();
+            for (String rawName : rawNames) {
+                String name = normalize(rawName);
+                if (name != null) {
+                    namesByKey.putIfAbsent(key(name), name);
+                }
+            }
+            if (namesByKey.isEmpty()) {
+                return new HashSet<>();
+            }
+            warm();
+
+            Set<String> missing = new TreeSet<>();
+            for (Map.Entry<String, String> entry : namesByKey.entrySet()) {
+                if (!idsByName.containsKey(entry.getKey())) {
+                    missing.add(entry.getValue());
+                }
+            }
+            if (!missing.isEmpty()) {
+                idsByName.putAll(lookupTemplate.execute(status -> insertMissing(missing)));
+            }
+
+            Map<Long, String> keysById = new HashMap<>();
+            for (String key : namesByKey.keySet()) {
+                Long id = idsByName.get(key);
+                if (id != null) {
+                    keysById.put(id, key);
+                }
+            }
+
+            Set<E> resolved = new HashSet<>();
+            Set<String> resolvedKeys = new HashSet<>();
+            if (!keysById.isEmpty()) {
+                for (E entity : loadByIds.apply(keysById.keySet())) {
+                    String key = keysById.get(idOf.apply(entity));
+                    if (key != null && nameOf.apply(entity) != null && key.equals(key(nameOf.apply(entity)))) {
+                        resolved.add(entity);
+                        resolvedKeys.add(key);
+                    }
+                }
+            }
+
+            // Anything left is stale in the cache, or not matched by the IN query because the
+            // database collation compares names differently. Fall back to a lookup by name and,
+            // failing that, insert again
+            for (Map.Entry<String, String> entry : namesByKey.entrySet()) {
+                if (resolvedKeys.contains(entry.getKey())) {
+                    continue;
+                }
+                idsByName.remove(entry.getKey());
+                Long id = lookupTemplate.execute(status -> findOrInsert(entry.getValue()));
+                Optional<E> entity = id == null ? Optional.empty() : loadByIds.apply(List.of(id)).stream().findFirst();
+                entity.ifPresentOrElse(found -> {
+                    idsByName.put(entry.getKey(), idOf.apply(found));
+                    resolved.add(found);
+                }, () -> log.warn("Could not resolve {} '{}'", table, entry.getValue()));
+            }
+            return resolved;
+        }
+
+        private void warm() {
+            if (warmed) {
+                return;
+            }
+            synchronized (this) {
+                if (warmed) {
+                    return;
+                }
+                List<NameIdProjection> entries = loadAll.get();
+                for (NameIdProjection entry : entries) {
+                    if (entry.getName() != null) {
+                        idsByName.putIfAbsent(key(entry.getName()), entry.getId());
+                    }
+                }
+                warmed = true;
+                log.info("Loaded {} {} names into the resolution cache", entries.size(), table);
+            }
+        }
+
+        private Map<String, Long> insertMissing(Set<String> missing) {
+            // Sorted names keep the insert order stable across workers, which avoids lock cycles
+            List<String> names = new ArrayList<>(missing);
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO " + table + " (name) VALUES (?)", names, names.size(),
+                    (statement, name) -> statement.setString(1, name));
+            Map<String, Long> ids = new HashMap<>();
+            for (NameIdProjection entry : loadByNames.apply(names)) {
+                ids.put(key(entry.getName()), entry.getId());
+            }
+            return ids;
+        }
+
+        private Long findOrInsert(String name) {
+            Optional<E> entity = loadByName.apply(name);
+            if (entity.isEmpty()) {
+                insertMissing(Set.of(name));
+                entity = loadByName.apply(name);
+            }
+            return entity.map(idOf).orElse(null);
+        }
+    }
+}
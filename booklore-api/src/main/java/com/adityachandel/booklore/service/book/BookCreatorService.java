@@ -18,9 +18,9 @@ import java.util.*;
 public class BookCreatorService {
 
     private final AuthorRepository authorRepository;
-    private final CategoryRepository categoryRepository;
     private final BookRepository bookRepository;
     private final BookMetadataRepository bookMetadataRepository;
+    private final AuthorCategoryCache authorCategoryCache;
 
     public BookEntity createShellBook(LibraryFile libraryFile, BookFileType bookFileType) {
         long fileSizeKb = FileUtils.getFileSizeInKb(libraryFile.getFullPath());
@@ -35,35 +35,23 @@ public class BookCreatorService {
                 .addedOn(Instant.now())
                 .metadata(metadata)
                 .build();
-        return bookRepository.saveAndFlush(bookEntity);
+        // No flush here: the id comes from the sequence on persist, and the book, its metadata and
+        // the author/category mappings are written together in JDBC batches when the ingest commits
+        return bookRepository.save(bookEntity);
     }
 
     public void addCategoriesToBook(Set<String> categories, BookEntity bookEntity) {
         if (bookEntity.getMetadata().getCategories() == null) {
             bookEntity.getMetadata().setCategories(new HashSet<>());
         }
-        categories.stream()
-                .map(cat -> truncate(cat, 255))
-                .map(truncated -> categoryRepository.findByName(truncated)
-                        .orElseGet(() -> categoryRepository.save(CategoryEntity.builder().name(truncated).build())))
-                .forEach(catEntity -> bookEntity.getMetadata().getCategories().add(catEntity));
+        bookEntity.getMetadata().getCategories().addAll(authorCategoryCache.resolveCategories(categories));
     }
 
     public void addAuthorsToBook(Set<String> authors, BookEntity bookEntity) {
         if (bookEntity.getMetadata().getAuthors() == null) {
             bookEntity.getMetadata().setAuthors(new HashSet<>());
         }
-        authors.stream()
-                .map(authorName -> truncate(authorName, 255))
-                .map(authorName -> authorRepository.findByName(authorName)
-                        .orElseGet(() -> authorRepository.save(AuthorEntity.builder().name(authorName).build())))
-                .forEach(authorEntity -> bookEntity.getMetadata().getAuthors().add(authorEntity));
-    }
-
-    private String truncate(String input, int maxLength) {
-        if (input == null)
-            return null;
-        return input.length() <= maxLength ? input : input.substring(0, maxLength);
+        bookEntity.getMetadata().getAuthors().addAll(authorCategoryCache.resolveAuthors(authors));
     }
 
     public void saveConnections(BookEntity bookEntity) {
@@ -17,6 +17,7 @@ import com.adityachandel.booklore.model.enums.ResetProgressType;
 import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.user.UserProgressService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
 import lombok.AllArgsConstructor;
@@ -61,6 +62,7 @@ public class BookService {
     private final UserProgressService userProgressService;
     private final BookDownloadService bookDownloadService;
     private final MonitoringRegistrationService monitoringRegistrationService;
+    private final FileFingerprintCache fileFingerprintCache;
 
 
     private void setBookProgress(Book book, UserBookProgressEntity progress) {
@@ -579,7 +581,9 @@ public class BookService {
             }
         }
 
+        List<Path> paths = books.stream().map(BookEntity::getFullFilePath).toList();
         bookRepository.deleteAll(books);
+        fileFingerprintCache.evict(paths);
         BookDeletionResponse response = new BookDeletionResponse(ids, failedFileDeletions);
         return failedFileDeletions.isEmpty()
                 ? ResponseEntity.ok(response)
@@ -0,0 +1,63 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.repository.BookMetadataRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caching headers for cover images, derived from the time the cover was last generated.
+ * <p>
+ * Clients put that time in the cover URL as a {@code v} version token. A URL whose token matches
+ * the current cover can never change and is cached for a year without revalidation; regenerating
+ * the cover changes the token and therefore the URL. Requests without a current token are cached
+ * briefly and revalidated with a strong ETag and Last-Modified, which Spring answers with
+ * {@code 304 Not Modified}.
+ */
+@Service
+@RequiredArgsConstructor
+public class CoverCacheService {
+
+    static final CacheControl VERSIONED = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    static final CacheControl UNVERSIONED = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+
+    private final BookMetadataRepository bookMetadataRepository;
+
+    /**
+     * Starts a {@code 200} response for {@code representation}, such as a size, of the cover of
+     * {@code bookId}, requested with version token {@code version}.
+     */
+    public ResponseEntity.BodyBuilder ok(long bookId, String version, String representation) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        Optional<Instant> coverUpdatedOn = bookMetadataRepository.findCoverUpdatedOnByBookId(bookId);
+        if (coverUpdatedOn.isEmpty()) {
+            return response.cacheControl(UNVERSIONED);
+        }
+        Instant updatedOn = coverUpdatedOn.get();
+        return response
+                .eTag(bookId + "-" + updatedOn.getEpochSecond() + "-" + representation)
+                .lastModified(updatedOn)
+                .cacheControl(isCurrent(version, updatedOn) ? VERSIONED : UNVERSIONED);
+    }
+
+    /**
+     * The cover time is stored with second precision, while clients may have seen it with the
+     * fraction it had before it was stored.
+     */
+    static boolean isCurrent(String version, Instant coverUpdatedOn) {
+        if (version == null || version.isBlank()) {
+            return false;
+        }
+        try {
+            return Instant.parse(version).getEpochSecond() == coverUpdatedOn.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static com.adityachandel.booklore.model.websocket.LogNotification.createLogNotification;
 
@@ -30,4 +32,29 @@ public class BookEventBroadcaster {
                     messagingTemplate.convertAndSendToUser(username, Topic.LOG.getPath(), LogNotification.info("Book added: " + book.getFileName()));
                 });
     }
+
+    public void broadcastBookUpdateEvent(Book book) {
+        Long libraryId = book.getLibraryId();
+        userService.getBookLoreUsers().stream()
+                .filter(u -> u.getPermissions().isAdmin() || u.getAssignedLibraries().stream()
+                        .anyMatch(lib -> lib.getId().equals(libraryId)))
+                .forEach(u -> messagingTemplate.convertAndSendToUser(u.getUsername(), Topic.BOOK_UPDATE.getPath(), book));
+    }
+
+    /**
+     * Broadcasts the update once the current transaction has committed, or right away outside a
+     * transaction, so that clients are never told about a change that is rolled back.
+     */
+    public void broadcastBookUpdateEventAfterCommit(Book book) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            broadcastBookUpdateEvent(book);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                broadcastBookUpdateEvent(book);
+            }
+        });
+    }
 }
@@ -0,0 +1,304 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.util.FileService;
+import com.adityachandel.booklore.util.ImageUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Serves book covers scaled to the width a client actually displays.
+ * <p>
+ * Requested widths are rounded up to one of a few {@link #WIDTH_BUCKETS}, so all clients share a
+ * handful of variants per cover, and small variants are encoded at a lower JPEG quality where the
+ * loss is invisible. E-readers get the cover fitted to one of a few screen-sized {@link #BOXES}.
+ * Variants are cached on disk next to the cover, named after a digest of the
+ * cover they were made from, so replacing a cover never serves a stale variant. Concurrent
+ * requests for a variant that is not cached yet wait for a single render.
+ */
+@Slf4j
+@Service
+public class CoverDerivativeService {
+
+    static final int[] WIDTH_BUCKETS = {64, 128, 256, 384, 512, 768, 1024};
+    /**
+     * Bounding boxes for e-reader covers: library thumbnails, then the screens of common devices.
+     */
+    static final int[][] BOXES = {{160, 240}, {355, 530}, {758, 1024}, {1072, 1448}, {1264, 1680}, {1404, 1872}, {1680, 2240}};
+    private static final String VARIANTS_DIR = "variants";
+
+    private final FileService fileService;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Timer renderTimer;
+
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, CoverKey> coverKeys = new ConcurrentHashMap<>();
+
+    public CoverDerivativeService(FileService fileService, MeterRegistry meterRegistry) {
+        this.fileService = fileService;
+        this.hitCounter = Counter.builder("booklore.cover.variant").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("booklore.cover.variant").tag("result", "miss").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("booklore.cover.variant").tag("result", "coalesced").register(meterRegistry);
+        this.renderTimer = Timer.builder("booklore.cover.variant.render").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cover of {@code bookId} scaled to at least {@code requestedWidth} pixels, or the
+     * cover itself when it is not wider than that. Empty when the book has no cover or the variant
+     * cannot be rendered.
+     */
+    public Optional<Path> getVariant(long bookId, int requestedWidth) {
+        int width = bucketFor(requestedWidth);
+        return variant(bookId, "w" + width,
+                coverKey -> coverKey.width() <= width,
+                source -> fileService.resizeImage(source, width, Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth()))),
+                width, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the cover of {@code bookId} scaled to fit the smallest of {@link #BOXES} that holds a
+     * {@code boxWidth} x {@code boxHeight} box, optionally in greyscale, for e-readers that ask for
+     * covers at their screen size. The cover itself is returned when it already fits and no
+     * greyscale conversion is needed; covers are never scaled up.
+     */
+    public Optional<Path> getBoxVariant(long bookId, int boxWidth, int boxHeight, boolean greyscale) {
+        int[] box = boxFor(boxWidth, boxHeight);
+        String name = box[0] + "x" + box[1] + (greyscale ? "-grey" : "");
+        return variant(bookId, name,
+                coverKey -> !greyscale && coverKey.width() <= box[0] && coverKey.height() <= box[1],
+                source -> {
+                    double scale = Math.min(1.0, Math.min((double) box[0] / source.getWidth(), (double) box[1] / source.getHeight()));
+                    int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+                    int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+                    BufferedImage scaled = scale < 1.0 ? fileService.resizeImage(source, width, height) : source;
+                    return greyscale ? toGreyscale(scaled) : scaled;
+                },
+                box[0], box[1]);
+    }
+
+    private Optional<Path> variant(long bookId, String name, Predicate<CoverKey> coverFits, UnaryOperator<BufferedImage> transform, int maxWidth, int maxHeight) {
+        Path cover = Paths.get(fileService.getCoverFile(bookId));
+        CoverKey coverKey;
+        try {
+            coverKey = coverKey(bookId, cover);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to read cover of book {}: {}", bookId, e.getMessage());
+            return Optional.empty();
+        }
+
+        if (coverFits.test(coverKey)) {
+            return Optional.of(cover);
+        }
+
+        Path variant = cover.resolveSibling(VARIANTS_DIR).resolve(coverKey.digest() + "-" + name + ".jpg");
+        if (Files.exists(variant)) {
+            hitCounter.increment();
+            return Optional.of(variant);
+        }
+
+        CompletableFuture<Path> render = new CompletableFuture<>();
+        CompletableFuture<Path> pending = inFlight.putIfAbsent(variant, render);
+        if (pending != null) {
+            coalescedCounter.increment();
+            try {
+                return Optional.ofNullable(pending.join());
+            } catch (CompletionException e) {
+                return Optional.empty();
+            }
+        }
+
+        missCounter.increment();
+        try {
+            renderTimer.record(() -> render(cover, variant, transform, maxWidth, maxHeight, coverKey.digest()));
+            render.complete(variant);
+            return Optional.of(variant);
+        } catch (RuntimeException e) {
+            log.warn("Failed to render {} cover of book {}: {}", name, bookId, e.getMessage());
+            render.complete(null);
+            return Optional.empty();
+        } finally {
+            inFlight.remove(variant, render);
+        }
+    }
+
+    public static int bucketFor(int requestedWidth) {
+        for (int bucket : WIDTH_BUCKETS) {
+            if (bucket >= requestedWidth) {
+                return bucket;
+            }
+        }
+        return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
+    }
+
+    static int[] boxFor(int boxWidth, int boxHeight) {
+        for (int[] box : BOXES) {
+            if (box[0] >= boxWidth && box[1] >= boxHeight) {
+                return box;
+            }
+        }
+        return BOXES[BOXES.length - 1];
+    }
+
+    /**
+     * Small variants are viewed at small sizes, where compression artefacts are not visible.
+     */
+    static float qualityFor(int width) {
+        if (width <= 128) return 0.70f;
+        if (width <= 384) return 0.78f;
+        return 0.85f;
+    }
+
+    private void render(Path cover, Path variant, UnaryOperator<BufferedImage> transform, int maxWidth, int maxHeight, String digest) {
+        try {
+            BufferedImage source = ImageUtils.read(cover, maxWidth, maxHeight);
+            if (source == null) {
+                throw new IOException("Unsupported image format");
+            }
+            BufferedImage scaled = transform.apply(source);
+
+            Files.createDirectories(variant.getParent());
+            Path temp = Files.createTempFile(variant.getParent(), "variant", ".tmp");
+            try {
+                writeJpeg(scaled, temp, qualityFor(maxWidth));
+                try {
+                    Files.move(temp, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            deleteStaleVariants(variant.getParent(), digest);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static BufferedImage toGreyscale(BufferedImage image) {
+        BufferedImage grey = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = grey.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return grey;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Variants of a replaced cover are never requested again.
+     */
+    private static void deleteStaleVariants(Path folder, String digest) {
+        try (Stream<Path> files = Files.list(folder)) {
+            files.filter(file -> !file.getFileName().toString().startsWith(digest + "-"))
+                    .filter(file -> file.getFileName().toString().endsWith(".jpg"))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            log.debug("Failed to delete stale cover variant {}: {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.debug("Failed to clean cover variants in {}: {}", folder, e.getMessage());
+        }
+    }
+
+    /**
+     * Digest and dimensions of the current cover, recomputed only when its size or modification
+     * time changes.
+     */
+    private CoverKey coverKey(long bookId, Path cover) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(cover, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        CoverKey cached = coverKeys.get(bookId);
+        if (cached != null && cached.modified() == modified && cached.size() == attributes.size()) {
+            return cached;
+        }
+        int[] dimensions = readDimensions(cover);
+        CoverKey coverKey = new CoverKey(modified, attributes.size(), digest(cover), dimensions[0], dimensions[1]);
+        coverKeys.put(bookId, coverKey);
+        return coverKey;
+    }
+
+    private static String digest(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the dimensions from the image header without decoding the pixels.
+     */
+    private static int[] readDimensions(Path image) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private record CoverKey(long modified, long size, String digest, int width, int height) {
+    }
+}
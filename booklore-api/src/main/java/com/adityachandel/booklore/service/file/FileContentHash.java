@@ -0,0 +1,54 @@
+package com.adityachandel.booklore.service.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Full-content digest used by libraries with content hashing enabled.
+ * <p>
+ * Unlike {@link FileFingerprint}, which only samples a few blocks, this reads every byte of the file
+ * through a direct buffer. The digest combines the file length with CRC32C and CRC32 of the content;
+ * both are intrinsified by the JVM, so hashing is bound by disk throughput rather than CPU.
+ * Every buffer is charged to an {@link IoGovernor.Permit} before it is read, so background hashing
+ * stays within the library path's I/O budget.
+ */
+public class FileContentHash {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    public static String generateHash(Path filePath) {
+        return generateHash(filePath, IoGovernor.Permit.NONE);
+    }
+
+    public static String generateHash(Path filePath, IoGovernor.Permit permit) {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            CRC32C crc32c = new CRC32C();
+            CRC32 crc32 = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long size = channel.size();
+            long length = 0;
+
+            permit.reserve(Math.min(BUFFER_SIZE, size));
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                length += buffer.remaining();
+                crc32c.update(buffer.duplicate());
+                crc32.update(buffer);
+                buffer.clear();
+                permit.reserve(Math.min(BUFFER_SIZE, size - length));
+            }
+
+            return HEX.toHexDigits(length) + HEX.toHexDigits((int) crc32c.getValue()) + HEX.toHexDigits((int) crc32.getValue());
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compute content hash for: " + filePath, e);
+        }
+    }
+}
@@ -1,41 +1,57 @@
 package com.adityachandel.booklore.service.file;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class FileFingerprint {
 
-    public static String generateHash(Path filePath) {
-        final long base = 1024L;
-        final int blockSize = 1024;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final long BASE = 1024L;
+    private static final int BLOCK_SIZE = 1024;
 
-        try (RandomAccessFile raf = new RandomAccessFile(filePath.toFile(), "r")) {
+    public static String generateHash(Path filePath) {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
             MessageDigest md5 = MessageDigest.getInstance("MD5");
-            byte[] buffer = new byte[blockSize];
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            long size = channel.size();
 
             for (int i = -1; i <= 10; i++) {
-                long position = base << (2 * i);
-                if (position >= raf.length()) break;
+                long position = BASE << (2 * i);
+                if (position >= size) break;
 
-                raf.seek(position);
-                int read = raf.read(buffer);
-                if (read > 0) {
-                    md5.update(buffer, 0, read);
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position + buffer.position());
+                    if (read < 0) break;
                 }
+                buffer.flip();
+                md5.update(buffer);
             }
 
-            byte[] hash = md5.digest();
-            StringBuilder result = new StringBuilder(hash.length * 2);
-            for (byte b : hash) {
-                result.append(String.format("%02x", b));
-            }
-            return result.toString();
+            return HEX.formatHex(md5.digest());
 
         } catch (IOException | NoSuchAlgorithmException e) {
             throw new RuntimeException("Failed to compute partial MD5 hash for: " + filePath, e);
         }
     }
+
+    /**
+     * Number of bytes {@link #generateHash} reads from a file of the given size.
+     */
+    public static long sampledBytes(long size) {
+        long total = 0;
+        for (int i = -1; i <= 10; i++) {
+            long position = BASE << (2 * i);
+            if (position >= size) break;
+            total += Math.min(BLOCK_SIZE, size - position);
+        }
+        return total;
+    }
 }
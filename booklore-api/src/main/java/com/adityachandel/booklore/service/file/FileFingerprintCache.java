@@ -0,0 +1,198 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.model.entity.FileFingerprintEntity;
+import com.adityachandel.booklore.repository.FileFingerprintRepository;
+import com.adityachandel.booklore.util.Md5Util;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Caches {@link FileFingerprint} results keyed by (path, size, mtime, file key).
+ * <p>
+ * Lookups go through an in-memory LRU first and the {@code file_fingerprint_cache} table second;
+ * file contents are only read when neither has an entry matching the file's current stat tuple.
+ * Entries of deleted books and removed library paths are pruned through {@link #evict} and
+ * {@link #evictUnder}.
+ */
+@Slf4j
+@Service
+public class FileFingerprintCache {
+
+    private static final int MAX_MEMORY_ENTRIES = 20_000;
+
+    private final FileFingerprintRepository fileFingerprintRepository;
+    private final IoGovernor ioGovernor;
+    private final TransactionTemplate writeTemplate;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    private final Map<String, CachedFingerprint> memoryCache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedFingerprint> eldest) {
+            return size() > MAX_MEMORY_ENTRIES;
+        }
+    };
+
+    public FileFingerprintCache(FileFingerprintRepository fileFingerprintRepository,
+                                IoGovernor ioGovernor,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.fileFingerprintRepository = fileFingerprintRepository;
+        this.ioGovernor = ioGovernor;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memoryHits = meterRegistry.counter("booklore.fingerprint.cache", "result", "memory_hit");
+        this.databaseHits = meterRegistry.counter("booklore.fingerprint.cache", "result", "db_hit");
+        this.misses = meterRegistry.counter("booklore.fingerprint.cache", "result", "miss");
+    }
+
+    public String getHash(Path path) {
+        String filePath = normalize(path);
+        CachedFingerprint current = stat(path);
+
+        CachedFingerprint cached;
+        synchronized (memoryCache) {
+            cached = memoryCache.get(filePath);
+        }
+        if (cached != null && cached.sameFileAs(current)) {
+            memoryHits.increment();
+            return cached.fingerprint();
+        }
+
+        String pathHash = Md5Util.md5Hex(filePath);
+        FileFingerprintEntity entity = fileFingerprintRepository.findByPathHash(pathHash).orElse(null);
+        if (entity != null && current.sameFileAs(entity)) {
+            databaseHits.increment();
+            remember(filePath, current.withFingerprint(entity.getFingerprint()));
+            return entity.getFingerprint();
+        }
+
+        misses.increment();
+        return hashAndStore(path, filePath, pathHash, current, entity);
+    }
+
+    /**
+     * Hashes {@code path} right after it was rewritten and caches the result. Skips the lookup, as
+     * a rewrite that keeps the size within the mtime granularity would still match the old entry.
+     */
+    public String rehash(Path path) {
+        String filePath = normalize(path);
+        String pathHash = Md5Util.md5Hex(filePath);
+        misses.increment();
+        return hashAndStore(path, filePath, pathHash, stat(path), fileFingerprintRepository.findByPathHash(pathHash).orElse(null));
+    }
+
+    /**
+     * Forgets the fingerprints of files that are no longer part of a library.
+     */
+    public void evict(Collection<Path> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        List<String> pathHashes = new ArrayList<>(paths.size());
+        synchronized (memoryCache) {
+            for (Path path : paths) {
+                String filePath = normalize(path);
+                memoryCache.remove(filePath);
+                pathHashes.add(Md5Util.md5Hex(filePath));
+            }
+        }
+        delete(() -> fileFingerprintRepository.deleteByPathHashIn(pathHashes));
+    }
+
+    /**
+     * Forgets the fingerprints of every file below {@code directory}, such as a removed library path.
+     */
+    public void evictUnder(Path directory) {
+        String prefix = normalize(directory) + File.separator;
+        synchronized (memoryCache) {
+            memoryCache.keySet().removeIf(filePath -> filePath.startsWith(prefix));
+        }
+        delete(() -> fileFingerprintRepository.deleteByFilePathPrefix(prefix));
+    }
+
+    private String hashAndStore(Path path, String filePath, String pathHash, CachedFingerprint current, FileFingerprintEntity entity) {
+        String fingerprint;
+        try (IoGovernor.Permit permit = ioGovernor.acquire(path, IoGovernor.Priority.BACKGROUND)) {
+            permit.reserve(FileFingerprint.sampledBytes(current.size()));
+            fingerprint = FileFingerprint.generateHash(path);
+        }
+        remember(filePath, current.withFingerprint(fingerprint));
+        persist(entity, pathHash, filePath, current, fingerprint);
+        return fingerprint;
+    }
+
+    private void delete(Runnable deletion) {
+        try {
+            writeTemplate.executeWithoutResult(status -> deletion.run());
+        } catch (DataAccessException e) {
+            log.warn("Could not prune cached fingerprints: {}", e.getMessage());
+        }
+    }
+
+    private static String normalize(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private void remember(String filePath, CachedFingerprint fingerprint) {
+        synchronized (memoryCache) {
+            memoryCache.put(filePath, fingerprint);
+        }
+    }
+
+    private void persist(FileFingerprintEntity existing, String pathHash, String filePath, CachedFingerprint stat, String fingerprint) {
+        FileFingerprintEntity entity = existing != null ? existing : FileFingerprintEntity.builder()
+                .pathHash(pathHash)
+                .filePath(filePath)
+                .build();
+        entity.setFileSize(stat.size());
+        entity.setLastModified(stat.lastModified());
+        entity.setFileKey(stat.fileKey());
+        entity.setFingerprint(fingerprint);
+        try {
+            writeTemplate.executeWithoutResult(status -> fileFingerprintRepository.save(entity));
+        } catch (DataAccessException e) {
+            log.debug("Could not persist fingerprint for '{}': {}", filePath, e.getMessage());
+        }
+    }
+
+    private static CachedFingerprint stat(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            Object fileKey = attrs.fileKey();
+            return new CachedFingerprint(attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey != null ? fileKey.toString() : null, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read attributes of: " + path, e);
+        }
+    }
+
+    private record CachedFingerprint(long size, long lastModified, String fileKey, String fingerprint) {
+
+        CachedFingerprint withFingerprint(String fingerprint) {
+            return new CachedFingerprint(size, lastModified, fileKey, fingerprint);
+        }
+
+        boolean sameFileAs(CachedFingerprint other) {
+            return size == other.size && lastModified == other.lastModified && Objects.equals(fileKey, other.fileKey);
+        }
+
+        boolean sameFileAs(FileFingerprintEntity entity) {
+            return size == entity.getFileSize() && lastModified == entity.getLastModified() && Objects.equals(fileKey, entity.getFileKey());
+        }
+    }
+}
@@ -16,7 +16,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Slf4j
@@ -29,6 +31,7 @@ public class FileMoveHelper {
 
     public void moveFile(Path source, Path target) throws IOException {
         if (target.getParent() != null) {
+            monitoringRegistrationService.suppressEvents(missingFolders(target.getParent()));
             Files.createDirectories(target.getParent());
         }
         log.info("Moving file from {} to {}", source, target);
@@ -42,12 +45,21 @@ public class FileMoveHelper {
         return relativeSubPath.toString().replace('\\', '/');
     }
 
-    public void unregisterLibrary(Long libraryId) {
-        monitoringRegistrationService.unregisterLibrary(libraryId);
+    /**
+     * Keeps the folder watchers from reporting a move as a deleted and a new book. The folders
+     * {@link #moveFile} creates and {@link #deleteEmptyParentDirsUpToLibraryFolders} removes are
+     * suppressed by those methods, so folders that already existed still report their events.
+     */
+    public void suppressWatcherEvents(Path source, Path target) {
+        monitoringRegistrationService.suppressEvents(List.of(source, target));
     }
 
-    public void registerLibraryPaths(Long libraryId, Path libraryRoot) {
-        monitoringRegistrationService.registerLibraryPaths(libraryId, libraryRoot);
+    private static List<Path> missingFolders(Path folder) {
+        List<Path> missing = new ArrayList<>();
+        for (Path current = folder.toAbsolutePath().normalize(); current != null && Files.notExists(current); current = current.getParent()) {
+            missing.add(current);
+        }
+        return missing;
     }
 
     public String getFileNamingPattern(LibraryEntity library) {
@@ -135,6 +147,7 @@ public class FileMoveHelper {
                 log.warn("Failed to delete ignored file: {}", file.getAbsolutePath());
             }
         }
+        monitoringRegistrationService.suppressEvents(List.of(currentDir));
         try {
             Files.delete(currentDir);
             log.info("Deleted empty directory: {}", currentDir);
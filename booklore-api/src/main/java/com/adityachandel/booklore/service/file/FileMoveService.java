@@ -1,7 +1,6 @@
 package com.adityachandel.booklore.service.file;
 
 import com.adityachandel.booklore.mapper.BookMapper;
-import com.adityachandel.booklore.mapper.LibraryMapper;
 import com.adityachandel.booklore.model.dto.FileMoveResult;
 import com.adityachandel.booklore.model.dto.request.FileMoveRequest;
 import com.adityachandel.booklore.model.entity.BookEntity;
@@ -11,7 +10,6 @@ import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
-import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
 import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +19,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
@@ -31,8 +28,6 @@ public class FileMoveService {
     private final BookRepository bookRepository;
     private final LibraryRepository libraryRepository;
     private final FileMoveHelper fileMoveHelper;
-    private final MonitoringRegistrationService monitoringRegistrationService;
-    private final LibraryMapper libraryMapper;
     private final BookMapper bookMapper;
     private final NotificationService notificationService;
     private final EntityManager entityManager;
@@ -41,9 +36,6 @@ public class FileMoveService {
     @Transactional
     public void bulkMoveFiles(FileMoveRequest request) {
         List<FileMoveRequest.Move> moves = request.getMoves();
-        Set<Long> targetLibraryIds = moves.stream().map(FileMoveRequest.Move::getTargetLibraryId).collect(Collectors.toSet());
-        Set<Long> sourceLibraryIds = new HashSet<>();
-        monitoringRegistrationService.unregisterLibraries(targetLibraryIds);
 
         for (FileMoveRequest.Move move : moves) {
             Long bookId = move.getBookId();
@@ -69,16 +61,13 @@ public class FileMoveService {
                 if (sourceLibrary.getId().equals(targetLibrary.getId())) {
                     continue;
                 }
-                if (!sourceLibraryIds.contains(sourceLibrary.getId())) {
-                    monitoringRegistrationService.unregisterLibraries(Collections.singleton(sourceLibrary.getId()));
-                    sourceLibraryIds.add(sourceLibrary.getId());
-                }
                 Path currentFilePath = bookEntity.getFullFilePath();
                 String pattern = fileMoveHelper.getFileNamingPattern(targetLibrary);
                 Path newFilePath = fileMoveHelper.generateNewFilePath(bookEntity, libraryPathEntity, pattern);
                 if (currentFilePath.equals(newFilePath)) {
                     continue;
                 }
+                fileMoveHelper.suppressWatcherEvents(currentFilePath, newFilePath);
                 fileMoveHelper.moveFile(currentFilePath, newFilePath);
 
                 String newFileName = newFilePath.getFileName().toString();
@@ -98,25 +87,10 @@ public class FileMoveService {
                 log.error("Error moving file for book ID {}: {}", bookId, e.getMessage(), e);
             }
         }
-
-        for (Long libraryId : targetLibraryIds) {
-            Optional<LibraryEntity> optionalLibrary = libraryRepository.findById(libraryId);
-            optionalLibrary.ifPresent(library -> {
-                monitoringRegistrationService.registerLibrary(libraryMapper.toLibrary(library));
-            });
-        }
-        for (Long libraryId : sourceLibraryIds) {
-            Optional<LibraryEntity> optionalLibrary = libraryRepository.findById(libraryId);
-            optionalLibrary.ifPresent(library -> {
-                monitoringRegistrationService.registerLibrary(libraryMapper.toLibrary(library));
-            });
-        }
     }
 
     @Transactional
     public FileMoveResult moveSingleFile(BookEntity bookEntity) {
-
-        Long libraryId = bookEntity.getLibraryPath().getLibrary().getId();
         Path libraryRoot = Paths.get(bookEntity.getLibraryPath().getPath()).toAbsolutePath().normalize();
 
         try {
@@ -130,8 +104,7 @@ public class FileMoveService {
 
             log.info("File for book ID {} needs to be moved from {} to {} to match library pattern", bookEntity.getId(), currentFilePath, expectedFilePath);
 
-            fileMoveHelper.unregisterLibrary(libraryId);
-
+            fileMoveHelper.suppressWatcherEvents(currentFilePath, expectedFilePath);
             fileMoveHelper.moveFile(currentFilePath, expectedFilePath);
 
             fileMoveHelper.deleteEmptyParentDirsUpToLibraryFolders(currentFilePath.getParent(), Set.of(libraryRoot));
@@ -146,8 +119,6 @@ public class FileMoveService {
                     .build();
         } catch (Exception e) {
             log.error("Failed to move file for book ID {}: {}", bookEntity.getId(), e.getMessage(), e);
-        } finally {
-            fileMoveHelper.registerLibraryPaths(libraryId, libraryRoot);
         }
 
         return FileMoveResult.builder().moved(false).build();
@@ -0,0 +1,311 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the disk bandwidth of each library path between background work (scans, fingerprinting,
+ * cover regeneration) and interactive readers.
+ * <p>
+ * Every library path gets a budget of bytes per second and concurrently open files, taken from the
+ * path itself or from {@link LibraryScanSettings} when the path does not override them. Background
+ * work waits for both. Interactive work never waits: it still consumes bandwidth, which pushes
+ * background work back, and background work starting on a path shortly after interactive activity
+ * on that same path yields for a moment first. Time spent waiting is recorded in the
+ * {@code booklore.io.throttle.wait} timer.
+ * <p>
+ * Bytes are charged before they are read, so background work waits before touching the disk rather
+ * than after. Files handed whole to a parser cannot be paced from inside, so one large file is still
+ * read at disk speed; the budget holds on average because whoever comes next waits for it.
+ */
+@Slf4j
+@Service
+public class IoGovernor {
+
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long INTERACTIVE_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_YIELD_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long YIELD_STEP_MILLIS = 50;
+    private static final long ROOTS_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long ROOTS_MIN_RELOAD_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private enum WaitReason {
+        OPEN_FILES,
+        BANDWIDTH,
+        INTERACTIVE_YIELD
+    }
+
+    private final LibraryPathRepository libraryPathRepository;
+    private final AppSettingService appSettingService;
+    private final Map<Long, Budget> budgets = new ConcurrentHashMap<>();
+    private final ThreadLocal<Permit> heldPermit = new ThreadLocal<>();
+    private final Timer[][] waitTimers = new Timer[WaitReason.values().length][Priority.values().length];
+
+    private volatile List<Root> roots = List.of();
+    private volatile long rootsLoadedAt = System.nanoTime() - ROOTS_MAX_AGE_NANOS;
+
+    public IoGovernor(LibraryPathRepository libraryPathRepository, AppSettingService appSettingService, MeterRegistry meterRegistry) {
+        this.libraryPathRepository = libraryPathRepository;
+        this.appSettingService = appSettingService;
+        for (WaitReason reason : WaitReason.values()) {
+            for (Priority priority : Priority.values()) {
+                waitTimers[reason.ordinal()][priority.ordinal()] = Timer.builder("booklore.io.throttle.wait")
+                        .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                        .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * Takes an open-file slot on the library path that contains {@code file}. Files outside every
+     * library path are not governed.
+     */
+    public Permit acquire(Path file, Priority priority) {
+        Root root = resolveRoot(file);
+        if (root == null) {
+            return Permit.NONE;
+        }
+        return acquire(root.id(), root.bytesPerSecond(), root.maxOpenFiles(), priority);
+    }
+
+    public Permit acquire(LibraryPathEntity libraryPath, Priority priority) {
+        if (libraryPath == null || libraryPath.getId() == null) {
+            return Permit.NONE;
+        }
+        return acquire(libraryPath.getId(), libraryPath.getIoBytesPerSecond(), libraryPath.getIoMaxOpenFiles(), priority);
+    }
+
+    private Permit acquire(long libraryPathId, Long bytesPerSecond, Integer maxOpenFiles, Priority priority) {
+        LibraryScanSettings settings = appSettingService.getAppSettings().getLibraryScanSettings();
+        long effectiveBytesPerSecond = bytesPerSecond != null ? bytesPerSecond : settings.getIoBytesPerSecondPerPath();
+        int effectiveMaxOpenFiles = maxOpenFiles != null ? maxOpenFiles : settings.getIoMaxOpenFilesPerPath();
+        Budget budget = budgets.compute(libraryPathId, (id, existing) ->
+                existing != null && existing.hasLimits(effectiveBytesPerSecond, effectiveMaxOpenFiles)
+                        ? existing
+                        : new Budget(effectiveBytesPerSecond, effectiveMaxOpenFiles));
+
+        Permit outer = heldPermit.get();
+        if (outer != null && outer.budget == budget) {
+            // Already holding a slot on this path, e.g. cover generation inside a scan
+            return new Permit(this, budget, priority, false, outer);
+        }
+
+        if (priority == Priority.INTERACTIVE) {
+            budget.lastInteractiveAt = System.nanoTime();
+            Permit permit = new Permit(this, budget, priority, false, outer);
+            heldPermit.set(permit);
+            return permit;
+        }
+
+        yieldToInteractive(budget);
+        boolean slotTaken = takeSlot(budget);
+        Permit permit = new Permit(this, budget, priority, slotTaken, outer);
+        heldPermit.set(permit);
+        return permit;
+    }
+
+    private void yieldToInteractive(Budget budget) {
+        long start = System.nanoTime();
+        long now = start;
+        while (now - budget.lastInteractiveAt < INTERACTIVE_GRACE_NANOS && now - start < MAX_YIELD_NANOS) {
+            if (!sleep(YIELD_STEP_MILLIS)) {
+                break;
+            }
+            now = System.nanoTime();
+        }
+        recordWait(WaitReason.INTERACTIVE_YIELD, Priority.BACKGROUND, now - start);
+    }
+
+    private boolean takeSlot(Budget budget) {
+        if (budget.openFiles == null) {
+            return false;
+        }
+        if (budget.openFiles.tryAcquire()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            budget.openFiles.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            recordWait(WaitReason.OPEN_FILES, Priority.BACKGROUND, System.nanoTime() - start);
+        }
+    }
+
+    private void reserve(Permit permit, long bytes) {
+        if (permit.priority == Priority.INTERACTIVE) {
+            permit.budget.lastInteractiveAt = System.nanoTime();
+        }
+        long waitNanos = permit.budget.reserve(bytes);
+        if (waitNanos > 0 && permit.priority == Priority.BACKGROUND) {
+            long start = System.nanoTime();
+            sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            recordWait(WaitReason.BANDWIDTH, permit.priority, System.nanoTime() - start);
+        }
+    }
+
+    private void release(Permit permit) {
+        if (permit.slotTaken) {
+            permit.budget.openFiles.release();
+        }
+        if (heldPermit.get() == permit) {
+            if (permit.outer != null) {
+                heldPermit.set(permit.outer);
+            } else {
+                heldPermit.remove();
+            }
+        }
+    }
+
+    private void recordWait(WaitReason reason, Priority priority, long nanos) {
+        if (nanos > 0) {
+            waitTimers[reason.ordinal()][priority.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Root resolveRoot(Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        long age = System.nanoTime() - rootsLoadedAt;
+        Root root = findRoot(age > ROOTS_MAX_AGE_NANOS ? reloadRoots() : roots, normalized);
+        if (root == null && age > ROOTS_MIN_RELOAD_NANOS) {
+            // The path may belong to a library created since the last reload
+            root = findRoot(reloadRoots(), normalized);
+        }
+        return root;
+    }
+
+    private static Root findRoot(List<Root> roots, Path file) {
+        for (Root root : roots) {
+            if (file.startsWith(root.path())) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    private synchronized List<Root> reloadRoots() {
+        try {
+            List<Root> loaded = new ArrayList<>();
+            for (LibraryPathEntity pathEntity : libraryPathRepository.findAll()) {
+                loaded.add(new Root(pathEntity.getId(), Path.of(pathEntity.getPath()).toAbsolutePath().normalize(),
+                        pathEntity.getIoBytesPerSecond(), pathEntity.getIoMaxOpenFiles()));
+            }
+            // Nested library paths resolve to the innermost one
+            loaded.sort(Comparator.comparingInt((Root root) -> root.path().getNameCount()).reversed());
+            roots = List.copyOf(loaded);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load library paths for I/O budgets: {}", e.getMessage());
+        }
+        rootsLoadedAt = System.nanoTime();
+        return roots;
+    }
+
+    private static boolean sleep(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Root(long id, Path path, Long bytesPerSecond, Integer maxOpenFiles) {
+    }
+
+    private static final class Budget {
+
+        private final long bytesPerSecond;
+        private final int maxOpenFiles;
+        private final Semaphore openFiles;
+        private long nextFreeAt = System.nanoTime();
+        private volatile long lastInteractiveAt = System.nanoTime() - INTERACTIVE_GRACE_NANOS;
+
+        Budget(long bytesPerSecond, int maxOpenFiles) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.maxOpenFiles = maxOpenFiles;
+            this.openFiles = maxOpenFiles > 0 ? new Semaphore(maxOpenFiles, true) : null;
+        }
+
+        boolean hasLimits(long bytesPerSecond, int maxOpenFiles) {
+            return this.bytesPerSecond == bytesPerSecond && this.maxOpenFiles == maxOpenFiles;
+        }
+
+        /**
+         * Charges bytes that are about to be read and returns how long the reader should wait before
+         * reading them, which is until the bytes reserved before them have had their time. Up to one
+         * second of unused bandwidth can be spent as a burst.
+         */
+        synchronized long reserve(long bytes) {
+            if (bytesPerSecond <= 0 || bytes <= 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            long start = Math.max(nextFreeAt, now - BURST_NANOS);
+            nextFreeAt = start + (long) (bytes * (1_000_000_000d / bytesPerSecond));
+            return start - now;
+        }
+    }
+
+    /**
+     * An open file on a governed library path. Charge bytes with {@link #reserve(long)} before they
+     * are read, and close the permit when the file is closed.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        public static final Permit NONE = new Permit(null, null, null, false, null);
+
+        private final IoGovernor governor;
+        private final Budget budget;
+        private final Priority priority;
+        private final boolean slotTaken;
+        private final Permit outer;
+        private boolean closed;
+
+        private Permit(IoGovernor governor, Budget budget, Priority priority, boolean slotTaken, Permit outer) {
+            this.governor = governor;
+            this.budget = budget;
+            this.priority = priority;
+            this.slotTaken = slotTaken;
+            this.outer = outer;
+        }
+
+        public void reserve(long bytes) {
+            if (governor != null && !closed) {
+                governor.reserve(this, bytes);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (governor != null && !closed) {
+                closed = true;
+                governor.release(this);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import com.adityachandel.booklore.util.FileService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -50,12 +51,31 @@ public abstract class AbstractFileProcessor implements BookFileProcessor {
         this.fileService = fileService;
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    // Read committed, so that concurrent ingest workers see each other's newly created authors and categories
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
     @Override
     public FileProcessResult processFile(LibraryFile libraryFile) {
+        return process(libraryFile);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public FileProcessResult processFileInCurrentTransaction(LibraryFile libraryFile) {
+        return process(libraryFile);
+    }
+
+    private FileProcessResult process(LibraryFile libraryFile) {
         Path path = libraryFile.getFullPath();
         String fileName = path.getFileName().toString();
-        String hash = FileFingerprint.generateHash(path);
+        String hash = libraryFile.getHash() != null ? libraryFile.getHash() : FileFingerprint.generateHash(path);
+
+        Long libraryId = libraryFile.getLibraryEntity().getId();
+
+        // Most scanned files are new, so rule out every duplicate source with a single indexed probe
+        // before running the lookups that load entities
+        if (bookRepository.countMatchingHashOrFileName(hash, fileName, libraryId) == 0) {
+            return new FileProcessResult(createAndMapBook(libraryFile, hash), FileProcessStatus.NEW, null);
+        }
 
         Optional<Book> duplicate = fileService.checkForDuplicateAndUpdateMetadataIfNeeded(libraryFile, hash, bookRepository, bookAdditionalFileRepository, bookMapper);
 
@@ -63,14 +83,10 @@ public abstract class AbstractFileProcessor implements BookFileProcessor {
             return handleDuplicate(duplicate.get(), libraryFile, hash);
         }
 
-        Long libraryId = libraryFile.getLibraryEntity().getId();
         return bookRepository.findBookByFileNameAndLibraryId(fileName, libraryId)
                 .map(bookMapper::toBook)
                 .map(b -> new FileProcessResult(b, FileProcessStatus.DUPLICATE, createDuplicateInfo(b, libraryFile, hash)))
-                .orElseGet(() -> {
-                    Book book = createAndMapBook(libraryFile, hash);
-                    return new FileProcessResult(book, FileProcessStatus.NEW, null);
-                });
+                .orElseGet(() -> new FileProcessResult(createAndMapBook(libraryFile, hash), FileProcessStatus.NEW, null));
     }
 
     private FileProcessResult handleDuplicate(Book bookDto, LibraryFile libraryFile, String hash) {
@@ -146,7 +162,13 @@ public abstract class AbstractFileProcessor implements BookFileProcessor {
     }
 
     private Book createAndMapBook(LibraryFile libraryFile, String hash) {
-        BookEntity entity = processNewFile(libraryFile);
+        BookEntity entity;
+        if (libraryFile.isDeferEnrichment()) {
+            entity = bookCreatorService.createShellBook(libraryFile, libraryFile.getBookFileType());
+            entity.setEnrichmentPending(true);
+        } else {
+            entity = processNewFile(libraryFile);
+        }
         entity.setCurrentHash(hash);
         entity.setMetadataMatchScore(metadataMatchService.calculateMatchScore(entity));
         bookCreatorService.saveConnections(entity);
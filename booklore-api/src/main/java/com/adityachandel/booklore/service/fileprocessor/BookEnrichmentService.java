@@ -0,0 +1,202 @@
+package com.adityachandel.booklore.service.fileprocessor;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.BookCreatorService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.service.metadata.MetadataMatchService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second tier of ingest. Scans only create shell books from the file name and fingerprint, so new
+ * books show up right away; this queue then reads their covers, page counts and embedded metadata
+ * in the background and pushes the result to the grid as a book update.
+ * <p>
+ * Books someone is looking at are moved to the front of the queue through {@link #prioritize}.
+ * Pending books are flagged in the database, so the queue is rebuilt after a restart.
+ */
+@Slf4j
+@Service
+public class BookEnrichmentService {
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private final BookRepository bookRepository;
+    private final BookFileProcessorRegistry processorRegistry;
+    private final BookCreatorService bookCreatorService;
+    private final MetadataMatchService metadataMatchService;
+    private final BookMapper bookMapper;
+    private final BookEventBroadcaster bookEventBroadcaster;
+    private final AppSettingService appSettingService;
+    private final IoGovernor ioGovernor;
+    private final TransactionTemplate transactionTemplate;
+
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>();
+    private final Map<Long, Job> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+
+    public BookEnrichmentService(BookRepository bookRepository,
+                                 BookFileProcessorRegistry processorRegistry,
+                                 BookCreatorService bookCreatorService,
+                                 MetadataMatchService metadataMatchService,
+                                 BookMapper bookMapper,
+                                 BookEventBroadcaster bookEventBroadcaster,
+                                 AppSettingService appSettingService,
+                                 IoGovernor ioGovernor,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.processorRegistry = processorRegistry;
+        this.bookCreatorService = bookCreatorService;
+        this.metadataMatchService = metadataMatchService;
+        this.bookMapper = bookMapper;
+        this.bookEventBroadcaster = bookEventBroadcaster;
+        this.appSettingService = appSettingService;
+        this.ioGovernor = ioGovernor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        Gauge.builder("booklore.enrichment.queue.size", pending, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Whether new books should be created as shells and enriched through this queue.
+     */
+    public boolean isEnabled() {
+        return appSettingService.getAppSettings().getLibraryScanSettings().isDeferredEnrichment();
+    }
+
+    public void enqueue(long bookId) {
+        pending.computeIfAbsent(bookId, id -> {
+            Job job = new Job(id, Priority.BACKGROUND, sequence.incrementAndGet());
+            queue.offer(job);
+            return job;
+        });
+    }
+
+    /**
+     * Moves a pending book to the front of the queue. Does nothing for books that are not pending.
+     */
+    public void prioritize(long bookId) {
+        Job job = pending.get(bookId);
+        if (job == null || job.priority() == Priority.INTERACTIVE) {
+            return;
+        }
+        Job promoted = new Job(bookId, Priority.INTERACTIVE, sequence.incrementAndGet());
+        // The old entry stays in the queue and is skipped once it no longer matches the pending one
+        if (pending.replace(bookId, job, promoted)) {
+            queue.offer(promoted);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        List<Long> pendingIds = bookRepository.findEnrichmentPendingBookIds();
+        pendingIds.forEach(this::enqueue);
+        if (!pendingIds.isEmpty()) {
+            log.info("Queued {} book(s) left unenriched by a previous run", pendingIds.size());
+        }
+
+        int concurrency = Math.max(1, appSettingService.getAppSettings().getLibraryScanSettings().getEnrichmentConcurrency());
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("book-enrichment-" + i).start(this::runWorker));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!pending.remove(job.bookId(), job)) {
+                continue;
+            }
+            try {
+                enrich(job);
+            } catch (Exception e) {
+                log.error("Failed to enrich book id={}: {}", job.bookId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void enrich(Job job) {
+        // Look the file up first, so the bandwidth wait happens before the transaction holds a connection
+        EnrichmentTarget target = transactionTemplate.execute(status -> bookRepository.findById(job.bookId())
+                .filter(BookEnrichmentService::needsEnrichment)
+                .map(bookEntity -> new EnrichmentTarget(bookEntity.getFullFilePath(), bookEntity.getFileSizeKb() != null ? bookEntity.getFileSizeKb() * 1024 : 0))
+                .orElse(null));
+        if (target == null) {
+            return;
+        }
+
+        IoGovernor.Priority ioPriority = job.priority() == Priority.INTERACTIVE ? IoGovernor.Priority.INTERACTIVE : IoGovernor.Priority.BACKGROUND;
+        Book enriched;
+        try (IoGovernor.Permit permit = ioGovernor.acquire(target.path(), ioPriority)) {
+            permit.reserve(target.bytes());
+            enriched = transactionTemplate.execute(status -> {
+                BookEntity bookEntity = bookRepository.findById(job.bookId()).orElse(null);
+                if (bookEntity == null || !needsEnrichment(bookEntity)) {
+                    return null;
+                }
+                processorRegistry.getProcessorOrThrow(bookEntity.getBookType()).enrichBook(bookEntity);
+                bookEntity.setEnrichmentPending(false);
+                bookEntity.setMetadataMatchScore(metadataMatchService.calculateMatchScore(bookEntity));
+                bookCreatorService.saveConnections(bookEntity);
+                return bookMapper.toBook(bookEntity);
+            });
+        }
+        if (enriched != null) {
+            log.debug("Enriched book id={} ({})", job.bookId(), job.priority());
+            bookEventBroadcaster.broadcastBookUpdateEvent(enriched);
+        }
+    }
+
+    private static boolean needsEnrichment(BookEntity bookEntity) {
+        return bookEntity.isEnrichmentPending() && !Boolean.TRUE.equals(bookEntity.getDeleted());
+    }
+
+    private record EnrichmentTarget(Path path, long bytes) {
+    }
+
+    private record Job(long bookId, Priority priority, long sequence) implements Comparable<Job> {
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
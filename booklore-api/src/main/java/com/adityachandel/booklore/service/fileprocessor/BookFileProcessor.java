@@ -12,5 +12,16 @@ public interface BookFileProcessor {
 
     FileProcessResult processFile(LibraryFile libraryFile);
 
+    /**
+     * Same as {@link #processFile}, but writes in the caller's transaction, so that several files
+     * can be committed together.
+     */
+    FileProcessResult processFileInCurrentTransaction(LibraryFile libraryFile);
+
     boolean generateCover(BookEntity bookEntity);
+
+    /**
+     * Reads the cover, page count and embedded metadata of a book that was created as a shell only.
+     */
+    void enrichBook(BookEntity bookEntity);
 }
@@ -23,7 +23,6 @@ import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.time.Instant;
@@ -60,12 +59,17 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
     @Override
     public BookEntity processNewFile(LibraryFile libraryFile) {
         BookEntity bookEntity = bookCreatorService.createShellBook(libraryFile, BookFileType.CBX);
+        enrichBook(bookEntity);
+        return bookEntity;
+    }
+
+    @Override
+    public void enrichBook(BookEntity bookEntity) {
         if (generateCover(bookEntity)) {
             fileService.setBookCoverPath(bookEntity.getMetadata());
         }
-        
+
         extractAndSetMetadata(bookEntity);
-        return bookEntity;
     }
 
     @Override
@@ -113,7 +117,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
                     .min(Comparator.comparing(ZipArchiveEntry::getName))
                     .map(entry -> {
                         try (InputStream is = zipFile.getInputStream(entry)) {
-                            return ImageIO.read(is);
+                            return fileService.readCoverImage(is);
                         } catch (Exception e) {
                             log.warn("Failed to read image from ZIP entry {}: {}", entry.getName(), e.getMessage());
                             return null;
@@ -148,7 +152,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
                                 if (bytesRead < 0) break;
                                 offset += bytesRead;
                             }
-                            return Optional.ofNullable(ImageIO.read(new ByteArrayInputStream(content)));
+                            return Optional.ofNullable(fileService.readCoverImage(new ByteArrayInputStream(content)));
                         }
                     }
                 }
@@ -169,7 +173,7 @@ public class CbxProcessor extends AbstractFileProcessor implements BookFileProce
             for (FileHeader header : imageHeaders) {
                 try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
                     archive.extractFile(header, baos);
-                    return Optional.ofNullable(ImageIO.read(new ByteArrayInputStream(baos.toByteArray())));
+                    return Optional.ofNullable(fileService.readCoverImage(new ByteArrayInputStream(baos.toByteArray())));
                 } catch (Exception e) {
                     log.warn("Error reading RAR entry {}: {}", header.getFileNameString(), e.getMessage());
                 }
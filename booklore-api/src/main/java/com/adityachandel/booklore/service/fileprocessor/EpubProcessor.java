@@ -19,7 +19,6 @@ import io.documentnode.epub4j.epub.EpubReader;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.time.Instant;
@@ -52,11 +51,16 @@ public class EpubProcessor extends AbstractFileProcessor implements BookFileProc
     @Override
     public BookEntity processNewFile(LibraryFile libraryFile) {
         BookEntity bookEntity = bookCreatorService.createShellBook(libraryFile, BookFileType.EPUB);
+        enrichBook(bookEntity);
+        return bookEntity;
+    }
+
+    @Override
+    public void enrichBook(BookEntity bookEntity) {
         setBookMetadata(bookEntity);
         if (generateCover(bookEntity)) {
             fileService.setBookCoverPath(bookEntity.getMetadata());
         }
-        return bookEntity;
     }
 
     @Override
@@ -147,7 +151,7 @@ public class EpubProcessor extends AbstractFileProcessor implements BookFileProc
     }
 
     private boolean saveCoverImage(Resource coverImage, long bookId) throws IOException {
-        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(coverImage.getData()));
+        BufferedImage originalImage = fileService.readCoverImage(new ByteArrayInputStream(coverImage.getData()));
         return fileService.saveCoverImages(originalImage, bookId);
     }
 }
\ No newline at end of file
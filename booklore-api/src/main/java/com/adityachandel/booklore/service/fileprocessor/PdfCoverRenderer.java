@@ -0,0 +1,170 @@
+package com.adityachandel.booklore.service.fileprocessor;
+
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.util.FileService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.*;
+
+/**
+ * Renders the first page of a PDF no larger than a stored cover.
+ * <p>
+ * The resolution is derived from the page size, so a poster-sized page renders at a few DPI
+ * instead of a 300 DPI bitmap that is scaled down straight away. Document streams are buffered in
+ * a bounded amount of heap and spill to temporary files, and each render has a time limit so a
+ * single pathological file cannot hold a scan thread.
+ * <p>
+ * PDFBox does not stop a page render when interrupted, so a render that timed out keeps running
+ * until the page is done. Renders run on a fixed number of threads: a runaway render keeps its
+ * thread, and the renders queued behind it use up their time limit waiting rather than starting
+ * more threads.
+ */
+@Slf4j
+@Component
+public class PdfCoverRenderer {
+
+    static final float MAX_DPI = 300;
+    private static final long DEFAULT_TIMEOUT_SECONDS = 15;
+    private static final long MAIN_MEMORY_BYTES = 32L * 1024 * 1024;
+    private static final long TEMP_FILE_BYTES = 1024L * 1024 * 1024;
+    private static final long RETRY_DELAY_SECONDS = 60;
+    private static final int RETRY_TIMEOUT_FACTOR = 4;
+
+    private final AppSettingService appSettingService;
+    private final Counter timeoutCounter;
+    private final Timer renderTimer;
+    private final ThreadPoolExecutor renderExecutor;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pdf-cover-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PdfCoverRenderer(AppSettingService appSettingService, MeterRegistry meterRegistry) {
+        this(appSettingService, meterRegistry, Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    PdfCoverRenderer(AppSettingService appSettingService, MeterRegistry meterRegistry, int maxConcurrentRenders) {
+        this.appSettingService = appSettingService;
+        this.renderExecutor = new ThreadPoolExecutor(maxConcurrentRenders, maxConcurrentRenders, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-cover-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeoutCounter = Counter.builder("booklore.pdf.cover.timeout").register(meterRegistry);
+        this.renderTimer = Timer.builder("booklore.pdf.cover.render").register(meterRegistry);
+        Gauge.builder("booklore.pdf.cover.active", renderExecutor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Renders the first page of {@code file} within the configured time limit.
+     *
+     * @throws TimeoutException when the page, including the wait for a render thread, takes longer
+     *                          than the time limit
+     */
+    public BufferedImage render(File file) throws IOException, TimeoutException {
+        return render(file, timeoutSeconds());
+    }
+
+    /**
+     * Runs {@code retry} once in the background, after a delay that lets the scan finish. It
+     * should call {@link #renderRetry}, which allows a longer time limit.
+     */
+    public void scheduleRetry(Runnable retry) {
+        try {
+            retryScheduler.schedule(retry, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not retrying PDF cover, renderer is shut down");
+        }
+    }
+
+    public BufferedImage renderRetry(File file) throws IOException, TimeoutException {
+        return render(file, timeoutSeconds() * RETRY_TIMEOUT_FACTOR);
+    }
+
+    public long timeoutSeconds() {
+        long seconds = appSettingService.getAppSettings().getLibraryScanSettings().getPdfCoverRenderTimeoutSeconds();
+        return seconds > 0 ? seconds : DEFAULT_TIMEOUT_SECONDS;
+    }
+
+    private BufferedImage render(File file, long timeoutSeconds) throws IOException, TimeoutException {
+        try (PDDocument document = Loader.loadPDF(file, MemoryUsageSetting.setupMixed(MAIN_MEMORY_BYTES, TEMP_FILE_BYTES).streamCache)) {
+            float dpi = dpiFor(document.getPage(0), FileService.MAX_COVER_WIDTH, FileService.MAX_COVER_HEIGHT);
+            long start = System.nanoTime();
+            Future<BufferedImage> render;
+            try {
+                render = renderExecutor.submit(() -> renderPage(document, dpi));
+            } catch (RejectedExecutionException e) {
+                throw new IOException("PDF cover renderer is shut down", e);
+            }
+            try {
+                BufferedImage image = render.get(timeoutSeconds, TimeUnit.SECONDS);
+                renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return image;
+            } catch (TimeoutException e) {
+                // Drops the render if it is still queued. A running one ignores the interrupt, but
+                // closing the document below makes it fail soon
+                render.cancel(true);
+                timeoutCounter.increment();
+                throw e;
+            } catch (InterruptedException e) {
+                render.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rendering " + file.getName(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e.getCause());
+            }
+        }
+    }
+
+    BufferedImage renderPage(PDDocument document, float dpi) throws IOException {
+        return new PDFRenderer(document).renderImageWithDPI(0, dpi, ImageType.RGB);
+    }
+
+    /**
+     * Resolution at which {@code page} fills, but does not exceed, a {@code maxWidth} x
+     * {@code maxHeight} box. Uses the crop box, which is what gets rendered and defaults to the
+     * media box.
+     */
+    static float dpiFor(PDPage page, int maxWidth, int maxHeight) {
+        PDRectangle box = page.getCropBox();
+        float width = box.getWidth();
+        float height = box.getHeight();
+        if (page.getRotation() % 180 != 0) {
+            float swap = width;
+            width = height;
+            height = swap;
+        }
+        if (width <= 0 || height <= 0) {
+            return MAX_DPI;
+        }
+        return Math.min(MAX_DPI, 72f * Math.min(maxWidth / width, maxHeight / height));
+    }
+}
@@ -4,6 +4,7 @@ import com.adityachandel.booklore.mapper.BookMapper;
 import com.adityachandel.booklore.model.dto.BookMetadata;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
 import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookMetadataRepository;
@@ -15,17 +16,12 @@ import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.stereotype.Service;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 import static com.adityachandel.booklore.util.FileService.truncate;
 
@@ -35,6 +31,7 @@ public class PdfProcessor extends AbstractFileProcessor implements BookFileProce
 
     private final PdfMetadataExtractor pdfMetadataExtractor;
     private final BookMetadataRepository bookMetadataRepository;
+    private final PdfCoverRenderer pdfCoverRenderer;
 
     public PdfProcessor(BookRepository bookRepository,
                         BookAdditionalFileRepository bookAdditionalFileRepository,
@@ -43,29 +40,41 @@ public class PdfProcessor extends AbstractFileProcessor implements BookFileProce
                         FileService fileService,
                         BookMetadataRepository bookMetadataRepository,
                         MetadataMatchService metadataMatchService,
-                        PdfMetadataExtractor pdfMetadataExtractor) {
+                        PdfMetadataExtractor pdfMetadataExtractor,
+                        PdfCoverRenderer pdfCoverRenderer) {
         super(bookRepository, bookAdditionalFileRepository, bookCreatorService, bookMapper, fileService, metadataMatchService);
         this.pdfMetadataExtractor = pdfMetadataExtractor;
         this.bookMetadataRepository = bookMetadataRepository;
+        this.pdfCoverRenderer = pdfCoverRenderer;
     }
 
     @Override
     public BookEntity processNewFile(LibraryFile libraryFile) {
         BookEntity bookEntity = bookCreatorService.createShellBook(libraryFile, BookFileType.PDF);
+        enrichBook(bookEntity);
+        return bookEntity;
+    }
+
+    @Override
+    public void enrichBook(BookEntity bookEntity) {
         if (generateCover(bookEntity)) {
             fileService.setBookCoverPath(bookEntity.getMetadata());
         }
         extractAndSetMetadata(bookEntity);
-        return bookEntity;
     }
 
     @Override
     public boolean generateCover(BookEntity bookEntity) {
-        try (PDDocument pdf = Loader.loadPDF(new File(FileUtils.getBookFullPath(bookEntity)))) {
-            boolean saved = generateCoverImageAndSave(bookEntity.getId(), pdf);
+        File file = new File(FileUtils.getBookFullPath(bookEntity));
+        try {
+            boolean saved = fileService.saveCoverImages(pdfCoverRenderer.render(file), bookEntity.getId());
             bookEntity.getMetadata().setCoverUpdatedOn(Instant.now());
             bookMetadataRepository.save(bookEntity.getMetadata());
             return saved;
+        } catch (TimeoutException e) {
+            log.warn("Rendering the cover of '{}' took longer than {}s, retrying in the background", bookEntity.getFileName(), pdfCoverRenderer.timeoutSeconds());
+            pdfCoverRenderer.scheduleRetry(() -> retryCover(bookEntity.getId(), file));
+            return false;
         } catch (Exception e) {
             log.warn("Failed to generate cover for '{}': {}", bookEntity.getFileName(), e.getMessage());
             return false;
@@ -138,8 +147,24 @@ public class PdfProcessor extends AbstractFileProcessor implements BookFileProce
         }
     }
 
-    private boolean generateCoverImageAndSave(Long bookId, PDDocument document) throws IOException {
-        BufferedImage coverImage = new PDFRenderer(document).renderImageWithDPI(0, 300, ImageType.RGB);
-        return fileService.saveCoverImages(coverImage, bookId);
+    /**
+     * Until the retry succeeds the book shows the placeholder cover, like any book without one.
+     */
+    private void retryCover(long bookId, File file) {
+        try {
+            BookMetadataEntity metadata = bookMetadataRepository.findById(bookId).orElse(null);
+            if (metadata == null || Boolean.TRUE.equals(metadata.getCoverLocked())) {
+                return;
+            }
+            if (fileService.saveCoverImages(pdfCoverRenderer.renderRetry(file), bookId)) {
+                metadata.setCoverUpdatedOn(Instant.now());
+                bookMetadataRepository.save(metadata);
+                log.info("Generated the cover of '{}' on retry", file.getName());
+            }
+        } catch (TimeoutException e) {
+            log.warn("Rendering the cover of '{}' timed out again, leaving the placeholder", file.getName());
+        } catch (Exception e) {
+            log.warn("Retrying the cover of '{}' failed: {}", file.getName(), e.getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -171,7 +171,7 @@ public class KoboEntitlementService {
                 .slug(metadata.getTitle() != null
                         ? NON_ALPHANUMERIC_LOWERCASE_PATTERN.matcher(metadata.getTitle().toLowerCase()).replaceAll("-")
                         : null)
-                .coverImageId(String.valueOf(metadata.getBookId()))
+                .coverImageId(KoboThumbnailService.coverImageId(book.getId(), metadata.getCoverUpdatedOn()))
                 .workId(String.valueOf(book.getId()))
                 .isPreOrder(false)
                 .contributorRoles(Collections.emptyList())
@@ -1,21 +1,55 @@
 package com.adityachandel.booklore.service.kobo;
 
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.file.CoverDerivativeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KoboThumbnailService {
 
+    private static final Pattern IMAGE_ID_PATTERN = Pattern.compile("(\\d+)(?:-(\\d+))?");
+
     private final BookService bookService;
+    private final CoverDerivativeService coverDerivativeService;
+
+    /**
+     * Image id handed to Kobo devices. Devices cache covers by image id, so it carries the cover
+     * timestamp to make them fetch a replaced cover.
+     */
+    public static String coverImageId(long bookId, Instant coverUpdatedOn) {
+        return coverUpdatedOn != null ? bookId + "-" + coverUpdatedOn.getEpochSecond() : String.valueOf(bookId);
+    }
 
-    public ResponseEntity<Resource> getThumbnail(Long bookId) {
+    /**
+     * Returns the book id of an image id issued by {@link #coverImageId}, or {@code null} for
+     * images hosted by Kobo.
+     */
+    public static Long parseBookId(String imageId) {
+        Matcher matcher = IMAGE_ID_PATTERN.matcher(imageId);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    public ResponseEntity<Resource> getThumbnail(Long bookId, int width, int height, boolean greyscale) {
+        if (width > 0 && height > 0) {
+            var variant = coverDerivativeService.getBoxVariant(bookId, width, height, greyscale);
+            if (variant.isPresent()) {
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_TYPE, "image/jpeg")
+                        .body(new FileSystemResource(variant.get()));
+            }
+        }
         return getThumbnailInternal(bookId);
     }
 
@@ -35,4 +69,4 @@ public class KoboThumbnailService {
     private boolean isValidImage(Resource image) {
         return image != null && image.exists();
     }
-}
\ No newline at end of file
+}
@@ -9,6 +9,7 @@ import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.util.FileService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -34,6 +35,7 @@ public class BookDeletionService {
     private final BookAdditionalFileRepository bookAdditionalFileRepository;
     private final FileService fileService;
     private final NotificationService notificationService;
+    private final FileFingerprintCache fileFingerprintCache;
 
     @PersistenceContext
     private final EntityManager entityManager;
@@ -45,7 +47,9 @@ public class BookDeletionService {
         }
 
         List<BookAdditionalFileEntity> additionalFiles = bookAdditionalFileRepository.findAllById(additionalFileIds);
+        List<Path> paths = additionalFiles.stream().map(BookAdditionalFileEntity::getFullFilePath).toList();
         bookAdditionalFileRepository.deleteAll(additionalFiles);
+        fileFingerprintCache.evict(paths);
         entityManager.flush();
         entityManager.clear();
 
@@ -89,7 +93,9 @@ public class BookDeletionService {
                 log.warn("Failed to clean up files for book ID {}: {}", book.getId(), e.getMessage());
             }
         }
+        List<Path> paths = books.stream().map(BookEntity::getFullFilePath).toList();
         bookRepository.deleteAll(books);
+        fileFingerprintCache.evict(paths);
         entityManager.flush();
         entityManager.clear();
         notificationService.sendMessage(Topic.BOOKS_REMOVE, bookIds);
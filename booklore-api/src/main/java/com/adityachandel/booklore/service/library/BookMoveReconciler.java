@@ -0,0 +1,136 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Detects books that were moved or renamed outside BookLore. Books whose file vanished are paired
+ * with new files of the same size and fingerprint, and the book is pointed at its new location in
+ * place, so covers, reading progress, shelves and edited metadata survive a reorganization.
+ * <p>
+ * Only new files whose size matches a vanished book are fingerprinted, so the cost follows the
+ * number of changed files rather than the size of the library.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookMoveReconciler {
+
+    private final BookRepository bookRepository;
+    private final FileFingerprintCache fileFingerprintCache;
+    private final BookMapper bookMapper;
+    private final BookEventBroadcaster bookEventBroadcaster;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public MoveResult reconcile(Collection<Long> vanishedBookIds, List<LibraryFile> newFiles) {
+        if (vanishedBookIds.isEmpty() || newFiles.isEmpty()) {
+            return MoveResult.EMPTY;
+        }
+
+        Map<String, Deque<BookEntity>> booksByHash = new HashMap<>();
+        Set<Long> vanishedSizes = new HashSet<>();
+        boolean unknownSize = false;
+        for (BookEntity book : bookRepository.findAllById(vanishedBookIds)) {
+            if (book.getCurrentHash() == null) {
+                continue;
+            }
+            booksByHash.computeIfAbsent(book.getCurrentHash(), h -> new ArrayDeque<>()).add(book);
+            if (book.getFileSizeKb() != null) {
+                vanishedSizes.add(book.getFileSizeKb());
+            } else {
+                unknownSize = true;
+            }
+        }
+        if (booksByHash.isEmpty()) {
+            return MoveResult.EMPTY;
+        }
+
+        List<BookEntity> movedBooks = new ArrayList<>();
+        Set<LibraryFile> movedFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (LibraryFile file : newFiles) {
+            if (file.getBookFileType() == null) {
+                continue;
+            }
+            Long sizeKb = FileUtils.getFileSizeInKb(file.getFullPath());
+            if (sizeKb == null || (!unknownSize && !vanishedSizes.contains(sizeKb))) {
+                continue;
+            }
+            String hash = file.getHash() != null ? file.getHash() : fingerprint(file);
+            if (hash == null) {
+                continue;
+            }
+            file.setHash(hash);
+
+            BookEntity book = takeMatch(booksByHash.get(hash), sizeKb);
+            if (book == null) {
+                continue;
+            }
+            log.info("Detected moved book id={}: '{}' -> '{}'", book.getId(), book.getFullFilePath(), file.getFullPath());
+            book.setLibraryPath(file.getLibraryPathEntity());
+            if (file.getLibraryEntity() != null) {
+                book.setLibrary(file.getLibraryEntity());
+            }
+            book.setFileSubPath(Objects.toString(file.getFileSubPath(), ""));
+            book.setFileName(file.getFileName());
+            book.setFileSizeKb(sizeKb);
+            movedBooks.add(book);
+            movedFiles.add(file);
+        }
+
+        if (movedBooks.isEmpty()) {
+            return MoveResult.EMPTY;
+        }
+        bookRepository.saveAll(movedBooks);
+        movedBooks.forEach(book -> bookEventBroadcaster.broadcastBookUpdateEventAfterCommit(bookMapper.toBook(book)));
+        log.info("Moved {} book(s) to their new location instead of re-importing them", movedBooks.size());
+        Set<Long> movedBookIds = new HashSet<>();
+        movedBooks.forEach(book -> movedBookIds.add(book.getId()));
+        return new MoveResult(movedBookIds, movedFiles);
+    }
+
+    private String fingerprint(LibraryFile file) {
+        try {
+            return fileFingerprintCache.getHash(file.getFullPath());
+        } catch (RuntimeException e) {
+            log.warn("Failed to fingerprint '{}' while looking for moved books: {}", file.getFullPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Takes the book with the same fingerprint and size, falling back to one whose size was never recorded.
+     */
+    private static BookEntity takeMatch(Deque<BookEntity> candidates, long sizeKb) {
+        if (candidates == null) {
+            return null;
+        }
+        for (Iterator<BookEntity> it = candidates.iterator(); it.hasNext(); ) {
+            BookEntity book = it.next();
+            if (book.getFileSizeKb() == null || book.getFileSizeKb() == sizeKb) {
+                it.remove();
+                return book;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param movedBookIds books that now point at a new file and must not be deleted
+     * @param movedFiles   files that were matched to an existing book and must not be imported again
+     */
+    public record MoveResult(Set<Long> movedBookIds, Set<LibraryFile> movedFiles) {
+        static final MoveResult EMPTY = new MoveResult(Set.of(), Set.of());
+    }
+}
@@ -12,6 +12,7 @@ import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.event.BookEventBroadcaster;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
+import com.adityachandel.booklore.service.fileprocessor.BookEnrichmentService;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +30,8 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
     private final BookEventBroadcaster bookEventBroadcaster;
     private final BookFileProcessorRegistry processorRegistry;
     private final NotificationService notificationService;
+    private final LibraryIngestPipeline ingestPipeline;
+    private final BookEnrichmentService bookEnrichmentService;
 
     @Override
     public LibraryScanMode getScanMode() {
@@ -38,41 +41,45 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
     @Override
     @Transactional
     public void processLibraryFiles(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
-        for (LibraryFile libraryFile : libraryFiles) {
-            log.info("Processing file: {}", libraryFile.getFileName());
-
-            FileProcessResult result = processLibraryFile(libraryFile);
-
-            if (result != null) {
-                if (result.getDuplicate() != null) {
-                    DuplicateFileInfo dupe = result.getDuplicate();
-
-                    DuplicateFileNotification notification = DuplicateFileNotification.builder()
-                            .libraryId(libraryEntity.getId())
-                            .libraryName(libraryEntity.getName())
-                            .fileId(dupe.getBookId())
-                            .fileName(dupe.getFileName())
-                            .fullPath(dupe.getFullPath())
-                            .hash(dupe.getHash())
-                            .timestamp(Instant.now())
-                            .build();
-
-                    log.info("Duplicate file detected: {}", notification);
-
-                    notificationService.sendMessage(Topic.DUPLICATE_FILE, notification);
-                }
-
-                if (result.getStatus() != FileProcessStatus.DUPLICATE) {
-                    bookEventBroadcaster.broadcastBookAddEvent(result.getBook());
-                    log.info("Processed file: {}", libraryFile.getFileName());
-                }
-            }
+        boolean deferEnrichment = bookEnrichmentService.isEnabled();
+        libraryFiles.forEach(libraryFile -> libraryFile.setDeferEnrichment(deferEnrichment));
+        ingestPipeline.ingest(libraryFiles, this::processLibraryFile, (libraryFile, result) -> handleResult(libraryFile, result, libraryEntity));
+        log.info("Finished processing {} files for library '{}'", libraryFiles.size(), libraryEntity.getName());
+    }
+
+    private void handleResult(LibraryFile libraryFile, FileProcessResult result, LibraryEntity libraryEntity) {
+        if (result == null) {
+            return;
         }
 
-        log.info("Finished processing library '{}'", libraryEntity.getName());
+        if (result.getDuplicate() != null) {
+            DuplicateFileInfo dupe = result.getDuplicate();
+
+            DuplicateFileNotification notification = DuplicateFileNotification.builder()
+                    .libraryId(libraryEntity.getId())
+                    .libraryName(libraryEntity.getName())
+                    .fileId(dupe.getBookId())
+                    .fileName(dupe.getFileName())
+                    .fullPath(dupe.getFullPath())
+                    .hash(dupe.getHash())
+                    .timestamp(Instant.now())
+                    .build();
+
+            log.info("Duplicate file detected: {}", notification);
+
+            notificationService.sendMessage(Topic.DUPLICATE_FILE, notification);
+        }
+
+        if (result.getStatus() != FileProcessStatus.DUPLICATE) {
+            bookEventBroadcaster.broadcastBookAddEvent(result.getBook());
+            log.info("Processed file: {}", libraryFile.getFileName());
+        }
+
+        if (result.getStatus() == FileProcessStatus.NEW && libraryFile.isDeferEnrichment()) {
+            bookEnrichmentService.enqueue(result.getBook().getId());
+        }
     }
 
-    @Transactional
     protected FileProcessResult processLibraryFile(LibraryFile libraryFile) {
         BookFileType type = libraryFile.getBookFileType();
         if (type == null) {
@@ -80,8 +87,9 @@ public class FileAsBookProcessor implements LibraryFileProcessor {
             return null;
         }
 
+        log.info("Processing file: {}", libraryFile.getFileName());
         BookFileProcessor processor = processorRegistry.getProcessorOrThrow(type);
-        return processor.processFile(libraryFile);
+        return processor.processFileInCurrentTransaction(libraryFile);
     }
 
 }
\ No newline at end of file
@@ -1,18 +1,20 @@
 package com.adityachandel.booklore.service.library;
 
+import com.adityachandel.booklore.model.DirectoryBookIndex;
 import com.adityachandel.booklore.model.FileProcessResult;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
 import com.adityachandel.booklore.model.entity.BookAdditionalFileEntity;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
-import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.AdditionalFileType;
 import com.adityachandel.booklore.model.enums.BookFileExtension;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.LibraryScanMode;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.event.AdminEventBroadcaster;
 import com.adityachandel.booklore.service.event.BookEventBroadcaster;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
@@ -23,10 +25,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,6 +42,9 @@ public class FolderAsBookFileProcessor implements LibraryFileProcessor {
     private final BookEventBroadcaster bookEventBroadcaster;
     private final AdminEventBroadcaster adminEventBroadcaster;
     private final BookFileProcessorRegistry bookFileProcessorRegistry;
+    private final AppSettingService appSettingService;
+    private final LibraryScanCoordinator scanCoordinator;
+    private final FileFingerprintCache fileFingerprintCache;
 
     @Override
     public LibraryScanMode getScanMode() {
@@ -50,105 +56,140 @@ public class FolderAsBookFileProcessor implements LibraryFileProcessor {
         return true;
     }
 
+    @Override
+    public boolean supportsBatchedProcessing() {
+        // Files of one directory must be seen together to pick the main book file
+        return false;
+    }
+
     @Override
     public void processLibraryFiles(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
         Map<Path, List<LibraryFile>> filesByDirectory = libraryFiles.stream()
-                .collect(Collectors.groupingBy(libraryFile -> libraryFile.getFullPath().getParent()));
+                .collect(Collectors.groupingBy(libraryFile -> libraryFile.getFullPath().getParent(), TreeMap::new, Collectors.toList()));
 
         log.info("Processing {} directories with {} total files for library: {}",
                 filesByDirectory.size(), libraryFiles.size(), libraryEntity.getName());
 
-        var sortedDirectories = filesByDirectory.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByKey())
-                .toList();
-        for (Map.Entry<Path, List<LibraryFile>> entry : sortedDirectories) {
-            Path directoryPath = entry.getKey();
-            List<LibraryFile> filesInDirectory = entry.getValue();
+        DirectoryBookIndex index = buildIndex(libraryEntity);
+
+        // A book at a library path root owns every directory below it, so roots go first. After
+        // that each top-level directory is an independent subtree; within a subtree directories
+        // are handled parent first, so books created higher up are found by the ones below.
+        List<List<Directory>> rootDirectories = new ArrayList<>();
+        Map<String, List<Directory>> subtrees = new LinkedHashMap<>();
+        filesByDirectory.forEach((path, files) -> {
+            LibraryFile first = files.getFirst();
+            Directory directory = new Directory(path, first.getLibraryPathEntity().getId(), first.getFileSubPath(), files);
+            List<String> segments = DirectoryBookIndex.segments(directory.subPath());
+            if (segments.isEmpty()) {
+                rootDirectories.add(List.of(directory));
+            } else {
+                subtrees.computeIfAbsent(directory.libraryPathId() + "/" + segments.getFirst(), k -> new ArrayList<>()).add(directory);
+            }
+        });
 
-            log.debug("Processing directory: {} with {} files", directoryPath, filesInDirectory.size());
-            processDirectory(directoryPath, filesInDirectory, libraryEntity);
+        List<DirectoryPlan> plans = new ArrayList<>(planSubtrees(rootDirectories, index, libraryEntity));
+        plans.addAll(planSubtrees(new ArrayList<>(subtrees.values()), index, libraryEntity));
+
+        for (DirectoryPlan plan : plans) {
+            applyPlan(plan);
         }
     }
 
-    private void processDirectory(Path directoryPath, List<LibraryFile> filesInDirectory, LibraryEntity libraryEntity) {
-        var bookCreationResult = getOrCreateBookInDirectory(directoryPath, filesInDirectory, libraryEntity);
-        if (bookCreationResult.bookEntity.isEmpty()) {
-            log.warn("No book created for directory: {}", directoryPath);
-            return;
+    private DirectoryBookIndex buildIndex(LibraryEntity libraryEntity) {
+        DirectoryBookIndex index = new DirectoryBookIndex();
+        List<BookRepository.DirectoryEntry> entries = bookRepository.findDirectoryEntriesByLibraryId(libraryEntity.getId());
+        for (BookRepository.DirectoryEntry entry : entries) {
+            if (entry.getLibraryPathId() != null) {
+                index.addBook(entry.getLibraryPathId(), entry.getFileSubPath(), entry.getId());
+            }
         }
+        log.debug("Indexed {} existing books by directory for library: {}", entries.size(), libraryEntity.getName());
+        return index;
+    }
 
-        processAdditionalFiles(bookCreationResult.bookEntity.get(), bookCreationResult.remainingFiles);
+    /**
+     * Finds or creates the book of every directory. Subtrees are independent of each other and run
+     * on virtual threads, bounded by the processing concurrency of the scan settings. The returned
+     * plans keep the directory order.
+     */
+    private List<DirectoryPlan> planSubtrees(List<List<Directory>> subtrees, DirectoryBookIndex index, LibraryEntity libraryEntity) {
+        if (subtrees.size() <= 1) {
+            return subtrees.stream()
+                    .flatMap(List::stream)
+                    .map(directory -> planDirectory(directory, index, libraryEntity))
+                    .toList();
+        }
+
+        LibraryScanSettings settings = appSettingService.getAppSettings().getLibraryScanSettings();
+        Semaphore permits = new Semaphore(Math.max(1, settings.getProcessingConcurrency()));
+        List<CompletableFuture<List<DirectoryPlan>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Directory> subtree : subtrees) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return subtree.stream()
+                                .map(directory -> planDirectory(directory, index, libraryEntity))
+                                .toList();
+                    } finally {
+                        permits.release();
+                    }
+                }, executor));
+            }
+        }
+        return futures.stream()
+                .flatMap(future -> future.join().stream())
+                .sorted(Comparator.comparing(plan -> plan.directory().path()))
+                .toList();
     }
 
-    private GetOrCreateBookResult getOrCreateBookInDirectory(Path directoryPath, List<LibraryFile> filesInDirectory, LibraryEntity libraryEntity) {
-        var existingBook = findExistingBookInDirectory(directoryPath, libraryEntity);
-        if (existingBook.isPresent()) {
-            log.debug("Found existing book in directory {}: {}", directoryPath, existingBook.get().getFileName());
-            return new GetOrCreateBookResult(existingBook, filesInDirectory);
+    private DirectoryPlan planDirectory(Directory directory, DirectoryBookIndex index, LibraryEntity libraryEntity) {
+        log.debug("Processing directory: {} with {} files", directory.path(), directory.files().size());
+
+        Long existingBookId = index.findBookInDirectory(directory.libraryPathId(), directory.subPath());
+        if (existingBookId != null) {
+            log.debug("Found existing book in directory {}: {}", directory.path(), existingBookId);
+            return new DirectoryPlan(directory, existingBookId, null, directory.files());
         }
 
-        Optional<BookEntity> parentBook = findBookInParentDirectories(directoryPath, libraryEntity);
-        if (parentBook.isPresent()) {
-            log.debug("Found parent book for directory {}: {}", directoryPath, parentBook.get().getFileName());
-            return new GetOrCreateBookResult(parentBook, filesInDirectory);
+        Long parentBookId = index.findBookAbove(directory.libraryPathId(), directory.subPath());
+        if (parentBookId != null) {
+            log.debug("Found parent book for directory {}: {}", directory.path(), parentBookId);
+            return new DirectoryPlan(directory, parentBookId, null, directory.files());
         }
 
-        log.debug("No existing book found, creating new book from directory: {}", directoryPath);
-        Optional<CreateBookResult> newBook = createNewBookFromDirectory(directoryPath, filesInDirectory, libraryEntity);
-        if (newBook.isPresent()) {
-            log.info("Created new book: {}", newBook.get().bookEntity.getFileName());
-            var remainingFiles = filesInDirectory.stream()
-                    .filter(file -> !file.equals(newBook.get().libraryFile))
-                    .toList();
-            return new GetOrCreateBookResult(Optional.of(newBook.get().bookEntity), remainingFiles);
-        } else {
-            log.warn("Failed to create book from directory: {}", directoryPath);
-            return new GetOrCreateBookResult(Optional.empty(), filesInDirectory);
+        log.debug("No existing book found, creating new book from directory: {}", directory.path());
+        Optional<CreateBookResult> newBook = createNewBookFromDirectory(directory.path(), directory.files(), libraryEntity);
+        if (newBook.isEmpty()) {
+            log.warn("Failed to create book from directory: {}", directory.path());
+            return new DirectoryPlan(directory, null, null, directory.files());
         }
-    }
 
-    private Optional<BookEntity> findExistingBookInDirectory(Path directoryPath, LibraryEntity libraryEntity) {
-        return libraryEntity.getLibraryPaths().stream()
-                .flatMap(libPath -> {
-                    String filesSearchPath = Path.of(libPath.getPath())
-                            .relativize(directoryPath)
-                            .toString()
-                            .replace("\\", "/");
-                    return bookRepository
-                            .findAllByLibraryPathIdAndFileSubPathStartingWith(libPath.getId(), filesSearchPath)
-                            .stream();
-                })
-                .filter(book -> book.getFullFilePath().getParent().equals(directoryPath))
-                .findFirst();
+        long bookId = newBook.get().bookId();
+        index.addBook(directory.libraryPathId(), directory.subPath(), bookId);
+        var remainingFiles = directory.files().stream()
+                .filter(file -> !file.equals(newBook.get().libraryFile()))
+                .toList();
+        return new DirectoryPlan(directory, bookId, newBook.get().libraryFile(), remainingFiles);
     }
 
-    private Optional<BookEntity> findBookInParentDirectories(Path directoryPath, LibraryEntity libraryEntity) {
-        Path parent = directoryPath.getParent();
-        LibraryPathEntity directoryLibraryPathEntity = libraryEntity.getLibraryPaths().stream()
-                .filter(libPath -> directoryPath.startsWith(libPath.getPath()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("No library path found for directory: " + directoryPath));
-        Path directoryLibraryPath = Path.of(directoryLibraryPathEntity.getPath());
-
-        while (parent != null) {
-            final String parentPath = directoryLibraryPath
-                    .relativize(parent)
-                    .toString()
-                    .replace("\\", "/");
-
-            Optional<BookEntity> parentBook =
-                    bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(
-                                    directoryLibraryPathEntity.getId(), parentPath).stream()
-                            .filter(book -> book.getFileSubPath().equals(parentPath))
-                            .findFirst();
-            if (parentBook.isPresent()) {
-                return parentBook;
+    private void applyPlan(DirectoryPlan plan) {
+        if (plan.bookId() == null) {
+            log.warn("No book created for directory: {}", plan.directory().path());
+            return;
+        }
+
+        BookEntity bookEntity = bookRepository.getReferenceById(plan.bookId());
+        if (plan.createdFrom() != null) {
+            if (bookEntity.getFullFilePath().equals(plan.createdFrom().getFullPath())) {
+                log.info("Created new book: {}", bookEntity.getFileName());
+            } else {
+                log.warn("Found duplicate book with different path: {} vs {}", bookEntity.getFullFilePath(), plan.createdFrom().getFullPath());
             }
-            parent = parent.getParent();
         }
 
-        return Optional.empty();
+        processAdditionalFiles(bookEntity, plan.remainingFiles());
     }
 
     private Optional<CreateBookResult> createNewBookFromDirectory(Path directoryPath, List<LibraryFile> filesInDirectory, LibraryEntity libraryEntity) {
@@ -165,19 +206,14 @@ public class FolderAsBookFileProcessor implements LibraryFileProcessor {
             log.info("Creating new book from file: {}", bookFile.getFileName());
 
             BookFileProcessor processor = bookFileProcessorRegistry.getProcessorOrThrow(bookFile.getBookFileType());
-            FileProcessResult result = processor.processFile(bookFile);
+            FileProcessResult result;
+            try (LibraryScanCoordinator.WriterPermit writerPermit = scanCoordinator.acquireWriter()) {
+                result = processor.processFile(bookFile);
+            }
 
             if (result.getBook() != null) {
                 bookEventBroadcaster.broadcastBookAddEvent(result.getBook());
-
-                BookEntity bookEntity = bookRepository.getReferenceById(result.getBook().getId());
-                if (bookEntity.getFullFilePath().equals(bookFile.getFullPath())) {
-                    log.info("Successfully created new book: {}", bookEntity.getFileName());
-                } else {
-                    log.warn("Found duplicate book with different path: {} vs {}", bookEntity.getFullFilePath(), bookFile.getFullPath());
-                }
-
-                return Optional.of(new CreateBookResult(bookEntity, bookFile));
+                return Optional.of(new CreateBookResult(result.getBook().getId(), bookFile));
             } else {
                 log.warn("Book processor returned null for file: {}", bookFile.getFileName());
                 adminEventBroadcaster.broadcastAdminEvent("Failed to create book from file: " + bookFile.getFileName());
@@ -222,7 +258,7 @@ public class FolderAsBookFileProcessor implements LibraryFileProcessor {
             return;
         }
 
-        String hash = FileFingerprint.generateHash(file.getFullPath());
+        String hash = file.getHash() != null ? file.getHash() : fileFingerprintCache.getHash(file.getFullPath());
         BookAdditionalFileEntity additionalFile = BookAdditionalFileEntity.builder()
                 .book(bookEntity)
                 .fileName(file.getFileName())
@@ -246,10 +282,13 @@ public class FolderAsBookFileProcessor implements LibraryFileProcessor {
         }
     }
 
-    public record GetOrCreateBookResult(Optional<BookEntity> bookEntity, List<LibraryFile> remainingFiles) {
+    private record Directory(Path path, long libraryPathId, String subPath, List<LibraryFile> files) {
+    }
+
+    private record DirectoryPlan(Directory directory, Long bookId, LibraryFile createdFrom, List<LibraryFile> remainingFiles) {
     }
 
-    public record CreateBookResult(BookEntity bookEntity, LibraryFile libraryFile) {
+    public record CreateBookResult(long bookId, LibraryFile libraryFile) {
     }
 
 }
@@ -8,51 +8,124 @@ import com.adityachandel.booklore.util.FileUtils;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 @Component
 public class LibraryFileHelper {
 
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final LibraryFile END_OF_WALK = LibraryFile.builder().build();
+
     public List<LibraryFile> getLibraryFiles(LibraryEntity libraryEntity, LibraryFileProcessor processor) throws IOException {
         List<LibraryFile> allFiles = new ArrayList<>();
-        for (LibraryPathEntity pathEntity : libraryEntity.getLibraryPaths()) {
-            allFiles.addAll(findLibraryFiles(pathEntity, libraryEntity, processor));
-        }
+        streamLibraryFiles(libraryEntity, processor, Integer.MAX_VALUE, allFiles::addAll);
         return allFiles;
     }
 
-    private List<LibraryFile> findLibraryFiles(LibraryPathEntity pathEntity, LibraryEntity libraryEntity, LibraryFileProcessor processor) throws IOException {
+    /**
+     * Walks all paths of the library on a background virtual thread and hands the files to
+     * {@code batchConsumer} on the calling thread, {@code batchSize} files at a time. The walker and
+     * the consumer are connected by a bounded queue, so a slow consumer pauses the walk instead of
+     * letting discovered files pile up in memory.
+     */
+    public void streamLibraryFiles(LibraryEntity libraryEntity, LibraryFileProcessor processor, int batchSize,
+                                   Consumer<List<LibraryFile>> batchConsumer) throws IOException {
+        BlockingQueue<LibraryFile> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<Throwable> walkFailure = new AtomicReference<>();
+        // Resolve the paths on the calling thread, which owns the persistence context
+        List<LibraryPathEntity> libraryPaths = List.copyOf(libraryEntity.getLibraryPaths());
+
+        Thread walker = Thread.ofVirtual().name("library-walker-" + libraryEntity.getId()).start(() -> {
+            try {
+                for (LibraryPathEntity pathEntity : libraryPaths) {
+                    walkLibraryPath(pathEntity, libraryEntity, processor, queue);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                walkFailure.set(e);
+            }
+            try {
+                queue.put(END_OF_WALK);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            List<LibraryFile> batch = new ArrayList<>(Math.min(batchSize, QUEUE_CAPACITY));
+            while (true) {
+                LibraryFile libraryFile = queue.take();
+                if (libraryFile == END_OF_WALK) {
+                    break;
+                }
+                batch.add(libraryFile);
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(Math.min(batchSize, QUEUE_CAPACITY));
+                }
+            }
+
+            Throwable failure = walkFailure.get();
+            if (failure instanceof UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (failure instanceof IOException e) {
+                throw e;
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Failed to walk library " + libraryEntity.getName(), failure);
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while walking library " + libraryEntity.getName(), e);
+        } finally {
+            walker.interrupt();
+        }
+    }
+
+    private void walkLibraryPath(LibraryPathEntity pathEntity, LibraryEntity libraryEntity, LibraryFileProcessor processor,
+                                 BlockingQueue<LibraryFile> queue) throws IOException, InterruptedException {
         Path libraryPath = Path.of(pathEntity.getPath());
         boolean supportsSupplementaryFiles = processor.supportsSupplementaryFiles();
 
         try (Stream<Path> stream = Files.walk(libraryPath, FileVisitOption.FOLLOW_LINKS)) {
-            return stream.filter(Files::isRegularFile)
-                    .map(fullPath -> {
-                        String fileName = fullPath.getFileName().toString();
-                        Optional<BookFileExtension> bookExtension = BookFileExtension.fromFileName(fileName);
-
-                        if (bookExtension.isEmpty() && !supportsSupplementaryFiles) {
-                            return null;
-                        }
-
-                        return LibraryFile.builder()
-                                .libraryEntity(libraryEntity)
-                                .libraryPathEntity(pathEntity)
-                                .fileSubPath(FileUtils.getRelativeSubPath(pathEntity.getPath(), fullPath))
-                                .fileName(fileName)
-                                .bookFileType(bookExtension.map(BookFileExtension::getType).orElse(null))
-                                .build();
-                    })
-                    .filter(Objects::nonNull)
-                    .filter(file -> !file.getFileName().startsWith("."))
-                    .toList();
+            var iterator = stream.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path fullPath = iterator.next();
+                String fileName = fullPath.getFileName().toString();
+                if (fileName.startsWith(".")) {
+                    continue;
+                }
+
+                Optional<BookFileExtension> bookExtension = BookFileExtension.fromFileName(fileName);
+                if (bookExtension.isEmpty() && !supportsSupplementaryFiles) {
+                    continue;
+                }
+
+                queue.put(LibraryFile.builder()
+                        .libraryEntity(libraryEntity)
+                        .libraryPathEntity(pathEntity)
+                        .fileSubPath(FileUtils.getRelativeSubPath(pathEntity.getPath(), fullPath))
+                        .fileName(fileName)
+                        .bookFileType(bookExtension.map(BookFileExtension::getType).orElse(null))
+                        .build());
+            }
         }
     }
 }
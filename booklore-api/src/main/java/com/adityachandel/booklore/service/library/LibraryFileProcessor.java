@@ -19,4 +19,13 @@ public interface LibraryFileProcessor {
     default boolean supportsSupplementaryFiles() {
         return false;
     }
+
+    /**
+     * Indicates whether files can be handed to this processor in several batches during a scan,
+     * as opposed to all files of the library in a single call.
+     * @return true if batched processing is supported, false otherwise
+     */
+    default boolean supportsBatchedProcessing() {
+        return true;
+    }
 }
\ No newline at end of file
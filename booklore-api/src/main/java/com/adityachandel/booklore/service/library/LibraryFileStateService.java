@@ -0,0 +1,301 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryFileStateRepository;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.util.FileUtils;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Keeps a persisted (size, mtime, file key) snapshot of every file seen by a library scan so that
+ * rescans only need to look at files whose stat tuple changed, and can find deletions by set
+ * difference against the snapshot instead of loading the library's book graph.
+ * <p>
+ * Only files that a book or additional file points at are recorded. A file that failed to import
+ * stays out of the snapshot, so the next rescan sees it as changed and tries it again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LibraryFileStateService {
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final LibraryFileStateRepository libraryFileStateRepository;
+    private final BookRepository bookRepository;
+    private final BookAdditionalFileRepository bookAdditionalFileRepository;
+    private final FileFingerprintCache fileFingerprintCache;
+
+    /**
+     * Starts a diff that is fed incrementally through {@link #accept}. Vanished files are only known
+     * once {@link #finish} has been called after the last batch.
+     */
+    public FileStateDiff begin(long libraryId) {
+        Map<StateKey, LibraryFileStateEntity> existing = new HashMap<>();
+        for (LibraryFileStateEntity state : libraryFileStateRepository.findByLibraryId(libraryId)) {
+            existing.put(new StateKey(state.getLibraryPathId(), state.getFileSubPath(), state.getFileName()), state);
+        }
+        return new FileStateDiff(libraryId, existing);
+    }
+
+    public void accept(FileStateDiff diff, List<LibraryFile> libraryFiles) {
+        for (LibraryFile libraryFile : libraryFiles) {
+            FileStat stat = stat(libraryFile);
+            if (stat == null) {
+                continue;
+            }
+            diff.seenCount++;
+            StateKey key = StateKey.of(libraryFile);
+            LibraryFileStateEntity state = diff.unseenStates.remove(key);
+            if (state == null) {
+                diff.addedFiles.add(libraryFile);
+                diff.addedCount++;
+            } else if (!stat.matches(state)) {
+                diff.modifiedFiles.add(libraryFile);
+                diff.modifiedCount++;
+                diff.existingStates.put(key, state);
+            }
+            if (state == null || !stat.matches(state)) {
+                diff.stats.put(key, stat);
+            }
+        }
+    }
+
+    public void finish(FileStateDiff diff) {
+        diff.vanishedStates.addAll(diff.unseenStates.values());
+        diff.unseenStates.clear();
+
+        log.info("File state diff for library {}: {} added, {} modified, {} vanished, {} unchanged",
+                diff.libraryId, diff.addedCount, diff.modifiedCount, diff.vanishedStates.size(),
+                diff.seenCount - diff.addedCount - diff.modifiedCount);
+    }
+
+    /**
+     * Fingerprints the modified files that a book points at again and records the new fingerprint
+     * and size on the book when its content changed. The fingerprint is kept on the file, so that
+     * {@link #record} stores it with the new stat tuple.
+     *
+     * @return the books whose file was rewritten with different content
+     */
+    public List<BookEntity> refreshModified(FileStateDiff diff) {
+        List<BookEntity> updated = new ArrayList<>();
+        for (LibraryFile libraryFile : diff.modifiedFiles) {
+            StateKey key = StateKey.of(libraryFile);
+            BookEntity book = bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(key.libraryPathId(), key.fileSubPath(), key.fileName()).orElse(null);
+            if (book == null || Boolean.TRUE.equals(book.getDeleted())) {
+                continue;
+            }
+            String hash;
+            try {
+                hash = fileFingerprintCache.getHash(libraryFile.getFullPath());
+            } catch (RuntimeException e) {
+                log.warn("Failed to fingerprint modified file '{}': {}", libraryFile.getFullPath(), e.getMessage());
+                continue;
+            }
+            libraryFile.setHash(hash);
+            if (!hash.equals(book.getCurrentHash())) {
+                log.info("'{}' was rewritten in place", libraryFile.getFullPath());
+                book.setCurrentHash(hash);
+                book.setFileSizeKb(FileUtils.getFileSizeInKb(libraryFile.getFullPath()));
+                updated.add(bookRepository.save(book));
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Persists the changes collected so far and releases them from the diff, so that a streaming
+     * scan can record after every batch without holding on to the files it has already processed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void record(FileStateDiff diff) {
+        List<LibraryFile> changedFiles = diff.getChangedFiles();
+        Set<StateKey> importedKeys = importedKeys(diff.libraryId, changedFiles);
+        List<LibraryFileStateEntity> toSave = new ArrayList<>(changedFiles.size());
+        for (LibraryFile libraryFile : changedFiles) {
+            StateKey key = StateKey.of(libraryFile);
+            if (importedKeys.contains(key)) {
+                toSave.add(toState(diff, key, libraryFile, diff.stats.get(key)));
+            }
+        }
+        libraryFileStateRepository.saveAll(toSave);
+        if (!diff.vanishedStates.isEmpty()) {
+            libraryFileStateRepository.deleteAllInBatch(diff.vanishedStates);
+        }
+        diff.clearRecorded();
+    }
+
+    /**
+     * Persists only the given changed files, once they have been processed. A rescan interrupted
+     * halfway then sees them as unchanged on its next run and only picks up the files it had not
+     * reached yet. Files that did not become a book are released without a row, and vanished files
+     * are left for {@link #record(FileStateDiff)}.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void record(FileStateDiff diff, List<LibraryFile> libraryFiles) {
+        Set<StateKey> importedKeys = importedKeys(diff.libraryId, libraryFiles);
+        List<LibraryFileStateEntity> toSave = new ArrayList<>(libraryFiles.size());
+        Set<LibraryFile> recorded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (LibraryFile libraryFile : libraryFiles) {
+            StateKey key = StateKey.of(libraryFile);
+            FileStat stat = diff.stats.remove(key);
+            if (stat == null) {
+                continue;
+            }
+            if (importedKeys.contains(key)) {
+                toSave.add(toState(diff, key, libraryFile, stat));
+            }
+            diff.existingStates.remove(key);
+            recorded.add(libraryFile);
+        }
+        libraryFileStateRepository.saveAll(toSave);
+        diff.addedFiles.removeIf(recorded::contains);
+        diff.modifiedFiles.removeIf(recorded::contains);
+    }
+
+    /**
+     * Finds the books and additional files whose file is not among {@code libraryFiles}, the files
+     * found by the rescan. Compared against the book rows rather than the snapshot, which has no
+     * row yet for books that the watcher or an upload added since the last scan.
+     */
+    public VanishedFiles findVanished(long libraryId, List<LibraryFile> libraryFiles) {
+        Set<StateKey> seenKeys = new HashSet<>(libraryFiles.size() * 2);
+        libraryFiles.forEach(libraryFile -> seenKeys.add(StateKey.of(libraryFile)));
+        return new VanishedFiles(
+                vanishedIds(bookRepository.findFilePathEntriesByLibraryId(libraryId), seenKeys),
+                vanishedIds(bookAdditionalFileRepository.findFilePathEntriesByLibraryId(libraryId), seenKeys));
+    }
+
+    private List<Long> vanishedIds(List<BookRepository.FilePathEntry> entries, Set<StateKey> seenKeys) {
+        List<Long> ids = new ArrayList<>();
+        for (BookRepository.FilePathEntry entry : entries) {
+            if (entry.getLibraryPathId() != null && !seenKeys.contains(StateKey.of(entry))) {
+                ids.add(entry.getId());
+            }
+        }
+        return ids;
+    }
+
+    private Set<StateKey> importedKeys(long libraryId, List<LibraryFile> libraryFiles) {
+        Set<StateKey> keys = new HashSet<>();
+        List<String> fileNames = libraryFiles.stream().map(LibraryFile::getFileName).distinct().toList();
+        for (int from = 0; from < fileNames.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = fileNames.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, fileNames.size()));
+            bookRepository.findFilePathEntriesByLibraryIdAndFileNameIn(libraryId, chunk).forEach(entry -> keys.add(StateKey.of(entry)));
+            bookAdditionalFileRepository.findFilePathEntriesByLibraryIdAndFileNameIn(libraryId, chunk).forEach(entry -> keys.add(StateKey.of(entry)));
+        }
+        return keys;
+    }
+
+    private LibraryFileStateEntity toState(FileStateDiff diff, StateKey key, LibraryFile libraryFile, FileStat stat) {
+        LibraryFileStateEntity state = diff.existingStates.get(key);
+        if (state == null) {
+            state = LibraryFileStateEntity.builder()
+                    .libraryId(diff.libraryId)
+                    .libraryPathId(key.libraryPathId())
+                    .fileSubPath(key.fileSubPath())
+                    .fileName(key.fileName())
+                    .build();
+        }
+        state.setFileSize(stat.size());
+        state.setLastModified(stat.lastModified());
+        state.setFileKey(stat.fileKey());
+        if (libraryFile.getHash() != null) {
+            state.setFingerprint(libraryFile.getHash());
+        }
+        return state;
+    }
+
+    private FileStat stat(LibraryFile libraryFile) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(libraryFile.getFullPath(), BasicFileAttributes.class);
+            Object fileKey = attrs.fileKey();
+            return new FileStat(attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey != null ? fileKey.toString() : null);
+        } catch (IOException e) {
+            log.warn("Failed to read attributes of '{}': {}", libraryFile.getFullPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    record StateKey(long libraryPathId, String fileSubPath, String fileName) {
+        static StateKey of(LibraryFile libraryFile) {
+            return new StateKey(libraryFile.getLibraryPathEntity().getId(), Objects.toString(libraryFile.getFileSubPath(), ""), libraryFile.getFileName());
+        }
+
+        static StateKey of(BookRepository.FilePathEntry entry) {
+            return new StateKey(entry.getLibraryPathId(), Objects.toString(entry.getFileSubPath(), ""), entry.getFileName());
+        }
+    }
+
+    public record VanishedFiles(List<Long> bookIds, List<Long> additionalFileIds) {
+        public boolean isEmpty() {
+            return bookIds.isEmpty() && additionalFileIds.isEmpty();
+        }
+    }
+
+    record FileStat(long size, long lastModified, String fileKey) {
+        boolean matches(LibraryFileStateEntity state) {
+            return size == state.getFileSize()
+                    && lastModified == state.getLastModified()
+                    && Objects.equals(fileKey, state.getFileKey());
+        }
+    }
+
+    public static class FileStateDiff {
+        @Getter
+        private final long libraryId;
+        @Getter
+        private final boolean baseline;
+        @Getter
+        private final List<LibraryFile> addedFiles = new ArrayList<>();
+        @Getter
+        private final List<LibraryFile> modifiedFiles = new ArrayList<>();
+        @Getter
+        private final List<LibraryFileStateEntity> vanishedStates = new ArrayList<>();
+        private final Map<StateKey, FileStat> stats = new HashMap<>();
+        private final Map<StateKey, LibraryFileStateEntity> existingStates = new HashMap<>();
+        private final Map<StateKey, LibraryFileStateEntity> unseenStates;
+        private int seenCount;
+        private int addedCount;
+        private int modifiedCount;
+
+        FileStateDiff(long libraryId, Map<StateKey, LibraryFileStateEntity> unseenStates) {
+            this.libraryId = libraryId;
+            this.baseline = !unseenStates.isEmpty();
+            this.unseenStates = unseenStates;
+        }
+
+        private void clearRecorded() {
+            addedFiles.clear();
+            modifiedFiles.clear();
+            vanishedStates.clear();
+            stats.clear();
+            existingStates.clear();
+        }
+
+        public List<LibraryFile> getChangedFiles() {
+            List<LibraryFile> changed = new ArrayList<>(addedFiles.size() + modifiedFiles.size());
+            changed.addAll(addedFiles);
+            changed.addAll(modifiedFiles);
+            return changed;
+        }
+
+        public boolean isEmpty() {
+            return addedFiles.isEmpty() && modifiedFiles.isEmpty() && vanishedStates.isEmpty();
+        }
+    }
+}
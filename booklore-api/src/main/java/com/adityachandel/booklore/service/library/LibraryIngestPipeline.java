@@ -0,0 +1,304 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.FileProcessResult;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Staged ingest pipeline used by library scans.
+ * <p>
+ * Files are processed in windows. While one window is being processed, the next one is already
+ * being fingerprinted, so hashing and cover/metadata extraction overlap. Both stages run on
+ * virtual threads bounded by the concurrency limits in {@link LibraryScanSettings}.
+ * <p>
+ * Files that share a hash or a file name are placed in the same lane and processed sequentially
+ * in their original order, so duplicate detection behaves exactly as it does for a sequential scan.
+ * The files of different lanes are written in batches of up to {@code ingestBatchSize} files per
+ * transaction, each batch holding an {@link IoGovernor} permit on its library path and a database
+ * writer slot from the {@link LibraryScanCoordinator}. A batch that fails is rolled back and its
+ * files are written again one per transaction, so one broken file only loses itself.
+ * Results are handed to the writer callback on the calling thread, in the original file order,
+ * once their batch has committed.
+ */
+@Component
+@Slf4j
+public class LibraryIngestPipeline {
+
+    private static final int DEFAULT_BATCH_SIZE = 32;
+
+    private final AppSettingService appSettingService;
+    private final FileFingerprintCache fileFingerprintCache;
+    private final IoGovernor ioGovernor;
+    private final LibraryScanCoordinator scanCoordinator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTemplate;
+
+    public LibraryIngestPipeline(AppSettingService appSettingService,
+                                 FileFingerprintCache fileFingerprintCache,
+                                 IoGovernor ioGovernor,
+                                 LibraryScanCoordinator scanCoordinator,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager) {
+        this.appSettingService = appSettingService;
+        this.fileFingerprintCache = fileFingerprintCache;
+        this.ioGovernor = ioGovernor;
+        this.scanCoordinator = scanCoordinator;
+        this.entityManager = entityManager;
+        this.batchTemplate = new TransactionTemplate(transactionManager);
+        this.batchTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Read committed, so that concurrent batches see each other's newly created books
+        this.batchTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * @param processor processes one file inside the batch transaction opened by the pipeline
+     */
+    public void ingest(List<LibraryFile> libraryFiles,
+                       Function<LibraryFile, FileProcessResult> processor,
+                       BiConsumer<LibraryFile, FileProcessResult> writer) {
+        if (libraryFiles.isEmpty()) {
+            return;
+        }
+
+        LibraryScanSettings settings = appSettingService.getAppSettings().getLibraryScanSettings();
+        int windowSize = Math.max(1, settings.getPipelineWindowSize());
+        int processingConcurrency = Math.max(1, settings.getProcessingConcurrency());
+        int batchSize = settings.getIngestBatchSize() > 0 ? settings.getIngestBatchSize() : DEFAULT_BATCH_SIZE;
+        Semaphore hashingPermits = new Semaphore(Math.max(1, settings.getHashingConcurrency()));
+        Semaphore processingPermits = new Semaphore(processingConcurrency);
+
+        List<List<LibraryFile>> windows = partition(libraryFiles, windowSize);
+        log.info("Ingesting {} files in {} windows (hashing={}, processing={}, batch={})",
+                libraryFiles.size(), windows.size(), settings.getHashingConcurrency(), processingConcurrency, batchSize);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<List<LibraryFile>> nextWindow = hashWindow(windows.getFirst(), executor, hashingPermits);
+            for (int i = 0; i < windows.size(); i++) {
+                List<LibraryFile> window = nextWindow.join();
+                if (i + 1 < windows.size()) {
+                    nextWindow = hashWindow(windows.get(i + 1), executor, hashingPermits);
+                }
+
+                FileProcessResult[] results = processWindow(window, processor, executor, processingPermits, processingConcurrency, batchSize);
+                for (int j = 0; j < window.size(); j++) {
+                    writer.accept(window.get(j), results[j]);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<List<LibraryFile>> hashWindow(List<LibraryFile> window, ExecutorService executor, Semaphore permits) {
+        CompletableFuture<?>[] futures = window.stream()
+                .filter(file -> file.getBookFileType() != null && file.getHash() == null)
+                .map(file -> CompletableFuture.runAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        file.setHash(fileFingerprintCache.getHash(file.getFullPath()));
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to fingerprint '{}', it will be hashed during processing: {}", file.getFileName(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(v -> window);
+    }
+
+    /**
+     * Processes the window in rounds: round {@code n} holds the {@code n}-th file of every lane, so
+     * files of one lane keep their order and never share a batch. Each round is split per library
+     * path into batches small enough to keep every processing permit busy.
+     */
+    private FileProcessResult[] processWindow(List<LibraryFile> window,
+                                              Function<LibraryFile, FileProcessResult> processor,
+                                              ExecutorService executor,
+                                              Semaphore permits,
+                                              int concurrency,
+                                              int batchSize) {
+        FileProcessResult[] results = new FileProcessResult[window.size()];
+        for (List<Integer> round : rounds(buildLanes(window))) {
+            int size = Math.min(batchSize, Math.max(1, (round.size() + concurrency - 1) / concurrency));
+            Map<Long, List<Integer>> byPath = new LinkedHashMap<>();
+            for (int index : round) {
+                LibraryPathEntity libraryPath = window.get(index).getLibraryPathEntity();
+                byPath.computeIfAbsent(libraryPath != null ? libraryPath.getId() : null, id -> new ArrayList<>()).add(index);
+            }
+            CompletableFuture<?>[] batches = byPath.values().stream()
+                    .flatMap(indexes -> partition(indexes, size).stream())
+                    .map(batch -> CompletableFuture.runAsync(() -> {
+                        permits.acquireUninterruptibly();
+                        try {
+                            processBatch(window, batch, processor, results);
+                        } finally {
+                            permits.release();
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(batches).join();
+        }
+        return results;
+    }
+
+    private void processBatch(List<LibraryFile> window,
+                              List<Integer> batch,
+                              Function<LibraryFile, FileProcessResult> processor,
+                              FileProcessResult[] results) {
+        long bytes = 0;
+        for (int index : batch) {
+            bytes += bytesRead(window.get(index));
+        }
+        // Wait for disk bandwidth before taking a writer slot, so the wait does not hold up other writers
+        try (IoGovernor.Permit ioPermit = ioGovernor.acquire(window.get(batch.getFirst()).getLibraryPathEntity(), IoGovernor.Priority.BACKGROUND)) {
+            ioPermit.reserve(bytes);
+            try (LibraryScanCoordinator.WriterPermit writerPermit = scanCoordinator.acquireWriter()) {
+                if (batch.size() > 1 && writeBatch(window, batch, processor, results)) {
+                    return;
+                }
+                for (int index : batch) {
+                    LibraryFile file = window.get(index);
+                    try {
+                        results[index] = batchTemplate.execute(status -> processor.apply(file));
+                    } catch (RuntimeException e) {
+                        log.error("Failed to process file '{}': {}", file.getFileName(), e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all files of the batch in one transaction.
+     *
+     * @return {@code false} if the batch was rolled back and its files have to be written one by one
+     */
+    private boolean writeBatch(List<LibraryFile> window,
+                               List<Integer> batch,
+                               Function<LibraryFile, FileProcessResult> processor,
+                               FileProcessResult[] results) {
+        try {
+            FileProcessResult[] batchResults = batchTemplate.execute(status -> {
+                // Files in one batch never share a hash or a file name, so no lookup depends on
+                // another file's pending insert, and the inserts of the whole batch go out together
+                entityManager.setFlushMode(FlushModeType.COMMIT);
+                FileProcessResult[] processed = new FileProcessResult[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                    processed[i] = processor.apply(window.get(batch.get(i)));
+                }
+                return processed;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                results[batch.get(i)] = batchResults[i];
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write a batch of {} files, writing them one by one: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<List<Integer>> rounds(List<List<Integer>> lanes) {
+        List<List<Integer>> rounds = new ArrayList<>();
+        for (List<Integer> lane : lanes) {
+            for (int n = 0; n < lane.size(); n++) {
+                if (rounds.size() == n) {
+                    rounds.add(new ArrayList<>());
+                }
+                rounds.get(n).add(lane.get(n));
+            }
+        }
+        return rounds;
+    }
+
+    /**
+     * Bytes processing will read from {@code file}. Shell books only need the fingerprint, which the
+     * hashing stage has already read and charged unless it failed there; full extraction and cover
+     * generation read most of the file.
+     */
+    private static long bytesRead(LibraryFile file) {
+        long size = file.getFullPath().toFile().length();
+        if (!file.isDeferEnrichment()) {
+            return size;
+        }
+        return file.getHash() == null ? FileFingerprint.sampledBytes(size) : 0;
+    }
+
+    /**
+     * Groups the files of a window into lanes so that any two files sharing a hash or a file name
+     * end up in the same lane. Each lane keeps the original file order.
+     */
+    static List<List<Integer>> buildLanes(List<LibraryFile> window) {
+        int[] parent = new int[window.size()];
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        for (int i = 0; i < window.size(); i++) {
+            parent[i] = i;
+            LibraryFile file = window.get(i);
+            for (String key : laneKeys(file)) {
+                Integer other = firstIndexByKey.putIfAbsent(key, i);
+                if (other != null) {
+                    union(parent, other, i);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> lanes = new LinkedHashMap<>();
+        for (int i = 0; i < window.size(); i++) {
+            lanes.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(lanes.values());
+    }
+
+    private static List<String> laneKeys(LibraryFile file) {
+        List<String> keys = new ArrayList<>(2);
+        if (file.getHash() != null) {
+            keys.add("hash:" + file.getHash());
+        }
+        if (file.getFileName() != null) {
+            keys.add("name:" + file.getFileName());
+        }
+        return keys;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> partitions = new ArrayList<>((list.size() + size - 1) / size);
+        for (int i = 0; i < list.size(); i += size) {
+            partitions.add(list.subList(i, Math.min(list.size(), i + size)));
+        }
+        return partitions;
+    }
+}
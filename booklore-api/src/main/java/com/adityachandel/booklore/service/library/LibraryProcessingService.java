@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.library;
 
 import com.adityachandel.booklore.exception.ApiError;
+import com.adityachandel.booklore.mapper.BookMapper;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
 import com.adityachandel.booklore.model.entity.BookAdditionalFileEntity;
 import com.adityachandel.booklore.model.entity.BookEntity;
@@ -8,8 +9,11 @@ import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.websocket.LogNotification;
 import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
 import com.adityachandel.booklore.task.options.RescanLibraryContext;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -21,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
@@ -28,6 +33,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LibraryProcessingService {
 
+    private static final int STREAM_BATCH_SIZE = 256;
+    private static final long PROGRESS_INTERVAL_MS = 2000;
+
     private final LibraryRepository libraryRepository;
     private final NotificationService notificationService;
     private final BookAdditionalFileRepository bookAdditionalFileRepository;
@@ -35,6 +43,12 @@ public class LibraryProcessingService {
     private final BookRestorationService bookRestorationService;
     private final BookDeletionService bookDeletionService;
     private final LibraryFileHelper libraryFileHelper;
+    private final LibraryFileStateService libraryFileStateService;
+    private final BookRepository bookRepository;
+    private final AppSettingService appSettingService;
+    private final BookMoveReconciler bookMoveReconciler;
+    private final BookMapper bookMapper;
+    private final BookEventBroadcaster bookEventBroadcaster;
     @PersistenceContext
     private final EntityManager entityManager;
 
@@ -43,9 +57,20 @@ public class LibraryProcessingService {
         LibraryEntity libraryEntity = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Started processing library: " + libraryEntity.getName()));
         LibraryFileProcessor processor = fileProcessorRegistry.getProcessor(libraryEntity);
-        List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity, processor);
-        processor.processLibraryFiles(libraryFiles, libraryEntity);
-        notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished processing library: " + libraryEntity.getName()));
+        LibraryFileStateService.FileStateDiff diff = libraryFileStateService.begin(libraryEntity.getId());
+        ScanProgress progress = new ScanProgress(libraryEntity.getName());
+
+        int batchSize = processor.supportsBatchedProcessing() ? STREAM_BATCH_SIZE : Integer.MAX_VALUE;
+        libraryFileHelper.streamLibraryFiles(libraryEntity, processor, batchSize, batch -> {
+            progress.found(batch.size());
+            libraryFileStateService.accept(diff, batch);
+            processor.processLibraryFiles(batch, libraryEntity);
+            libraryFileStateService.record(diff);
+        });
+        libraryFileStateService.finish(diff);
+        libraryFileStateService.record(diff);
+
+        notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished processing library: " + libraryEntity.getName() + " (" + progress.total + " files)"));
     }
 
     @Transactional
@@ -53,22 +78,150 @@ public class LibraryProcessingService {
         LibraryEntity libraryEntity = libraryRepository.findById(context.getLibraryId()).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(context.getLibraryId()));
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Started refreshing library: " + libraryEntity.getName()));
         LibraryFileProcessor processor = fileProcessorRegistry.getProcessor(libraryEntity);
-        List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity, processor);
+        LibraryFileStateService.FileStateDiff diff = libraryFileStateService.begin(libraryEntity.getId());
+        ScanProgress progress = new ScanProgress(libraryEntity.getName());
+        List<LibraryFile> libraryFiles = new ArrayList<>();
+        libraryFileHelper.streamLibraryFiles(libraryEntity, processor, STREAM_BATCH_SIZE, batch -> {
+            progress.found(batch.size());
+            libraryFileStateService.accept(diff, batch);
+            libraryFiles.addAll(batch);
+        });
+        libraryFileStateService.finish(diff);
+        refreshModifiedBooks(libraryEntity, diff);
+
+        if (diff.isBaseline() && appSettingService.getAppSettings().getLibraryScanSettings().isIncrementalRescan()) {
+            rescanChangedFiles(libraryEntity, processor, libraryFiles, diff, context.getProgressListener());
+        } else {
+            rescanAllFiles(libraryEntity, processor, libraryFiles, diff, context.getProgressListener());
+        }
+        libraryFileStateService.record(diff);
+
+        notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished refreshing library: " + libraryEntity.getName()));
+    }
+
+    private void refreshModifiedBooks(LibraryEntity libraryEntity, LibraryFileStateService.FileStateDiff diff) {
+        List<BookEntity> rewritten = libraryFileStateService.refreshModified(diff);
+        if (!rewritten.isEmpty()) {
+            log.info("Detected {} books rewritten in place in library: {}", rewritten.size(), libraryEntity.getName());
+            rewritten.forEach(book -> bookEventBroadcaster.broadcastBookUpdateEventAfterCommit(bookMapper.toBook(book)));
+        }
+    }
+
+    private void rescanAllFiles(LibraryEntity libraryEntity, LibraryFileProcessor processor, List<LibraryFile> libraryFiles,
+                                LibraryFileStateService.FileStateDiff diff, ObjIntConsumer<Long> progressListener) {
         List<Long> additionalFileIds = detectDeletedAdditionalFiles(libraryFiles, libraryEntity);
         if (!additionalFileIds.isEmpty()) {
             log.info("Detected {} removed additional files in library: {}", additionalFileIds.size(), libraryEntity.getName());
             bookDeletionService.deleteRemovedAdditionalFiles(additionalFileIds);
         }
         List<Long> bookIds = detectDeletedBookIds(libraryFiles, libraryEntity);
+        BookMoveReconciler.MoveResult moves = bookIds.isEmpty()
+                ? BookMoveReconciler.MoveResult.EMPTY
+                : reconcileMovedBooks(libraryEntity, bookIds, detectNewBookPaths(libraryFiles, libraryEntity), diff);
         if (!bookIds.isEmpty()) {
             log.info("Detected {} removed books in library: {}", bookIds.size(), libraryEntity.getName());
             bookDeletionService.processDeletedLibraryFiles(bookIds, libraryFiles);
         }
         bookRestorationService.restoreDeletedBooks(libraryFiles);
         entityManager.clear();
-        processor.processLibraryFiles(detectNewBookPaths(libraryFiles, libraryEntity), libraryEntity);
+        List<LibraryFile> newFiles = detectNewBookPaths(libraryFiles, libraryEntity).stream()
+                .filter(file -> !moves.movedFiles().contains(file))
+                .toList();
+        processNewFiles(libraryEntity, processor, newFiles, diff, progressListener);
+    }
 
-        notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished refreshing library: " + libraryEntity.getName()));
+    private void rescanChangedFiles(LibraryEntity libraryEntity, LibraryFileProcessor processor, List<LibraryFile> libraryFiles,
+                                    LibraryFileStateService.FileStateDiff diff, ObjIntConsumer<Long> progressListener) {
+        LibraryFileStateService.VanishedFiles vanished = libraryFileStateService.findVanished(libraryEntity.getId(), libraryFiles);
+        if (diff.isEmpty() && vanished.isEmpty()) {
+            log.info("No file changes detected in library: {}", libraryEntity.getName());
+            return;
+        }
+
+        List<Long> additionalFileIds = vanished.additionalFileIds();
+        List<Long> bookIds = vanished.bookIds();
+        if (!additionalFileIds.isEmpty()) {
+            log.info("Detected {} removed additional files in library: {}", additionalFileIds.size(), libraryEntity.getName());
+            bookDeletionService.deleteRemovedAdditionalFiles(additionalFileIds);
+        }
+        BookMoveReconciler.MoveResult moves = bookIds.isEmpty()
+                ? BookMoveReconciler.MoveResult.EMPTY
+                : reconcileMovedBooks(libraryEntity, bookIds, diff.getAddedFiles().stream().filter(file -> !isKnownFile(file)).toList(), diff);
+        if (!bookIds.isEmpty()) {
+            log.info("Detected {} removed books in library: {}", bookIds.size(), libraryEntity.getName());
+            bookDeletionService.processDeletedLibraryFiles(bookIds, libraryFiles);
+        }
+
+        bookRestorationService.restoreDeletedBooks(diff.getAddedFiles());
+        entityManager.clear();
+        List<LibraryFile> newFiles = diff.getAddedFiles().stream()
+                .filter(file -> !moves.movedFiles().contains(file))
+                .filter(file -> !isKnownFile(file))
+                .toList();
+        processNewFiles(libraryEntity, processor, newFiles, diff, progressListener);
+    }
+
+    /**
+     * Points books whose file vanished at a new file with the same size and fingerprint, and takes
+     * them out of {@code vanishedBookIds} so they are kept instead of deleted and re-imported.
+     */
+    private BookMoveReconciler.MoveResult reconcileMovedBooks(LibraryEntity libraryEntity, List<Long> vanishedBookIds,
+                                                              List<LibraryFile> newFiles, LibraryFileStateService.FileStateDiff diff) {
+        BookMoveReconciler.MoveResult moves = bookMoveReconciler.reconcile(vanishedBookIds, newFiles);
+        if (!moves.movedBookIds().isEmpty()) {
+            log.info("Detected {} moved or renamed books in library: {}", moves.movedBookIds().size(), libraryEntity.getName());
+            vanishedBookIds.removeAll(moves.movedBookIds());
+            libraryFileStateService.record(diff, new ArrayList<>(moves.movedFiles()));
+        }
+        return moves;
+    }
+
+    /**
+     * Processes new files a batch at a time and records the files of each batch that became a book
+     * in the file state index as soon as it is done, so that a rescan interrupted halfway resumes
+     * with the files it had not reached, and files that failed are tried again.
+     */
+    private void processNewFiles(LibraryEntity libraryEntity, LibraryFileProcessor processor, List<LibraryFile> newFiles,
+                                 LibraryFileStateService.FileStateDiff diff, ObjIntConsumer<Long> progressListener) {
+        int total = newFiles.size();
+        int batchSize = processor.supportsBatchedProcessing() ? STREAM_BATCH_SIZE : Math.max(total, 1);
+        for (int from = 0; from < total; from += batchSize) {
+            List<LibraryFile> batch = new ArrayList<>(newFiles.subList(from, Math.min(from + batchSize, total)));
+            processor.processLibraryFiles(batch, libraryEntity);
+            libraryFileStateService.record(diff, batch);
+            if (progressListener != null) {
+                progressListener.accept(null, (int) ((long) (from + batch.size()) * 100 / total));
+            }
+        }
+    }
+
+    private boolean isKnownFile(LibraryFile libraryFile) {
+        Long libraryPathId = libraryFile.getLibraryPathEntity().getId();
+        String fileSubPath = Objects.toString(libraryFile.getFileSubPath(), "");
+        return bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(libraryPathId, fileSubPath, libraryFile.getFileName()).isPresent()
+                || bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(libraryPathId, fileSubPath, libraryFile.getFileName()).isPresent();
+    }
+
+    /**
+     * Reports walk progress over {@link Topic#LOG}, at most once every few seconds.
+     */
+    private class ScanProgress {
+        private final String libraryName;
+        private long total;
+        private long lastReport = System.currentTimeMillis();
+
+        ScanProgress(String libraryName) {
+            this.libraryName = libraryName;
+        }
+
+        void found(int count) {
+            total += count;
+            long now = System.currentTimeMillis();
+            if (now - lastReport >= PROGRESS_INTERVAL_MS) {
+                lastReport = now;
+                notificationService.sendMessage(Topic.LOG, LogNotification.info("Scanning library " + libraryName + ": " + total + " files found"));
+            }
+        }
     }
 
     public void processLibraryFiles(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
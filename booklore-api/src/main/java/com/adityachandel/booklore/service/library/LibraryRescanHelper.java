@@ -8,6 +8,7 @@ import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
 import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.metadata.BookMetadataUpdater;
@@ -19,45 +20,63 @@ import com.adityachandel.booklore.model.enums.TaskType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
+/**
+ * Re-reads the embedded metadata of every book in a library. Each book is updated in its own
+ * transaction, in book id order, so an interrupted rescan keeps the books it already finished and
+ * can resume after the last of them through {@link RescanLibraryContext#getResumeAfterBookId()}.
+ */
 @Slf4j
 @Service
 public class LibraryRescanHelper {
 
     private final LibraryRepository libraryRepository;
+    private final BookRepository bookRepository;
     private final MetadataExtractorFactory metadataExtractorFactory;
     private final BookMetadataUpdater bookMetadataUpdater;
     private final NotificationService notificationService;
     private final TaskCancellationManager cancellationManager;
+    private final TransactionTemplate transactionTemplate;
 
-    public LibraryRescanHelper(LibraryRepository libraryRepository, MetadataExtractorFactory metadataExtractorFactory, @Lazy BookMetadataUpdater bookMetadataUpdater, NotificationService notificationService, TaskCancellationManager cancellationManager) {
+    public LibraryRescanHelper(LibraryRepository libraryRepository, BookRepository bookRepository, MetadataExtractorFactory metadataExtractorFactory, @Lazy BookMetadataUpdater bookMetadataUpdater, NotificationService notificationService, TaskCancellationManager cancellationManager, PlatformTransactionManager transactionManager) {
         this.libraryRepository = libraryRepository;
+        this.bookRepository = bookRepository;
         this.metadataExtractorFactory = metadataExtractorFactory;
         this.bookMetadataUpdater = bookMetadataUpdater;
         this.notificationService = notificationService;
         this.cancellationManager = cancellationManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
     public void handleRescanOptions(RescanLibraryContext context, String taskId) {
 
         LibraryEntity library = libraryRepository.findById(context.getLibraryId()).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(context.getLibraryId()));
 
-        List<BookEntity> bookEntities = library.getBookEntities().stream()
-                .filter(b -> b != null && (b.getDeleted() == null || !b.getDeleted()))
-                .toList();
+        List<Long> bookIds = bookRepository.findActiveBookIdsByLibraryId(library.getId());
 
-        log.info("Found {} book(s) to process in library id={}", bookEntities.size(), library.getId());
+        log.info("Found {} book(s) to process in library id={}", bookIds.size(), library.getId());
 
-        int totalBooks = bookEntities.size();
-        int processedBooks = 0;
+        Long resumeAfterBookId = context.getResumeAfterBookId();
+        int totalBooks = bookIds.size();
+        int processedBooks = resumeAfterBookId == null ? 0 : (int) bookIds.stream().filter(id -> id <= resumeAfterBookId).count();
 
-        sendTaskProgressNotification(taskId, 0, String.format("Starting rescan for library: %s", library.getName()), TaskStatus.IN_PROGRESS);
+        if (processedBooks > 0) {
+            log.info("Resuming rescan of library id={} after book id={} ({}/{} books already processed)", library.getId(), resumeAfterBookId, processedBooks, totalBooks);
+            sendTaskProgressNotification(taskId, (processedBooks * 100) / totalBooks,
+                    String.format("Resuming rescan for library: %s (%d/%d books already processed)", library.getName(), processedBooks, totalBooks),
+                    TaskStatus.IN_PROGRESS);
+        } else {
+            sendTaskProgressNotification(taskId, 0, String.format("Starting rescan for library: %s", library.getName()), TaskStatus.IN_PROGRESS);
+        }
 
-        for (BookEntity bookEntity : bookEntities) {
+        for (Long bookId : bookIds) {
+            if (resumeAfterBookId != null && bookId <= resumeAfterBookId) {
+                continue;
+            }
             if (taskId != null && cancellationManager.isTaskCancelled(taskId)) {
                 log.info("Library rescan for library {} was cancelled", library.getId());
                 sendTaskProgressNotification(taskId, (processedBooks * 100) / totalBooks,
@@ -66,37 +85,21 @@ public class LibraryRescanHelper {
                 break;
             }
 
-            log.info("Processing book: library={}, bookId={}, fileName={}", library.getName(), bookEntity.getId(), bookEntity.getFileName());
-
             int progressPercentage = totalBooks > 0 ? (processedBooks * 100) / totalBooks : 0;
 
-            sendTaskProgressNotification(taskId, progressPercentage,
-                    String.format("Processing: %s (Library: %s)", bookEntity.getFileName(), library.getName()),
-                    TaskStatus.IN_PROGRESS);
-
             try {
-                BookMetadata bookMetadata = metadataExtractorFactory.extractMetadata(bookEntity.getBookType(), bookEntity.getFullFilePath().toFile());
-                if (bookMetadata == null) {
-                    log.warn("No metadata extracted for book id={} path={}", bookEntity.getId(), bookEntity.getFullFilePath());
-                    continue;
-                }
-                MetadataUpdateContext metadataUpdateContext = MetadataUpdateContext.builder()
-                        .bookEntity(bookEntity)
-                        .metadataUpdateWrapper(
-                                MetadataUpdateWrapper.builder()
-                                        .metadata(bookMetadata)
-                                        .build()
-                        )
-                        .replaceMode(context.getOptions().getMetadataReplaceMode())
-                        .updateThumbnail(false)
-                        .mergeCategories(false)
-                        .build();
-                bookMetadataUpdater.setBookMetadata(metadataUpdateContext);
+                transactionTemplate.executeWithoutResult(status -> bookRepository.findById(bookId)
+                        .filter(bookEntity -> bookEntity.getDeleted() == null || !bookEntity.getDeleted())
+                        .ifPresent(bookEntity -> rescanBook(context, library, bookEntity, taskId, progressPercentage)));
             } catch (Exception e) {
-                log.error("Failed to update metadata for book id={} path={}: {}", bookEntity.getId(), bookEntity.getFullFilePath(), e.getMessage(), e);
+                log.error("Failed to update metadata for book id={}: {}", bookId, e.getMessage(), e);
             } finally {
                 processedBooks++;
             }
+
+            if (context.getProgressListener() != null) {
+                context.getProgressListener().accept(bookId, (processedBooks * 100) / totalBooks);
+            }
         }
 
         if (taskId == null || !cancellationManager.isTaskCancelled(taskId)) {
@@ -106,6 +109,36 @@ public class LibraryRescanHelper {
         }
     }
 
+    private void rescanBook(RescanLibraryContext context, LibraryEntity library, BookEntity bookEntity, String taskId, int progressPercentage) {
+        log.info("Processing book: library={}, bookId={}, fileName={}", library.getName(), bookEntity.getId(), bookEntity.getFileName());
+
+        sendTaskProgressNotification(taskId, progressPercentage,
+                String.format("Processing: %s (Library: %s)", bookEntity.getFileName(), library.getName()),
+                TaskStatus.IN_PROGRESS);
+
+        try {
+            BookMetadata bookMetadata = metadataExtractorFactory.extractMetadata(bookEntity.getBookType(), bookEntity.getFullFilePath().toFile());
+            if (bookMetadata == null) {
+                log.warn("No metadata extracted for book id={} path={}", bookEntity.getId(), bookEntity.getFullFilePath());
+                return;
+            }
+            MetadataUpdateContext metadataUpdateContext = MetadataUpdateContext.builder()
+                    .bookEntity(bookEntity)
+                    .metadataUpdateWrapper(
+                            MetadataUpdateWrapper.builder()
+                                    .metadata(bookMetadata)
+                                    .build()
+                    )
+                    .replaceMode(context.getOptions().getMetadataReplaceMode())
+                    .updateThumbnail(false)
+                    .mergeCategories(false)
+                    .build();
+            bookMetadataUpdater.setBookMetadata(metadataUpdateContext);
+        } catch (Exception e) {
+            log.error("Failed to update metadata for book id={} path={}: {}", bookEntity.getId(), bookEntity.getFullFilePath(), e.getMessage(), e);
+        }
+    }
+
     private void sendTaskProgressNotification(String taskId, int progress, String message, TaskStatus taskStatus) {
         try {
             TaskProgressPayload payload = TaskProgressPayload.builder()
@@ -0,0 +1,266 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Decides when library scans may run, so that several can be started at once without flooding the
+ * connection pool or thrashing a disk.
+ * <p>
+ * A scan holds a slot for its library, one for every physical mount its paths live on, and one of
+ * the global scan slots, all taken from {@link LibraryScanSettings}. Waiting scans start in the
+ * order they asked, skipping over those whose library or mount is still busy, so a library that
+ * queues scan after scan cannot starve the others. Writers inside a running scan additionally
+ * share a global budget of database writers through {@link #acquireWriter()}.
+ */
+@Slf4j
+@Service
+public class LibraryScanCoordinator {
+
+    @FunctionalInterface
+    public interface ScanWork {
+        void run() throws IOException;
+    }
+
+    /**
+     * Told the 1-based queue position of a waiting scan whenever it changes.
+     */
+    @FunctionalInterface
+    public interface QueueListener {
+        void queued(int position, int queueLength);
+    }
+
+    private final LibraryPathRepository libraryPathRepository;
+    private final AppSettingService appSettingService;
+
+    private final Object scanLock = new Object();
+    private final List<Ticket> waiting = new ArrayList<>();
+    private final Set<Long> activeLibraries = new HashSet<>();
+    private final Map<String, Integer> activeMounts = new HashMap<>();
+    private int activeScans;
+
+    private final Object writerLock = new Object();
+    private int activeWriters;
+
+    public LibraryScanCoordinator(LibraryPathRepository libraryPathRepository, AppSettingService appSettingService, MeterRegistry meterRegistry) {
+        this.libraryPathRepository = libraryPathRepository;
+        this.appSettingService = appSettingService;
+        Gauge.builder("booklore.scan.queue.size", waiting, List::size).register(meterRegistry);
+        Gauge.builder("booklore.scan.active", this, c -> c.activeScans).register(meterRegistry);
+    }
+
+    /**
+     * Waits for a slot, runs the scan and frees the slot again. Must be called outside of any
+     * transaction, so that queued scans do not hold database connections while they wait.
+     */
+    public void run(long libraryId, QueueListener listener, ScanWork work) throws IOException {
+        Ticket ticket = new Ticket(libraryId, resolveMounts(libraryId), listener);
+        try {
+            acquire(ticket);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a scan slot for library " + libraryId, e);
+        }
+        try {
+            work.run();
+        } finally {
+            release(ticket);
+        }
+    }
+
+    /**
+     * Takes one of the global database writer slots. Budgets of zero or less do not limit writers.
+     */
+    public WriterPermit acquireWriter() {
+        int budget = settings().getScanDbWriterBudget();
+        if (budget <= 0) {
+            return WriterPermit.NONE;
+        }
+        synchronized (writerLock) {
+            while (activeWriters >= budget) {
+                try {
+                    writerLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return WriterPermit.NONE;
+                }
+                budget = settings().getScanDbWriterBudget();
+            }
+            activeWriters++;
+        }
+        return new WriterPermit(this);
+    }
+
+    private void releaseWriter() {
+        synchronized (writerLock) {
+            activeWriters--;
+            writerLock.notifyAll();
+        }
+    }
+
+    private void acquire(Ticket ticket) throws InterruptedException {
+        List<Ticket> toNotify;
+        synchronized (scanLock) {
+            waiting.add(ticket);
+            toNotify = startEligible();
+        }
+        notifyQueued(toNotify);
+
+        InterruptedException interrupted = null;
+        synchronized (scanLock) {
+            while (!ticket.started) {
+                try {
+                    scanLock.wait();
+                } catch (InterruptedException e) {
+                    if (!ticket.started) {
+                        waiting.remove(ticket);
+                        toNotify = startEligible();
+                        interrupted = e;
+                    } else {
+                        Thread.currentThread().interrupt();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted != null) {
+            notifyQueued(toNotify);
+            throw interrupted;
+        }
+    }
+
+    private void release(Ticket ticket) {
+        List<Ticket> toNotify;
+        synchronized (scanLock) {
+            activeScans--;
+            activeLibraries.remove(ticket.libraryId);
+            for (String mount : ticket.mounts) {
+                activeMounts.computeIfPresent(mount, (m, count) -> count > 1 ? count - 1 : null);
+            }
+            toNotify = startEligible();
+        }
+        notifyQueued(toNotify);
+    }
+
+    /**
+     * Starts every waiting ticket that fits, in queue order. Returns the tickets still waiting
+     * whose position changed. Must hold {@link #scanLock}.
+     */
+    private List<Ticket> startEligible() {
+        LibraryScanSettings settings = settings();
+        int maxScans = Math.max(1, settings.getMaxConcurrentLibraryScans());
+        int maxPerMount = Math.max(1, settings.getMaxConcurrentScansPerMount());
+
+        boolean started = false;
+        for (Iterator<Ticket> it = waiting.iterator(); it.hasNext() && activeScans < maxScans; ) {
+            Ticket ticket = it.next();
+            if (activeLibraries.contains(ticket.libraryId)
+                    || ticket.mounts.stream().anyMatch(mount -> activeMounts.getOrDefault(mount, 0) >= maxPerMount)) {
+                continue;
+            }
+            it.remove();
+            activeScans++;
+            activeLibraries.add(ticket.libraryId);
+            ticket.mounts.forEach(mount -> activeMounts.merge(mount, 1, Integer::sum));
+            ticket.started = true;
+            started = true;
+            log.info("Starting scan of library {} ({} running, {} waiting)", ticket.libraryId, activeScans, waiting.size());
+        }
+        if (started) {
+            scanLock.notifyAll();
+        }
+
+        List<Ticket> changed = new ArrayList<>();
+        for (int i = 0; i < waiting.size(); i++) {
+            Ticket ticket = waiting.get(i);
+            if (ticket.position != i + 1 || ticket.queueLength != waiting.size()) {
+                ticket.position = i + 1;
+                ticket.queueLength = waiting.size();
+                changed.add(ticket);
+            }
+        }
+        return changed;
+    }
+
+    private void notifyQueued(List<Ticket> tickets) {
+        for (Ticket ticket : tickets) {
+            if (ticket.listener == null) {
+                continue;
+            }
+            try {
+                ticket.listener.queued(ticket.position, ticket.queueLength);
+            } catch (RuntimeException e) {
+                log.warn("Failed to report queue position for library {}: {}", ticket.libraryId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Physical mounts the library's paths live on. Paths whose file store cannot be read are
+     * treated as a mount of their own.
+     */
+    private Set<String> resolveMounts(long libraryId) {
+        Set<String> mounts = new HashSet<>();
+        for (LibraryPathEntity libraryPath : libraryPathRepository.findByLibraryId(libraryId)) {
+            Path path = Path.of(libraryPath.getPath());
+            try {
+                FileStore store = Files.getFileStore(path);
+                mounts.add(store.name() + ":" + store.type());
+            } catch (IOException | RuntimeException e) {
+                mounts.add(path.toAbsolutePath().normalize().toString());
+            }
+        }
+        return mounts;
+    }
+
+    private LibraryScanSettings settings() {
+        return appSettingService.getAppSettings().getLibraryScanSettings();
+    }
+
+    private static final class Ticket {
+        private final long libraryId;
+        private final Set<String> mounts;
+        private final QueueListener listener;
+        private boolean started;
+        private int position;
+        private int queueLength;
+
+        Ticket(long libraryId, Set<String> mounts, QueueListener listener) {
+            this.libraryId = libraryId;
+            this.mounts = mounts;
+            this.listener = listener;
+        }
+    }
+
+    public static final class WriterPermit implements AutoCloseable {
+
+        static final WriterPermit NONE = new WriterPermit(null);
+
+        private final LibraryScanCoordinator coordinator;
+        private boolean closed;
+
+        private WriterPermit(LibraryScanCoordinator coordinator) {
+            this.coordinator = coordinator;
+        }
+
+        @Override
+        public void close() {
+            if (coordinator != null && !closed) {
+                closed = true;
+                coordinator.releaseWriter();
+            }
+        }
+    }
+}
@@ -14,12 +14,14 @@ import com.adityachandel.booklore.model.entity.BookLoreUserEntity;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.LibraryScanMode;
+import com.adityachandel.booklore.model.websocket.LogNotification;
 import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryPathRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.repository.UserRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.monitoring.MonitoringService;
 import com.adityachandel.booklore.task.options.RescanLibraryContext;
 import com.adityachandel.booklore.util.FileService;
@@ -37,6 +39,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -56,6 +59,8 @@ public class LibraryService {
     private final MonitoringService monitoringService;
     private final AuthenticationService authenticationService;
     private final UserRepository userRepository;
+    private final LibraryScanCoordinator libraryScanCoordinator;
+    private final FileFingerprintCache fileFingerprintCache;
 
     @Transactional
     @PostConstruct
@@ -76,13 +81,22 @@ public class LibraryService {
             library.setScanMode(request.getScanMode());
         }
         library.setDefaultBookFormat(request.getDefaultBookFormat());
+        library.setContentHashEnabled(request.isContentHashEnabled());
 
         Set<String> currentPaths = library.getLibraryPaths().stream()
                 .map(LibraryPathEntity::getPath)
                 .collect(Collectors.toSet());
-        Set<String> updatedPaths = request.getPaths().stream()
-                .map(LibraryPath::getPath)
-                .collect(Collectors.toSet());
+        Map<String, LibraryPath> requestedPaths = request.getPaths().stream()
+                .collect(Collectors.toMap(LibraryPath::getPath, path -> path, (first, second) -> first));
+        Set<String> updatedPaths = requestedPaths.keySet();
+
+        for (LibraryPathEntity pathEntity : library.getLibraryPaths()) {
+            LibraryPath requested = requestedPaths.get(pathEntity.getPath());
+            if (requested != null) {
+                pathEntity.setIoBytesPerSecond(requested.getIoBytesPerSecond());
+                pathEntity.setIoMaxOpenFiles(requested.getIoMaxOpenFiles());
+            }
+        }
 
         Set<String> deletedPaths = currentPaths.stream()
                 .filter(path -> !updatedPaths.contains(path))
@@ -105,11 +119,17 @@ public class LibraryService {
             }
 
             libraryPathRepository.deleteAll(pathsToRemove);
+            pathsToRemove.forEach(pathEntity -> fileFingerprintCache.evictUnder(Paths.get(pathEntity.getPath())));
         }
 
         if (!newPaths.isEmpty()) {
             Set<LibraryPathEntity> newPathEntities = newPaths.stream()
-                    .map(path -> LibraryPathEntity.builder().path(path).library(library).build())
+                    .map(path -> LibraryPathEntity.builder()
+                            .path(path)
+                            .library(library)
+                            .ioBytesPerSecond(requestedPaths.get(path).getIoBytesPerSecond())
+                            .ioMaxOpenFiles(requestedPaths.get(path).getIoMaxOpenFiles())
+                            .build())
                     .collect(Collectors.toSet());
 
             library.getLibraryPaths().addAll(newPathEntities);
@@ -125,16 +145,7 @@ public class LibraryService {
         }
 
         if (!newPaths.isEmpty()) {
-            SecurityContextVirtualThread.runWithSecurityContext(() -> {
-                try {
-                    libraryProcessingService.processLibrary(libraryId);
-                } catch (InvalidDataAccessApiUsageException e) {
-                    log.debug("InvalidDataAccessApiUsageException - Library id: {}", libraryId);
-                } catch (IOException e) {
-                    log.error("Error while parsing library books", e);
-                }
-                log.info("Parsing task completed!");
-            });
+            runScan(libraryId, savedLibrary.getName(), () -> libraryProcessingService.processLibrary(libraryId));
         }
 
         return libraryMapper.toLibrary(savedLibrary);
@@ -147,48 +158,51 @@ public class LibraryService {
                         request.getPaths() == null || request.getPaths().isEmpty() ?
                                 Collections.emptyList() :
                                 request.getPaths().stream()
-                                        .map(path -> LibraryPathEntity.builder().path(path.getPath()).build())
+                                        .map(path -> LibraryPathEntity.builder()
+                                                .path(path.getPath())
+                                                .ioBytesPerSecond(path.getIoBytesPerSecond())
+                                                .ioMaxOpenFiles(path.getIoMaxOpenFiles())
+                                                .build())
                                         .collect(Collectors.toList())
                 )
                 .icon(request.getIcon())
                 .watch(request.isWatch())
                 .scanMode(request.getScanMode() != null ? request.getScanMode() : LibraryScanMode.FILE_AS_BOOK)
                 .defaultBookFormat(request.getDefaultBookFormat())
+                .contentHashEnabled(request.isContentHashEnabled())
                 .build();
 
         libraryEntity = libraryRepository.save(libraryEntity);
         Long libraryId = libraryEntity.getId();
 
         if (request.isWatch()) {
-            for (LibraryPathEntity pathEntity : libraryEntity.getLibraryPaths()) {
-                Path path = Paths.get(pathEntity.getPath());
-                monitoringService.registerPath(path, libraryId);
-            }
+            monitoringService.registerLibrary(libraryMapper.toLibrary(libraryEntity));
         }
 
-        SecurityContextVirtualThread.runWithSecurityContext(() -> {
-            try {
-                libraryProcessingService.processLibrary(libraryId);
-            } catch (InvalidDataAccessApiUsageException e) {
-                log.debug("InvalidDataAccessApiUsageException - Library id: {}", libraryId);
-            } catch (IOException e) {
-                log.error("Error while parsing library books", e);
-            }
-            log.info("Parsing task completed!");
-        });
+        runScan(libraryId, libraryEntity.getName(), () -> libraryProcessingService.processLibrary(libraryId));
 
         return libraryMapper.toLibrary(libraryEntity);
     }
 
     public void rescanLibrary(long libraryId) {
-        libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
+        LibraryEntity libraryEntity = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
+
+        RescanLibraryContext context = RescanLibraryContext.builder()
+                .libraryId(libraryId)
+                .build();
+        runScan(libraryId, libraryEntity.getName(), () -> libraryProcessingService.rescanLibrary(context));
+    }
 
+    /**
+     * Runs a scan in the background once the {@link LibraryScanCoordinator} hands out a slot for it.
+     */
+    private void runScan(long libraryId, String libraryName, LibraryScanCoordinator.ScanWork work) {
         SecurityContextVirtualThread.runWithSecurityContext(() -> {
             try {
-                RescanLibraryContext context = RescanLibraryContext.builder()
-                        .libraryId(libraryId)
-                        .build();
-                libraryProcessingService.rescanLibrary(context);
+                libraryScanCoordinator.run(libraryId,
+                        (position, queueLength) -> notificationService.sendMessage(Topic.LOG,
+                                LogNotification.info("Scan of library " + libraryName + " is queued (" + position + " of " + queueLength + ")")),
+                        work);
             } catch (InvalidDataAccessApiUsageException e) {
                 log.debug("InvalidDataAccessApiUsageException - Library id: {}", libraryId);
             } catch (IOException e) {
@@ -230,6 +244,7 @@ public class LibraryService {
         Set<Long> bookIds = library.getBookEntities().stream().map(BookEntity::getId).collect(Collectors.toSet());
         fileService.deleteBookCovers(bookIds);
         libraryRepository.deleteById(id);
+        library.getLibraryPaths().forEach(libraryPath -> fileFingerprintCache.evictUnder(Paths.get(libraryPath.getPath())));
         log.info("Library deleted successfully: {}", id);
     }
 
@@ -25,7 +25,8 @@ import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.book.BookQueryService;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.service.file.IoGovernor;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
 import com.adityachandel.booklore.service.metadata.extractor.CbxMetadataExtractor;
@@ -71,6 +72,8 @@ public class BookMetadataService {
     private final CbxMetadataExtractor cbxMetadataExtractor;
     private final MetadataWriterFactory metadataWriterFactory;
     private final MetadataClearFlagsMapper metadataClearFlagsMapper;
+    private final IoGovernor ioGovernor;
+    private final FileFingerprintCache fileFingerprintCache;
 
     public List<BookMetadata> getProspectiveMetadataListForBookId(long bookId, FetchMetadataRequest request) {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
@@ -173,7 +176,7 @@ public class BookMetadataService {
             metadataWriterFactory.getWriter(bookEntity.getBookType())
                     .ifPresent(writer -> {
                         writerAction.accept(writer, bookEntity);
-                        String newHash = FileFingerprint.generateHash(bookEntity.getFullFilePath());
+                        String newHash = fileFingerprintCache.rehash(bookEntity.getFullFilePath());
                         bookEntity.setCurrentHash(newHash);
                     });
         }
@@ -223,7 +226,10 @@ public class BookMetadataService {
         notificationService.sendMessage(Topic.LOG, LogNotification.info(message));
 
         BookFileProcessor processor = processorRegistry.getProcessorOrThrow(book.getBookType());
-        processor.generateCover(book);
+        try (IoGovernor.Permit ioPermit = ioGovernor.acquire(book.getLibraryPath(), IoGovernor.Priority.BACKGROUND)) {
+            ioPermit.reserve(book.getFullFilePath().toFile().length());
+            processor.generateCover(book);
+        }
 
         log.info("{}Successfully regenerated cover for book ID {} ({})", progress, book.getId(), title);
     }
@@ -9,12 +9,11 @@ import com.adityachandel.booklore.model.dto.settings.MetadataPersistenceSettings
 import com.adityachandel.booklore.model.entity.*;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.MetadataReplaceMode;
-import com.adityachandel.booklore.repository.AuthorRepository;
 import com.adityachandel.booklore.repository.BookRepository;
-import com.adityachandel.booklore.repository.CategoryRepository;
 import com.adityachandel.booklore.repository.MoodRepository;
 import com.adityachandel.booklore.repository.TagRepository;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.book.AuthorCategoryCache;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.service.file.FileMoveService;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriterFactory;
@@ -41,8 +40,7 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class BookMetadataUpdater {
 
-    private final AuthorRepository authorRepository;
-    private final CategoryRepository categoryRepository;
+    private final AuthorCategoryCache authorCategoryCache;
     private final MoodRepository moodRepository;
     private final TagRepository tagRepository;
     private final BookRepository bookRepository;
@@ -52,6 +50,7 @@ public class BookMetadataUpdater {
     private final MetadataWriterFactory metadataWriterFactory;
     private final BookReviewUpdateService bookReviewUpdateService;
     private final FileMoveService fileMoveService;
+    private final FileFingerprintCache fileFingerprintCache;
 
     @Transactional
     public void setBookMetadata(MetadataUpdateContext context) {
@@ -122,7 +121,7 @@ public class BookMetadataUpdater {
                     }
                     File file = new File(bookEntity.getFullFilePath().toUri());
                     writer.writeMetadataToFile(file, metadata, thumbnailUrl, clearFlags);
-                    String newHash = FileFingerprint.generateHash(bookEntity.getFullFilePath());
+                    String newHash = fileFingerprintCache.rehash(bookEntity.getFullFilePath());
                     bookEntity.setCurrentHash(newHash);
                 } catch (Exception e) {
                     log.warn("Failed to write metadata for book ID {}: {}", bookId, e.getMessage());
@@ -211,11 +210,7 @@ public class BookMetadataUpdater {
             return;
         }
 
-        Set<AuthorEntity> newAuthors = authorNames.stream()
-                .filter(name -> name != null && !name.isBlank())
-                .map(name -> authorRepository.findByName(name)
-                        .orElseGet(() -> authorRepository.save(AuthorEntity.builder().name(name).build())))
-                .collect(Collectors.toSet());
+        Set<AuthorEntity> newAuthors = authorCategoryCache.resolveAuthors(authorNames);
 
         if (newAuthors.isEmpty()) return;
 
@@ -249,11 +244,7 @@ public class BookMetadataUpdater {
             return;
         }
 
-        Set<CategoryEntity> newCategories = categoryNames.stream()
-                .filter(name -> name != null && !name.isBlank())
-                .map(name -> categoryRepository.findByName(name)
-                        .orElseGet(() -> categoryRepository.save(CategoryEntity.builder().name(name).build())))
-                .collect(Collectors.toSet());
+        Set<CategoryEntity> newCategories = authorCategoryCache.resolveCategories(categoryNames);
 
         if (newCategories.isEmpty()) return;
 
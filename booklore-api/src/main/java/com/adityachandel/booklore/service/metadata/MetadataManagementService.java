@@ -7,7 +7,7 @@ import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.model.enums.MergeMetadataType;
 import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.file.FileMoveService;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriter;
 import com.adityachandel.booklore.service.metadata.writer.MetadataWriterFactory;
@@ -34,6 +34,7 @@ public class MetadataManagementService {
     private final MetadataWriterFactory metadataWriterFactory;
     private final FileMoveService fileMoveService;
     private final BookRepository bookRepository;
+    private final FileFingerprintCache fileFingerprintCache;
 
 
     @Transactional
@@ -65,7 +66,7 @@ public class MetadataManagementService {
                 if (writerOpt.isPresent()) {
                     File file = book.getFullFilePath().toFile();
                     writerOpt.get().writeMetadataToFile(file, metadata, null, null);
-                    String newHash = FileFingerprint.generateHash(book.getFullFilePath());
+                    String newHash = fileFingerprintCache.rehash(book.getFullFilePath());
                     book.setCurrentHash(newHash);
                     bookModified = true;
                 }
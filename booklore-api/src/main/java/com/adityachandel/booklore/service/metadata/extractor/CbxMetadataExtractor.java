@@ -1,6 +1,7 @@
 package com.adityachandel.booklore.service.metadata.extractor;
 
 import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.util.ImageUtils;
 import com.github.junrar.Archive;
 import com.github.junrar.rarfile.FileHeader;
 import java.awt.*;
@@ -436,8 +437,8 @@ public class CbxMetadataExtractor implements FileMetadataExtractor {
   private boolean canDecode(byte[] bytes) {
     if (bytes == null || bytes.length == 0) return false;
     try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes)) {
-      BufferedImage img = ImageIO.read(bais);
-      return img != null;
+      // Decoding every pixel of a full page only to test it is wasted work
+      return ImageUtils.read(bais, 64, 64) != null;
     } catch (IOException e) {
       return false;
     }
@@ -1,7 +1,9 @@
 package com.adityachandel.booklore.service.metadata.extractor;
 
 import com.adityachandel.booklore.model.dto.BookMetadata;
+import com.adityachandel.booklore.service.fileprocessor.PdfCoverRenderer;
 import com.adityachandel.booklore.util.FileUtils;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -11,8 +13,6 @@ import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 import org.apache.pdfbox.pdmodel.common.PDMetadata;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.messaging.rsocket.MetadataExtractor;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
@@ -33,24 +33,31 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class PdfMetadataExtractor implements FileMetadataExtractor {
 
 
     private static final Pattern COMMA_AMPERSAND_PATTERN = Pattern.compile("[,&]");
     private static final Pattern ISBN_CLEANUP_PATTERN = Pattern.compile("[^0-9Xx]");
 
+    private final PdfCoverRenderer pdfCoverRenderer;
+
     @Override
     public byte[] extractCover(File file) {
-        try (PDDocument pdf = Loader.loadPDF(file)) {
-            BufferedImage coverImage = new PDFRenderer(pdf).renderImageWithDPI(0, 300, ImageType.RGB);
+        try {
+            BufferedImage coverImage = pdfCoverRenderer.render(file);
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ImageIO.write(coverImage, "jpg", baos);
             return baos.toByteArray();
+        } catch (TimeoutException e) {
+            log.warn("Rendering the cover of '{}' took longer than {}s, skipping it", file.getAbsolutePath(), pdfCoverRenderer.timeoutSeconds());
+            return null;
         } catch (Exception e) {
             log.warn("Failed to extract cover from PDF: {}", file.getAbsolutePath(), e);
             return null;
@@ -6,7 +6,7 @@ import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.repository.AppMigrationRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.book.BookQueryService;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.metadata.MetadataMatchService;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
@@ -38,6 +38,7 @@ public class AppMigrationService {
     private MetadataMatchService metadataMatchService;
     private AppProperties appProperties;
     private FileService fileService;
+    private FileFingerprintCache fileFingerprintCache;
 
     @Transactional
     public void populateMissingFileSizesOnce() {
@@ -93,7 +94,7 @@ public class AppMigrationService {
             }
 
             try {
-                String hash = FileFingerprint.generateHash(path);
+                String hash = fileFingerprintCache.getHash(path);
                 if (book.getInitialHash() == null) {
                     book.setInitialHash(hash);
                 }
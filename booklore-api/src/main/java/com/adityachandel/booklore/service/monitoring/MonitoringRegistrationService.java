@@ -29,6 +29,10 @@ public class MonitoringRegistrationService {
         monitoringService.registerPath(path, libraryId);
     }
 
+    public void suppressEvents(Collection<Path> paths) {
+        monitoringService.suppressEvents(paths);
+    }
+
     public void registerLibrary(Library library) {
         monitoringService.registerLibrary(library);
     }
@@ -1,7 +1,9 @@
 package com.adityachandel.booklore.service.monitoring;
 
 import com.adityachandel.booklore.model.dto.Library;
+import com.adityachandel.booklore.model.dto.response.LibraryWatcherStatus;
 import com.adityachandel.booklore.model.enums.BookFileExtension;
+import com.adityachandel.booklore.model.enums.WatcherBackend;
 import com.adityachandel.booklore.service.watcher.LibraryFileEventProcessor;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -11,33 +13,58 @@ import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class MonitoringService {
 
+    private static final long SUPPRESSION_TTL_MS = 60_000;
+    private static final long SUPPRESSION_SWEEP_INTERVAL_MS = 1_000;
+
     private final LibraryFileEventProcessor libraryFileEventProcessor;
     private final WatchService watchService;
     private final MonitoringTask monitoringTask;
+    private final PollingDirectoryWatcher pollingDirectoryWatcher;
+    private final WatchRecoveryScheduler watchRecoveryScheduler;
 
     private final BlockingQueue<FileChangeEvent> eventQueue = new LinkedBlockingQueue<>();
     private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
-
-    private final Set<Path> monitoredPaths = ConcurrentHashMap.newKeySet();
-    private final Map<Path, WatchKey> registeredWatchKeys = new ConcurrentHashMap<>();
-    private final Map<Path, Long> pathToLibraryIdMap = new ConcurrentHashMap<>();
+    private final ExecutorService registrationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "watch-registration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Every watched folder with its library and watch key. Polled folders have no key.
+     */
+    private final PathTrie<WatchedPath> registry = new PathTrie<>();
+    private final Map<Long, Set<Path>> libraryRoots = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> directoryCounts = new ConcurrentHashMap<>();
     private final Map<Long, Boolean> libraryWatchStatusMap = new ConcurrentHashMap<>();
-    private final Map<Long, List<Path>> libraryIdToPaths = new ConcurrentHashMap<>();
+    private final Map<Long, Long> registrationGenerations = new ConcurrentHashMap<>();
+    private final Set<Long> registeringLibraries = ConcurrentHashMap.newKeySet();
+    /**
+     * Paths BookLore itself is moving, each with the time its suppression expires.
+     */
+    private final PathTrie<Long> suppressedPaths = new PathTrie<>();
+    private volatile long nextSuppressionSweepAt;
+
+    record WatchedPath(long libraryId, WatchKey key) {
+    }
 
-    public MonitoringService(LibraryFileEventProcessor libraryFileEventProcessor, WatchService watchService, MonitoringTask monitoringTask) {
+    public MonitoringService(LibraryFileEventProcessor libraryFileEventProcessor, WatchService watchService, MonitoringTask monitoringTask,
+                             PollingDirectoryWatcher pollingDirectoryWatcher, WatchRecoveryScheduler watchRecoveryScheduler) {
         this.libraryFileEventProcessor = libraryFileEventProcessor;
         this.watchService = watchService;
         this.monitoringTask = monitoringTask;
+        this.pollingDirectoryWatcher = pollingDirectoryWatcher;
+        this.watchRecoveryScheduler = watchRecoveryScheduler;
     }
 
     @PostConstruct
@@ -50,6 +77,7 @@ public class MonitoringService {
     public void stopMonitoring() {
         log.info("Shutting down monitoring service...");
         singleThreadExecutor.shutdownNow();
+        registrationExecutor.shutdownNow();
         try {
             watchService.close();
         } catch (IOException e) {
@@ -60,119 +88,272 @@ public class MonitoringService {
     public void registerLibraries(List<Library> libraries) {
         libraries.forEach(lib -> libraryWatchStatusMap.put(lib.getId(), lib.isWatch()));
         libraries.stream().filter(Library::isWatch).forEach(this::registerLibrary);
-        log.info("Registered {} libraries for recursive monitoring", libraries.size());
+        log.info("Queued {} libraries for recursive monitoring", libraries.stream().filter(Library::isWatch).count());
     }
 
+    /**
+     * Starts watching the folders of {@code library}. The folder trees are walked on a background
+     * thread and every folder is watched as soon as it is reached, so a huge library neither
+     * blocks the caller nor waits for the whole walk before its first folders report events.
+     */
     public void registerLibrary(Library library) {
         libraryWatchStatusMap.put(library.getId(), library.isWatch());
         if (!library.isWatch()) return;
 
-        List<Path> registeredPaths = new ArrayList<>();
-        int[] registeredCount = {0};
-
-        library.getPaths().forEach(libraryPath -> {
-            Path rootPath = Paths.get(libraryPath.getPath());
-            if (Files.isDirectory(rootPath)) {
-                try (Stream<Path> pathStream = Files.walk(rootPath)) {
-                    pathStream.filter(Files::isDirectory).forEach(path -> {
-                        if (registerPath(path, library.getId())) {
-                            registeredCount[0]++;
-                            registeredPaths.add(path);
-                        }
-                    });
-                } catch (IOException e) {
-                    log.error("Failed to register paths for library '{}': {}", library.getName(), e.getMessage(), e);
+        long generation = registrationGenerations.merge(library.getId(), 1L, Long::sum);
+        registeringLibraries.add(library.getId());
+        try {
+            registrationExecutor.execute(() -> registerLibraryTree(library, generation));
+        } catch (RejectedExecutionException e) {
+            registeringLibraries.remove(library.getId());
+            log.debug("Monitoring is shut down, not registering library '{}'", library.getName());
+        }
+    }
+
+    private void registerLibraryTree(Library library, long generation) {
+        long libraryId = library.getId();
+        long started = System.currentTimeMillis();
+        int registeredCount = 0;
+        try {
+            for (var libraryPath : library.getPaths()) {
+                Path rootPath = Paths.get(libraryPath.getPath());
+                if (!Files.isDirectory(rootPath)) continue;
+                if (pollingDirectoryWatcher.shouldPoll(rootPath)) {
+                    for (Path path : pollingDirectoryWatcher.watch(libraryId, rootPath)) {
+                        if (!registerIfCurrent(path, libraryId, generation)) throw new CancellationException();
+                        registeredCount++;
+                    }
+                } else {
+                    registeredCount += registerTree(rootPath, libraryId, generation);
                 }
             }
-        });
+            log.info("Registered {} folders for library '{}' in {} ms", registeredCount, library.getName(), System.currentTimeMillis() - started);
+        } catch (CancellationException e) {
+            log.debug("Registration of library '{}' was superseded", library.getName());
+        } finally {
+            if (registrationGenerations.getOrDefault(libraryId, 0L) == generation) {
+                registeringLibraries.remove(libraryId);
+            }
+        }
+    }
 
-        libraryIdToPaths.put(library.getId(), registeredPaths);
-        log.info("Registered {} folders for library '{}'", registeredCount[0], library.getName());
+    /**
+     * Walks {@code rootPath} breadth first so the upper folders, where new books usually land,
+     * are watched first.
+     */
+    private int registerTree(Path rootPath, long libraryId, long generation) {
+        int registeredCount = 0;
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.add(rootPath);
+        while (!pending.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            Path directory = pending.poll();
+            if (!registerIfCurrent(directory, libraryId, generation)) throw new CancellationException();
+            registeredCount++;
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                children.forEach(pending::add);
+            } catch (IOException | DirectoryIteratorException e) {
+                log.warn("Failed to list folder '{}' while registering library {}: {}", directory, libraryId, e.getMessage());
+            }
+        }
+        return registeredCount;
     }
 
-    public void unregisterLibrary(Long libraryId) {
-        Set<Path> pathsToRemove = pathToLibraryIdMap.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(libraryId))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
+    /**
+     * Registers {@code path} unless the library was unregistered or re-registered since the
+     * walk started, checked under the same lock {@link #unregisterLibrary} takes.
+     */
+    private synchronized boolean registerIfCurrent(Path path, long libraryId, long generation) {
+        if (registrationGenerations.getOrDefault(libraryId, 0L) != generation) return false;
+        registerPath(path, libraryId);
+        return true;
+    }
 
-        for (Path path : pathsToRemove) {
-            unregisterPath(path);
+    public synchronized void unregisterLibrary(Long libraryId) {
+        registrationGenerations.merge(libraryId, 1L, Long::sum);
+        registeringLibraries.remove(libraryId);
+
+        Set<Path> roots = libraryRoots.remove(libraryId);
+        int removedCount = 0;
+        if (roots != null) {
+            for (Path root : roots) {
+                Map<Path, WatchedPath> removed = registry.removeSubtree(root, watched -> watched.libraryId() == libraryId);
+                removed.values().forEach(MonitoringService::cancelKey);
+                removedCount += removed.size();
+            }
         }
+        directoryCounts.remove(libraryId);
 
+        pollingDirectoryWatcher.unwatch(libraryId);
         libraryWatchStatusMap.put(libraryId, false);
-        libraryIdToPaths.remove(libraryId);
-        log.debug("Unregistered library {} from monitoring", libraryId);
+        log.debug("Unregistered {} folders of library {} from monitoring", removedCount, libraryId);
     }
 
     public synchronized boolean registerPath(Path path, Long libraryId) {
+        if (registry.contains(path)) return false;
         try {
-            if (monitoredPaths.add(path)) {
-                WatchKey key = path.register(watchService,
+            WatchKey key = null;
+            // Polled paths are tracked by the poller's own snapshot and need no watch key
+            if (!pollingDirectoryWatcher.isPolled(path)) {
+                key = path.register(watchService,
                         StandardWatchEventKinds.ENTRY_CREATE,
                         StandardWatchEventKinds.ENTRY_MODIFY,
                         StandardWatchEventKinds.ENTRY_DELETE);
-                registeredWatchKeys.put(path, key);
-                pathToLibraryIdMap.put(path, libraryId);
-                return true;
             }
+            registry.putIfAbsent(path, new WatchedPath(libraryId, key));
+            directoryCounts.merge(libraryId, 1, Integer::sum);
+            trackRoot(libraryId, path);
+            return true;
         } catch (IOException e) {
             log.error("Error registering path: {}", path, e);
         }
         return false;
     }
 
+    /**
+     * Keeps the topmost registered folders of each library, so unregistering it only has to
+     * detach those subtrees.
+     */
+    private void trackRoot(long libraryId, Path path) {
+        Set<Path> roots = libraryRoots.computeIfAbsent(libraryId, id -> new HashSet<>());
+        for (Path root : roots) {
+            if (path.startsWith(root)) return;
+        }
+        roots.removeIf(root -> root.startsWith(path));
+        roots.add(path);
+    }
+
     public synchronized void unregisterPath(Path path) {
         unregisterPath(path, true);
     }
 
     public synchronized void unregisterPath(Path path, boolean logUnregister) {
-        if (monitoredPaths.remove(path)) {
-            WatchKey key = registeredWatchKeys.remove(path);
-            if (key != null) key.cancel();
-            pathToLibraryIdMap.remove(path);
+        WatchedPath removed = registry.remove(path);
+        if (removed != null) {
+            cancelKey(removed);
+            directoryCounts.computeIfPresent(removed.libraryId(), (id, count) -> count > 1 ? count - 1 : null);
             if (logUnregister) {
                 log.debug("Unregistered path: {}", path);
             }
         }
     }
 
-    private void unregisterSubPaths(Path deletedPath) {
-        Set<Path> toRemove = monitoredPaths.stream()
-                .filter(p -> p.startsWith(deletedPath))
-                .collect(Collectors.toSet());
+    private synchronized void unregisterSubPaths(Path deletedPath) {
+        Map<Path, WatchedPath> removed = registry.removeSubtree(deletedPath, watched -> true);
+        for (WatchedPath watched : removed.values()) {
+            cancelKey(watched);
+            directoryCounts.computeIfPresent(watched.libraryId(), (id, count) -> count > 1 ? count - 1 : null);
+        }
+        removed.keySet().forEach(path -> log.debug("Unregistered path: {}", path));
+    }
+
+    private static void cancelKey(WatchedPath watched) {
+        if (watched.key() != null) watched.key().cancel();
+    }
+
+    /**
+     * Ignores watcher events for exactly {@code paths} for the next minute. Used while BookLore moves
+     * files itself and records the result directly, so the watchers stay registered and only the
+     * folders a move creates get registered.
+     */
+    public void suppressEvents(Collection<Path> paths) {
+        long expiresAt = System.currentTimeMillis() + SUPPRESSION_TTL_MS;
+        for (Path path : paths) {
+            suppressedPaths.put(path.toAbsolutePath().normalize(), expiresAt);
+        }
+    }
 
-        for (Path path : toRemove) {
-            unregisterPath(path);
+    boolean isSuppressed(Path path) {
+        if (suppressedPaths.size() == 0) return false;
+        long now = System.currentTimeMillis();
+        if (now >= nextSuppressionSweepAt) {
+            nextSuppressionSweepAt = now + SUPPRESSION_SWEEP_INTERVAL_MS;
+            suppressedPaths.removeIf(expiresAt -> expiresAt <= now);
         }
+        return suppressedPaths.contains(path.toAbsolutePath().normalize());
     }
 
     @EventListener
     public void handleFileChangeEvent(FileChangeEvent event) {
         Path fullPath = event.getFilePath();
         WatchEvent.Kind<?> kind = event.getEventKind();
+        boolean suppressed = isSuppressed(fullPath);
 
+        if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+            if (!suppressed) handleModifiedFile(event, fullPath);
+            return;
+        }
         if (kind != StandardWatchEventKinds.ENTRY_CREATE && kind != StandardWatchEventKinds.ENTRY_DELETE) return;
+        // Like a cancelled watch key, a polled folder that was unregistered reports nothing
+        if (event.getSource() instanceof PollingDirectoryWatcher && !registry.contains(event.getWatchedFolder())) return;
 
         boolean isDir = kind == StandardWatchEventKinds.ENTRY_CREATE
                 ? Files.isDirectory(fullPath)
-                : monitoredPaths.contains(fullPath);
+                : registry.contains(fullPath);
 
         boolean isRelevantFile = isRelevantBookFile(fullPath);
         if (!(isDir || isRelevantFile)) return;
 
+        // Folders created or removed by a move are still registered or unregistered
         handleDirectoryEvents(event, fullPath, kind, isDir);
-        queueEvent(event, fullPath, kind);
+        if (!suppressed) {
+            queueEvent(event, fullPath, kind);
+        } else if (isDir && kind == StandardWatchEventKinds.ENTRY_CREATE) {
+            queueUnsuppressedFiles(event, fullPath);
+        } else {
+            log.debug("Suppressed: {} [{}]", fullPath, kind.name());
+        }
+    }
+
+    /**
+     * A folder created by a move may also have received files from elsewhere in the meantime;
+     * those are queued on their own instead of with the folder.
+     */
+    private void queueUnsuppressedFiles(FileChangeEvent event, Path directory) {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.filter(Files::isRegularFile)
+                    .filter(this::isRelevantBookFile)
+                    .filter(file -> !isSuppressed(file))
+                    .forEach(file -> queueEvent(new FileChangeEvent(event.getSource(), file, StandardWatchEventKinds.ENTRY_CREATE, file.getParent()),
+                            file, StandardWatchEventKinds.ENTRY_CREATE));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to list suppressed folder: {}", directory, e);
+        }
+    }
+
+    @EventListener
+    public void handleWatchOverflow(WatchOverflowEvent event) {
+        Path directory = event.getOverflowedDirectory();
+        watchRecoveryScheduler.recordOverflow();
+        Long libraryId = libraryIdOf(directory);
+        if (libraryId == null) {
+            log.warn("No library ID found for overflowed folder: {}", directory);
+            return;
+        }
+
+        // Folders created while events were lost never got a watch key of their own
+        try (Stream<Path> stream = Files.walk(directory)) {
+            stream.filter(Files::isDirectory).forEach(path -> registerPath(path, libraryId));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to register nested paths after overflow: {}", directory, e);
+        }
+        watchRecoveryScheduler.schedule(libraryId, directory, WatchRecoveryScheduler.Reason.OVERFLOW, null);
+    }
+
+    private void handleModifiedFile(FileChangeEvent event, Path fullPath) {
+        if (!isRelevantBookFile(fullPath)) return;
+        Long libraryId = libraryIdOf(event.getWatchedFolder());
+        if (libraryId != null) {
+            watchRecoveryScheduler.schedule(libraryId, event.getWatchedFolder(), WatchRecoveryScheduler.Reason.MODIFY, fullPath);
+        }
     }
 
     @EventListener
     public void handleWatchKeyInvalidation(WatchKeyInvalidatedEvent event) {
         Path invalidPath = event.getInvalidPath();
-        if (monitoredPaths.remove(invalidPath)) {
+        if (registry.contains(invalidPath)) {
             log.warn("Removing invalid path from monitoring: {}", invalidPath);
-            pathToLibraryIdMap.remove(invalidPath);
-            WatchKey key = registeredWatchKeys.remove(invalidPath);
-            if (key != null) key.cancel();
+            unregisterPath(invalidPath, false);
         }
     }
 
@@ -196,7 +377,7 @@ public class MonitoringService {
     private void processFileChangeEvent(FileChangeEvent event) {
         Path filePath = event.getFilePath();
         Path watchedFolder = event.getWatchedFolder();
-        Long libraryId = pathToLibraryIdMap.get(watchedFolder);
+        Long libraryId = libraryIdOf(watchedFolder);
 
         if (libraryId != null) {
             try {
@@ -211,7 +392,7 @@ public class MonitoringService {
 
     private void handleDirectoryEvents(FileChangeEvent event, Path fullPath, WatchEvent.Kind<?> kind, boolean isDir) {
         if (isDir && kind == StandardWatchEventKinds.ENTRY_CREATE) {
-            Long parentLibraryId = pathToLibraryIdMap.get(event.getWatchedFolder());
+            Long parentLibraryId = libraryIdOf(event.getWatchedFolder());
             if (parentLibraryId != null) {
                 try (Stream<Path> stream = Files.walk(fullPath)) {
                     stream.filter(Files::isDirectory).forEach(path -> registerPath(path, parentLibraryId));
@@ -238,7 +419,29 @@ public class MonitoringService {
         return BookFileExtension.fromFileName(path.getFileName().toString()).isPresent();
     }
 
+    private Long libraryIdOf(Path folder) {
+        WatchedPath watched = registry.get(folder);
+        return watched != null ? watched.libraryId() : null;
+    }
+
+    public List<LibraryWatcherStatus> getWatcherStatuses() {
+        List<LibraryWatcherStatus> statuses = new ArrayList<>();
+        libraryWatchStatusMap.forEach((libraryId, watched) -> {
+            if (!watched) return;
+            LibraryWatcherStatus status = LibraryWatcherStatus.builder()
+                    .libraryId(libraryId)
+                    .backend(WatcherBackend.NATIVE)
+                    .watchedDirectories(directoryCounts.getOrDefault(libraryId, 0))
+                    .registering(registeringLibraries.contains(libraryId))
+                    .build();
+            pollingDirectoryWatcher.describe(libraryId, status);
+            statuses.add(status);
+        });
+        statuses.sort(Comparator.comparing(LibraryWatcherStatus::getLibraryId));
+        return statuses;
+    }
+
     public boolean isPathMonitored(Path path) {
-        return monitoredPaths.contains(path.toAbsolutePath().normalize());
+        return registry.contains(path.toAbsolutePath().normalize());
     }
 }
@@ -0,0 +1,220 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe map from paths to values, stored as a tree of path elements.
+ * <p>
+ * Lookups, inserts and removals cost O(depth) instead of a scan over every registered path, and
+ * a whole subtree can be read or detached by walking only the nodes below it.
+ */
+final class PathTrie<V> {
+
+    private final Node<V> root = new Node<>(null, null);
+    private int size;
+
+    synchronized V get(Path path) {
+        Node<V> node = find(path);
+        return node != null ? node.value : null;
+    }
+
+    synchronized boolean contains(Path path) {
+        return get(path) != null;
+    }
+
+    synchronized V put(Path path, V value) {
+        Node<V> node = findOrCreate(path);
+        V previous = node.value;
+        node.value = Objects.requireNonNull(value);
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Stores {@code value} unless the path already has one.
+     *
+     * @return {@code true} if the value was stored
+     */
+    synchronized boolean putIfAbsent(Path path, V value) {
+        Node<V> node = findOrCreate(path);
+        if (node.value != null) {
+            return false;
+        }
+        node.value = Objects.requireNonNull(value);
+        size++;
+        return true;
+    }
+
+    synchronized V remove(Path path) {
+        Node<V> node = find(path);
+        if (node == null || node.value == null) {
+            return null;
+        }
+        V previous = node.value;
+        node.value = null;
+        size--;
+        prune(node);
+        return previous;
+    }
+
+    /**
+     * Removes {@code path} and every path below it whose value matches {@code filter}.
+     *
+     * @return the removed entries
+     */
+    synchronized Map<Path, V> removeSubtree(Path path, Predicate<V> filter) {
+        Node<V> start = find(path);
+        if (start == null) {
+            return Map.of();
+        }
+        Map<Path, V> removed = new LinkedHashMap<>();
+        collect(start, path, (node, nodePath) -> {
+            if (filter.test(node.value)) {
+                removed.put(nodePath, node.value);
+                node.value = null;
+            }
+        });
+        size -= removed.size();
+        pruneSubtree(start);
+        return removed;
+    }
+
+    /**
+     * Removes every entry whose value matches {@code filter}.
+     *
+     * @return the number of removed entries
+     */
+    synchronized int removeIf(Predicate<V> filter) {
+        int[] removed = {0};
+        collect(root, null, (node, nodePath) -> {
+            if (filter.test(node.value)) {
+                node.value = null;
+                removed[0]++;
+            }
+        });
+        size -= removed[0];
+        pruneSubtree(root);
+        return removed[0];
+    }
+
+    /**
+     * @return {@code path} and every path below it that has a value
+     */
+    synchronized Map<Path, V> subtree(Path path) {
+        Node<V> start = find(path);
+        if (start == null) {
+            return Map.of();
+        }
+        Map<Path, V> entries = new LinkedHashMap<>();
+        collect(start, path, (node, nodePath) -> entries.put(nodePath, node.value));
+        return entries;
+    }
+
+    synchronized List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        collect(root, null, (node, nodePath) -> values.add(node.value));
+        return values;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private Node<V> findOrCreate(Path path) {
+        Node<V> node = root;
+        for (Path element : elements(path)) {
+            Node<V> parent = node;
+            node = node.children.computeIfAbsent(element, key -> new Node<>(parent, key));
+        }
+        return node;
+    }
+
+    private Node<V> find(Path path) {
+        Node<V> node = root;
+        for (Path element : elements(path)) {
+            node = node.children.get(element);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static List<Path> elements(Path path) {
+        List<Path> elements = new ArrayList<>(path.getNameCount() + 1);
+        if (path.getRoot() != null) {
+            elements.add(path.getRoot());
+        }
+        path.forEach(elements::add);
+        return elements;
+    }
+
+    /**
+     * Visits every node with a value below {@code start}, depth first, without recursion so deep
+     * trees cannot overflow the stack.
+     */
+    private void collect(Node<V> start, Path startPath, NodeVisitor<V> visitor) {
+        Deque<Node<V>> nodes = new ArrayDeque<>();
+        Deque<Path> paths = new ArrayDeque<>();
+        nodes.push(start);
+        paths.push(startPath != null ? startPath : Path.of(""));
+        while (!nodes.isEmpty()) {
+            Node<V> node = nodes.pop();
+            Path nodePath = paths.pop();
+            if (node.value != null) {
+                visitor.visit(node, nodePath);
+            }
+            for (Map.Entry<Path, Node<V>> child : node.children.entrySet()) {
+                nodes.push(child.getValue());
+                paths.push(node == root ? child.getKey() : nodePath.resolve(child.getKey()));
+            }
+        }
+    }
+
+    private void pruneSubtree(Node<V> start) {
+        List<Node<V>> order = new ArrayList<>();
+        Deque<Node<V>> nodes = new ArrayDeque<>();
+        nodes.push(start);
+        while (!nodes.isEmpty()) {
+            Node<V> node = nodes.pop();
+            order.add(node);
+            node.children.values().forEach(nodes::push);
+        }
+        // Children come after their parents, so walking backwards empties leaves first
+        for (int i = order.size() - 1; i > 0; i--) {
+            Node<V> node = order.get(i);
+            if (node.value == null && node.children.isEmpty()) {
+                node.parent.children.remove(node.name);
+            }
+        }
+        prune(start);
+    }
+
+    private void prune(Node<V> node) {
+        while (node != root && node.value == null && node.children.isEmpty()) {
+            node.parent.children.remove(node.name);
+            node = node.parent;
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeVisitor<V> {
+        void visit(Node<V> node, Path path);
+    }
+
+    private static final class Node<V> {
+        private final Node<V> parent;
+        private final Path name;
+        private final Map<Path, Node<V>> children = new HashMap<>(4);
+        private V value;
+
+        private Node(Node<V> parent, Path name) {
+            this.parent = parent;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import com.adityachandel.booklore.model.dto.response.LibraryWatcherStatus;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.enums.WatcherBackend;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watcher backend for library paths on file systems that never deliver {@link WatchService}
+ * events, such as NFS, SMB and most FUSE mounts.
+ * <p>
+ * Every polled root keeps a snapshot of its directory tree: for each directory the modification
+ * time, the link count (the number of subdirectories on unix file systems) and the names of its
+ * children. A poll only stats each directory and re-lists those whose modification time or link
+ * count changed, or whose last listing was taken too close to its modification time to trust it.
+ * Differences are published as the same {@link FileChangeEvent}s {@link MonitoringTask} produces.
+ * <p>
+ * Poll intervals adapt per root: they reset to the minimum after a change, double while nothing
+ * happens, and never let polling take more than a small share of the time of a slow mount.
+ */
+@Slf4j
+@Service
+public class PollingDirectoryWatcher {
+
+    private static final Set<String> NETWORK_FILE_SYSTEMS = Set.of(
+            "nfs", "nfs4", "cifs", "smb", "smb2", "smb3", "smbfs", "afpfs", "9p", "virtiofs",
+            "grpcfuse", "fakeowner", "ceph", "glusterfs", "davfs", "webdav", "sshfs");
+    private static final long DEFAULT_MIN_INTERVAL_SECONDS = 15;
+    private static final long DEFAULT_MAX_INTERVAL_SECONDS = 600;
+    private static final long RACY_WINDOW_MILLIS = 2000;
+    private static final long DUTY_CYCLE_FACTOR = 20;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppSettingService appSettingService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "library-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Path, PolledRoot> roots = new ConcurrentHashMap<>();
+    private final Map<Long, PollStats> libraryStats = new ConcurrentHashMap<>();
+
+    public PollingDirectoryWatcher(ApplicationEventPublisher eventPublisher, AppSettingService appSettingService, MeterRegistry meterRegistry) {
+        this.eventPublisher = eventPublisher;
+        this.appSettingService = appSettingService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Whether {@code root} should be polled rather than registered with the {@link WatchService}.
+     * In {@link WatcherBackend#AUTO} mode that is the case for network and FUSE file systems.
+     */
+    public boolean shouldPoll(Path root) {
+        WatcherBackend backend = settings().getWatcherBackend();
+        if (backend == WatcherBackend.POLLING) {
+            return true;
+        }
+        if (backend == WatcherBackend.NATIVE) {
+            return false;
+        }
+        try {
+            String type = Files.getFileStore(root).type().toLowerCase(Locale.ROOT);
+            return NETWORK_FILE_SYSTEMS.contains(type) || (type.startsWith("fuse") && !type.equals("fuseblk"));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not determine file system of '{}': {}", root, e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isPolled(Path path) {
+        for (Path root : roots.keySet()) {
+            if (path.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the initial snapshot of {@code root} and starts polling it.
+     *
+     * @return every directory below and including {@code root}
+     */
+    public synchronized List<Path> watch(long libraryId, Path root) {
+        PolledRoot previous = roots.remove(root);
+        if (previous != null) {
+            previous.cancel();
+        }
+        PolledRoot polled = new PolledRoot(libraryId, root, statsFor(libraryId));
+        snapshotTree(polled, root);
+        polled.intervalMillis = TimeUnit.SECONDS.toMillis(minIntervalSeconds());
+        roots.put(root, polled);
+        schedule(polled);
+        log.info("Polling {} folders under '{}' for library {} every {}s", polled.directories.size(), root, libraryId,
+                TimeUnit.MILLISECONDS.toSeconds(polled.intervalMillis));
+        return new ArrayList<>(polled.directories.keySet());
+    }
+
+    public synchronized void unwatch(long libraryId) {
+        roots.values().removeIf(root -> {
+            if (root.libraryId != libraryId) {
+                return false;
+            }
+            root.cancel();
+            return true;
+        });
+        PollStats stats = libraryStats.remove(libraryId);
+        if (stats != null) {
+            stats.meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    /**
+     * Fills in the polling fields of {@code status}, if the library has polled paths.
+     */
+    public void describe(long libraryId, LibraryWatcherStatus status) {
+        PollStats stats = libraryStats.get(libraryId);
+        if (stats == null) {
+            return;
+        }
+        int directories = 0;
+        long intervalMillis = Long.MAX_VALUE;
+        for (PolledRoot root : roots.values()) {
+            if (root.libraryId == libraryId) {
+                directories += root.directories.size();
+                intervalMillis = Math.min(intervalMillis, root.intervalMillis);
+            }
+        }
+        status.setBackend(WatcherBackend.POLLING);
+        status.setWatchedDirectories(Math.max(status.getWatchedDirectories(), directories));
+        status.setPollIntervalSeconds(intervalMillis == Long.MAX_VALUE ? 0 : TimeUnit.MILLISECONDS.toSeconds(intervalMillis));
+        status.setPolls(stats.polls.get());
+        status.setDirectoryStats(stats.directoryStats.get());
+        status.setDirectoryListings(stats.directoryListings.get());
+        status.setLastPollMillis(TimeUnit.NANOSECONDS.toMillis(stats.lastPollNanos));
+        status.setTotalPollMillis(TimeUnit.NANOSECONDS.toMillis(stats.totalPollNanos.get()));
+        status.setCpuMillis(TimeUnit.NANOSECONDS.toMillis(stats.cpuNanos.get()));
+        status.setLastPolledAt(stats.lastPolledAt);
+    }
+
+    private void schedule(PolledRoot root) {
+        if (root.cancelled) {
+            return;
+        }
+        try {
+            root.future = scheduler.schedule(() -> poll(root), root.intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Poller is shut down, not scheduling '{}'", root.path);
+        }
+    }
+
+    private void poll(PolledRoot root) {
+        long cpuStart = currentThreadCpuTime();
+        long start = System.nanoTime();
+        int changes = 0;
+        try {
+            changes = pollTree(root);
+        } catch (RuntimeException e) {
+            log.warn("Polling '{}' failed: {}", root.path, e.getMessage());
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpuEnd = currentThreadCpuTime();
+
+        PollStats stats = root.stats;
+        stats.polls.incrementAndGet();
+        stats.lastPollNanos = elapsed;
+        stats.totalPollNanos.addAndGet(elapsed);
+        if (cpuStart >= 0 && cpuEnd >= cpuStart) {
+            stats.cpuNanos.addAndGet(cpuEnd - cpuStart);
+        }
+        stats.lastPolledAt = Instant.now();
+        stats.pollTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        root.intervalMillis = nextInterval(root.intervalMillis, changes > 0, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (changes > 0) {
+            log.debug("Poll of '{}' found {} change(s) in {} ms", root.path, changes, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        schedule(root);
+    }
+
+    private int pollTree(PolledRoot root) {
+        int changes = 0;
+        for (Path dir : List.copyOf(root.directories.keySet())) {
+            if (root.cancelled) {
+                break;
+            }
+            DirectoryState previous = root.directories.get(dir);
+            if (previous == null) {
+                continue; // dropped together with a deleted parent earlier in this poll
+            }
+            DirectoryState current;
+            try {
+                DirectoryStat stat = stat(root, dir);
+                if (!previous.isStale(stat)) {
+                    continue;
+                }
+                current = list(root, dir, stat, previous);
+            } catch (NoSuchFileException e) {
+                continue; // the parent's listing reports the deletion
+            } catch (IOException e) {
+                log.debug("Could not poll '{}': {}", dir, e.getMessage());
+                continue;
+            }
+            if (dir.equals(root.path) && current.isEmpty() && !previous.isEmpty()) {
+                // An unmounted share looks like an empty directory; never treat it as a mass deletion
+                log.warn("'{}' appears empty, skipping this poll in case the mount is unavailable", dir);
+                continue;
+            }
+            root.directories.put(dir, current);
+            changes += diff(root, dir, previous, current);
+        }
+        return changes;
+    }
+
+    private int diff(PolledRoot root, Path dir, DirectoryState previous, DirectoryState current) {
+        int changes = 0;
+        for (String name : previous.files) {
+            if (!current.files.contains(name)) {
+                publish(root, StandardWatchEventKinds.ENTRY_DELETE, dir.resolve(name), dir);
+                changes++;
+            }
+        }
+        for (String name : previous.directories) {
+            if (!current.directories.contains(name)) {
+                Path removed = dir.resolve(name);
+                root.directories.keySet().removeIf(path -> path.startsWith(removed));
+                publish(root, StandardWatchEventKinds.ENTRY_DELETE, removed, dir);
+                changes++;
+            }
+        }
+        for (String name : current.files) {
+            if (!previous.files.contains(name)) {
+                publish(root, StandardWatchEventKinds.ENTRY_CREATE, dir.resolve(name), dir);
+                changes++;
+            }
+        }
+        for (String name : current.directories) {
+            if (!previous.directories.contains(name)) {
+                Path added = dir.resolve(name);
+                // Snapshot first, so files landing after the listener walked the folder show up next poll
+                snapshotTree(root, added);
+                publish(root, StandardWatchEventKinds.ENTRY_CREATE, added, dir);
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private void snapshotTree(PolledRoot root, Path start) {
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Path dir = pending.pop();
+            try {
+                DirectoryState state = list(root, dir, stat(root, dir), DirectoryState.EMPTY);
+                root.directories.put(dir, state);
+                state.directories.forEach(name -> pending.push(dir.resolve(name)));
+            } catch (IOException e) {
+                log.debug("Could not snapshot '{}': {}", dir, e.getMessage());
+            }
+        }
+    }
+
+    private DirectoryStat stat(PolledRoot root, Path dir) throws IOException {
+        root.stats.directoryStats.incrementAndGet();
+        try {
+            Map<String, Object> attributes = Files.readAttributes(dir, "unix:lastModifiedTime,nlink");
+            return new DirectoryStat(((FileTime) attributes.get("lastModifiedTime")).toMillis(),
+                    ((Number) attributes.get("nlink")).longValue());
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return new DirectoryStat(Files.getLastModifiedTime(dir).toMillis(), -1);
+        }
+    }
+
+    /**
+     * Lists {@code dir}. Only children missing from {@code previous} are stat'ed to tell files from
+     * directories, which keeps a re-list of a large folder to a single round trip on network mounts.
+     */
+    private DirectoryState list(PolledRoot root, Path dir, DirectoryStat stat, DirectoryState previous) throws IOException {
+        root.stats.directoryListings.incrementAndGet();
+        long listedAt = System.currentTimeMillis();
+        Set<String> files = new HashSet<>();
+        Set<String> directories = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                String name = child.getFileName().toString();
+                if (previous.files.contains(name)) {
+                    files.add(name);
+                } else if (previous.directories.contains(name) || Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    directories.add(name);
+                } else {
+                    files.add(name);
+                }
+            }
+        }
+        return new DirectoryState(stat.modifiedMillis(), stat.linkCount(), listedAt, files, directories);
+    }
+
+    private void publish(PolledRoot root, WatchEvent.Kind<?> kind, Path path, Path directory) {
+        if (root.cancelled) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new FileChangeEvent(this, path, kind, directory));
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish {} for '{}': {}", kind.name(), path, e.getMessage());
+        }
+    }
+
+    private long nextInterval(long currentMillis, boolean changed, long pollMillis) {
+        long min = TimeUnit.SECONDS.toMillis(minIntervalSeconds());
+        long max = Math.max(min, TimeUnit.SECONDS.toMillis(maxIntervalSeconds()));
+        long next = changed ? min : Math.min(max, Math.max(min, currentMillis * 2));
+        return Math.max(next, Math.min(max, pollMillis * DUTY_CYCLE_FACTOR));
+    }
+
+    private long minIntervalSeconds() {
+        long seconds = settings().getPollIntervalMinSeconds();
+        return seconds > 0 ? seconds : DEFAULT_MIN_INTERVAL_SECONDS;
+    }
+
+    private long maxIntervalSeconds() {
+        long seconds = settings().getPollIntervalMaxSeconds();
+        return seconds > 0 ? seconds : DEFAULT_MAX_INTERVAL_SECONDS;
+    }
+
+    private long currentThreadCpuTime() {
+        try {
+            return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private PollStats statsFor(long libraryId) {
+        return libraryStats.computeIfAbsent(libraryId, id -> {
+            PollStats stats = new PollStats();
+            String library = String.valueOf(id);
+            stats.pollTimer = Timer.builder("booklore.watcher.poll").tag("library", library).register(meterRegistry);
+            stats.meters.add(stats.pollTimer);
+            stats.meters.add(FunctionCounter.builder("booklore.watcher.poll.cpu", stats.cpuNanos, n -> n.get() / 1e9)
+                    .baseUnit("seconds").tag("library", library).register(meterRegistry));
+            stats.meters.add(FunctionCounter.builder("booklore.watcher.poll.io", stats.directoryStats, AtomicLong::get)
+                    .tag("library", library).tag("operation", "stat").register(meterRegistry));
+            stats.meters.add(FunctionCounter.builder("booklore.watcher.poll.io", stats.directoryListings, AtomicLong::get)
+                    .tag("library", library).tag("operation", "list").register(meterRegistry));
+            return stats;
+        });
+    }
+
+    private LibraryScanSettings settings() {
+        return appSettingService.getAppSettings().getLibraryScanSettings();
+    }
+
+    private record DirectoryStat(long modifiedMillis, long linkCount) {
+    }
+
+    private record DirectoryState(long modifiedMillis, long linkCount, long listedAtMillis, Set<String> files, Set<String> directories) {
+
+        static final DirectoryState EMPTY = new DirectoryState(0, -1, 0, Set.of(), Set.of());
+
+        boolean isStale(DirectoryStat stat) {
+            return stat.modifiedMillis() != modifiedMillis
+                    || (stat.linkCount() >= 0 && stat.linkCount() != linkCount)
+                    || listedAtMillis - modifiedMillis < RACY_WINDOW_MILLIS;
+        }
+
+        boolean isEmpty() {
+            return files.isEmpty() && directories.isEmpty();
+        }
+    }
+
+    private static final class PolledRoot {
+        private final long libraryId;
+        private final Path path;
+        private final PollStats stats;
+        private final Map<Path, DirectoryState> directories = new ConcurrentHashMap<>();
+        private volatile long intervalMillis;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+
+        PolledRoot(long libraryId, Path path, PollStats stats) {
+            this.libraryId = libraryId;
+            this.path = path;
+            this.stats = stats;
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+    private static final class PollStats {
+        private final AtomicLong polls = new AtomicLong();
+        private final AtomicLong directoryStats = new AtomicLong();
+        private final AtomicLong directoryListings = new AtomicLong();
+        private final AtomicLong totalPollNanos = new AtomicLong();
+        private final AtomicLong cpuNanos = new AtomicLong();
+        private final List<Meter> meters = new ArrayList<>();
+        private Timer pollTimer;
+        private volatile long lastPollNanos;
+        private volatile Instant lastPolledAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.nio.file.Path;
+
+@Getter
+public class WatchOverflowEvent extends ApplicationEvent {
+    private final Path overflowedDirectory;
+
+    public WatchOverflowEvent(Object source, Path overflowedDirectory) {
+        super(source);
+        this.overflowedDirectory = overflowedDirectory;
+    }
+}
@@ -0,0 +1,182 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import com.adityachandel.booklore.service.watcher.LibraryFileEventProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules targeted rescans of watched folders whose events cannot be trusted: folders whose
+ * watch key overflowed get their whole subtree rescanned, folders with a book file rewritten in
+ * place only themselves.
+ * <p>
+ * Requests for a folder wait until it has been quiet for a moment, merge into a pending rescan of
+ * the same folder or of a recursively rescanned ancestor, and a folder is rescanned at most once
+ * per {@link #MIN_RESCAN_INTERVAL_MS}, so a mass copy that overflows again and again still costs
+ * a handful of rescans.
+ */
+@Slf4j
+@Service
+public class WatchRecoveryScheduler {
+
+    public enum Reason {
+        OVERFLOW,
+        MODIFY
+    }
+
+    private static final long SETTLE_DELAY_MS = 2000;
+    private static final long MIN_RESCAN_INTERVAL_MS = 30_000;
+
+    private final LibraryFileEventProcessor libraryFileEventProcessor;
+    private final Counter overflowCounter;
+    private final Map<Reason, Counter> requestCounters = new EnumMap<>(Reason.class);
+    private final Counter coalescedCounter;
+    private final Map<Reason, Timer> rescanTimers = new EnumMap<>(Reason.class);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "watch-recovery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Path, PendingRescan> pending = new HashMap<>();
+    private final Map<Path, Long> lastRescanAt = new ConcurrentHashMap<>();
+
+    public WatchRecoveryScheduler(LibraryFileEventProcessor libraryFileEventProcessor, MeterRegistry meterRegistry) {
+        this.libraryFileEventProcessor = libraryFileEventProcessor;
+        this.overflowCounter = Counter.builder("booklore.watcher.overflow").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("booklore.watcher.rescan.coalesced").register(meterRegistry);
+        for (Reason reason : Reason.values()) {
+            String tag = reason.name().toLowerCase(Locale.ROOT);
+            requestCounters.put(reason, Counter.builder("booklore.watcher.rescan.requests").tag("reason", tag).register(meterRegistry));
+            rescanTimers.put(reason, Timer.builder("booklore.watcher.rescan").tag("reason", tag).register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void recordOverflow() {
+        overflowCounter.increment();
+    }
+
+    /**
+     * Requests a rescan of {@code directory}, recursive for {@link Reason#OVERFLOW}.
+     *
+     * @param modifiedFile the rewritten file for {@link Reason#MODIFY}, otherwise {@code null}
+     */
+    public synchronized void schedule(long libraryId, Path directory, Reason reason, Path modifiedFile) {
+        requestCounters.get(reason).increment();
+        boolean recursive = reason == Reason.OVERFLOW;
+        long now = System.currentTimeMillis();
+
+        PendingRescan target = findCovering(directory, recursive);
+        if (target != null) {
+            coalescedCounter.increment();
+        } else {
+            target = new PendingRescan(libraryId, directory, recursive, reason);
+            if (recursive) {
+                // A recursive rescan covers every pending rescan below it
+                for (Iterator<PendingRescan> it = pending.values().iterator(); it.hasNext(); ) {
+                    PendingRescan descendant = it.next();
+                    if (descendant.directory.startsWith(directory)) {
+                        target.modifiedFiles.addAll(descendant.modifiedFiles);
+                        it.remove();
+                        coalescedCounter.increment();
+                    }
+                }
+            }
+            pending.put(directory, target);
+        }
+        if (modifiedFile != null) {
+            target.modifiedFiles.add(modifiedFile);
+        }
+
+        long earliest = lastRescanAt.getOrDefault(target.directory, 0L) + MIN_RESCAN_INTERVAL_MS;
+        target.dueAt = Math.max(now + SETTLE_DELAY_MS, earliest);
+        if (!target.scheduled) {
+            target.scheduled = true;
+            scheduleCheck(target, target.dueAt - now);
+        }
+    }
+
+    private PendingRescan findCovering(Path directory, boolean recursive) {
+        PendingRescan same = pending.get(directory);
+        if (same != null) {
+            if (recursive && !same.recursive) {
+                same.recursive = true;
+                same.reason = Reason.OVERFLOW;
+            }
+            return same;
+        }
+        for (PendingRescan candidate : pending.values()) {
+            if (candidate.recursive && directory.startsWith(candidate.directory)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void scheduleCheck(PendingRescan rescan, long delayMs) {
+        try {
+            scheduler.schedule(() -> runIfDue(rescan), Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Watch recovery is shut down, dropping rescan of '{}'", rescan.directory);
+        }
+    }
+
+    private void runIfDue(PendingRescan rescan) {
+        synchronized (this) {
+            if (pending.get(rescan.directory) != rescan) {
+                return; // merged into a recursive rescan of an ancestor
+            }
+            long now = System.currentTimeMillis();
+            if (rescan.dueAt > now) {
+                scheduleCheck(rescan, rescan.dueAt - now);
+                return;
+            }
+            pending.remove(rescan.directory);
+            lastRescanAt.values().removeIf(at -> now - at > MIN_RESCAN_INTERVAL_MS);
+            lastRescanAt.put(rescan.directory, now);
+        }
+
+        log.info("Rescanning '{}' after watcher {} ({})", rescan.directory, rescan.reason.name().toLowerCase(Locale.ROOT),
+                rescan.recursive ? "with subfolders" : "folder only");
+        rescanTimers.get(rescan.reason).record(() -> {
+            try {
+                libraryFileEventProcessor.rescanFolder(rescan.libraryId, rescan.directory, rescan.recursive, rescan.modifiedFiles);
+            } catch (RuntimeException e) {
+                log.warn("Rescan of '{}' failed: {}", rescan.directory, e.getMessage());
+            }
+        });
+    }
+
+    private static final class PendingRescan {
+        private final long libraryId;
+        private final Path directory;
+        private final Set<Path> modifiedFiles = new HashSet<>();
+        private boolean recursive;
+        private Reason reason;
+        private long dueAt;
+        private boolean scheduled;
+
+        PendingRescan(long libraryId, Path directory, boolean recursive, Reason reason) {
+            this.libraryId = libraryId;
+            this.directory = directory;
+            this.recursive = recursive;
+            this.reason = reason;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.IoGovernor;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
 import com.github.junrar.Archive;
@@ -48,6 +49,7 @@ public class CbxReaderService {
     private final BookRepository bookRepository;
     private final AppSettingService appSettingService;
     private final FileService fileService;
+    private final IoGovernor ioGovernor;
 
     public List<Integer> getAvailablePages(Long bookId) {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
@@ -68,15 +70,19 @@ public class CbxReaderService {
 
             if (needsCacheRefresh(cbzPath, cacheInfoPath)) {
                 log.info("Invalidating cache for book {}", bookId);
-                if (Files.exists(cacheDir)) FileUtils.deleteDirectoryRecursively(cacheDir);
-                Files.createDirectories(cacheDir);
-                extractCbxArchive(cbzPath, cacheDir);
-                writeCacheInfo(cbzPath, cacheInfoPath);
-                if (!Files.exists(cacheDir)) {
-                    log.warn("Cache for book {} was deleted during enforcement. Re-extracting.", bookId);
+                try (IoGovernor.Permit ioPermit = ioGovernor.acquire(bookEntity.getLibraryPath(), IoGovernor.Priority.INTERACTIVE)) {
+                    if (Files.exists(cacheDir)) FileUtils.deleteDirectoryRecursively(cacheDir);
                     Files.createDirectories(cacheDir);
+                    ioPermit.reserve(Files.size(cbzPath));
                     extractCbxArchive(cbzPath, cacheDir);
                     writeCacheInfo(cbzPath, cacheInfoPath);
+                    if (!Files.exists(cacheDir)) {
+                        log.warn("Cache for book {} was deleted during enforcement. Re-extracting.", bookId);
+                        Files.createDirectories(cacheDir);
+                        ioPermit.reserve(Files.size(cbzPath));
+                        extractCbxArchive(cbzPath, cacheDir);
+                        writeCacheInfo(cbzPath, cacheInfoPath);
+                    }
                 }
             }
         } catch (IOException e) {
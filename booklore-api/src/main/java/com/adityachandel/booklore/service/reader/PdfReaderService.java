@@ -4,6 +4,7 @@ import com.adityachandel.booklore.exception.ApiError;
 import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.IoGovernor;
 import com.adityachandel.booklore.util.FileService;
 import com.adityachandel.booklore.util.FileUtils;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,7 @@ public class PdfReaderService {
     private final BookRepository bookRepository;
     private final AppSettingService appSettingService;
     private final FileService fileService;
+    private final IoGovernor ioGovernor;
 
     public List<Integer> getAvailablePages(Long bookId) throws IOException {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
@@ -56,7 +58,10 @@ public class PdfReaderService {
                 log.info("Invalidating cache for PDF book {}", bookId);
                 if (Files.exists(cacheDir)) FileUtils.deleteDirectoryRecursively(cacheDir);
                 Files.createDirectories(cacheDir);
-                extractPdfPages(pdfPath, cacheDir);
+                try (IoGovernor.Permit ioPermit = ioGovernor.acquire(bookEntity.getLibraryPath(), IoGovernor.Priority.INTERACTIVE)) {
+                    ioPermit.reserve(estimatedSize);
+                    extractPdfPages(pdfPath, cacheDir);
+                }
                 writeCacheInfo(pdfPath, cacheInfoPath);
             }
 
@@ -8,6 +8,7 @@ import com.adityachandel.booklore.model.enums.TaskType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -63,6 +64,40 @@ public class TaskHistoryService {
         });
     }
 
+    /**
+     * Stores how far a running task has got, committed independently of the caller's transaction
+     * so that it survives a crash of the work that follows.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveCheckpoint(String taskId, Map<String, Object> checkpoint, int progressPercentage, String message) {
+        taskHistoryRepository.findById(taskId).ifPresent(task -> {
+            task.setCheckpoint(checkpoint);
+            task.setProgressPercentage(progressPercentage);
+            task.setMessage(message);
+            task.setUpdatedAt(LocalDateTime.now());
+            taskHistoryRepository.save(task);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCheckpoint(String taskId) {
+        if (taskId == null) {
+            return Map.of();
+        }
+        return taskHistoryRepository.findById(taskId)
+                .map(TaskHistoryEntity::getCheckpoint)
+                .orElse(Map.of());
+    }
+
+    /**
+     * Tasks that were accepted or running when the application stopped, newest first. Only
+     * meaningful at startup, before any new task has been started.
+     */
+    @Transactional(readOnly = true)
+    public List<TaskHistoryEntity> findInterruptedTasks() {
+        return taskHistoryRepository.findByStatusInOrderByCreatedAtDesc(List.of(TaskStatus.ACCEPTED, TaskStatus.IN_PROGRESS));
+    }
+
     @Transactional(readOnly = true)
     public TasksHistoryResponse getLatestTasksForEachType() {
         List<TaskHistoryEntity> latestTasks;
@@ -8,6 +8,7 @@ import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
 import com.adityachandel.booklore.model.dto.response.TaskCancelResponse;
 import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
 import com.adityachandel.booklore.model.entity.TaskCronConfigurationEntity;
+import com.adityachandel.booklore.model.entity.TaskHistoryEntity;
 import com.adityachandel.booklore.model.enums.TaskType;
 import com.adityachandel.booklore.task.tasks.Task;
 import com.adityachandel.booklore.task.TaskCancellationManager;
@@ -75,6 +76,51 @@ public class TaskService {
         enabledConfigs.forEach(this::scheduleTask);
     }
 
+    /**
+     * Picks up tasks that were still running when the application stopped. Resumable tasks are
+     * started again under their original id and continue from their last checkpoint; anything else
+     * is marked as failed so that it does not show as running forever.
+     */
+    public void resumeInterruptedTasks() {
+        for (TaskHistoryEntity interrupted : taskHistoryService.findInterruptedTasks()) {
+            TaskType taskType = interrupted.getType();
+            Task task = taskRegistry.get(taskType);
+            boolean resumable = task != null && task.isResumable() && taskType.isAsync()
+                    && (taskType.isParallel() || runningTasks.putIfAbsent(taskType, interrupted.getId()) == null);
+            if (!resumable) {
+                log.info("Marking interrupted task {} of type {} as failed", interrupted.getId(), taskType);
+                taskHistoryService.updateTaskStatus(interrupted.getId(), TaskStatus.FAILED, "Interrupted by application restart");
+                continue;
+            }
+            try {
+                resumeTask(interrupted, taskType);
+            } catch (Exception e) {
+                log.error("Failed to resume interrupted task {} of type {}", interrupted.getId(), taskType, e);
+                runningTasks.remove(taskType, interrupted.getId());
+                taskHistoryService.updateTaskError(interrupted.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void resumeTask(TaskHistoryEntity interrupted, TaskType taskType) {
+        String taskId = interrupted.getId();
+        log.info("Resuming interrupted task {} of type {} at {}%", taskId, taskType, interrupted.getProgressPercentage());
+        Map<String, Object> options = interrupted.getTaskOptions();
+        TaskCreateRequest request = TaskCreateRequest.builder()
+                .taskType(taskType)
+                .options(options == null || options.isEmpty() ? null : options)
+                .build();
+
+        BookLoreUser systemUser = authenticationService.getSystemUser();
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(systemUser, null, List.of()));
+        taskExecutor.execute(() ->
+                SecurityContextVirtualThread.runWithSecurityContext(securityContext, () ->
+                        executeAsyncTask(taskId, request, taskType)
+                )
+        );
+    }
+
     public void rescheduleTask(TaskType taskType) {
         cancelScheduledTask(taskType);
         taskCronService.getCronConfigOrDefault(taskType);
@@ -7,6 +7,8 @@ import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.PermissionType;
 import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.util.FileUtils;
@@ -31,6 +33,7 @@ public class BookFilePersistenceService {
 
     private final EntityManager entityManager;
     private final BookRepository bookRepository;
+    private final BookAdditionalFileRepository bookAdditionalFileRepository;
     private final NotificationService notificationService;
     private final BookMapper bookMapper;
 
@@ -55,9 +58,18 @@ public class BookFilePersistenceService {
         notificationService.sendMessageToPermissions(Topic.BOOK_ADD, bookMapper.toBookWithDescription(book, false), Set.of(ADMIN, MANIPULATE_LIBRARY));
     }
 
+    /**
+     * Looks up the books for many fingerprints at once. When several books share a fingerprint, the
+     * first one found is returned.
+     */
     @Transactional(readOnly = true)
-    public Optional<BookEntity> findByHash(String hash) {
-        return bookRepository.findByCurrentHash(hash);
+    public Map<String, BookEntity> findByHashes(Collection<String> hashes) {
+        Map<String, BookEntity> booksByHash = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            bookRepository.findAllByCurrentHashIn(new HashSet<>(hashes))
+                    .forEach(book -> booksByHash.putIfAbsent(book.getCurrentHash(), book));
+        }
+        return booksByHash;
     }
 
     String findMatchingLibraryPath(LibraryEntity libraryEntity, Path filePath) {
@@ -93,6 +105,77 @@ public class BookFilePersistenceService {
         return books.size();
     }
 
+    /**
+     * Marks the books of deleted files as deleted in one write.
+     *
+     * @return the ids of the books that were marked
+     */
+    @Transactional
+    public Set<Long> markFilesAsDeleted(LibraryEntity libraryEntity, Collection<Path> paths) {
+        List<BookEntity> books = new ArrayList<>();
+        for (Path path : paths) {
+            try {
+                String libPath = findMatchingLibraryPath(libraryEntity, path);
+                LibraryPathEntity libPathEntity = getLibraryPathEntityForFile(libraryEntity, libPath);
+
+                Path relPath = Paths.get(libPathEntity.getPath()).relativize(path);
+                String fileName = relPath.getFileName().toString();
+                String fileSubPath = Optional.ofNullable(relPath.getParent()).map(Path::toString).orElse("");
+
+                bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(libPathEntity.getId(), fileSubPath, fileName)
+                        .ifPresentOrElse(book -> {
+                            book.setDeleted(true);
+                            books.add(book);
+                            log.info("[MARKED_DELETED] Book '{}' marked as deleted", fileName);
+                        }, () -> log.warn("[NOT_FOUND] Book for deleted path '{}' not found", path));
+            } catch (Exception e) {
+                log.warn("[ERROR] While handling file delete '{}': {}", path, e.getMessage());
+            }
+        }
+
+        bookRepository.saveAll(books);
+        Set<Long> bookIds = new LinkedHashSet<>();
+        books.forEach(book -> bookIds.add(book.getId()));
+        return bookIds;
+    }
+
+    /**
+     * Books recorded directly in a folder, or anywhere below it when {@code recursive}, including
+     * books marked as deleted.
+     */
+    @Transactional(readOnly = true)
+    public List<FolderBook> findBooksInFolder(LibraryPathEntity libraryPath, String folderSubPath, boolean recursive) {
+        List<FolderBook> books = new ArrayList<>();
+        for (BookEntity book : bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(libraryPath.getId(), folderSubPath)) {
+            String subPath = Objects.toString(book.getFileSubPath(), "");
+            boolean inFolder = subPath.equals(folderSubPath)
+                    || (recursive && (folderSubPath.isEmpty() || subPath.startsWith(folderSubPath + "/")));
+            if (inFolder) {
+                books.add(new FolderBook(book.getId(), Paths.get(libraryPath.getPath(), subPath, book.getFileName()).toAbsolutePath().normalize(),
+                        Boolean.TRUE.equals(book.getDeleted()), book.getCurrentHash(), book.getFileSizeKb()));
+            }
+        }
+        return books;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isAdditionalFile(long libraryPathId, String fileSubPath, String fileName) {
+        return bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(libraryPathId, fileSubPath, fileName).isPresent();
+    }
+
+    /**
+     * Records the new fingerprint and size of a book whose file was rewritten in place.
+     */
+    @Transactional
+    public Optional<Book> updateFingerprint(long bookId, String currentHash, Long fileSizeKb) {
+        return bookRepository.findById(bookId).map(book -> {
+            book.setCurrentHash(currentHash);
+            book.setFileSizeKb(fileSizeKb);
+            bookRepository.save(book);
+            return bookMapper.toBook(book);
+        });
+    }
+
     @Transactional(readOnly = true)
     public Optional<BookEntity> findByLibraryPathSubPathAndFileName(long libraryPathId, String fileSubPath, String fileName) {
         return bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(libraryPathId, fileSubPath, fileName);
@@ -102,4 +185,7 @@ public class BookFilePersistenceService {
     public void save(BookEntity book) {
         bookRepository.save(book);
     }
-}
\ No newline at end of file
+
+    public record FolderBook(long id, Path path, boolean deleted, String hash, Long fileSizeKb) {
+    }
+}
@@ -18,8 +18,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 
 import static com.adityachandel.booklore.model.enums.PermissionType.ADMIN;
@@ -35,38 +36,58 @@ public class BookFileTransactionalHandler {
     private final NotificationService notificationService;
     private final LibraryRepository libraryRepository;
 
+    /**
+     * Ingests a batch of new files. Files whose fingerprint belongs to an existing book move that
+     * book instead; the rest go through the library's processor together, so they share its
+     * parallel pipeline and writer budget.
+     */
     @Transactional()
-    public void handleNewBookFile(long libraryId, Path path, String currentHash) {
+    public void handleNewBookFiles(long libraryId, Map<Path, String> hashesByPath) {
         LibraryEntity libraryEntity = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
 
-        Optional<BookEntity> existingOpt = bookFilePersistenceService.findByHash(currentHash);
-        if (existingOpt.isPresent()) {
-            BookEntity existingBook = existingOpt.get();
-            bookFilePersistenceService.updatePathIfChanged(existingBook, libraryEntity, path, currentHash);
+        Map<String, BookEntity> existingBooks = bookFilePersistenceService.findByHashes(hashesByPath.values());
+        List<LibraryFile> libraryFiles = new ArrayList<>();
+        hashesByPath.forEach((path, currentHash) -> {
+            BookEntity existingBook = existingBooks.get(currentHash);
+            if (existingBook != null) {
+                bookFilePersistenceService.updatePathIfChanged(existingBook, libraryEntity, path, currentHash);
+                return;
+            }
+            try {
+                libraryFiles.add(toLibraryFile(libraryEntity, path, currentHash));
+            } catch (RuntimeException e) {
+                log.warn("[CREATE] Skipping '{}': {}", path, e.getMessage());
+            }
+        });
+        if (libraryFiles.isEmpty()) {
             return;
         }
 
-        String filePath = path.toString();
-        String fileName = path.getFileName().toString();
-        String libraryPath = bookFilePersistenceService.findMatchingLibraryPath(libraryEntity, path);
+        String description = libraryFiles.size() == 1
+                ? "file: " + libraryFiles.getFirst().getFullPath()
+                : libraryFiles.size() + " files in library " + libraryEntity.getName();
+        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Started processing " + description), Set.of(ADMIN, MANIPULATE_LIBRARY));
 
-        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Started processing file: " + filePath), Set.of(ADMIN, MANIPULATE_LIBRARY));
+        libraryProcessingService.processLibraryFiles(libraryFiles, libraryEntity);
+
+        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Finished processing " + description), Set.of(ADMIN, MANIPULATE_LIBRARY));
+        log.info("[CREATE] Completed processing for {}", description);
+    }
 
+    private LibraryFile toLibraryFile(LibraryEntity libraryEntity, Path path, String currentHash) {
+        String fileName = path.getFileName().toString();
+        String libraryPath = bookFilePersistenceService.findMatchingLibraryPath(libraryEntity, path);
         LibraryPathEntity libraryPathEntity = bookFilePersistenceService.getLibraryPathEntityForFile(libraryEntity, libraryPath);
 
-        LibraryFile libraryFile = LibraryFile.builder()
+        return LibraryFile.builder()
                 .libraryEntity(libraryEntity)
                 .libraryPathEntity(libraryPathEntity)
                 .fileSubPath(FileUtils.getRelativeSubPath(libraryPathEntity.getPath(), path))
                 .fileName(fileName)
+                .hash(currentHash)
                 .bookFileType(BookFileExtension.fromFileName(fileName)
                         .map(BookFileExtension::getType)
                         .orElseThrow(() -> new IllegalArgumentException("Unsupported book file type: " + fileName)))
                 .build();
-
-        libraryProcessingService.processLibraryFiles(List.of(libraryFile), libraryEntity);
-
-        notificationService.sendMessageToPermissions(Topic.LOG, LogNotification.info("Finished processing file: " + filePath), Set.of(ADMIN, MANIPULATE_LIBRARY));
-        log.info("[CREATE] Completed processing for file '{}'", filePath);
     }
 }
@@ -0,0 +1,19 @@
+package com.adityachandel.booklore.service.watcher;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Getter
+public class FileWriteCompletedEvent extends ApplicationEvent {
+    private final long libraryId;
+    private final List<Path> files;
+
+    public FileWriteCompletedEvent(Object source, long libraryId, List<Path> files) {
+        super(source);
+        this.libraryId = libraryId;
+        this.files = files;
+    }
+}
@@ -7,36 +7,61 @@ import com.adityachandel.booklore.model.enums.BookFileExtension;
 import com.adityachandel.booklore.model.enums.PermissionType;
 import com.adityachandel.booklore.model.websocket.Topic;
 import com.adityachandel.booklore.repository.LibraryRepository;
-import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.util.FileUtils;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Turns watcher events into library changes.
+ * <p>
+ * Events are coalesced per path: they collect until no new event arrived for
+ * {@link #COALESCE_WINDOW_MS}, or for at most {@link #MAX_BATCH_DELAY_MS} while events keep coming,
+ * and a create followed by a delete of the same path (or the other way round, as editors do when
+ * saving) cancels out. The surviving events are handled as one batch per library: deletes are
+ * written together, new files are fingerprinted in parallel and ingested through a single
+ * {@link BookFileTransactionalHandler#handleNewBookFiles} call. New files that are still being
+ * written are held back by the {@link WriteStabilityGate} and ingested once they are complete.
+ */
 @Slf4j
 @Service
 @AllArgsConstructor
 public class LibraryFileEventProcessor {
 
-    private static final long DEBOUNCE_MS = 500L;
+    private static final long COALESCE_WINDOW_MS = 500L;
+    private static final long MAX_BATCH_DELAY_MS = 5000L;
+    private static final int MAX_BATCH_SIZE = 2000;
 
-    private final BlockingQueue<FileEvent> eventQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>();
     private final LibraryRepository libraryRepository;
     private final BookFileTransactionalHandler bookFileTransactionalHandler;
     private final BookFilePersistenceService bookFilePersistenceService;
     private final NotificationService notificationService;
+    private final FileFingerprintCache fileFingerprintCache;
+    private final AppSettingService appSettingService;
+    private final BookEventBroadcaster bookEventBroadcaster;
+    private final WriteStabilityGate writeStabilityGate;
 
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final ConcurrentMap<Path, ScheduledFuture<?>> pendingDeletes = new ConcurrentHashMap<>();
+    private final Map<Path, FileEvent> pendingEvents = new LinkedHashMap<>();
+    private final AtomicLong windowStartedAt = new AtomicLong();
+    private final AtomicLong lastEventAt = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
 
     @PostConstruct
     public void init() {
@@ -44,12 +69,12 @@ public class LibraryFileEventProcessor {
             log.info("LibraryFileEventProcessor virtual thread started.");
             while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    handleEvent(eventQueue.take());
+                    workQueue.take().run();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     log.warn("LibraryFileEventProcessor virtual thread interrupted.");
                 } catch (Exception e) {
-                    log.error("Error while processing file event", e);
+                    log.error("Error while processing file events", e);
                 }
             }
         });
@@ -57,113 +82,347 @@ public class LibraryFileEventProcessor {
 
     public void processFile(WatchEvent.Kind<?> eventKind, long libraryId, String libraryPath, String filePath) {
         Path path = Paths.get(filePath).toAbsolutePath().normalize();
-
-        if (eventKind == StandardWatchEventKinds.ENTRY_DELETE) {
-            // Schedule DELETE after debounce
-            ScheduledFuture<?> existing = pendingDeletes.put(path, scheduler.schedule(() -> {
-                eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
-                pendingDeletes.remove(path);
-            }, DEBOUNCE_MS, TimeUnit.MILLISECONDS));
-
-            if (existing != null) existing.cancel(false);
-        } else if (eventKind == StandardWatchEventKinds.ENTRY_CREATE) {
-            // If a DELETE is pending for this path, cancel both DELETE and CREATE
-            ScheduledFuture<?> pendingDelete = pendingDeletes.remove(path);
-            if (pendingDelete != null) {
-                pendingDelete.cancel(false);
-                log.debug("[DEBOUNCE] CREATE ignored because pending DELETE exists for '{}'", path);
-                return;
+        FileEvent event = new FileEvent(eventKind, libraryId, libraryPath, filePath);
+        long now = System.currentTimeMillis();
+        boolean flushNow;
+        synchronized (pendingEvents) {
+            if (pendingEvents.isEmpty()) {
+                windowStartedAt.set(now);
+            }
+            FileEvent merged = coalesce(pendingEvents.get(path), event);
+            if (merged == null) {
+                pendingEvents.remove(path);
+                log.debug("[COALESCE] '{}' cancelled out within the window", path);
+            } else {
+                pendingEvents.put(path, merged);
             }
-            // Otherwise process CREATE immediately
-            eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
-        } else {
-            // Other events
-            eventQueue.offer(new FileEvent(eventKind, libraryId, libraryPath, filePath));
+            lastEventAt.set(now);
+            flushNow = pendingEvents.size() >= MAX_BATCH_SIZE;
+        }
+        if (flushNow) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduleFlush(COALESCE_WINDOW_MS);
         }
     }
 
-    private void handleEvent(FileEvent event) {
-        Path path = Paths.get(event.filePath()).toAbsolutePath().normalize();
-        String fileName = path.getFileName().toString();
-        log.info("[PROCESS] '{}' event for '{}'", event.eventKind().name(), fileName);
+    /**
+     * Merges the next event for a path into the pending one. Returns {@code null} when the two cancel out.
+     */
+    static FileEvent coalesce(FileEvent pending, FileEvent next) {
+        if (pending == null) {
+            return next;
+        }
+        WatchEvent.Kind<?> previous = pending.eventKind();
+        WatchEvent.Kind<?> current = next.eventKind();
+        if ((previous == StandardWatchEventKinds.ENTRY_CREATE && current == StandardWatchEventKinds.ENTRY_DELETE)
+                || (previous == StandardWatchEventKinds.ENTRY_DELETE && current == StandardWatchEventKinds.ENTRY_CREATE)) {
+            return null;
+        }
+        if (current == StandardWatchEventKinds.ENTRY_MODIFY && previous != StandardWatchEventKinds.ENTRY_MODIFY) {
+            // A modification does not change what a pending create or delete has to do
+            return pending;
+        }
+        return next;
+    }
 
-        LibraryEntity library = libraryRepository.findById(event.libraryId())
-                .orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(event.libraryId()));
+    /**
+     * Compares a watched folder, or its whole subtree when {@code recursive}, with the books recorded
+     * there and feeds the differences through the coalescing window like regular watcher events.
+     * Books whose file was rewritten in place get their fingerprint and size refreshed. Used when
+     * watcher events were lost or cannot tell what changed.
+     *
+     * @param modifiedFiles files known to have been rewritten; other files are only fingerprinted
+     *                      again when their size no longer matches the book
+     */
+    public void rescanFolder(long libraryId, Path folder, boolean recursive, Collection<Path> modifiedFiles) {
+        LibraryEntity library = libraryRepository.findById(libraryId)
+                .orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
+        Path folderPath = folder.toAbsolutePath().normalize();
+        LibraryPathEntity libPathEntity;
+        try {
+            String libPath = bookFilePersistenceService.findMatchingLibraryPath(library, folderPath);
+            libPathEntity = bookFilePersistenceService.getLibraryPathEntityForFile(library, libPath);
+        } catch (RuntimeException e) {
+            log.warn("[RESCAN] '{}' is not inside library '{}': {}", folderPath, library.getName(), e.getMessage());
+            return;
+        }
+        String folderSubPath = Path.of(libPathEntity.getPath()).toAbsolutePath().normalize().relativize(folderPath).toString().replace("\\", "/");
 
-        if (library.getLibraryPaths().stream().noneMatch(lp -> path.startsWith(lp.getPath()))) {
-            log.warn("[SKIP] Path outside of library: '{}'", path);
+        List<BookFilePersistenceService.FolderBook> books = bookFilePersistenceService.findBooksInFolder(libPathEntity, folderSubPath, recursive);
+        boolean hasBooks = books.stream().anyMatch(book -> !book.deleted());
+        Set<Path> onDisk = listBookFiles(Path.of(libPathEntity.getPath()).toAbsolutePath().normalize(), folderPath, recursive, hasBooks);
+        if (onDisk == null) {
             return;
         }
+        Set<Path> modified = new HashSet<>();
+        modifiedFiles.forEach(path -> modified.add(path.toAbsolutePath().normalize()));
 
-        if (isFolder(path)) {
-            switch (event.eventKind().name()) {
-                case "ENTRY_CREATE" -> handleFolderCreate(library, path);
-                case "ENTRY_DELETE" -> handleFolderDelete(library, path);
-                default -> log.warn("[SKIP] Folder event '{}' ignored for '{}'", event.eventKind().name(), fileName);
+        int created = 0;
+        int deleted = 0;
+        int replaced = 0;
+        Map<Path, BookFilePersistenceService.FolderBook> booksByPath = new HashMap<>();
+        for (BookFilePersistenceService.FolderBook book : books) {
+            booksByPath.put(book.path(), book);
+            if (!book.deleted() && !onDisk.contains(book.path())) {
+                processFile(StandardWatchEventKinds.ENTRY_DELETE, libraryId, libPathEntity.getPath(), book.path().toString());
+                deleted++;
             }
-            return;
         }
 
-        if (!isBookFile(fileName)) {
-            log.debug("[SKIP] Ignored non-book file '{}'", fileName);
-            return;
+        for (Path file : onDisk) {
+            BookFilePersistenceService.FolderBook book = booksByPath.get(file);
+            if (book == null || book.deleted()) {
+                String fileSubPath = FileUtils.getRelativeSubPath(libPathEntity.getPath(), file);
+                if (book == null && bookFilePersistenceService.isAdditionalFile(libPathEntity.getId(), fileSubPath, file.getFileName().toString())) {
+                    continue;
+                }
+                processFile(StandardWatchEventKinds.ENTRY_CREATE, libraryId, libPathEntity.getPath(), file.toString());
+                created++;
+            } else if ((modified.contains(file) || !Objects.equals(book.fileSizeKb(), FileUtils.getFileSizeInKb(file))) && refreshFingerprint(book, file)) {
+                replaced++;
+            }
+        }
+        log.info("[RESCAN] '{}': {} new, {} removed, {} replaced", folderPath, created, deleted, replaced);
+    }
+
+    private boolean refreshFingerprint(BookFilePersistenceService.FolderBook book, Path file) {
+        try {
+            String hash = fileFingerprintCache.getHash(file);
+            if (hash == null || hash.equals(book.hash())) {
+                return false;
+            }
+            log.info("[REPLACED] '{}' was rewritten in place", file);
+            bookFilePersistenceService.updateFingerprint(book.id(), hash, FileUtils.getFileSizeInKb(file))
+                    .ifPresent(bookEventBroadcaster::broadcastBookUpdateEvent);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("[ERROR] Fingerprinting replaced file '{}': {}", file, e.getMessage());
+            return false;
         }
+    }
 
-        switch (event.eventKind().name()) {
-            case "ENTRY_CREATE" -> handleFileCreate(library, path);
-            case "ENTRY_DELETE" -> handleFileDelete(library, path);
-            default -> log.debug("[SKIP] File event '{}' ignored for '{}'", event.eventKind().name(), fileName);
+    /**
+     * Returns {@code null} when the folder cannot be listed, so that an unreadable folder is never
+     * mistaken for an empty one. A folder that no longer exists is empty, unless the library root
+     * itself is missing or empty while books are still recorded there: an unmounted share looks
+     * exactly like that, and must not be taken for the deletion of every book.
+     */
+    private Set<Path> listBookFiles(Path libraryRoot, Path folder, boolean recursive, boolean hasBooks) {
+        if (hasBooks && isMissingOrEmpty(libraryRoot)) {
+            log.warn("[RESCAN] Library root '{}' is missing or empty, skipping '{}' in case the mount is unavailable", libraryRoot, folder);
+            return null;
+        }
+        if (!Files.exists(folder)) {
+            return Set.of();
+        }
+        Set<Path> files = new LinkedHashSet<>();
+        try (var stream = recursive ? Files.walk(folder) : Files.list(folder)) {
+            stream.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().startsWith("."))
+                    .filter(p -> isBookFile(p.getFileName().toString()))
+                    .forEach(p -> files.add(p.toAbsolutePath().normalize()));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("[ERROR] Listing folder '{}': {}", folder, e.getMessage());
+            return null;
         }
+        return files;
     }
 
-    private void handleFileCreate(LibraryEntity library, Path path) {
-        log.info("[FILE_CREATE] '{}'", path);
-        String hash = FileFingerprint.generateHash(path);
-        bookFileTransactionalHandler.handleNewBookFile(library.getId(), path, hash);
+    private static boolean isMissingOrEmpty(Path directory) {
+        try (var stream = Files.list(directory)) {
+            return stream.findAny().isEmpty();
+        } catch (IOException | UncheckedIOException e) {
+            return true;
+        }
     }
 
-    private void handleFileDelete(LibraryEntity library, Path path) {
-        log.info("[FILE_DELETE] '{}'", path);
+    private void scheduleFlush(long delayMs) {
         try {
-            String libPath = bookFilePersistenceService.findMatchingLibraryPath(library, path);
-            LibraryPathEntity libPathEntity = bookFilePersistenceService.getLibraryPathEntityForFile(library, libPath);
+            scheduler.schedule(this::flushIfQuiet, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            flushScheduled.set(false);
+        }
+    }
 
-            Path relPath = Paths.get(libPathEntity.getPath()).relativize(path);
-            String fileName = relPath.getFileName().toString();
-            String fileSubPath = Optional.ofNullable(relPath.getParent()).map(Path::toString).orElse("");
+    private void flushIfQuiet() {
+        long now = System.currentTimeMillis();
+        long quietFor = now - lastEventAt.get();
+        long openFor = now - windowStartedAt.get();
+        if (quietFor < COALESCE_WINDOW_MS && openFor < MAX_BATCH_DELAY_MS) {
+            scheduleFlush(Math.min(COALESCE_WINDOW_MS - quietFor, MAX_BATCH_DELAY_MS - openFor));
+            return;
+        }
+        flushScheduled.set(false);
+        flush();
+        synchronized (pendingEvents) {
+            if (!pendingEvents.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+                scheduleFlush(COALESCE_WINDOW_MS);
+            }
+        }
+    }
 
-            bookFilePersistenceService.findByLibraryPathSubPathAndFileName(libPathEntity.getId(), fileSubPath, fileName)
-                    .ifPresentOrElse(book -> {
-                        book.setDeleted(true);
-                        bookFilePersistenceService.save(book);
-                        notificationService.sendMessageToPermissions(Topic.BOOKS_REMOVE, Set.of(book.getId()),
-                                Set.of(PermissionType.ADMIN, PermissionType.MANIPULATE_LIBRARY));
-                        log.info("[MARKED_DELETED] Book '{}' marked as deleted", fileName);
-                    }, () -> log.warn("[NOT_FOUND] Book for deleted path '{}' not found", path));
+    private void flush() {
+        List<FileEvent> batch;
+        synchronized (pendingEvents) {
+            if (pendingEvents.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingEvents.values());
+            pendingEvents.clear();
+        }
+        log.debug("[COALESCE] Flushing {} event(s)", batch.size());
+        workQueue.offer(() -> handleBatch(batch));
+    }
 
-        } catch (Exception e) {
-            log.warn("[ERROR] While handling file delete '{}': {}", path, e.getMessage());
+    private void handleBatch(List<FileEvent> batch) {
+        Map<Long, List<FileEvent>> eventsByLibrary = new LinkedHashMap<>();
+        batch.forEach(event -> eventsByLibrary.computeIfAbsent(event.libraryId(), id -> new ArrayList<>()).add(event));
+        eventsByLibrary.forEach((libraryId, events) -> {
+            try {
+                handleLibraryEvents(libraryId, events);
+            } catch (Exception e) {
+                log.error("Error while processing {} file event(s) for library {}", events.size(), libraryId, e);
+            }
+        });
+    }
+
+    private void handleLibraryEvents(long libraryId, List<FileEvent> events) {
+        LibraryEntity library = libraryRepository.findById(libraryId)
+                .orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
+        log.info("[PROCESS] {} event(s) for library '{}'", events.size(), library.getName());
+
+        List<Path> folderCreates = new ArrayList<>();
+        List<Path> folderDeletes = new ArrayList<>();
+        Set<Path> fileCreates = new LinkedHashSet<>();
+        List<Path> fileDeletes = new ArrayList<>();
+
+        for (FileEvent event : events) {
+            Path path = Paths.get(event.filePath()).toAbsolutePath().normalize();
+            String fileName = path.getFileName().toString();
+            String kind = event.eventKind().name();
+            log.debug("[PROCESS] '{}' event for '{}'", kind, fileName);
+
+            if (library.getLibraryPaths().stream().noneMatch(lp -> path.startsWith(lp.getPath()))) {
+                log.warn("[SKIP] Path outside of library: '{}'", path);
+                continue;
+            }
+
+            if (isFolder(path)) {
+                switch (kind) {
+                    case "ENTRY_CREATE" -> folderCreates.add(path);
+                    case "ENTRY_DELETE" -> folderDeletes.add(path);
+                    default -> log.warn("[SKIP] Folder event '{}' ignored for '{}'", kind, fileName);
+                }
+                continue;
+            }
+
+            if (!isBookFile(fileName)) {
+                log.debug("[SKIP] Ignored non-book file '{}'", fileName);
+                continue;
+            }
+
+            switch (kind) {
+                case "ENTRY_CREATE" -> fileCreates.add(path);
+                case "ENTRY_DELETE" -> fileDeletes.add(path);
+                default -> log.debug("[SKIP] File event '{}' ignored for '{}'", kind, fileName);
+            }
+        }
+
+        // Deletes first, so a book moved within the batch is found by hash and restored at its new path
+        folderDeletes.forEach(folder -> handleFolderDelete(library, folder));
+        if (!fileDeletes.isEmpty()) {
+            writeStabilityGate.cancel(fileDeletes);
+            handleFileDeletes(library, fileDeletes);
+        }
+
+        folderCreates.forEach(folder -> collectBookFiles(folder, fileCreates));
+        List<Path> completeFiles = writeStabilityGate.admit(libraryId, fileCreates);
+        if (completeFiles.size() < fileCreates.size()) {
+            log.info("[WRITE_PENDING] {} file(s) in library '{}' are still being written", fileCreates.size() - completeFiles.size(), library.getName());
+        }
+        if (!completeFiles.isEmpty()) {
+            handleFileCreates(library, completeFiles);
         }
     }
 
-    private void handleFolderCreate(LibraryEntity library, Path folderPath) {
+    @EventListener
+    public void handleWriteCompleted(FileWriteCompletedEvent event) {
+        workQueue.offer(() -> {
+            try {
+                LibraryEntity library = libraryRepository.findById(event.getLibraryId())
+                        .orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(event.getLibraryId()));
+                handleFileCreates(library, event.getFiles());
+            } catch (Exception e) {
+                log.error("Error while ingesting {} completed file(s) for library {}", event.getFiles().size(), event.getLibraryId(), e);
+            }
+        });
+    }
+
+    private void handleFileCreates(LibraryEntity library, Collection<Path> paths) {
+        log.info("[FILE_CREATE] {} file(s) in library '{}'", paths.size(), library.getName());
+        Map<Path, String> hashes = fingerprint(paths);
+        if (!hashes.isEmpty()) {
+            bookFileTransactionalHandler.handleNewBookFiles(library.getId(), hashes);
+        }
+    }
+
+    private void handleFileDeletes(LibraryEntity library, List<Path> paths) {
+        log.info("[FILE_DELETE] {} file(s) in library '{}'", paths.size(), library.getName());
+        Set<Long> deletedBookIds = bookFilePersistenceService.markFilesAsDeleted(library, paths);
+        if (!deletedBookIds.isEmpty()) {
+            notificationService.sendMessageToPermissions(Topic.BOOKS_REMOVE, deletedBookIds,
+                    Set.of(PermissionType.ADMIN, PermissionType.MANIPULATE_LIBRARY));
+        }
+    }
+
+    private void collectBookFiles(Path folderPath, Set<Path> files) {
         log.info("[FOLDER_CREATE] '{}'", folderPath);
         try (var stream = Files.walk(folderPath)) {
             stream.filter(Files::isRegularFile)
                     .filter(p -> isBookFile(p.getFileName().toString()))
-                    .forEach(p -> {
-                        try {
-                            String hash = FileFingerprint.generateHash(p);
-                            bookFileTransactionalHandler.handleNewBookFile(library.getId(), p, hash);
-                        } catch (Exception e) {
-                            log.warn("[ERROR] Processing file '{}': {}", p, e.getMessage());
-                        }
-                    });
-        } catch (IOException e) {
+                    .forEach(files::add);
+        } catch (IOException | UncheckedIOException e) {
             log.warn("[ERROR] Walking folder '{}': {}", folderPath, e.getMessage());
         }
     }
 
+    /**
+     * Fingerprints files in parallel, bounded by the hashing concurrency of the library scan settings.
+     * Files that cannot be read are left out. The result keeps the order of {@code paths}.
+     */
+    private Map<Path, String> fingerprint(Collection<Path> paths) {
+        int concurrency = Math.max(1, appSettingService.getAppSettings().getLibraryScanSettings().getHashingConcurrency());
+        Semaphore permits = new Semaphore(concurrency);
+        Map<Path, String> hashes = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path path : paths) {
+                executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        String hash = fileFingerprintCache.getHash(path);
+                        if (hash != null) {
+                            hashes.put(path, hash);
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("[ERROR] Processing file '{}': {}", path, e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        Map<Path, String> ordered = new LinkedHashMap<>();
+        for (Path path : paths) {
+            String hash = hashes.get(path);
+            if (hash != null) {
+                ordered.put(path, hash);
+            }
+        }
+        return ordered;
+    }
+
     private void handleFolderDelete(LibraryEntity library, Path folderPath) {
         log.info("[FOLDER_DELETE] '{}'", folderPath);
         try {
@@ -194,4 +453,4 @@ public class LibraryFileEventProcessor {
 
     public record FileEvent(WatchEvent.Kind<?> eventKind, long libraryId, String libraryPath, String filePath) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,265 @@
+package com.adityachandel.booklore.service.watcher;
+
+import com.adityachandel.booklore.model.dto.response.PendingFileStatus;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds back files reported by the watcher until they are completely written.
+ * <p>
+ * A file is complete once its size and modification time stayed the same for the configured quiet
+ * period. Files whose last change (including the status change time on unix file systems, which
+ * copy tools cannot backdate) is already older than that pass straight through. The others are
+ * checked again after the quiet period, and the wait between checks doubles, up to a cap, every
+ * time the file is still growing, so a slow network copy costs a handful of stats instead of a
+ * fingerprint of a half-written file. Completed files are published as a
+ * {@link FileWriteCompletedEvent}.
+ */
+@Slf4j
+@Service
+public class WriteStabilityGate {
+
+    private static final long DEFAULT_QUIET_PERIOD_SECONDS = 5;
+    private static final long DEFAULT_MAX_CHECK_INTERVAL_SECONDS = 120;
+    private static final long COMPLETION_BATCH_DELAY_MS = 250;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppSettingService appSettingService;
+    private final Counter deferredCounter;
+    private final Timer waitTimer;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-stability");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Path, PendingFile> pending = new ConcurrentHashMap<>();
+    private final Map<Long, List<Path>> completed = new HashMap<>();
+    private final AtomicBoolean completionFlushScheduled = new AtomicBoolean();
+    private volatile boolean unixAttributesSupported = true;
+
+    public WriteStabilityGate(ApplicationEventPublisher eventPublisher, AppSettingService appSettingService, MeterRegistry meterRegistry) {
+        this.eventPublisher = eventPublisher;
+        this.appSettingService = appSettingService;
+        this.deferredCounter = Counter.builder("booklore.watcher.write.deferred").register(meterRegistry);
+        this.waitTimer = Timer.builder("booklore.watcher.write.wait").register(meterRegistry);
+        Gauge.builder("booklore.watcher.write.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the files of {@code files} that are already complete. The others are held back and
+     * published once complete; files that are already held back or no longer exist are dropped.
+     */
+    public List<Path> admit(long libraryId, Collection<Path> files) {
+        long now = System.currentTimeMillis();
+        long quietMillis = TimeUnit.SECONDS.toMillis(quietPeriodSeconds());
+        List<Path> complete = new ArrayList<>();
+        for (Path file : files) {
+            if (pending.containsKey(file)) continue;
+            Snapshot snapshot = snapshot(file);
+            if (snapshot == null) continue;
+            if (snapshot.lastChangedAt() != null && now - snapshot.lastChangedAt() >= quietMillis) {
+                complete.add(file);
+                continue;
+            }
+            PendingFile pendingFile = new PendingFile(libraryId, file, snapshot, now, quietMillis);
+            if (pending.putIfAbsent(file, pendingFile) == null) {
+                deferredCounter.increment();
+                log.debug("[WRITE_PENDING] '{}' is still being written, checking again in {} ms", file, quietMillis);
+                schedule(pendingFile, quietMillis);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Stops waiting for files that were deleted before they were complete.
+     */
+    public void cancel(Collection<Path> files) {
+        files.forEach(pending::remove);
+    }
+
+    public List<PendingFileStatus> getPendingFiles() {
+        List<PendingFileStatus> statuses = new ArrayList<>();
+        for (PendingFile file : pending.values()) {
+            synchronized (file) {
+                statuses.add(PendingFileStatus.builder()
+                        .libraryId(file.libraryId)
+                        .path(file.path.toString())
+                        .sizeBytes(file.snapshot.size())
+                        .checks(file.checks)
+                        .firstSeenAt(Instant.ofEpochMilli(file.firstSeenAt))
+                        .lastChangedAt(Instant.ofEpochMilli(file.lastChangedAt))
+                        .nextCheckAt(Instant.ofEpochMilli(file.nextCheckAt))
+                        .build());
+            }
+        }
+        statuses.sort(Comparator.comparing(PendingFileStatus::getFirstSeenAt));
+        return statuses;
+    }
+
+    private void check(PendingFile file) {
+        if (pending.get(file.path) != file) return;
+        Snapshot current = snapshot(file.path);
+        if (current == null) {
+            pending.remove(file.path, file);
+            log.debug("[WRITE_PENDING] '{}' disappeared before it was complete", file.path);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long quietMillis = TimeUnit.SECONDS.toMillis(quietPeriodSeconds());
+        long delay;
+        synchronized (file) {
+            file.checks++;
+            if (!current.sameContentAs(file.snapshot)) {
+                file.snapshot = current;
+                file.lastChangedAt = now;
+                file.intervalMillis = Math.min(Math.max(quietMillis, file.intervalMillis * 2), TimeUnit.SECONDS.toMillis(maxCheckIntervalSeconds()));
+                delay = file.intervalMillis;
+            } else {
+                delay = quietMillis - (now - file.lastChangedAt);
+            }
+        }
+        if (delay > 0) {
+            schedule(file, delay);
+            return;
+        }
+
+        if (pending.remove(file.path, file)) {
+            waitTimer.record(now - file.firstSeenAt, TimeUnit.MILLISECONDS);
+            log.info("[WRITE_COMPLETE] '{}' after {} ms and {} check(s)", file.path, now - file.firstSeenAt, file.checks);
+            complete(file);
+        }
+    }
+
+    /**
+     * Gathers files that complete close together, so a copied folder is ingested as one batch.
+     */
+    private void complete(PendingFile file) {
+        synchronized (completed) {
+            completed.computeIfAbsent(file.libraryId, id -> new ArrayList<>()).add(file.path);
+        }
+        if (completionFlushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::publishCompleted, COMPLETION_BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                completionFlushScheduled.set(false);
+            }
+        }
+    }
+
+    private void publishCompleted() {
+        Map<Long, List<Path>> batch;
+        synchronized (completed) {
+            completionFlushScheduled.set(false);
+            batch = new HashMap<>(completed);
+            completed.clear();
+        }
+        batch.forEach((libraryId, files) -> eventPublisher.publishEvent(new FileWriteCompletedEvent(this, libraryId, files)));
+    }
+
+    private void schedule(PendingFile file, long delayMs) {
+        synchronized (file) {
+            file.nextCheckAt = System.currentTimeMillis() + delayMs;
+        }
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    check(file);
+                } catch (RuntimeException e) {
+                    log.warn("[WRITE_PENDING] Checking '{}' failed: {}", file.path, e.getMessage());
+                    pending.remove(file.path, file);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.remove(file.path, file);
+        }
+    }
+
+    /**
+     * Returns {@code null} when the file no longer exists. The change time is only known where the
+     * file system reports a status change time; elsewhere every new file waits for one check.
+     */
+    private Snapshot snapshot(Path file) {
+        try {
+            if (unixAttributesSupported) {
+                try {
+                    Map<String, Object> attributes = Files.readAttributes(file, "unix:size,lastModifiedTime,ctime");
+                    long modified = ((FileTime) attributes.get("lastModifiedTime")).toMillis();
+                    long changed = ((FileTime) attributes.get("ctime")).toMillis();
+                    return new Snapshot((Long) attributes.get("size"), modified, Math.max(modified, changed));
+                } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                    unixAttributesSupported = false;
+                }
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Snapshot(attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private long quietPeriodSeconds() {
+        long seconds = settings().getWriteQuietPeriodSeconds();
+        return seconds > 0 ? seconds : DEFAULT_QUIET_PERIOD_SECONDS;
+    }
+
+    private long maxCheckIntervalSeconds() {
+        long seconds = settings().getWriteCheckMaxIntervalSeconds();
+        return seconds > 0 ? seconds : DEFAULT_MAX_CHECK_INTERVAL_SECONDS;
+    }
+
+    private LibraryScanSettings settings() {
+        return appSettingService.getAppSettings().getLibraryScanSettings();
+    }
+
+    private record Snapshot(long size, long modifiedAt, Long lastChangedAt) {
+        boolean sameContentAs(Snapshot other) {
+            return size == other.size && modifiedAt == other.modifiedAt && Objects.equals(lastChangedAt, other.lastChangedAt);
+        }
+    }
+
+    private static final class PendingFile {
+        private final long libraryId;
+        private final Path path;
+        private final long firstSeenAt;
+        private Snapshot snapshot;
+        private long lastChangedAt;
+        private long intervalMillis;
+        private long nextCheckAt;
+        private int checks;
+
+        PendingFile(long libraryId, Path path, Snapshot snapshot, long now, long intervalMillis) {
+            this.libraryId = libraryId;
+            this.path = path;
+            this.snapshot = snapshot;
+            this.firstSeenAt = now;
+            this.lastChangedAt = now;
+            this.intervalMillis = intervalMillis;
+        }
+    }
+}
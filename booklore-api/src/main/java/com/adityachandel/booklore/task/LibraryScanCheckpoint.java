@@ -0,0 +1,108 @@
+package com.adityachandel.booklore.task;
+
+import java.util.*;
+
+/**
+ * Progress of a task that walks all libraries, persisted in the task's checkpoint column so that
+ * the task can pick up where it stopped after a restart. Libraries are tracked as completed, and
+ * every library in progress, several of which may be scanned at once, has an optional cursor with
+ * the last book that was fully handled.
+ */
+public class LibraryScanCheckpoint {
+
+    private static final String COMPLETED_LIBRARY_IDS = "completedLibraryIds";
+    private static final String LAST_BOOK_IDS = "lastBookIds";
+
+    private final Set<Long> completedLibraryIds = new LinkedHashSet<>();
+    private final Map<Long, Long> lastBookIds = new LinkedHashMap<>();
+
+    public static LibraryScanCheckpoint fromMap(Map<String, Object> map) {
+        LibraryScanCheckpoint checkpoint = new LibraryScanCheckpoint();
+        if (map == null) {
+            return checkpoint;
+        }
+        if (map.get(COMPLETED_LIBRARY_IDS) instanceof Collection<?> ids) {
+            for (Object id : ids) {
+                if (id instanceof Number number) {
+                    checkpoint.completedLibraryIds.add(number.longValue());
+                }
+            }
+        }
+        if (map.get(LAST_BOOK_IDS) instanceof Map<?, ?> cursors) {
+            cursors.forEach((libraryId, bookId) -> {
+                Long id = toLong(libraryId);
+                if (id != null) {
+                    checkpoint.lastBookIds.put(id, toLong(bookId));
+                }
+            });
+        }
+        return checkpoint;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> cursors = new LinkedHashMap<>();
+        lastBookIds.forEach((libraryId, bookId) -> cursors.put(String.valueOf(libraryId), bookId));
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(COMPLETED_LIBRARY_IDS, new ArrayList<>(completedLibraryIds));
+        map.put(LAST_BOOK_IDS, cursors);
+        return map;
+    }
+
+    public boolean isEmpty() {
+        return completedLibraryIds.isEmpty() && lastBookIds.isEmpty();
+    }
+
+    public boolean isCompleted(long libraryId) {
+        return completedLibraryIds.contains(libraryId);
+    }
+
+    public int getCompletedCount() {
+        return completedLibraryIds.size();
+    }
+
+    public void startLibrary(long libraryId) {
+        lastBookIds.putIfAbsent(libraryId, null);
+    }
+
+    public void completeLibrary(long libraryId) {
+        completedLibraryIds.add(libraryId);
+        lastBookIds.remove(libraryId);
+    }
+
+    public void setLastBookId(long libraryId, long bookId) {
+        lastBookIds.put(libraryId, bookId);
+    }
+
+    /**
+     * Last book handled in the given library, or {@code null} if the library has not been started.
+     */
+    public Long getLastBookId(long libraryId) {
+        return lastBookIds.get(libraryId);
+    }
+
+    /**
+     * @param inProgressFraction sum of the completed fractions of the libraries in progress
+     */
+    public int progressPercentage(int totalLibraries, double inProgressFraction) {
+        if (totalLibraries <= 0) {
+            return 0;
+        }
+        int completed = Math.min(completedLibraryIds.size(), totalLibraries);
+        double done = completed + Math.max(0, Math.min(totalLibraries - completed, inProgressFraction));
+        return (int) Math.min(99, done * 100 / totalLibraries);
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.adityachandel.booklore.task;
+
+import com.adityachandel.booklore.model.dto.Library;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
+import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.task.TaskHistoryService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the {@link LibraryScanCheckpoint} of a task that walks all libraries. Completed libraries
+ * are saved right away, progress inside a library at most every couple of seconds. Libraries may
+ * be scanned concurrently, so every method is synchronized.
+ */
+@Slf4j
+public class LibraryTaskProgress {
+
+    private static final long SAVE_INTERVAL_MS = 2000;
+
+    private final String taskId;
+    private final TaskType taskType;
+    private final int totalLibraries;
+    private final TaskHistoryService taskHistoryService;
+    private final NotificationService notificationService;
+    private final boolean sendNotifications;
+    private final LibraryScanCheckpoint checkpoint;
+    private final Map<Long, Integer> percentageByLibrary = new HashMap<>();
+    private long lastSavedAt = System.currentTimeMillis();
+
+    /**
+     * @param sendNotifications whether to also report progress over {@link Topic#TASK_PROGRESS}, for
+     *                          tasks that do not report progress of their own
+     */
+    public LibraryTaskProgress(String taskId, TaskType taskType, int totalLibraries, TaskHistoryService taskHistoryService,
+                               NotificationService notificationService, boolean sendNotifications) {
+        this.taskId = taskId;
+        this.taskType = taskType;
+        this.totalLibraries = totalLibraries;
+        this.taskHistoryService = taskHistoryService;
+        this.notificationService = notificationService;
+        this.sendNotifications = sendNotifications;
+        this.checkpoint = LibraryScanCheckpoint.fromMap(taskHistoryService.getCheckpoint(taskId));
+        if (!checkpoint.isEmpty()) {
+            log.info("{}: Resuming task {} with {} of {} libraries already done", taskType, taskId, checkpoint.getCompletedCount(), totalLibraries);
+            save(checkpoint.progressPercentage(totalLibraries, 0),
+                    String.format("Resuming from checkpoint: %d of %d libraries done", checkpoint.getCompletedCount(), totalLibraries));
+        }
+    }
+
+    public synchronized boolean isCompleted(Library library) {
+        return checkpoint.isCompleted(library.getId());
+    }
+
+    /**
+     * Last book handled in this library by an earlier run, or {@code null} to start from the beginning.
+     */
+    public synchronized Long getResumeAfterBookId(Library library) {
+        return checkpoint.getLastBookId(library.getId());
+    }
+
+    public synchronized void libraryProgress(Library library, Long lastBookId, int libraryPercentage) {
+        if (lastBookId != null) {
+            checkpoint.setLastBookId(library.getId(), lastBookId);
+        } else {
+            checkpoint.startLibrary(library.getId());
+        }
+        percentageByLibrary.put(library.getId(), libraryPercentage);
+        long now = System.currentTimeMillis();
+        if (now - lastSavedAt < SAVE_INTERVAL_MS) {
+            return;
+        }
+        lastSavedAt = now;
+        save(checkpoint.progressPercentage(totalLibraries, inProgressFraction()),
+                String.format("Library %s: %d%%", library.getName(), libraryPercentage));
+    }
+
+    public synchronized void libraryCompleted(Library library) {
+        checkpoint.completeLibrary(library.getId());
+        percentageByLibrary.remove(library.getId());
+        lastSavedAt = System.currentTimeMillis();
+        save(checkpoint.progressPercentage(totalLibraries, inProgressFraction()),
+                String.format("Finished library %s (%d of %d)", library.getName(), checkpoint.getCompletedCount(), totalLibraries));
+    }
+
+    /**
+     * Reports that a library is waiting for a slot in the {@link com.adityachandel.booklore.service.library.LibraryScanCoordinator}.
+     */
+    public synchronized void libraryQueued(Library library, int position, int queueLength) {
+        if (taskId == null) {
+            return;
+        }
+        notificationService.sendMessage(Topic.TASK_PROGRESS, TaskProgressPayload.builder()
+                .taskId(taskId)
+                .taskType(taskType)
+                .message(String.format("Library %s is waiting for a scan slot (%d of %d in queue)", library.getName(), position, queueLength))
+                .progress(checkpoint.progressPercentage(totalLibraries, inProgressFraction()))
+                .taskStatus(TaskStatus.IN_PROGRESS)
+                .queuePosition(position)
+                .build());
+    }
+
+    private double inProgressFraction() {
+        return percentageByLibrary.values().stream().mapToInt(Integer::intValue).sum() / 100.0;
+    }
+
+    private void save(int progressPercentage, String message) {
+        if (taskId == null) {
+            return;
+        }
+        try {
+            taskHistoryService.saveCheckpoint(taskId, checkpoint.toMap(), progressPercentage, message);
+        } catch (Exception e) {
+            log.warn("{}: Failed to save checkpoint for task {}: {}", taskType, taskId, e.getMessage());
+        }
+        if (sendNotifications) {
+            notificationService.sendMessage(Topic.TASK_PROGRESS, TaskProgressPayload.builder()
+                    .taskId(taskId)
+                    .taskType(taskType)
+                    .message(message)
+                    .progress(progressPercentage)
+                    .taskStatus(TaskStatus.IN_PROGRESS)
+                    .build());
+        }
+    }
+}
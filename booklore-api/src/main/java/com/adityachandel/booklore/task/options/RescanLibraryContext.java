@@ -3,9 +3,20 @@ package com.adityachandel.booklore.task.options;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.function.ObjIntConsumer;
+
 @Data
 @Builder
 public class RescanLibraryContext {
     private Long libraryId;
     private LibraryRescanOptions options;
+    /**
+     * Books up to and including this id were already handled by an earlier, interrupted run.
+     */
+    private Long resumeAfterBookId;
+    /**
+     * Called with the id of the last book handled, or {@code null} when the work is not per book,
+     * and the percentage of the library done so far.
+     */
+    private ObjIntConsumer<Long> progressListener;
 }
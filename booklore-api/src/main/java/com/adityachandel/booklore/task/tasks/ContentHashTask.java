@@ -0,0 +1,165 @@
+package com.adityachandel.booklore.task.tasks;
+
+import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
+import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
+import com.adityachandel.booklore.model.entity.BookAdditionalFileEntity;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.enums.AdditionalFileType;
+import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.file.FileContentHash;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.task.TaskCancellationManager;
+import com.adityachandel.booklore.task.TaskStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class ContentHashTask implements Task {
+
+    static final Duration RETRY_FAILED_AFTER = Duration.ofDays(7);
+
+    private final BookRepository bookRepository;
+    private final BookAdditionalFileRepository bookAdditionalFileRepository;
+    private final IoGovernor ioGovernor;
+    private final TaskCancellationManager cancellationManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public ContentHashTask(BookRepository bookRepository,
+                           BookAdditionalFileRepository bookAdditionalFileRepository,
+                           IoGovernor ioGovernor,
+                           TaskCancellationManager cancellationManager,
+                           PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookAdditionalFileRepository = bookAdditionalFileRepository;
+        this.ioGovernor = ioGovernor;
+        this.cancellationManager = cancellationManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public TaskCreateResponse execute(TaskCreateRequest request) {
+        String taskId = request.getTaskId();
+        TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
+                .taskId(taskId != null ? taskId : UUID.randomUUID().toString())
+                .taskType(getTaskType());
+
+        long startTime = System.currentTimeMillis();
+        log.info("{}: Task started", getTaskType());
+
+        Instant retryFailedBefore = Instant.now().minus(RETRY_FAILED_AFTER);
+
+        List<Long> bookIds = bookRepository.findIdsMissingContentHash(retryFailedBefore);
+        int hashed = hashAll(taskId, bookIds, bookRepository,
+                BookEntity::getFullFilePath, BookEntity::getCurrentHash, BookEntity::setContentHash, BookEntity::setContentHashFailedAt);
+
+        List<Long> additionalFileIds = bookAdditionalFileRepository.findIdsMissingContentHash(AdditionalFileType.ALTERNATIVE_FORMAT, retryFailedBefore);
+        hashed += hashAll(taskId, additionalFileIds, bookAdditionalFileRepository,
+                BookAdditionalFileEntity::getFullFilePath, BookAdditionalFileEntity::getCurrentHash,
+                BookAdditionalFileEntity::setContentHash, BookAdditionalFileEntity::setContentHashFailedAt);
+
+        builder.status(TaskStatus.COMPLETED);
+
+        long endTime = System.currentTimeMillis();
+        log.info("{}: Task completed. Hashed {} of {} files. Duration: {} ms",
+                getTaskType(), hashed, bookIds.size() + additionalFileIds.size(), endTime - startTime);
+
+        return builder.build();
+    }
+
+    /**
+     * Reads the path in one short transaction, hashes the file without holding a connection, and
+     * stores the result in a second one, unless the file was replaced in the meantime. Files that
+     * cannot be read are marked and left alone for {@link #RETRY_FAILED_AFTER}. Reads are paced by
+     * the {@link IoGovernor} budget of the file's library path and yield to readers on that path.
+     */
+    private <T> int hashAll(String taskId, List<Long> ids, JpaRepository<T, Long> repository,
+                            Function<T, Path> pathOf, Function<T, String> currentHashOf,
+                            BiConsumer<T, String> setContentHash, BiConsumer<T, Instant> setFailedAt) {
+        int hashed = 0;
+        for (Long id : ids) {
+            if (isCancelled(taskId)) {
+                break;
+            }
+            FileToHash file = transactionTemplate.execute(status -> repository.findById(id)
+                    .map(entity -> new FileToHash(resolvePath(entity, pathOf), currentHashOf.apply(entity)))
+                    .orElse(null));
+            if (file == null) {
+                continue;
+            }
+            String contentHash = hash(file.path());
+            transactionTemplate.executeWithoutResult(status -> repository.findById(id)
+                    .filter(entity -> Objects.equals(currentHashOf.apply(entity), file.currentHash()))
+                    .ifPresent(entity -> {
+                        if (contentHash != null) {
+                            setContentHash.accept(entity, contentHash);
+                        } else {
+                            setFailedAt.accept(entity, Instant.now());
+                        }
+                        repository.save(entity);
+                    }));
+            if (contentHash != null) {
+                hashed++;
+            }
+        }
+        return hashed;
+    }
+
+    private <T> Path resolvePath(T entity, Function<T, Path> pathOf) {
+        try {
+            return pathOf.apply(entity);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private String hash(Path path) {
+        if (path == null || !Files.isRegularFile(path)) {
+            log.debug("{}: Skipping missing file '{}'", getTaskType(), path);
+            return null;
+        }
+        try (IoGovernor.Permit permit = ioGovernor.acquire(path, IoGovernor.Priority.BACKGROUND)) {
+            return FileContentHash.generateHash(path, permit);
+        } catch (RuntimeException e) {
+            log.warn("{}: Failed to hash '{}': {}", getTaskType(), path, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCancelled(String taskId) {
+        if (taskId != null && cancellationManager.isTaskCancelled(taskId)) {
+            log.info("{}: Task {} was cancelled, stopping execution", getTaskType(), taskId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.COMPUTE_CONTENT_HASHES;
+    }
+
+    private record FileToHash(Path path, String currentHash) {
+    }
+
+    @Override
+    public String getMetadata() {
+        long pending = bookRepository.countMissingContentHash();
+        return "Book" + (pending != 1 ? "s" : "") + " pending content hash: " + pending;
+    }
+}
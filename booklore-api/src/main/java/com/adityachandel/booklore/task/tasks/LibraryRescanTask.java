@@ -4,8 +4,12 @@ import com.adityachandel.booklore.model.dto.Library;
 import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
 import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
 import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.library.LibraryRescanHelper;
+import com.adityachandel.booklore.service.library.LibraryScanCoordinator;
 import com.adityachandel.booklore.service.library.LibraryService;
+import com.adityachandel.booklore.service.task.TaskHistoryService;
+import com.adityachandel.booklore.task.LibraryTaskProgress;
 import com.adityachandel.booklore.task.options.RescanLibraryContext;
 import com.adityachandel.booklore.task.TaskCancellationManager;
 import com.adityachandel.booklore.task.options.LibraryRescanOptions;
@@ -14,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.List;
 
 @AllArgsConstructor
@@ -24,7 +29,9 @@ public class LibraryRescanTask implements Task {
     private final LibraryService libraryService;
     private final LibraryRescanHelper libraryRescanHelper;
     private final TaskCancellationManager cancellationManager;
-
+    private final TaskHistoryService taskHistoryService;
+    private final NotificationService notificationService;
+    private final LibraryScanCoordinator scanCoordinator;
 
     @Override
     public TaskCreateResponse execute(TaskCreateRequest request) {
@@ -35,6 +42,8 @@ public class LibraryRescanTask implements Task {
         log.info("{}: Task started. TaskId: {}, Options: {}", getTaskType(), taskId, options);
 
         List<Library> libraries = libraryService.getAllLibraries();
+        // The helper reports per-book progress itself, so only the checkpoint is kept here
+        LibraryTaskProgress progress = new LibraryTaskProgress(taskId, getTaskType(), libraries.size(), taskHistoryService, notificationService, false);
 
         for (Library library : libraries) {
             if (cancellationManager.isTaskCancelled(taskId)) {
@@ -43,15 +52,29 @@ public class LibraryRescanTask implements Task {
             }
 
             Long libraryId = library.getId();
+            if (progress.isCompleted(library)) {
+                log.info("{}: Library {} was already rescanned before the restart, skipping", getTaskType(), libraryId);
+                continue;
+            }
             RescanLibraryContext context = RescanLibraryContext.builder()
                     .libraryId(libraryId)
                     .options(options)
+                    .resumeAfterBookId(progress.getResumeAfterBookId(library))
+                    .progressListener((bookId, percentage) -> progress.libraryProgress(library, bookId, percentage))
                     .build();
             try {
-                libraryRescanHelper.handleRescanOptions(context, taskId);
+                scanCoordinator.run(libraryId, (position, queueLength) -> progress.libraryQueued(library, position, queueLength),
+                        () -> libraryRescanHelper.handleRescanOptions(context, taskId));
             } catch (InvalidDataAccessApiUsageException e) {
                 log.debug("InvalidDataAccessApiUsageException - Library id: {}", libraryId);
+            } catch (IOException e) {
+                log.error("{}: Failed to rescan library {}: {}", getTaskType(), libraryId, e.getMessage());
+                continue;
+            }
+            if (cancellationManager.isTaskCancelled(taskId)) {
+                continue;
             }
+            progress.libraryCompleted(library);
             log.info("{}: Library rescan completed for library: {}", getTaskType(), libraryId);
         }
 
@@ -65,4 +88,9 @@ public class LibraryRescanTask implements Task {
     public TaskType getTaskType() {
         return TaskType.REFRESH_LIBRARY_METADATA;
     }
+
+    @Override
+    public boolean isResumable() {
+        return true;
+    }
 }
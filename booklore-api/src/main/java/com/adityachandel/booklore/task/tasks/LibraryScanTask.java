@@ -4,13 +4,24 @@ import com.adityachandel.booklore.model.dto.Library;
 import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
 import com.adityachandel.booklore.model.dto.response.TaskCreateResponse;
 import com.adityachandel.booklore.model.enums.TaskType;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.library.LibraryProcessingService;
+import com.adityachandel.booklore.service.library.LibraryScanCoordinator;
 import com.adityachandel.booklore.service.library.LibraryService;
+import com.adityachandel.booklore.service.task.TaskHistoryService;
+import com.adityachandel.booklore.task.LibraryTaskProgress;
+import com.adityachandel.booklore.task.TaskCancellationManager;
 import com.adityachandel.booklore.task.TaskStatus;
+import com.adityachandel.booklore.task.options.RescanLibraryContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Component
 @RequiredArgsConstructor
@@ -18,23 +29,34 @@ import java.util.UUID;
 public class LibraryScanTask implements Task {
 
     private final LibraryService libraryService;
+    private final LibraryProcessingService libraryProcessingService;
+    private final TaskHistoryService taskHistoryService;
+    private final NotificationService notificationService;
+    private final TaskCancellationManager cancellationManager;
+    private final LibraryScanCoordinator scanCoordinator;
 
     @Override
     public TaskCreateResponse execute(TaskCreateRequest request) {
+        String taskId = request.getTaskId();
         TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
-                .taskId(UUID.randomUUID().toString())
+                .taskId(taskId != null ? taskId : UUID.randomUUID().toString())
                 .taskType(getTaskType());
 
         long startTime = System.currentTimeMillis();
         log.info("{}: Task started", getTaskType());
 
         try {
-            for (Library library : libraryService.getAllLibraries()) {
-                try {
-                    libraryService.rescanLibrary(library.getId());
-                    log.info("{}: Rescanned library '{}'", getTaskType(), library.getName());
-                } catch (Exception e) {
-                    log.error("{}: Failed to rescan library '{}': {}", getTaskType(), library.getName(), e.getMessage(), e);
+            List<Library> libraries = libraryService.getAllLibraries();
+            LibraryTaskProgress progress = new LibraryTaskProgress(taskId, getTaskType(), libraries.size(), taskHistoryService, notificationService, true);
+
+            // Every library asks the scan coordinator for a slot, which decides how many run at once
+            try (ExecutorService executor = new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor())) {
+                for (Library library : libraries) {
+                    if (progress.isCompleted(library)) {
+                        log.info("{}: Library '{}' was already rescanned before the restart, skipping", getTaskType(), library.getName());
+                        continue;
+                    }
+                    executor.submit(() -> scanLibrary(library, taskId, progress));
                 }
             }
 
@@ -50,8 +72,35 @@ public class LibraryScanTask implements Task {
         return builder.build();
     }
 
+    private void scanLibrary(Library library, String taskId, LibraryTaskProgress progress) {
+        try {
+            scanCoordinator.run(library.getId(), (position, queueLength) -> progress.libraryQueued(library, position, queueLength), () -> {
+                if (taskId != null && cancellationManager.isTaskCancelled(taskId)) {
+                    log.info("{}: Task {} was cancelled, skipping library '{}'", getTaskType(), taskId, library.getName());
+                    return;
+                }
+                // Files processed before an interruption are already in the file state index,
+                // so a resumed rescan only picks up the ones it had not reached
+                RescanLibraryContext context = RescanLibraryContext.builder()
+                        .libraryId(library.getId())
+                        .progressListener((bookId, percentage) -> progress.libraryProgress(library, bookId, percentage))
+                        .build();
+                libraryProcessingService.rescanLibrary(context);
+                progress.libraryCompleted(library);
+                log.info("{}: Rescanned library '{}'", getTaskType(), library.getName());
+            });
+        } catch (Exception e) {
+            log.error("{}: Failed to rescan library '{}': {}", getTaskType(), library.getName(), e.getMessage(), e);
+        }
+    }
+
     @Override
     public TaskType getTaskType() {
         return TaskType.SYNC_LIBRARY_FILES;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isResumable() {
+        return true;
+    }
+}
@@ -13,4 +13,12 @@ public interface Task {
     default String getMetadata() {
         return null;
     }
+
+    /**
+     * Whether an interrupted run can be started again under the same task id after a restart,
+     * picking up from the checkpoint it saved through {@code TaskHistoryService}.
+     */
+    default boolean isResumable() {
+        return false;
+    }
 }
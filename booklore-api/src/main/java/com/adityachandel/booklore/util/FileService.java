@@ -9,6 +9,7 @@ import com.adityachandel.booklore.model.entity.BookEntity;
 import com.adityachandel.booklore.model.entity.BookMetadataEntity;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.file.FileContentHash;
 import com.adityachandel.booklore.mapper.BookMapper;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +27,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -54,6 +56,8 @@ public class FileService {
     private static final long   MAX_FILE_SIZE_BYTES = 5L * 1024 * 1024;
     private static final int    THUMBNAIL_WIDTH     = 250;
     private static final int    THUMBNAIL_HEIGHT    = 350;
+    public  static final int    MAX_COVER_WIDTH     = 1600;
+    public  static final int    MAX_COVER_HEIGHT    = 2400;
     private static final String IMAGE_FORMAT        = "JPEG";
     // @formatter:on
 
@@ -133,12 +137,14 @@ public class FileService {
     // ========================================
 
     public BufferedImage resizeImage(BufferedImage originalImage, int width, int height) {
-        Image tmp = originalImage.getScaledInstance(width, height, Image.SCALE_SMOOTH);
-        BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = resizedImage.createGraphics();
-        g2d.drawImage(tmp, 0, 0, null);
-        g2d.dispose();
-        return resizedImage;
+        return ImageUtils.scale(originalImage, width, height);
+    }
+
+    /**
+     * Decodes a cover image only as large as the stored cover can be.
+     */
+    public BufferedImage readCoverImage(InputStream in) throws IOException {
+        return ImageUtils.read(in, MAX_COVER_WIDTH, MAX_COVER_HEIGHT);
     }
 
     public void saveImage(byte[] imageData, String filePath) throws IOException {
@@ -153,9 +159,16 @@ public class FileService {
     }
 
     public BufferedImage downloadImageFromUrl(String imageUrl) throws IOException {
+        return downloadImageFromUrl(imageUrl, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public BufferedImage downloadImageFromUrl(String imageUrl, int maxWidth, int maxHeight) throws IOException {
         try {
             URL url = new URL(imageUrl);
-            BufferedImage image = ImageIO.read(url);
+            BufferedImage image;
+            try (InputStream in = url.openStream()) {
+                image = ImageUtils.read(in, maxWidth, maxHeight);
+            }
             if (image == null) {
                 throw new IOException("Unable to read image from URL: " + imageUrl);
             }
@@ -173,7 +186,10 @@ public class FileService {
     public void createThumbnailFromFile(long bookId, MultipartFile file) {
         try {
             validateCoverFile(file);
-            BufferedImage originalImage = ImageIO.read(file.getInputStream());
+            BufferedImage originalImage;
+            try (InputStream in = file.getInputStream()) {
+                originalImage = readCoverImage(in);
+            }
             if (originalImage == null) {
                 throw ApiError.IMAGE_NOT_FOUND.createException();
             }
@@ -190,7 +206,7 @@ public class FileService {
 
     public void createThumbnailFromUrl(long bookId, String imageUrl) {
         try {
-            BufferedImage originalImage = downloadImageFromUrl(imageUrl);
+            BufferedImage originalImage = downloadImageFromUrl(imageUrl, MAX_COVER_WIDTH, MAX_COVER_HEIGHT);
             boolean success = saveCoverImages(originalImage, bookId);
             if (!success) {
                 throw ApiError.FILE_READ_ERROR.createException("Failed to save cover images");
@@ -208,14 +224,14 @@ public class FileService {
         if (!folder.exists() && !folder.mkdirs()) {
             throw new IOException("Failed to create directory: " + folder.getAbsolutePath());
         }
-        BufferedImage rgbImage = new BufferedImage(
-                coverImage.getWidth(),
-                coverImage.getHeight(),
-                BufferedImage.TYPE_INT_RGB
-        );
-        Graphics2D g = rgbImage.createGraphics();
-        g.drawImage(coverImage, 0, 0, Color.WHITE, null);
-        g.dispose();
+        BufferedImage fitted = ImageUtils.fitWithin(coverImage, MAX_COVER_WIDTH, MAX_COVER_HEIGHT);
+        BufferedImage rgbImage = fitted;
+        if (fitted.getType() != BufferedImage.TYPE_INT_RGB) {
+            rgbImage = new BufferedImage(fitted.getWidth(), fitted.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgbImage.createGraphics();
+            g.drawImage(fitted, 0, 0, Color.WHITE, null);
+            g.dispose();
+        }
 
         File originalFile = new File(folder, COVER_FILENAME);
         boolean originalSaved = ImageIO.write(rgbImage, IMAGE_FORMAT, originalFile);
@@ -348,8 +364,12 @@ public class FileService {
             return Optional.empty();
         }
 
+        ContentHashMatcher matcher = new ContentHashMatcher(libraryFile);
+
         // First check for soft-deleted books with the same hash
-        Optional<BookEntity> softDeletedBook = bookRepository.findByCurrentHashAndDeletedTrue(hash);
+        Optional<BookEntity> softDeletedBook = bookRepository.findAllByCurrentHashAndDeletedTrue(hash).stream()
+                .filter(book -> matcher.matches(book.getContentHash()))
+                .findFirst();
         if (softDeletedBook.isPresent()) {
             BookEntity book = softDeletedBook.get();
             log.info("Found soft-deleted book with same hash, undeleting: bookId={} file='{}'",
@@ -368,7 +388,9 @@ public class FileService {
             return Optional.of(bookMapper.toBook(book));
         }
 
-        Optional<BookEntity> existingByHash = bookRepository.findByCurrentHash(hash);
+        Optional<BookEntity> existingByHash = bookRepository.findAllByCurrentHash(hash).stream()
+                .filter(book -> matcher.matches(book.getContentHash()))
+                .findFirst();
         if (existingByHash.isPresent()) {
             BookEntity book = existingByHash.get();
             String fileName = libraryFile.getFullPath().getFileName().toString();
@@ -381,7 +403,8 @@ public class FileService {
             }
             return Optional.of(bookMapper.toBook(book));
         }
-        Optional<BookAdditionalFileEntity> existingAdditionalFile = bookAdditionalFileRepository.findByAltFormatCurrentHash(hash);
+        Optional<BookAdditionalFileEntity> existingAdditionalFile = bookAdditionalFileRepository.findByAltFormatCurrentHash(hash)
+                .filter(additionalFile -> matcher.matches(additionalFile.getContentHash()));
         if (existingAdditionalFile.isPresent()) {
             BookAdditionalFileEntity additionalFile = existingAdditionalFile.get();
             BookEntity book = additionalFile.getBook();
@@ -394,6 +417,36 @@ public class FileService {
         return Optional.empty();
     }
 
+    /**
+     * Confirms sampled-hash matches against the stored full-content hash, for libraries that have
+     * content hashing enabled. The new file is only read in full once, and only if some candidate
+     * actually has a content hash to compare against.
+     */
+    private static class ContentHashMatcher {
+        private final LibraryFile libraryFile;
+        private final boolean enabled;
+        private String contentHash;
+
+        ContentHashMatcher(LibraryFile libraryFile) {
+            this.libraryFile = libraryFile;
+            this.enabled = libraryFile.getLibraryEntity() != null && libraryFile.getLibraryEntity().isContentHashEnabled();
+        }
+
+        boolean matches(String storedContentHash) {
+            if (!enabled || storedContentHash == null) {
+                return true;
+            }
+            if (contentHash == null) {
+                contentHash = FileContentHash.generateHash(libraryFile.getFullPath());
+            }
+            if (!contentHash.equals(storedContentHash)) {
+                log.info("Sampled hash collision for '{}', content differs from the existing file", libraryFile.getFileName());
+                return false;
+            }
+            return true;
+        }
+    }
+
     public static String truncate(String input, int maxLength) {
         return input == null ? null : (input.length() <= maxLength ? input : input.substring(0, maxLength));
     }
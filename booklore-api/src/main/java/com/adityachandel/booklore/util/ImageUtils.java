@@ -0,0 +1,110 @@
+package com.adityachandel.booklore.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decoding and scaling for cover images that only ever holds as many pixels as the result needs.
+ * <p>
+ * Images are decoded with source subsampling, so a 6000px comic page meant for a 1600px cover is
+ * decoded at a fraction of its size, then scaled down in bilinear steps of at most one half, which
+ * keeps the quality of an area-averaging scale at a fraction of its cost.
+ */
+public class ImageUtils {
+
+    private ImageUtils() {
+    }
+
+    /**
+     * Decodes the first image of {@code in}, skipping pixels that are not needed to scale it into a
+     * {@code maxWidth} x {@code maxHeight} box. The result keeps the aspect ratio and is never
+     * smaller than the size it will be scaled to, so the final bilinear steps still smooth it.
+     *
+     * @return the image, or {@code null} when the format is not supported, like {@link ImageIO#read}
+     */
+    public static BufferedImage read(InputStream in, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            return read(input, maxWidth, maxHeight);
+        }
+    }
+
+    public static BufferedImage read(Path file, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            return read(input, maxWidth, maxHeight);
+        }
+    }
+
+    private static BufferedImage read(ImageInputStream input, int maxWidth, int maxHeight) throws IOException {
+        Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+        if (readers == null || !readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling = subsamplingFor(reader.getWidth(0), reader.getHeight(0), maxWidth, maxHeight);
+            if (subsampling > 1) {
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    static int subsamplingFor(int width, int height, int maxWidth, int maxHeight) {
+        double scale = Math.min((double) maxWidth / width, (double) maxHeight / height);
+        return scale >= 1.0 ? 1 : Math.max(1, (int) Math.floor(1 / scale));
+    }
+
+    /**
+     * Scales {@code image} down to fit a {@code maxWidth} x {@code maxHeight} box, keeping its
+     * aspect ratio. Images that already fit are returned as they are.
+     */
+    public static BufferedImage fitWithin(BufferedImage image, int maxWidth, int maxHeight) {
+        double scale = Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight());
+        if (scale >= 1.0) {
+            return image;
+        }
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        return scale(image, width, height);
+    }
+
+    /**
+     * Scales {@code image} to exactly {@code width} x {@code height} as an RGB image, halving it
+     * with bilinear interpolation until it is less than twice the target size. Transparent pixels
+     * become white.
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        do {
+            int stepWidth = current.getWidth() / 2 >= width ? current.getWidth() / 2 : width;
+            int stepHeight = current.getHeight() / 2 >= height ? current.getHeight() / 2 : height;
+            current = draw(current, stepWidth, stepHeight);
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,21 @@
+CREATE TABLE IF NOT EXISTS library_file_state
+(
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    library_id      BIGINT        NOT NULL,
+    library_path_id BIGINT        NOT NULL,
+    file_sub_path   VARCHAR(512)  NOT NULL,
+    file_name       VARCHAR(1000) NOT NULL,
+    file_size       BIGINT        NOT NULL,
+    last_modified   BIGINT        NOT NULL,
+    file_key        VARCHAR(255),
+    fingerprint     VARCHAR(128),
+    updated_at      TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- The full path is longer than an index key may be, so uniqueness is enforced on its hash
+    path_hash       CHAR(32) AS (MD5(CONCAT(file_sub_path, '/', file_name))) STORED,
+
+    CONSTRAINT fk_library_file_state_library FOREIGN KEY (library_id) REFERENCES library (id) ON DELETE CASCADE,
+    CONSTRAINT fk_library_file_state_library_path FOREIGN KEY (library_path_id) REFERENCES library_path (id) ON DELETE CASCADE,
+    CONSTRAINT uq_library_file_state_path UNIQUE (library_path_id, path_hash)
+);
+
+CREATE INDEX idx_library_file_state_library_id ON library_file_state (library_id);
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS file_fingerprint_cache
+(
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    path_hash     CHAR(32)     NOT NULL,
+    file_path     TEXT         NOT NULL,
+    file_size     BIGINT       NOT NULL,
+    last_modified BIGINT       NOT NULL,
+    file_key      VARCHAR(255),
+    fingerprint   VARCHAR(128) NOT NULL,
+    updated_at    TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uq_file_fingerprint_cache_path_hash UNIQUE (path_hash)
+);
@@ -0,0 +1,13 @@
+ALTER TABLE library
+    ADD COLUMN IF NOT EXISTS content_hash_enabled BOOLEAN NOT NULL DEFAULT FALSE;
+
+ALTER TABLE book
+    ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64) NULL;
+
+ALTER TABLE book_additional_file
+    ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64) NULL;
+
+CREATE INDEX IF NOT EXISTS idx_book_content_hash ON book (content_hash);
+
+INSERT INTO task_cron_configuration (task_type, cron_expression, enabled, created_by)
+VALUES ('COMPUTE_CONTENT_HASHES', '0 0 3 * * *', TRUE, -1); -- Run COMPUTE_CONTENT_HASHES every day at 3:00 AM
@@ -0,0 +1,16 @@
+-- Book ids are allocated from a sequence in blocks of 50 so that Hibernate can batch book inserts.
+-- The sequence starts past both the highest existing id and the table's AUTO_INCREMENT counter,
+-- so ids of deleted books (and their cover folders) are never handed out again.
+SET @book_id_seq_start = (SELECT GREATEST(
+                                         COALESCE((SELECT MAX(id) FROM book), 0) + 1,
+                                         COALESCE((SELECT AUTO_INCREMENT
+                                                   FROM information_schema.TABLES
+                                                   WHERE TABLE_SCHEMA = DATABASE()
+                                                     AND TABLE_NAME = 'book'), 1)));
+
+SET @create_book_id_seq = CONCAT('CREATE SEQUENCE IF NOT EXISTS book_id_seq START WITH ', @book_id_seq_start,
+                                 ' INCREMENT BY 50 NOCACHE');
+
+PREPARE create_book_id_seq FROM @create_book_id_seq;
+EXECUTE create_book_id_seq;
+DEALLOCATE PREPARE create_book_id_seq;
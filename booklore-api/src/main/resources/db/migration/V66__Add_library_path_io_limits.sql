@@ -0,0 +1,3 @@
+ALTER TABLE library_path
+    ADD COLUMN IF NOT EXISTS io_bytes_per_second BIGINT NULL,
+    ADD COLUMN IF NOT EXISTS io_max_open_files INT NULL;
@@ -0,0 +1,4 @@
+ALTER TABLE book
+    ADD COLUMN IF NOT EXISTS enrichment_pending BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_book_enrichment_pending ON book (enrichment_pending);
@@ -0,0 +1,5 @@
+ALTER TABLE book
+    ADD COLUMN IF NOT EXISTS content_hash_failed_at TIMESTAMP NULL;
+
+ALTER TABLE book_additional_file
+    ADD COLUMN IF NOT EXISTS content_hash_failed_at TIMESTAMP NULL;
@@ -6,6 +6,7 @@ import com.adityachandel.booklore.repository.*;
 import com.adityachandel.booklore.service.book.BookDownloadService;
 import com.adityachandel.booklore.service.book.BookQueryService;
 import com.adityachandel.booklore.service.book.BookService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.user.UserProgressService;
 import com.adityachandel.booklore.service.monitoring.MonitoringRegistrationService;
 import com.adityachandel.booklore.util.FileService;
@@ -50,6 +51,7 @@ class BookServiceDeleteTests {
         UserProgressService userProgressService = Mockito.mock(UserProgressService.class);
         BookDownloadService bookDownloadService = Mockito.mock(BookDownloadService.class);
         MonitoringRegistrationService monitoringRegistrationService = Mockito.mock(MonitoringRegistrationService.class);
+        FileFingerprintCache fileFingerprintCache = Mockito.mock(FileFingerprintCache.class);
 
         bookService = new BookService(
                 bookRepository,
@@ -66,7 +68,8 @@ class BookServiceDeleteTests {
                 bookQueryService,
                 userProgressService,
                 bookDownloadService,
-                monitoringRegistrationService
+                monitoringRegistrationService,
+                fileFingerprintCache
         );
     }
 
@@ -0,0 +1,223 @@
+package com.adityachandel.booklore.benchmark;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.model.enums.LibraryScanMode;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.AuthorCategoryCache;
+import com.adityachandel.booklore.service.book.BookCreatorService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.service.fileprocessor.BookEnrichmentService;
+import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
+import com.adityachandel.booklore.service.fileprocessor.EpubProcessor;
+import com.adityachandel.booklore.service.library.FileAsBookProcessor;
+import com.adityachandel.booklore.service.library.LibraryIngestPipeline;
+import com.adityachandel.booklore.service.library.LibraryScanCoordinator;
+import com.adityachandel.booklore.service.metadata.MetadataMatchService;
+import com.adityachandel.booklore.service.metadata.extractor.EpubMetadataExtractor;
+import com.adityachandel.booklore.util.FileService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the library scan ingest on a real MariaDB server: {@link FileAsBookProcessor} hands the
+ * files to {@link LibraryIngestPipeline}, which writes them through {@link EpubProcessor} as shell
+ * books, the way a scan with deferred enrichment does. Parsing and cover extraction are left out,
+ * so what is timed is the duplicate probe, the inserts and the commits. The baseline is one file
+ * per transaction, which is how ingest committed before files were written in batches.
+ * <p>
+ * Only runs when {@code BOOKLORE_BENCHMARK_DATABASE_URL} is set, for example
+ * {@code jdbc:mariadb://localhost:3306/booklore_bench}, with optional
+ * {@code BOOKLORE_BENCHMARK_DATABASE_USERNAME} and {@code BOOKLORE_BENCHMARK_DATABASE_PASSWORD}.
+ * Flyway migrates that schema, so point it at a dedicated, disposable one. The benchmark library
+ * and its books are deleted afterwards.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FileAsBookProcessor.class, LibraryIngestPipeline.class, EpubProcessor.class, BookCreatorService.class, AuthorCategoryCache.class})
+@EnabledIfEnvironmentVariable(named = "BOOKLORE_BENCHMARK_DATABASE_URL", matches = ".+")
+class BookInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookInsertBenchmarkTest.class);
+
+    private static final int BOOKS = 5_000;
+    private static final int WARMUP_BOOKS = 500;
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("BOOKLORE_BENCHMARK_DATABASE_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv("BOOKLORE_BENCHMARK_DATABASE_USERNAME"));
+        registry.add("spring.datasource.password", () -> System.getenv("BOOKLORE_BENCHMARK_DATABASE_PASSWORD"));
+    }
+
+    @TempDir
+    static Path libraryRoot;
+
+    @Autowired
+    private FileAsBookProcessor fileAsBookProcessor;
+    @Autowired
+    private EpubProcessor epubProcessor;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private LibraryRepository libraryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private AppSettingService appSettingService;
+    @MockitoBean
+    private FileFingerprintCache fileFingerprintCache;
+    @MockitoBean
+    private IoGovernor ioGovernor;
+    @MockitoBean
+    private LibraryScanCoordinator scanCoordinator;
+    @MockitoBean
+    private BookFileProcessorRegistry processorRegistry;
+    @MockitoBean
+    private BookEnrichmentService bookEnrichmentService;
+    @MockitoBean
+    private BookEventBroadcaster bookEventBroadcaster;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private BookMapper bookMapper;
+    @MockitoBean
+    private FileService fileService;
+    @MockitoBean
+    private MetadataMatchService metadataMatchService;
+    @MockitoBean
+    private EpubMetadataExtractor epubMetadataExtractor;
+
+    private TransactionTemplate transactionTemplate;
+    private LibraryEntity library;
+    private LibraryPathEntity libraryPath;
+    private int nextBook;
+
+    @BeforeEach
+    void setUp() {
+        when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(epubProcessor);
+        when(bookEnrichmentService.isEnabled()).thenReturn(true);
+        when(ioGovernor.acquire(any(LibraryPathEntity.class), any())).thenReturn(IoGovernor.Permit.NONE);
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            library = LibraryEntity.builder()
+                    .name("Ingest benchmark " + Instant.now())
+                    .icon("book")
+                    .scanMode(LibraryScanMode.FILE_AS_BOOK)
+                    .build();
+            libraryPath = LibraryPathEntity.builder().library(library).path(libraryRoot.toString()).build();
+            library.setLibraryPaths(List.of(libraryPath));
+            library = libraryRepository.save(library);
+            libraryPath = library.getLibraryPaths().getFirst();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (library != null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                bookRepository.deleteAllByIdInBatch(bookRepository.findBookIdsByLibraryId(library.getId()));
+                libraryRepository.deleteById(library.getId());
+            });
+        }
+    }
+
+    @Test
+    void compareOneFilePerTransactionWithBatchedIngest() throws IOException {
+        // Warm up Hibernate, the driver and the server before measuring
+        ingest(WARMUP_BOOKS, 1);
+        ingest(WARMUP_BOOKS, 32);
+
+        long baseline = ingest(BOOKS, 1);
+        report("1 file per transaction (baseline)", baseline, baseline);
+        report("8 files per transaction", ingest(BOOKS, 8), baseline);
+        report("32 files per transaction (default)", ingest(BOOKS, 32), baseline);
+
+        assertThat(bookRepository.findBookIdsByLibraryId(library.getId())).hasSize(2 * WARMUP_BOOKS + 3 * BOOKS);
+    }
+
+    private long ingest(int books, int batchSize) throws IOException {
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .hashingConcurrency(4)
+                        .processingConcurrency(2)
+                        .pipelineWindowSize(64)
+                        .ingestBatchSize(batchSize)
+                        .deferredEnrichment(true)
+                        .build())
+                .build());
+        List<LibraryFile> files = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            files.add(newFile());
+        }
+        long start = System.nanoTime();
+        fileAsBookProcessor.processLibraryFiles(files, library);
+        return System.nanoTime() - start;
+    }
+
+    private LibraryFile newFile() throws IOException {
+        int i = nextBook++;
+        String subPath = "shelf/" + (i % 100);
+        Path folder = Files.createDirectories(libraryRoot.resolve(subPath));
+        String fileName = "book-" + i + ".epub";
+        Files.write(folder.resolve(fileName), new byte[2048]);
+        return LibraryFile.builder()
+                .libraryEntity(library)
+                .libraryPathEntity(libraryPath)
+                .fileSubPath(subPath)
+                .fileName(fileName)
+                .bookFileType(BookFileType.EPUB)
+                // Fingerprinting is not what is measured here
+                .hash(Long.toHexString(i * 0x9E3779B97F4A7C15L))
+                .build();
+    }
+
+    private static void report(String mode, long nanos, long baselineNanos) {
+        double seconds = nanos / 1_000_000_000d;
+        log.info("{}: {} books/s, {} s, {}x baseline",
+                mode,
+                String.format("%.0f", BOOKS / seconds),
+                String.format("%.2f", seconds),
+                String.format("%.2f", (double) baselineNanos / nanos));
+    }
+}
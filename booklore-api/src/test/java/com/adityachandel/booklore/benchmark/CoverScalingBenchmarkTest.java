@@ -0,0 +1,115 @@
+package com.adityachandel.booklore.benchmark;
+
+import com.adityachandel.booklore.util.ImageUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the two ways a cover and its 250x350 thumbnail can be made from a large comic page: a
+ * full decode scaled with {@link Image#getScaledInstance} and {@link Image#SCALE_SMOOTH}, against
+ * a subsampled decode bounded by the stored cover size, scaled down in bilinear steps.
+ * <p>
+ * Only runs when {@code BOOKLORE_BENCHMARK_IMAGES} is set to {@code true}. Peak heap is read from
+ * the heap memory pools after a GC, so run it with a fixed heap such as {@code -Xmx2g} to compare
+ * numbers between runs.
+ */
+@EnabledIfEnvironmentVariable(named = "BOOKLORE_BENCHMARK_IMAGES", matches = "true")
+class CoverScalingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CoverScalingBenchmarkTest.class);
+
+    private static final int PAGE_WIDTH = 6000;
+    private static final int PAGE_HEIGHT = 9000;
+    private static final int COVERS = 5;
+
+    @Test
+    void compareFullDecodeSmoothScaleWithSubsampledSteppedScale() throws IOException {
+        byte[] page = createPage();
+
+        // Warm up the decoder and the JIT before measuring
+        smoothScale(page);
+        subsampledScale(page);
+
+        report("full decode, SCALE_SMOOTH", measure(() -> smoothScale(page)));
+        report("subsampled decode, bilinear steps", measure(() -> subsampledScale(page)));
+    }
+
+    private static BufferedImage smoothScale(byte[] page) throws IOException {
+        BufferedImage cover = ImageIO.read(new ByteArrayInputStream(page));
+        Image tmp = cover.getScaledInstance(250, 350, Image.SCALE_SMOOTH);
+        BufferedImage thumbnail = new BufferedImage(250, 350, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumbnail.createGraphics();
+        g.drawImage(tmp, 0, 0, null);
+        g.dispose();
+        return thumbnail;
+    }
+
+    private static BufferedImage subsampledScale(byte[] page) throws IOException {
+        BufferedImage decoded = ImageUtils.read(new ByteArrayInputStream(page), 1600, 2400);
+        BufferedImage cover = ImageUtils.fitWithin(decoded, 1600, 2400);
+        return ImageUtils.scale(cover, 250, 350);
+    }
+
+    private static Result measure(ImageTask task) throws IOException {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        for (int i = 0; i < COVERS; i++) {
+            BufferedImage thumbnail = task.run();
+            assertThat(thumbnail.getWidth()).isEqualTo(250);
+            assertThat(thumbnail.getHeight()).isEqualTo(350);
+        }
+        long nanos = System.nanoTime() - start;
+        long peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        return new Result(nanos, peakHeap);
+    }
+
+    private static void report(String mode, Result result) {
+        double seconds = result.nanos() / 1_000_000_000.0;
+        log.info("{}: {} covers/s, {} ms/cover, peak heap {} MB",
+                mode,
+                String.format("%.2f", COVERS / seconds),
+                String.format("%.0f", seconds * 1000 / COVERS),
+                result.peakHeapBytes() / (1024 * 1024));
+    }
+
+    private static byte[] createPage() throws IOException {
+        BufferedImage page = new BufferedImage(PAGE_WIDTH, PAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = page.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, PAGE_WIDTH, PAGE_HEIGHT, Color.DARK_GRAY));
+        g.fillRect(0, 0, PAGE_WIDTH, PAGE_HEIGHT);
+        g.setColor(Color.BLACK);
+        for (int x = 0; x < PAGE_WIDTH; x += 40) {
+            g.drawLine(x, 0, PAGE_WIDTH - x, PAGE_HEIGHT);
+        }
+        g.dispose();
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(page, "JPEG", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface ImageTask {
+        BufferedImage run() throws IOException;
+    }
+
+    private record Result(long nanos, long peakHeapBytes) {
+    }
+}
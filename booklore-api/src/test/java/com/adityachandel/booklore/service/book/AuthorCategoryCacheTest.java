@@ -0,0 +1,145 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.model.entity.AuthorEntity;
+import com.adityachandel.booklore.repository.AuthorRepository;
+import com.adityachandel.booklore.repository.CategoryRepository;
+import com.adityachandel.booklore.repository.NameIdProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthorCategoryCacheTest {
+
+    @Mock
+    AuthorRepository authorRepository;
+    @Mock
+    CategoryRepository categoryRepository;
+    @Mock
+    JdbcTemplate jdbcTemplate;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    AuthorCategoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cache = new AuthorCategoryCache(authorRepository, categoryRepository, jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void resolveAuthors_shouldUseWarmedIdsWithoutNameLookups() {
+        AuthorEntity tolkien = author(1L, "J.R.R. Tolkien");
+        when(authorRepository.findAllNameIds()).thenReturn(List.of(entry(1L, "J.R.R. Tolkien")));
+        when(authorRepository.findAllForShareByIdIn(any())).thenReturn(List.of(tolkien));
+
+        Set<AuthorEntity> first = cache.resolveAuthors(Set.of("J.R.R. Tolkien"));
+        Set<AuthorEntity> second = cache.resolveAuthors(Set.of("j.r.r. tolkien"));
+
+        assertThat(first).containsExactly(tolkien);
+        assertThat(second).containsExactly(tolkien);
+        verify(authorRepository, times(1)).findAllNameIds();
+        verify(authorRepository, never()).findByName(any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void resolveAuthors_shouldInsertMissingNamesInOneBatch() {
+        AuthorEntity austen = author(2L, "Jane Austen");
+        AuthorEntity bronte = author(3L, "Charlotte Brontë");
+        when(authorRepository.findAllNameIds()).thenReturn(List.of());
+        when(authorRepository.findNameIdsByNameIn(anyCollection()))
+                .thenReturn(List.of(entry(2L, "Jane Austen"), entry(3L, "Charlotte Brontë")));
+        when(authorRepository.findAllForShareByIdIn(any())).thenReturn(List.of(austen, bronte));
+
+        Set<AuthorEntity> resolved = cache.resolveAuthors(Set.of("Jane Austen", "Charlotte Brontë", " "));
+
+        assertThat(resolved).containsExactlyInAnyOrder(austen, bronte);
+        verify(jdbcTemplate).batchUpdate(eq("INSERT IGNORE INTO author (name) VALUES (?)"),
+                eq(List.of("Charlotte Brontë", "Jane Austen")), eq(2), any());
+        verify(authorRepository, never()).findByName(any());
+    }
+
+    @Test
+    void resolveAuthors_shouldDropStaleIdAndFallBackToNameLookup() {
+        AuthorEntity renamed = author(1L, "Someone Else");
+        AuthorEntity current = author(9L, "Terry Pratchett");
+        when(authorRepository.findAllNameIds()).thenReturn(List.of(entry(1L, "Terry Pratchett")));
+        when(authorRepository.findAllForShareByIdIn(Set.of(1L))).thenReturn(List.of(renamed));
+        when(authorRepository.findByName("Terry Pratchett")).thenReturn(Optional.of(current));
+        when(authorRepository.findAllForShareByIdIn(List.of(9L))).thenReturn(List.of(current));
+
+        Set<AuthorEntity> resolved = cache.resolveAuthors(Set.of("Terry Pratchett"));
+
+        assertThat(resolved).containsExactly(current);
+        verify(authorRepository).findByName("Terry Pratchett");
+    }
+
+    @Test
+    void resolveAuthors_shouldSeeNameCommittedByAnotherWorkerAfterTheCallersSnapshot() {
+        AuthorEntity austen = author(5L, "Jane Austen");
+        AtomicBoolean inLookup = new AtomicBoolean();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            inLookup.set(true);
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(invocation -> {
+            inLookup.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+        when(authorRepository.findAllNameIds()).thenReturn(List.of());
+        // Another worker committed the name after this transaction's snapshot, so the insert is
+        // ignored and only a read outside that snapshot finds the row
+        when(authorRepository.findNameIdsByNameIn(anyCollection()))
+                .thenAnswer(invocation -> inLookup.get() ? List.of(entry(5L, "Jane Austen")) : List.of());
+        when(authorRepository.findAllForShareByIdIn(Set.of(5L))).thenReturn(List.of(austen));
+
+        Set<AuthorEntity> resolved = cache.resolveAuthors(Set.of("Jane Austen"));
+
+        assertThat(resolved).containsExactly(austen);
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getPropagationBehavior()).isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThat(definition.getValue().getIsolationLevel()).isEqualTo(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        verify(authorRepository, never()).findByName(any());
+        verify(authorRepository, never()).findAllById(any());
+
+        // The id was committed before it was cached, so later books reuse it without a lookup
+        clearInvocations(jdbcTemplate, authorRepository, transactionManager);
+        assertThat(cache.resolveAuthors(Set.of("Jane Austen"))).containsExactly(austen);
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    private static AuthorEntity author(Long id, String name) {
+        return AuthorEntity.builder().id(id).name(name).build();
+    }
+
+    private static NameIdProjection entry(Long id, String name) {
+        return new NameIdProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
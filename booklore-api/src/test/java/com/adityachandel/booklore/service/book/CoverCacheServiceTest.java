@@ -0,0 +1,46 @@
+package com.adityachandel.booklore.service.book;
+
+import com.adityachandel.booklore.repository.BookMetadataRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverCacheServiceTest {
+
+    private final BookMetadataRepository bookMetadataRepository = mock(BookMetadataRepository.class);
+    private final CoverCacheService service = new CoverCacheService(bookMetadataRepository);
+
+    @Test
+    void ok_shouldServeCurrentVersionImmutableAndOthersRevalidatedWithETag() {
+        Instant updatedOn = Instant.parse("2025-03-01T10:15:30Z");
+        when(bookMetadataRepository.findCoverUpdatedOnByBookId(7L)).thenReturn(Optional.of(updatedOn));
+
+        HttpHeaders current = service.ok(7L, "2025-03-01T10:15:30.123456Z", "w256").build().getHeaders();
+        assertThat(current.getCacheControl()).isEqualTo(CoverCacheService.VERSIONED.getHeaderValue()).contains("immutable");
+        assertThat(current.getETag()).isEqualTo("\"7-" + updatedOn.getEpochSecond() + "-w256\"");
+        assertThat(current.getLastModified()).isEqualTo(updatedOn.toEpochMilli());
+
+        HttpHeaders stale = service.ok(7L, "2025-02-01T00:00:00Z", "w256").build().getHeaders();
+        assertThat(stale.getCacheControl()).isEqualTo(CoverCacheService.UNVERSIONED.getHeaderValue());
+        assertThat(stale.getETag()).isEqualTo(current.getETag());
+        assertThat(service.ok(7L, "not-a-time", "cover").build().getHeaders().getCacheControl())
+                .isEqualTo(CoverCacheService.UNVERSIONED.getHeaderValue());
+    }
+
+    @Test
+    void ok_shouldNotTagBooksWithoutGeneratedCover() {
+        when(bookMetadataRepository.findCoverUpdatedOnByBookId(8L)).thenReturn(Optional.empty());
+
+        ResponseEntity<Void> response = service.ok(8L, null, "thumbnail").build();
+
+        assertThat(response.getHeaders().getETag()).isNull();
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo(CoverCacheService.UNVERSIONED.getHeaderValue());
+    }
+}
@@ -0,0 +1,71 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.util.FileService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverDerivativeServiceTest {
+
+    @TempDir
+    Path imagesDir;
+
+    private Path cover;
+    private CoverDerivativeService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cover = imagesDir.resolve("1").resolve("cover.jpg");
+        Files.createDirectories(cover.getParent());
+        ImageIO.write(new BufferedImage(600, 900, BufferedImage.TYPE_INT_RGB), "JPEG", cover.toFile());
+
+        FileService fileService = mock(FileService.class);
+        when(fileService.getCoverFile(1L)).thenReturn(cover.toString());
+        when(fileService.getCoverFile(2L)).thenReturn(imagesDir.resolve("2").resolve("cover.jpg").toString());
+        when(fileService.resizeImage(any(), anyInt(), anyInt())).thenAnswer(invocation ->
+                new BufferedImage(invocation.getArgument(1), invocation.getArgument(2), BufferedImage.TYPE_INT_RGB));
+        service = new CoverDerivativeService(fileService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void getVariant_shouldRenderBucketWidthOnceAndReuseIt() throws Exception {
+        Path variant = service.getVariant(1L, 200).orElseThrow();
+
+        BufferedImage image = ImageIO.read(variant.toFile());
+        assertThat(image.getWidth()).isEqualTo(256);
+        assertThat(image.getHeight()).isEqualTo(384);
+        long modified = Files.getLastModifiedTime(variant).toMillis();
+
+        assertThat(service.getVariant(1L, 250)).contains(variant);
+        assertThat(Files.getLastModifiedTime(variant).toMillis()).isEqualTo(modified);
+    }
+
+    @Test
+    void getVariant_shouldServeCoverItselfWhenNotWiderThanRequested() {
+        assertThat(service.getVariant(1L, 700)).contains(cover);
+        assertThat(service.getVariant(2L, 200)).isEmpty();
+    }
+
+    @Test
+    void getBoxVariant_shouldFitCoverIntoSnappedBoxInGreyscale() throws Exception {
+        Path variant = service.getBoxVariant(1L, 150, 220, true).orElseThrow();
+
+        BufferedImage image = ImageIO.read(variant.toFile());
+        assertThat(image.getWidth()).isEqualTo(160);
+        assertThat(image.getHeight()).isEqualTo(240);
+        assertThat(image.getColorModel().getNumColorComponents()).isEqualTo(1);
+        assertThat(service.getBoxVariant(1L, 1072, 1448, false)).contains(cover);
+    }
+}
@@ -0,0 +1,46 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileContentHashTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generateHash_shouldHoldToTheLibraryPathBudgetAndProduceTheSameDigest() throws IOException {
+        Path file = Files.write(dir.resolve("book.pdf"), new byte[3 * 1024 * 1024]);
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().build())
+                .build());
+        IoGovernor ioGovernor = new IoGovernor(mock(LibraryPathRepository.class), appSettingService, new SimpleMeterRegistry());
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path(dir.toString()).ioBytesPerSecond(6L * 1024 * 1024).build();
+
+        long start = System.nanoTime();
+        String throttled;
+        try (IoGovernor.Permit permit = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND)) {
+            throttled = FileContentHash.generateHash(file, permit);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The first megabyte is read right away, the other two wait for their share of the second
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(300);
+        assertThat(throttled).isEqualTo(FileContentHash.generateHash(file));
+    }
+}
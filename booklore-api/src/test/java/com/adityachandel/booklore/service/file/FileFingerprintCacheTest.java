@@ -0,0 +1,119 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.model.entity.FileFingerprintEntity;
+import com.adityachandel.booklore.repository.FileFingerprintRepository;
+import com.adityachandel.booklore.util.Md5Util;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileFingerprintCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private FileFingerprintRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private FileFingerprintCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(FileFingerprintRepository.class);
+        when(repository.findByPathHash(any())).thenReturn(Optional.empty());
+        IoGovernor ioGovernor = mock(IoGovernor.class);
+        when(ioGovernor.acquire(any(Path.class), any())).thenReturn(IoGovernor.Permit.NONE);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new FileFingerprintCache(repository, ioGovernor, mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void getHash_shouldReadFileOnceAndServeRepeatLookupsFromMemory() throws IOException {
+        Path file = write("book.epub", "content");
+
+        try (MockedStatic<FileFingerprint> fingerprint = mockStatic(FileFingerprint.class, CALLS_REAL_METHODS)) {
+            String first = cache.getHash(file);
+            String second = cache.getHash(file);
+
+            assertThat(second).isEqualTo(first);
+            fingerprint.verify(() -> FileFingerprint.generateHash(file), times(1));
+        }
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("memory_hit")).isEqualTo(1);
+        verify(repository).save(any(FileFingerprintEntity.class));
+    }
+
+    @Test
+    void getHash_shouldUseDatabaseEntryMatchingTheCurrentStat() throws IOException {
+        Path file = write("book.epub", "content");
+        FileFingerprintEntity entity = entityFor(file, "stored-hash");
+        when(repository.findByPathHash(entity.getPathHash())).thenReturn(Optional.of(entity));
+
+        assertThat(cache.getHash(file)).isEqualTo("stored-hash");
+        assertThat(count("db_hit")).isEqualTo(1);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getHash_shouldRehashWhenSizeOrModificationTimeChanged() throws IOException {
+        Path file = write("book.epub", "content");
+        String original = cache.getHash(file);
+
+        Files.writeString(file, "longer content");
+        String afterResize = cache.getHash(file);
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+        cache.getHash(file);
+
+        assertThat(afterResize).isNotEqualTo(original);
+        assertThat(count("miss")).isEqualTo(3);
+        assertThat(count("memory_hit")).isZero();
+    }
+
+    @Test
+    void evict_shouldForgetMemoryAndDatabaseEntries() throws IOException {
+        Path file = write("book.epub", "content");
+        cache.getHash(file);
+
+        cache.evict(List.of(file));
+        cache.getHash(file);
+
+        assertThat(count("miss")).isEqualTo(2);
+        verify(repository).deleteByPathHashIn(List.of(Md5Util.md5Hex(file.toAbsolutePath().normalize().toString())));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+
+    private FileFingerprintEntity entityFor(Path file, String fingerprint) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        String filePath = file.toAbsolutePath().normalize().toString();
+        return FileFingerprintEntity.builder()
+                .pathHash(Md5Util.md5Hex(filePath))
+                .filePath(filePath)
+                .fileSize(attrs.size())
+                .lastModified(attrs.lastModifiedTime().toMillis())
+                .fileKey(attrs.fileKey() != null ? attrs.fileKey().toString() : null)
+                .fingerprint(fingerprint)
+                .build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("booklore.fingerprint.cache", "result", result).count();
+    }
+}
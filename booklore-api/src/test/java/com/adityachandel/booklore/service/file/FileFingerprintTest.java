@@ -0,0 +1,60 @@
+package com.adityachandel.booklore.service.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void generateHash_shouldMatchSampledBlockDigest() throws Exception {
+        for (int size : new int[]{0, 100, 1024, 5000, 70_000, 3_000_000}) {
+            Path file = tempDir.resolve("book-" + size + ".bin");
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            Files.write(file, content);
+
+            assertThat(FileFingerprint.generateHash(file)).isEqualTo(referenceHash(file));
+        }
+    }
+
+    @Test
+    void generateHash_shouldDifferWhenSampledBlockChanges() throws Exception {
+        Path first = tempDir.resolve("first.bin");
+        Path second = tempDir.resolve("second.bin");
+        byte[] content = new byte[8192];
+        Files.write(first, content);
+        content[4096] = 1;
+        Files.write(second, content);
+
+        assertThat(FileFingerprint.generateHash(first)).isNotEqualTo(FileFingerprint.generateHash(second));
+    }
+
+    private String referenceHash(Path path) throws Exception {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
+            byte[] buffer = new byte[1024];
+            for (int i = -1; i <= 10; i++) {
+                long position = 1024L << (2 * i);
+                if (position >= raf.length()) break;
+                raf.seek(position);
+                int read = raf.read(buffer);
+                if (read > 0) {
+                    md5.update(buffer, 0, read);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+}
@@ -0,0 +1,119 @@
+package com.adityachandel.booklore.service.file;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IoGovernorTest {
+
+    private LibraryPathRepository libraryPathRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private IoGovernor ioGovernor;
+
+    @BeforeEach
+    void setUp() {
+        libraryPathRepository = mock(LibraryPathRepository.class);
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().ioMaxOpenFilesPerPath(1).build())
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        ioGovernor = new IoGovernor(libraryPathRepository, appSettingService, meterRegistry);
+    }
+
+    @Test
+    void backgroundPermit_shouldWaitForOpenFileSlot() throws Exception {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path("/books").build();
+        IoGovernor.Permit first = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND);
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            try (IoGovernor.Permit ignored = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND)) {
+                // slot acquired
+            }
+        });
+
+        assertThatThrownBy(() -> second.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        first.close();
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("booklore.io.throttle.wait").tag("reason", "open_files").tag("priority", "background").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nestedPermitOnSamePath_shouldNotTakeAnotherSlot() {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path("/books").build();
+        try (IoGovernor.Permit outer = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND);
+             IoGovernor.Permit inner = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND)) {
+            assertThat(inner).isNotSameAs(outer);
+        }
+    }
+
+    @Test
+    void interactivePermit_shouldNotWaitForBackgroundSlots() throws Exception {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path("/books").build();
+        try (IoGovernor.Permit ignored = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND)) {
+            CompletableFuture.runAsync(() -> {
+                try (IoGovernor.Permit permit = ioGovernor.acquire(libraryPath, IoGovernor.Priority.INTERACTIVE)) {
+                    permit.reserve(1024);
+                }
+            }).get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void interactiveActivity_shouldOnlyHoldBackBackgroundWorkOnTheSamePath() {
+        LibraryPathEntity reading = LibraryPathEntity.builder().id(1L).path("/books").build();
+        LibraryPathEntity scanning = LibraryPathEntity.builder().id(2L).path("/comics").build();
+        ioGovernor.acquire(reading, IoGovernor.Priority.INTERACTIVE).close();
+
+        long start = System.nanoTime();
+        ioGovernor.acquire(scanning, IoGovernor.Priority.BACKGROUND).close();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+
+        ioGovernor.acquire(reading, IoGovernor.Priority.BACKGROUND).close();
+        assertThat(meterRegistry.get("booklore.io.throttle.wait").tag("reason", "interactive_yield").tag("priority", "background").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_shouldMakeBackgroundWorkWaitBeforeReadingOnceTheBurstIsSpent() {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path("/books").ioBytesPerSecond(1_000_000L).build();
+        try (IoGovernor.Permit permit = ioGovernor.acquire(libraryPath, IoGovernor.Priority.BACKGROUND)) {
+            long start = System.nanoTime();
+            permit.reserve(2_000_000);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+
+            start = System.nanoTime();
+            permit.reserve(1);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(900);
+        }
+    }
+
+    @Test
+    void acquireByPath_shouldResolveInnermostLibraryPath() {
+        when(libraryPathRepository.findAll()).thenReturn(List.of(
+                LibraryPathEntity.builder().id(1L).path("/books").ioMaxOpenFiles(0).build(),
+                LibraryPathEntity.builder().id(2L).path("/books/comics").build()));
+
+        try (IoGovernor.Permit comics = ioGovernor.acquire(Path.of("/books/comics/a.cbz"), IoGovernor.Priority.BACKGROUND);
+             IoGovernor.Permit unlimited = ioGovernor.acquire(Path.of("/books/b.epub"), IoGovernor.Priority.BACKGROUND)) {
+            assertThat(comics).isNotSameAs(IoGovernor.Permit.NONE);
+            assertThat(unlimited).isNotSameAs(IoGovernor.Permit.NONE);
+        }
+        assertThat(ioGovernor.acquire(Path.of("/elsewhere/c.pdf"), IoGovernor.Priority.BACKGROUND)).isSameAs(IoGovernor.Permit.NONE);
+    }
+}
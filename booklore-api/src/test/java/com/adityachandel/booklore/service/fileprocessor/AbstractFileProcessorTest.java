@@ -58,6 +58,7 @@ class AbstractFileProcessorTest {
                 fileService,
                 metadataMatchService
         );
+        when(bookRepository.countMatchingHashOrFileName(any(), any(), anyLong())).thenReturn(1);
 
         // Inject EntityManager via reflection
         try {
@@ -440,6 +441,54 @@ class AbstractFileProcessorTest {
         }
     }
 
+    @Test
+    void processFile_shouldSkipDuplicateLookups_whenNothingMatchesHashOrFileName() {
+        // Given
+        LibraryFile libraryFile = createMockLibraryFile();
+        BookEntity newEntity = createMockBookEntity(4L, "file.pdf", "hash4", "sub", libraryFile.getLibraryPathEntity());
+        Book newBook = createMockBook(4L, "file.pdf");
+
+        try (MockedStatic<FileFingerprint> fingerprintMock = mockStatic(FileFingerprint.class)) {
+            fingerprintMock.when(() -> FileFingerprint.generateHash(any())).thenReturn("hash4");
+            when(bookRepository.countMatchingHashOrFileName("hash4", "file.pdf", 1L)).thenReturn(0);
+            when(metadataMatchService.calculateMatchScore(any())).thenReturn(85F);
+            when(bookMapper.toBook(newEntity)).thenReturn(newBook);
+
+            processor.setProcessNewFileResult(newEntity);
+
+            // When
+            FileProcessResult result = processor.processFile(libraryFile);
+
+            // Then
+            assertThat(result.getStatus()).isEqualTo(FileProcessStatus.NEW);
+            verifyNoInteractions(fileService);
+            verify(bookRepository, never()).findBookByFileNameAndLibraryId(any(), anyLong());
+        }
+    }
+
+    @Test
+    void processFile_shouldDetectBookInsertedAfterScanStarted() {
+        // Given
+        LibraryFile libraryFile = createMockLibraryFile();
+        Book concurrentBook = createMockBook(7L, "file.pdf");
+
+        try (MockedStatic<FileFingerprint> fingerprintMock = mockStatic(FileFingerprint.class)) {
+            fingerprintMock.when(() -> FileFingerprint.generateHash(any())).thenReturn("hash7");
+            when(bookRepository.countMatchingHashOrFileName("hash7", "file.pdf", 1L)).thenReturn(1);
+            when(fileService.checkForDuplicateAndUpdateMetadataIfNeeded(any(), eq("hash7"), any(), any(), any()))
+                    .thenReturn(Optional.of(concurrentBook));
+            when(bookRepository.findById(7L)).thenReturn(Optional.of(
+                    createMockBookEntity(7L, "file.pdf", "hash7", "sub", libraryFile.getLibraryPathEntity())));
+
+            // When
+            FileProcessResult result = processor.processFile(libraryFile);
+
+            // Then
+            assertThat(result.getStatus()).isEqualTo(FileProcessStatus.DUPLICATE);
+            assertThat(result.getBook().getId()).isEqualTo(7L);
+        }
+    }
+
     // Helper methods
     private LibraryFile createMockLibraryFile() {
         LibraryEntity library = LibraryEntity.builder().id(1L).build();
@@ -504,6 +553,10 @@ class AbstractFileProcessorTest {
             return false;
         }
 
+        @Override
+        public void enrichBook(BookEntity bookEntity) {
+        }
+
         public void setProcessNewFileResult(BookEntity entity) {
             this.processNewFileResult = entity;
         }
@@ -0,0 +1,132 @@
+package com.adityachandel.booklore.service.fileprocessor;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.book.BookCreatorService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.service.metadata.MetadataMatchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookEnrichmentServiceTest {
+
+    private BookRepository bookRepository;
+    private BookFileProcessorRegistry processorRegistry;
+    private BookMapper bookMapper;
+    private BookEventBroadcaster bookEventBroadcaster;
+    private BookEnrichmentService service;
+
+    private final List<Long> lookedUp = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        processorRegistry = mock(BookFileProcessorRegistry.class);
+        bookMapper = mock(BookMapper.class);
+        bookEventBroadcaster = mock(BookEventBroadcaster.class);
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().deferredEnrichment(true).enrichmentConcurrency(1).build())
+                .build());
+        IoGovernor ioGovernor = mock(IoGovernor.class);
+        when(ioGovernor.acquire(any(Path.class), any())).thenReturn(IoGovernor.Permit.NONE);
+        service = new BookEnrichmentService(bookRepository, processorRegistry, mock(BookCreatorService.class), mock(MetadataMatchService.class),
+                bookMapper, bookEventBroadcaster, appSettingService, ioGovernor, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void worker_shouldTakePrioritizedBooksFirstAndTheRestInQueueOrder() throws InterruptedException {
+        CountDownLatch done = recordLookups(3);
+        when(bookRepository.findEnrichmentPendingBookIds()).thenReturn(List.of());
+
+        service.enqueue(1L);
+        service.enqueue(2L);
+        service.enqueue(3L);
+        service.prioritize(3L);
+        service.prioritize(99L);
+        service.start();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lookedUp).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void start_shouldResumeBooksLeftPendingWithoutQueueingThemTwice() throws InterruptedException {
+        CountDownLatch done = recordLookups(2);
+        when(bookRepository.findEnrichmentPendingBookIds()).thenReturn(List.of(4L, 5L));
+
+        service.enqueue(5L);
+        service.start();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(lookedUp).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void worker_shouldEnrichPendingBookAndBroadcastTheUpdate() throws InterruptedException {
+        BookEntity bookEntity = BookEntity.builder()
+                .id(7L)
+                .bookType(BookFileType.EPUB)
+                .libraryPath(LibraryPathEntity.builder().id(1L).path("/books").build())
+                .fileSubPath("")
+                .fileName("Dune.epub")
+                .fileSizeKb(512L)
+                .enrichmentPending(true)
+                .build();
+        BookFileProcessor processor = mock(BookFileProcessor.class);
+        Book book = Book.builder().id(7L).build();
+        CountDownLatch broadcast = new CountDownLatch(1);
+        when(bookRepository.findEnrichmentPendingBookIds()).thenReturn(List.of(7L));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(bookEntity));
+        when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(processor);
+        when(bookMapper.toBook(bookEntity)).thenReturn(book);
+        doAnswer(invocation -> {
+            broadcast.countDown();
+            return null;
+        }).when(bookEventBroadcaster).broadcastBookUpdateEvent(book);
+
+        service.start();
+
+        assertThat(broadcast.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(processor).enrichBook(bookEntity);
+        assertThat(bookEntity.isEnrichmentPending()).isFalse();
+    }
+
+    private CountDownLatch recordLookups(int expected) {
+        CountDownLatch latch = new CountDownLatch(expected);
+        when(bookRepository.findById(any())).thenAnswer(invocation -> {
+            lookedUp.add(invocation.getArgument(0));
+            latch.countDown();
+            return Optional.empty();
+        });
+        return latch;
+    }
+}
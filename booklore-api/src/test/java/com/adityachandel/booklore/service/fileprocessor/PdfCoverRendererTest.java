@@ -0,0 +1,123 @@
+package com.adityachandel.booklore.service.fileprocessor;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PdfCoverRendererTest {
+
+    @TempDir
+    Path tmp;
+
+    private PdfCoverRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new PdfCoverRenderer(appSettingService(10), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Test
+    void dpiFor_shouldFitPageIntoCoverBoxAndNeverExceedMaxDpi() {
+        assertThat(PdfCoverRenderer.dpiFor(new PDPage(PDRectangle.LETTER), 1600, 2400)).isCloseTo(188.2f, within(0.1f));
+        assertThat(PdfCoverRenderer.dpiFor(new PDPage(new PDRectangle(144, 216)), 1600, 2400)).isEqualTo(PdfCoverRenderer.MAX_DPI);
+
+        PDPage rotated = new PDPage(PDRectangle.A0);
+        rotated.setRotation(90);
+        assertThat(PdfCoverRenderer.dpiFor(rotated, 1600, 2400)).isCloseTo(72f * 1600 / PDRectangle.A0.getHeight(), within(0.1f));
+    }
+
+    @Test
+    void render_shouldRenderPosterSizedPageNoLargerThanCover() throws Exception {
+        File pdf = tmp.resolve("poster.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.A0));
+            document.save(pdf);
+        }
+
+        BufferedImage cover = renderer.render(pdf);
+
+        assertThat(cover.getWidth()).isLessThanOrEqualTo(1600);
+        assertThat(cover.getHeight()).isBetween(2200, 2400);
+    }
+
+    @Test
+    void render_shouldCountRunawayRenderAgainstTheThreadBoundUntilItFinishes() throws Exception {
+        File pdf = tmp.resolve("book.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.save(pdf);
+        }
+        CountDownLatch runawayReleased = new CountDownLatch(1);
+        AtomicInteger renders = new AtomicInteger();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PdfCoverRenderer bounded = new PdfCoverRenderer(appSettingService(1), meterRegistry, 1) {
+            @Override
+            BufferedImage renderPage(PDDocument document, float dpi) throws IOException {
+                if (renders.getAndIncrement() == 0) {
+                    awaitIgnoringInterrupts(runawayReleased);
+                }
+                return super.renderPage(document, dpi);
+            }
+        };
+        try {
+            assertThatThrownBy(() -> bounded.render(pdf)).isInstanceOf(TimeoutException.class);
+            // The only render thread is still busy with the first page, so this one never starts
+            assertThatThrownBy(() -> bounded.render(pdf)).isInstanceOf(TimeoutException.class);
+            assertThat(renders).hasValue(1);
+            assertThat(meterRegistry.get("booklore.pdf.cover.timeout").counter().count()).isEqualTo(2);
+
+            runawayReleased.countDown();
+
+            assertThat(bounded.render(pdf).getWidth()).isPositive();
+        } finally {
+            runawayReleased.countDown();
+            bounded.shutdown();
+        }
+    }
+
+    private static AppSettingService appSettingService(int timeoutSeconds) {
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().pdfCoverRenderTimeoutSeconds(timeoutSeconds).build())
+                .build());
+        return appSettingService;
+    }
+
+    // Like PDFBox, which does not stop rendering a page when its thread is interrupted
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+                // keep rendering
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.adityachandel.booklore.service.fileprocessor;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.BookMetadataEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookMetadataRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.book.BookCreatorService;
+import com.adityachandel.booklore.service.metadata.MetadataMatchService;
+import com.adityachandel.booklore.service.metadata.extractor.PdfMetadataExtractor;
+import com.adityachandel.booklore.util.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PdfProcessorTest {
+
+    private FileService fileService;
+    private BookMetadataRepository bookMetadataRepository;
+    private PdfCoverRenderer pdfCoverRenderer;
+    private PdfProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        fileService = mock(FileService.class);
+        bookMetadataRepository = mock(BookMetadataRepository.class);
+        pdfCoverRenderer = mock(PdfCoverRenderer.class);
+        processor = new PdfProcessor(mock(BookRepository.class), mock(BookAdditionalFileRepository.class), mock(BookCreatorService.class),
+                mock(BookMapper.class), fileService, bookMetadataRepository, mock(MetadataMatchService.class),
+                mock(PdfMetadataExtractor.class), pdfCoverRenderer);
+    }
+
+    @Test
+    void generateCover_shouldLeavePlaceholderOnTimeoutAndSaveTheCoverOnRetry() throws Exception {
+        BookMetadataEntity metadata = BookMetadataEntity.builder().bookId(3L).build();
+        BookEntity book = BookEntity.builder()
+                .id(3L)
+                .libraryPath(LibraryPathEntity.builder().id(1L).path("/books").build())
+                .fileSubPath("")
+                .fileName("Atlas.pdf")
+                .metadata(metadata)
+                .build();
+        BufferedImage cover = new BufferedImage(10, 15, BufferedImage.TYPE_INT_RGB);
+        File file = new File("/books/Atlas.pdf");
+        when(pdfCoverRenderer.render(file)).thenThrow(new TimeoutException());
+        when(pdfCoverRenderer.renderRetry(file)).thenReturn(cover);
+        when(bookMetadataRepository.findById(3L)).thenReturn(Optional.of(metadata));
+        when(fileService.saveCoverImages(cover, 3L)).thenReturn(true);
+
+        assertThat(processor.generateCover(book)).isFalse();
+
+        verify(fileService, never()).saveCoverImages(any(), anyLong());
+        assertThat(metadata.getCoverUpdatedOn()).isNull();
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(pdfCoverRenderer).scheduleRetry(retry.capture());
+
+        retry.getValue().run();
+
+        verify(fileService).saveCoverImages(cover, 3L);
+        assertThat(metadata.getCoverUpdatedOn()).isNotNull();
+        verify(bookMetadataRepository).save(metadata);
+    }
+
+    @Test
+    void generateCover_shouldNotRetryOverALockedCover() throws Exception {
+        BookMetadataEntity metadata = BookMetadataEntity.builder().bookId(4L).coverLocked(true).build();
+        BookEntity book = BookEntity.builder()
+                .id(4L)
+                .libraryPath(LibraryPathEntity.builder().id(1L).path("/books").build())
+                .fileSubPath("")
+                .fileName("Locked.pdf")
+                .metadata(metadata)
+                .build();
+        when(pdfCoverRenderer.render(any())).thenThrow(new TimeoutException());
+        when(bookMetadataRepository.findById(4L)).thenReturn(Optional.of(metadata));
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+
+        processor.generateCover(book);
+        verify(pdfCoverRenderer).scheduleRetry(retry.capture());
+        retry.getValue().run();
+
+        verify(pdfCoverRenderer, never()).renderRetry(any());
+        verify(fileService, never()).saveCoverImages(any(), anyLong());
+    }
+}
@@ -0,0 +1,112 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookMoveReconcilerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private FileFingerprintCache fileFingerprintCache;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookEventBroadcaster bookEventBroadcaster;
+
+    @InjectMocks
+    private BookMoveReconciler reconciler;
+
+    @TempDir
+    Path libraryRoot;
+
+    private LibraryPathEntity libraryPath;
+
+    @BeforeEach
+    void setUp() {
+        libraryPath = LibraryPathEntity.builder().id(1L).path(libraryRoot.toString()).build();
+    }
+
+    @Test
+    void reconcile_shouldMoveBookToFileWithSameSizeAndFingerprint() throws IOException {
+        BookEntity book = book(7L, "old", "Dune.epub", 2L, "hash-1");
+        LibraryFile moved = file("sci-fi/herbert", "Dune (1965).epub", 2048);
+
+        when(bookRepository.findAllById(List.of(7L))).thenReturn(List.of(book));
+        when(fileFingerprintCache.getHash(moved.getFullPath())).thenReturn("hash-1");
+
+        BookMoveReconciler.MoveResult result = reconciler.reconcile(List.of(7L), List.of(moved));
+
+        assertThat(result.movedBookIds()).containsExactly(7L);
+        assertThat(result.movedFiles()).containsExactly(moved);
+        assertThat(book.getFileSubPath()).isEqualTo("sci-fi/herbert");
+        assertThat(book.getFileName()).isEqualTo("Dune (1965).epub");
+        assertThat(moved.getHash()).isEqualTo("hash-1");
+        verify(bookRepository).saveAll(List.of(book));
+        verify(bookEventBroadcaster).broadcastBookUpdateEventAfterCommit(any());
+    }
+
+    @Test
+    void reconcile_shouldNotFingerprintFilesWithDifferentSize() throws IOException {
+        BookEntity book = book(7L, "old", "Dune.epub", 2L, "hash-1");
+        LibraryFile other = file("new", "Emma.epub", 4096);
+
+        when(bookRepository.findAllById(List.of(7L))).thenReturn(List.of(book));
+
+        BookMoveReconciler.MoveResult result = reconciler.reconcile(List.of(7L), List.of(other));
+
+        assertThat(result.movedBookIds()).isEmpty();
+        assertThat(book.getFileSubPath()).isEqualTo("old");
+        verifyNoInteractions(fileFingerprintCache);
+        verify(bookRepository, never()).saveAll(any());
+    }
+
+    private BookEntity book(long id, String subPath, String fileName, long sizeKb, String hash) {
+        return BookEntity.builder()
+                .id(id)
+                .libraryPath(libraryPath)
+                .fileSubPath(subPath)
+                .fileName(fileName)
+                .fileSizeKb(sizeKb)
+                .currentHash(hash)
+                .build();
+    }
+
+    private LibraryFile file(String subPath, String fileName, int size) throws IOException {
+        Path path = libraryRoot.resolve(subPath).resolve(fileName);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        return LibraryFile.builder()
+                .libraryPathEntity(libraryPath)
+                .fileSubPath(subPath)
+                .fileName(fileName)
+                .bookFileType(BookFileType.EPUB)
+                .build();
+    }
+}
@@ -3,17 +3,28 @@ package com.adityachandel.booklore.service.library;
 import com.adityachandel.booklore.model.dto.Book;
 import com.adityachandel.booklore.model.FileProcessResult;
 import com.adityachandel.booklore.model.enums.FileProcessStatus;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
 import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
 import com.adityachandel.booklore.model.entity.LibraryEntity;
 import com.adityachandel.booklore.model.entity.LibraryPathEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.service.fileprocessor.BookEnrichmentService;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,7 +44,18 @@ class FileAsBookProcessorTest {
     @Mock
     private BookFileProcessor bookFileProcessor;
 
-    @InjectMocks
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private AppSettingService appSettingService;
+
+    @Mock
+    private FileFingerprintCache fileFingerprintCache;
+
+    @Mock
+    private BookEnrichmentService bookEnrichmentService;
+
     private FileAsBookProcessor fileAsBookProcessor;
 
     @Captor
@@ -44,6 +66,20 @@ class FileAsBookProcessorTest {
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
+        AppSettings appSettings = AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .hashingConcurrency(2)
+                        .processingConcurrency(2)
+                        .pipelineWindowSize(2)
+                        .build())
+                .build();
+        when(appSettingService.getAppSettings()).thenReturn(appSettings);
+        fileAsBookProcessor = new FileAsBookProcessor(bookEventBroadcaster, processorRegistry, notificationService,
+                new LibraryIngestPipeline(appSettingService, fileFingerprintCache,
+                        new IoGovernor(mock(LibraryPathRepository.class), appSettingService, new SimpleMeterRegistry()),
+                        new LibraryScanCoordinator(mock(LibraryPathRepository.class), appSettingService, new SimpleMeterRegistry()),
+                        mock(EntityManager.class), mock(PlatformTransactionManager.class)),
+                bookEnrichmentService);
     }
 
     @AfterEach
@@ -94,9 +130,9 @@ class FileAsBookProcessorTest {
 
         when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(bookFileProcessor);
         when(processorRegistry.getProcessorOrThrow(BookFileType.PDF)).thenReturn(bookFileProcessor);
-        when(bookFileProcessor.processFile(file1))
+        when(bookFileProcessor.processFileInCurrentTransaction(file1))
                 .thenReturn(new FileProcessResult(book1, FileProcessStatus.NEW, null));
-        when(bookFileProcessor.processFile(file2))
+        when(bookFileProcessor.processFileInCurrentTransaction(file2))
                 .thenReturn(new FileProcessResult(book2, FileProcessStatus.NEW, null));
 
         // When
@@ -110,6 +146,46 @@ class FileAsBookProcessorTest {
         assertThat(capturedBooks).containsExactly(book1, book2);
     }
 
+    @Test
+    void processLibraryFiles_shouldQueueNewBooksForEnrichment_whenDeferred() {
+        // Given
+        LibraryEntity libraryEntity = new LibraryEntity();
+        LibraryPathEntity libraryPathEntity = new LibraryPathEntity();
+        libraryPathEntity.setPath("/library/path");
+
+        LibraryFile newFile = LibraryFile.builder()
+                .libraryEntity(libraryEntity)
+                .libraryPathEntity(libraryPathEntity)
+                .fileName("new.epub")
+                .fileSubPath("books")
+                .bookFileType(BookFileType.EPUB)
+                .build();
+        LibraryFile duplicateFile = LibraryFile.builder()
+                .libraryEntity(libraryEntity)
+                .libraryPathEntity(libraryPathEntity)
+                .fileName("duplicate.epub")
+                .fileSubPath("books")
+                .bookFileType(BookFileType.EPUB)
+                .build();
+
+        Book newBook = Book.builder().id(7L).fileName("new.epub").bookType(BookFileType.EPUB).build();
+        Book duplicateBook = Book.builder().id(8L).fileName("duplicate.epub").bookType(BookFileType.EPUB).build();
+
+        when(bookEnrichmentService.isEnabled()).thenReturn(true);
+        when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(bookFileProcessor);
+        when(bookFileProcessor.processFileInCurrentTransaction(newFile)).thenReturn(new FileProcessResult(newBook, FileProcessStatus.NEW, null));
+        when(bookFileProcessor.processFileInCurrentTransaction(duplicateFile)).thenReturn(new FileProcessResult(duplicateBook, FileProcessStatus.DUPLICATE, null));
+
+        // When
+        fileAsBookProcessor.processLibraryFiles(new ArrayList<>(List.of(newFile, duplicateFile)), libraryEntity);
+
+        // Then
+        assertThat(newFile.isDeferEnrichment()).isTrue();
+        verify(bookEventBroadcaster).broadcastBookAddEvent(newBook);
+        verify(bookEnrichmentService).enqueue(7L);
+        verify(bookEnrichmentService, never()).enqueue(8L);
+    }
+
     @Test
     void processLibraryFiles_shouldSkipFilesWithUnsupportedExtensions() {
         // Given
@@ -144,7 +220,7 @@ class FileAsBookProcessorTest {
                 .build();
 
         when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(bookFileProcessor);
-        when(bookFileProcessor.processFile(validFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(validFile))
                 .thenReturn(new FileProcessResult(book, FileProcessStatus.NEW, null));
 
         // When
@@ -214,7 +290,7 @@ class FileAsBookProcessorTest {
                 .build();
 
         when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(bookFileProcessor);
-        when(bookFileProcessor.processFile(libraryFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(libraryFile))
                 .thenReturn(new FileProcessResult(expectedBook, FileProcessStatus.NEW, null));
 
         // When
@@ -225,7 +301,7 @@ class FileAsBookProcessorTest {
         assertThat(result.getBook()).isEqualTo(expectedBook);
 
         verify(processorRegistry).getProcessorOrThrow(BookFileType.EPUB);
-        verify(bookFileProcessor).processFile(libraryFile);
+        verify(bookFileProcessor).processFileInCurrentTransaction(libraryFile);
     }
 
     @Test
@@ -244,7 +320,7 @@ class FileAsBookProcessorTest {
                 .build();
 
         when(processorRegistry.getProcessorOrThrow(BookFileType.PDF)).thenReturn(bookFileProcessor);
-        when(bookFileProcessor.processFile(libraryFile)).thenReturn(null);
+        when(bookFileProcessor.processFileInCurrentTransaction(libraryFile)).thenReturn(null);
 
         // When
         FileProcessResult result = fileAsBookProcessor.processLibraryFile(libraryFile);
@@ -272,7 +348,7 @@ class FileAsBookProcessorTest {
         libraryFiles.add(file);
 
         when(processorRegistry.getProcessorOrThrow(BookFileType.EPUB)).thenReturn(bookFileProcessor);
-        when(bookFileProcessor.processFile(file)).thenReturn(null);
+        when(bookFileProcessor.processFileInCurrentTransaction(file)).thenReturn(null);
 
         // When
         fileAsBookProcessor.processLibraryFiles(libraryFiles, libraryEntity);
@@ -350,13 +426,13 @@ class FileAsBookProcessorTest {
         when(processorRegistry.getProcessorOrThrow(BookFileType.PDF)).thenReturn(bookFileProcessor);
         when(processorRegistry.getProcessorOrThrow(BookFileType.CBX)).thenReturn(bookFileProcessor);
 
-        when(bookFileProcessor.processFile(epubFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(epubFile))
                 .thenReturn(new FileProcessResult(epubBook, FileProcessStatus.NEW, null));
-        when(bookFileProcessor.processFile(pdfFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(pdfFile))
                 .thenReturn(new FileProcessResult(pdfBook, FileProcessStatus.NEW, null));
-        when(bookFileProcessor.processFile(cbzFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(cbzFile))
                 .thenReturn(new FileProcessResult(cbzBook, FileProcessStatus.NEW, null));
-        when(bookFileProcessor.processFile(cbrFile))
+        when(bookFileProcessor.processFileInCurrentTransaction(cbrFile))
                 .thenReturn(new FileProcessResult(cbrBook, FileProcessStatus.NEW, null));
 
         // When
@@ -1,10 +1,14 @@
 package com.adityachandel.booklore.service.library;
 
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
 import com.adityachandel.booklore.model.entity.BookAdditionalFileEntity;
 import com.adityachandel.booklore.model.enums.BookFileType;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
 import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.event.AdminEventBroadcaster;
 import com.adityachandel.booklore.service.event.BookEventBroadcaster;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
@@ -19,6 +23,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Path;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +48,15 @@ class FolderAsBookFileProcessorExampleTest {
     @Mock
     private BookFileProcessor mockBookFileProcessor;
 
+    @Mock
+    private LibraryScanCoordinator scanCoordinator;
+
+    @Mock
+    private FileFingerprintCache fileFingerprintCache;
+
+    @Mock
+    private AppSettingService appSettingService;
+
     @InjectMocks
     private FolderAsBookFileProcessor processor;
 
@@ -56,6 +71,11 @@ class FolderAsBookFileProcessorExampleTest {
     void setUp() {
         fileUtilsMock = mockStatic(FileUtils.class);
         fileFingerprintMock = mockStatic(FileFingerprint.class);
+        lenient().when(fileFingerprintCache.getHash(any(Path.class)))
+                .then(invocation -> FileFingerprint.generateHash(invocation.getArgument(0)));
+        lenient().when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().processingConcurrency(2).build())
+                .build());
         libraryTestBuilder = new LibraryTestBuilder(fileUtilsMock, fileFingerprintMock, bookFileProcessorRegistry, mockBookFileProcessor, bookRepository, bookAdditionalFileRepository);
     }
 
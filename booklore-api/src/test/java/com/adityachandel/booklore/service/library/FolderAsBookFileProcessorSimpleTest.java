@@ -4,6 +4,8 @@ import com.adityachandel.booklore.model.enums.LibraryScanMode;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.event.AdminEventBroadcaster;
 import com.adityachandel.booklore.service.event.BookEventBroadcaster;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
@@ -23,7 +25,7 @@ class FolderAsBookFileProcessorSimpleTest {
         BookFileProcessorRegistry bookFileProcessorRegistry = mock(BookFileProcessorRegistry.class);
 
         FolderAsBookFileProcessor processor = new FolderAsBookFileProcessor(
-                bookRepository, bookAdditionalFileRepository, bookEventBroadcaster, adminEventBroadcaster, bookFileProcessorRegistry);
+                bookRepository, bookAdditionalFileRepository, bookEventBroadcaster, adminEventBroadcaster, bookFileProcessorRegistry, mock(AppSettingService.class), mock(LibraryScanCoordinator.class), mock(FileFingerprintCache.class));
 
         assertThat(processor.getScanMode()).isEqualTo(LibraryScanMode.FOLDER_AS_BOOK);
     }
@@ -37,7 +39,7 @@ class FolderAsBookFileProcessorSimpleTest {
         BookFileProcessorRegistry bookFileProcessorRegistry = mock(BookFileProcessorRegistry.class);
 
         FolderAsBookFileProcessor processor = new FolderAsBookFileProcessor(
-                bookRepository, bookAdditionalFileRepository, bookEventBroadcaster, adminEventBroadcaster, bookFileProcessorRegistry);
+                bookRepository, bookAdditionalFileRepository, bookEventBroadcaster, adminEventBroadcaster, bookFileProcessorRegistry, mock(AppSettingService.class), mock(LibraryScanCoordinator.class), mock(FileFingerprintCache.class));
 
         assertThat(processor.supportsSupplementaryFiles()).isTrue();
     }
@@ -13,6 +13,7 @@ import com.adityachandel.booklore.service.event.AdminEventBroadcaster;
 import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
 import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.service.file.FileFingerprint;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessor;
 import com.adityachandel.booklore.service.fileprocessor.BookFileProcessorRegistry;
 import com.adityachandel.booklore.util.FileUtils;
@@ -26,7 +27,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,6 +55,12 @@ class FolderAsBookFileProcessorTest {
     @Mock
     private BookFileProcessor mockBookFileProcessor;
 
+    @Mock
+    private LibraryScanCoordinator scanCoordinator;
+
+    @Mock
+    private FileFingerprintCache fileFingerprintCache;
+
     @InjectMocks
     private FolderAsBookFileProcessor processor;
 
@@ -68,6 +74,8 @@ class FolderAsBookFileProcessorTest {
     void setUp() {
         fileUtilsMock = mockStatic(FileUtils.class);
         fileFingerprintMock = mockStatic(FileFingerprint.class);
+        lenient().when(fileFingerprintCache.getHash(any(Path.class)))
+                .then(invocation -> FileFingerprint.generateHash(invocation.getArgument(0)));
         // Setup common FileUtils mocks for all tests
         fileUtilsMock.when(() -> FileUtils.getFileSizeInKb(any(Path.class))).thenReturn(100L);
         fileFingerprintMock.when(() -> FileFingerprint.generateHash(any(Path.class)))
@@ -115,8 +123,8 @@ class FolderAsBookFileProcessorTest {
 
         BookEntity bookEntity = createBookEntity(1L, "book.pdf", "books");
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), anyString()))
-                .thenReturn(new ArrayList<>());
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
         when(bookFileProcessorRegistry.getProcessorOrThrow(BookFileType.PDF))
                 .thenReturn(mockBookFileProcessor);
         when(mockBookFileProcessor.processFile(any(LibraryFile.class)))
@@ -154,8 +162,10 @@ class FolderAsBookFileProcessorTest {
 
         BookEntity existingBook = createBookEntity(1L, "book.pdf", "books");
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), eq("books")))
-                .thenReturn(List.of(existingBook));
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of(directoryEntry(existingBook)));
+        when(bookRepository.getReferenceById(existingBook.getId()))
+                .thenReturn(existingBook);
         when(bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(anyLong(), anyString(), anyString()))
                 .thenReturn(Optional.empty());
 
@@ -185,10 +195,10 @@ class FolderAsBookFileProcessorTest {
 
         BookEntity parentBook = createBookEntity(1L, "book.pdf", "books");
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), eq("books/chapter1")))
-                .thenReturn(new ArrayList<>());
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), eq("books")))
-                .thenReturn(List.of(parentBook));
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of(directoryEntry(parentBook)));
+        when(bookRepository.getReferenceById(parentBook.getId()))
+                .thenReturn(parentBook);
         when(bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(anyLong(), anyString(), anyString()))
                 .thenReturn(Optional.empty());
 
@@ -207,6 +217,48 @@ class FolderAsBookFileProcessorTest {
                 .containsOnly(AdditionalFileType.SUPPLEMENTARY);
     }
 
+    @Test
+    void processLibraryFiles_shouldAttachSubdirectoryToBookCreatedInParentDirectory() {
+        // Given
+        LibraryEntity libraryEntity = createLibraryEntity();
+        List<LibraryFile> libraryFiles = List.of(
+                createLibraryFile("book.pdf", "books", BookFileType.PDF),
+                createLibraryFile("notes.txt", "books/chapter1")
+        );
+
+        Book createdBook = Book.builder()
+                .id(1L)
+                .fileName("book.pdf")
+                .bookType(BookFileType.PDF)
+                .build();
+
+        BookEntity bookEntity = createBookEntity(1L, "book.pdf", "books");
+
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
+        when(bookFileProcessorRegistry.getProcessorOrThrow(BookFileType.PDF))
+                .thenReturn(mockBookFileProcessor);
+        when(mockBookFileProcessor.processFile(any(LibraryFile.class)))
+                .thenReturn(new FileProcessResult(createdBook, FileProcessStatus.NEW, null));
+        when(bookRepository.getReferenceById(createdBook.getId()))
+                .thenReturn(bookEntity);
+        when(bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(anyLong(), anyString(), anyString()))
+                .thenReturn(Optional.empty());
+
+        // When
+        processor.processLibraryFiles(libraryFiles, libraryEntity);
+
+        // Then
+        verify(bookRepository, times(1)).findDirectoryEntriesByLibraryId(1L);
+        verify(mockBookFileProcessor, times(1)).processFile(any(LibraryFile.class));
+        verify(bookAdditionalFileRepository).save(additionalFileCaptor.capture());
+
+        BookAdditionalFileEntity capturedFile = additionalFileCaptor.getValue();
+        assertThat(capturedFile.getFileName()).isEqualTo("notes.txt");
+        assertThat(capturedFile.getBook()).isSameAs(bookEntity);
+        assertThat(capturedFile.getAdditionalFileType()).isEqualTo(AdditionalFileType.SUPPLEMENTARY);
+    }
+
     @Test
     void processLibraryFiles_shouldRespectDefaultBookFormat() {
         // Given
@@ -227,8 +279,8 @@ class FolderAsBookFileProcessorTest {
 
         BookEntity bookEntity = createBookEntity(1L, "book.epub", "books");
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), anyString()))
-                .thenReturn(new ArrayList<>());
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
         when(bookFileProcessorRegistry.getProcessorOrThrow(BookFileType.EPUB))
                 .thenReturn(mockBookFileProcessor);
         when(mockBookFileProcessor.processFile(argThat(file -> file.getFileName().equals("book.epub"))))
@@ -272,8 +324,8 @@ class FolderAsBookFileProcessorTest {
 
         BookEntity bookEntity = createBookEntity(1L, "book.pdf", "books");
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), anyString()))
-                .thenReturn(new ArrayList<>());
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
         when(bookFileProcessorRegistry.getProcessorOrThrow(BookFileType.PDF))
                 .thenReturn(mockBookFileProcessor);
         when(mockBookFileProcessor.processFile(argThat(file -> file.getFileName().equals("book.pdf"))))
@@ -310,8 +362,10 @@ class FolderAsBookFileProcessorTest {
                 .additionalFileType(AdditionalFileType.ALTERNATIVE_FORMAT)
                 .build();
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), eq("books")))
-                .thenReturn(List.of(existingBook));
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of(directoryEntry(existingBook)));
+        when(bookRepository.getReferenceById(existingBook.getId()))
+                .thenReturn(existingBook);
         when(bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(anyLong(), eq("books"), eq("book.epub")))
                 .thenReturn(Optional.of(existingAdditionalFile));
         when(bookAdditionalFileRepository.findByLibraryPath_IdAndFileSubPathAndFileName(anyLong(), eq("books"), eq("cover.jpg")))
@@ -338,8 +392,8 @@ class FolderAsBookFileProcessorTest {
                 createLibraryFile("notes.txt", "docs")
         );
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), anyString()))
-                .thenReturn(new ArrayList<>());
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
 
         // When
         processor.processLibraryFiles(libraryFiles, libraryEntity);
@@ -359,8 +413,8 @@ class FolderAsBookFileProcessorTest {
                 createLibraryFile("book.pdf", "books", BookFileType.PDF)
         );
 
-        when(bookRepository.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), anyString()))
-                .thenReturn(new ArrayList<>());
+        when(bookRepository.findDirectoryEntriesByLibraryId(anyLong()))
+                .thenReturn(List.of());
         when(bookFileProcessorRegistry.getProcessorOrThrow(BookFileType.PDF))
                 .thenReturn(mockBookFileProcessor);
         when(mockBookFileProcessor.processFile(any(LibraryFile.class)))
@@ -431,4 +485,23 @@ class FolderAsBookFileProcessorTest {
 
         return book;
     }
+
+    private BookRepository.DirectoryEntry directoryEntry(BookEntity book) {
+        return new BookRepository.DirectoryEntry() {
+            @Override
+            public Long getId() {
+                return book.getId();
+            }
+
+            @Override
+            public Long getLibraryPathId() {
+                return book.getLibraryPath().getId();
+            }
+
+            @Override
+            public String getFileSubPath() {
+                return book.getFileSubPath();
+            }
+        };
+    }
 }
@@ -0,0 +1,81 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LibraryFileHelperTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LibraryFileHelper helper = new LibraryFileHelper();
+
+    @Test
+    void streamLibraryFiles_shouldDeliverBookFilesInBatches() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("author" + (i % 3)));
+            Files.writeString(dir.resolve("book" + i + ".epub"), "content");
+        }
+        Files.writeString(tempDir.resolve("notes.txt"), "ignored");
+        Files.writeString(tempDir.resolve(".hidden.epub"), "ignored");
+
+        LibraryEntity library = library(tempDir);
+        LibraryFileProcessor processor = mock(LibraryFileProcessor.class);
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<LibraryFile> files = new ArrayList<>();
+        helper.streamLibraryFiles(library, processor, 3, batch -> {
+            batchSizes.add(batch.size());
+            files.addAll(batch);
+        });
+
+        assertThat(batchSizes).containsExactly(3, 3, 1);
+        assertThat(files).extracting(LibraryFile::getFileName)
+                .containsExactlyInAnyOrder("book0.epub", "book1.epub", "book2.epub", "book3.epub", "book4.epub", "book5.epub", "book6.epub");
+        assertThat(files).allSatisfy(file -> assertThat(file.getLibraryEntity()).isSameAs(library));
+    }
+
+    @Test
+    void getLibraryFiles_shouldIncludeSupplementaryFilesWhenSupported() throws Exception {
+        Files.writeString(tempDir.resolve("book.pdf"), "content");
+        Files.writeString(tempDir.resolve("cover.jpg"), "content");
+
+        LibraryFileProcessor processor = mock(LibraryFileProcessor.class);
+        when(processor.supportsSupplementaryFiles()).thenReturn(true);
+
+        List<LibraryFile> files = helper.getLibraryFiles(library(tempDir), processor);
+
+        assertThat(files).extracting(LibraryFile::getFileName).containsExactlyInAnyOrder("book.pdf", "cover.jpg");
+    }
+
+    @Test
+    void streamLibraryFiles_shouldPropagateConsumerFailure() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(tempDir.resolve("book" + i + ".epub"), "content");
+        }
+
+        assertThatThrownBy(() -> helper.streamLibraryFiles(library(tempDir), mock(LibraryFileProcessor.class), 1, batch -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    private LibraryEntity library(Path root) {
+        LibraryEntity library = LibraryEntity.builder().id(1L).name("Test").build();
+        LibraryPathEntity path = LibraryPathEntity.builder().id(1L).path(root.toString()).library(library).build();
+        library.setLibraryPaths(List.of(path));
+        return library;
+    }
+}
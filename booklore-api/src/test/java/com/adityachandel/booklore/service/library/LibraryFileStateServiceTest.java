@@ -0,0 +1,223 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryFileStateRepository;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryFileStateServiceTest {
+
+    private static final long LIBRARY_ID = 3L;
+
+    @Mock
+    private LibraryFileStateRepository libraryFileStateRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookAdditionalFileRepository bookAdditionalFileRepository;
+
+    @Mock
+    private FileFingerprintCache fileFingerprintCache;
+
+    @InjectMocks
+    private LibraryFileStateService service;
+
+    @TempDir
+    Path libraryRoot;
+
+    private LibraryPathEntity libraryPath;
+
+    @BeforeEach
+    void setUp() {
+        libraryPath = LibraryPathEntity.builder().id(1L).path(libraryRoot.toString()).build();
+    }
+
+    @Test
+    void diff_shouldClassifyAddedModifiedAndVanishedFilesAndSkipUnchangedOnes() throws IOException {
+        LibraryFile added = file("new", "Emma.epub", 100);
+        LibraryFile unchanged = file("", "Dune.epub", 200);
+        LibraryFile modified = file("", "Persuasion.epub", 300);
+        LibraryFileStateEntity modifiedState = state(modified);
+        modifiedState.setFileSize(299);
+        LibraryFileStateEntity vanishedState = LibraryFileStateEntity.builder()
+                .libraryId(LIBRARY_ID).libraryPathId(1L).fileSubPath("").fileName("Gone.epub").fileSize(1).lastModified(1).build();
+        when(libraryFileStateRepository.findByLibraryId(LIBRARY_ID)).thenReturn(List.of(state(unchanged), modifiedState, vanishedState));
+
+        LibraryFileStateService.FileStateDiff diff = service.begin(LIBRARY_ID);
+        service.accept(diff, List.of(added, unchanged));
+        service.accept(diff, List.of(modified));
+        service.finish(diff);
+
+        assertThat(diff.isBaseline()).isTrue();
+        assertThat(diff.getAddedFiles()).containsExactly(added);
+        assertThat(diff.getModifiedFiles()).containsExactly(modified);
+        assertThat(diff.getVanishedStates()).containsExactly(vanishedState);
+    }
+
+    @Test
+    void record_shouldOnlyPersistFilesThatBecameBooks() throws IOException {
+        LibraryFile imported = file("", "Dune.epub", 200);
+        LibraryFile failed = file("", "Broken.epub", 10);
+        when(libraryFileStateRepository.findByLibraryId(LIBRARY_ID)).thenReturn(List.of());
+        when(bookRepository.findFilePathEntriesByLibraryIdAndFileNameIn(eq(LIBRARY_ID), anyCollection()))
+                .thenReturn(List.of(entry(9L, "", "Dune.epub")));
+
+        LibraryFileStateService.FileStateDiff diff = service.begin(LIBRARY_ID);
+        service.accept(diff, List.of(imported, failed));
+        service.finish(diff);
+        service.record(diff);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LibraryFileStateEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(libraryFileStateRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(LibraryFileStateEntity::getFileName).containsExactly("Dune.epub");
+        assertThat(diff.getChangedFiles()).isEmpty();
+    }
+
+    @Test
+    void recordBatch_shouldSkipFailedFilesAndReleaseThem() throws IOException {
+        LibraryFile imported = file("", "Dune.epub", 200);
+        LibraryFile failed = file("", "Broken.epub", 10);
+        when(libraryFileStateRepository.findByLibraryId(LIBRARY_ID)).thenReturn(List.of());
+        when(bookRepository.findFilePathEntriesByLibraryIdAndFileNameIn(eq(LIBRARY_ID), anyCollection()))
+                .thenReturn(List.of(entry(9L, "", "Dune.epub")));
+
+        LibraryFileStateService.FileStateDiff diff = service.begin(LIBRARY_ID);
+        service.accept(diff, List.of(imported, failed));
+        service.record(diff, List.of(imported, failed));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LibraryFileStateEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(libraryFileStateRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(LibraryFileStateEntity::getFileName).containsExactly("Dune.epub");
+        assertThat(diff.getChangedFiles()).isEmpty();
+    }
+
+    @Test
+    void refreshModified_shouldUpdateRewrittenBookAndStoreItsNewFingerprint() throws IOException {
+        LibraryFile rewritten = file("", "Dune.epub", 200);
+        LibraryFileStateEntity rewrittenState = state(rewritten);
+        rewrittenState.setFingerprint("old");
+        LibraryFile additional = file("", "Dune.pdf", 100);
+        LibraryFileStateEntity additionalState = state(additional);
+        additionalState.setFingerprint("pdf");
+        Files.write(rewritten.getFullPath(), new byte[300]);
+        Files.write(additional.getFullPath(), new byte[150]);
+        BookEntity book = BookEntity.builder().id(9L).fileName("Dune.epub").currentHash("old").build();
+        when(libraryFileStateRepository.findByLibraryId(LIBRARY_ID)).thenReturn(List.of(rewrittenState, additionalState));
+        when(bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(1L, "", "Dune.epub")).thenReturn(Optional.of(book));
+        when(bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(1L, "", "Dune.pdf")).thenReturn(Optional.empty());
+        when(bookRepository.save(book)).thenReturn(book);
+        when(fileFingerprintCache.getHash(rewritten.getFullPath())).thenReturn("new");
+        when(bookRepository.findFilePathEntriesByLibraryIdAndFileNameIn(eq(LIBRARY_ID), anyCollection()))
+                .thenReturn(List.of(entry(9L, "", "Dune.epub")));
+        when(bookAdditionalFileRepository.findFilePathEntriesByLibraryIdAndFileNameIn(eq(LIBRARY_ID), anyCollection()))
+                .thenReturn(List.of(entry(20L, "", "Dune.pdf")));
+
+        LibraryFileStateService.FileStateDiff diff = service.begin(LIBRARY_ID);
+        service.accept(diff, List.of(rewritten, additional));
+        service.finish(diff);
+
+        assertThat(service.refreshModified(diff)).containsExactly(book);
+        assertThat(book.getCurrentHash()).isEqualTo("new");
+
+        service.record(diff);
+
+        assertThat(rewrittenState.getFingerprint()).isEqualTo("new");
+        assertThat(rewrittenState.getFileSize()).isEqualTo(300);
+        // Not fingerprinted again, so the stored fingerprint is kept rather than cleared
+        assertThat(additionalState.getFingerprint()).isEqualTo("pdf");
+        assertThat(additionalState.getFileSize()).isEqualTo(150);
+    }
+
+    @Test
+    void findVanished_shouldReportBooksWithoutFileEvenWithoutStateRow() throws IOException {
+        LibraryFile present = file("", "Dune.epub", 200);
+        when(bookRepository.findFilePathEntriesByLibraryId(LIBRARY_ID))
+                .thenReturn(List.of(entry(9L, "", "Dune.epub"), entry(10L, "watched", "Emma.epub")));
+        when(bookAdditionalFileRepository.findFilePathEntriesByLibraryId(LIBRARY_ID))
+                .thenReturn(List.of(entry(20L, "watched", "Emma.pdf")));
+
+        LibraryFileStateService.VanishedFiles vanished = service.findVanished(LIBRARY_ID, List.of(present));
+
+        assertThat(vanished.bookIds()).containsExactly(10L);
+        assertThat(vanished.additionalFileIds()).containsExactly(20L);
+        verifyNoInteractions(libraryFileStateRepository);
+    }
+
+    private LibraryFile file(String subPath, String name, int size) throws IOException {
+        Path directory = Files.createDirectories(libraryRoot.resolve(subPath));
+        Files.write(directory.resolve(name), new byte[size]);
+        return LibraryFile.builder()
+                .libraryPathEntity(libraryPath)
+                .fileSubPath(subPath)
+                .fileName(name)
+                .bookFileType(BookFileType.EPUB)
+                .build();
+    }
+
+    private LibraryFileStateEntity state(LibraryFile libraryFile) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(libraryFile.getFullPath(), BasicFileAttributes.class);
+        return LibraryFileStateEntity.builder()
+                .libraryId(LIBRARY_ID)
+                .libraryPathId(1L)
+                .fileSubPath(libraryFile.getFileSubPath())
+                .fileName(libraryFile.getFileName())
+                .fileSize(attrs.size())
+                .lastModified(attrs.lastModifiedTime().toMillis())
+                .fileKey(attrs.fileKey() != null ? attrs.fileKey().toString() : null)
+                .build();
+    }
+
+    private static BookRepository.FilePathEntry entry(long id, String subPath, String name) {
+        return new BookRepository.FilePathEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getLibraryPathId() {
+                return 1L;
+            }
+
+            @Override
+            public String getFileSubPath() {
+                return subPath;
+            }
+
+            @Override
+            public String getFileName() {
+                return name;
+            }
+        };
+    }
+}
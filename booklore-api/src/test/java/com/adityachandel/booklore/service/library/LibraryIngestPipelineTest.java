@@ -0,0 +1,172 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.FileProcessResult;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.FileProcessStatus;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LibraryIngestPipelineTest {
+
+    @TempDir
+    Path libraryRoot;
+
+    @Test
+    void ingest_shouldHandResultsToWriterInOriginalOrderAcrossWindows() {
+        List<LibraryFile> files = IntStream.range(0, 11)
+                .mapToObj(i -> file("book-" + i + ".epub", "h" + i))
+                .toList();
+        List<String> written = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+
+        pipeline(3, 4).ingest(files, file -> {
+            // Finish in a different order than the files were submitted
+            sleep(ThreadLocalRandom.current().nextInt(1, 20));
+            return result(file);
+        }, (file, result) -> {
+            assertThat(Thread.currentThread()).isSameAs(caller);
+            assertThat(result.getBook().getFileName()).isEqualTo(file.getFileName());
+            written.add(file.getFileName());
+        });
+
+        assertThat(written).containsExactlyElementsOf(files.stream().map(LibraryFile::getFileName).toList());
+    }
+
+    @Test
+    void ingest_shouldKeepProcessingLaneAndWindowAfterFailingFile() {
+        List<LibraryFile> files = List.of(
+                file("a.epub", "h1"),
+                file("b.epub", "h2"),
+                file("a.epub", "h3"),
+                file("c.epub", "h4"));
+        List<String> written = new ArrayList<>();
+
+        pipeline(4, 2).ingest(files, file -> {
+            if (file.getHash().equals("h1")) {
+                throw new IllegalStateException("corrupt archive");
+            }
+            return result(file);
+        }, (file, result) -> written.add(file.getHash() + "=" + (result != null ? "ok" : "failed")));
+
+        assertThat(written).containsExactly("h1=failed", "h2=ok", "h3=ok", "h4=ok");
+    }
+
+    @Test
+    void ingest_shouldWriteSeveralFilesPerTransactionAndRetryAFailedBatchFileByFile() {
+        List<LibraryFile> files = IntStream.range(0, 6)
+                .mapToObj(i -> file("book-" + i + ".epub", "h" + i))
+                .toList();
+        List<String> written = new ArrayList<>();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        pipeline(6, 1, 4, transactionManager).ingest(files, file -> {
+            if (file.getHash().equals("h5")) {
+                throw new IllegalStateException("corrupt archive");
+            }
+            return result(file);
+        }, (file, result) -> written.add(file.getHash() + "=" + (result != null ? "ok" : "failed")));
+
+        assertThat(written).containsExactly("h0=ok", "h1=ok", "h2=ok", "h3=ok", "h4=ok", "h5=failed");
+        // h0-h3 in one transaction, h4-h5 rolled back together, then h4 and h5 on their own
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void buildLanes_shouldGroupFilesSharingHashOrFileName() {
+        List<LibraryFile> window = List.of(
+                file("a.epub", "h1"),
+                file("b.epub", "h2"),
+                file("c.epub", "h1"),
+                file("b.epub", "h3"),
+                file("d.epub", "h4"),
+                file("e.epub", "h3")
+        );
+
+        List<List<Integer>> lanes = LibraryIngestPipeline.buildLanes(window);
+
+        assertThat(lanes).containsExactly(
+                List.of(0, 2),
+                List.of(1, 3, 5),
+                List.of(4)
+        );
+    }
+
+    @Test
+    void buildLanes_shouldKeepFilesWithoutHashSeparatedByName() {
+        List<LibraryFile> window = List.of(
+                file("a.pdf", null),
+                file("b.pdf", null),
+                file("a.pdf", null)
+        );
+
+        List<List<Integer>> lanes = LibraryIngestPipeline.buildLanes(window);
+
+        assertThat(lanes).containsExactly(List.of(0, 2), List.of(1));
+    }
+
+    private LibraryIngestPipeline pipeline(int windowSize, int processingConcurrency) {
+        return pipeline(windowSize, processingConcurrency, 0, mock(PlatformTransactionManager.class));
+    }
+
+    private LibraryIngestPipeline pipeline(int windowSize, int processingConcurrency, int batchSize, PlatformTransactionManager transactionManager) {
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .pipelineWindowSize(windowSize)
+                        .hashingConcurrency(2)
+                        .processingConcurrency(processingConcurrency)
+                        .ingestBatchSize(batchSize)
+                        .build())
+                .build());
+        IoGovernor ioGovernor = mock(IoGovernor.class);
+        when(ioGovernor.acquire(any(LibraryPathEntity.class), any())).thenReturn(IoGovernor.Permit.NONE);
+        LibraryScanCoordinator scanCoordinator = mock(LibraryScanCoordinator.class);
+        when(scanCoordinator.acquireWriter()).thenReturn(LibraryScanCoordinator.WriterPermit.NONE);
+        return new LibraryIngestPipeline(appSettingService, mock(FileFingerprintCache.class), ioGovernor, scanCoordinator,
+                mock(EntityManager.class), transactionManager);
+    }
+
+    private static FileProcessResult result(LibraryFile file) {
+        return FileProcessResult.builder()
+                .book(Book.builder().fileName(file.getFileName()).build())
+                .status(FileProcessStatus.NEW)
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LibraryFile file(String fileName, String hash) {
+        return LibraryFile.builder()
+                .libraryPathEntity(LibraryPathEntity.builder().path(libraryRoot.toString()).build())
+                .fileName(fileName)
+                .hash(hash)
+                .build();
+    }
+}
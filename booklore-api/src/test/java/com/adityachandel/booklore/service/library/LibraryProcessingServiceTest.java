@@ -0,0 +1,146 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.mapper.BookMapper;
+import com.adityachandel.booklore.model.dto.Book;
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryFile;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryFileStateEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.BookFileType;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.repository.LibraryFileStateRepository;
+import com.adityachandel.booklore.repository.LibraryRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import com.adityachandel.booklore.task.options.RescanLibraryContext;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LibraryProcessingServiceTest {
+
+    @TempDir
+    Path libraryRoot;
+
+    @Test
+    void rescanLibrary_shouldRefingerprintFileRewrittenSinceTheLastScan() throws Exception {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(1L).path(libraryRoot.toString()).build();
+        LibraryEntity library = LibraryEntity.builder().id(3L).name("Books").libraryPaths(List.of(libraryPath)).build();
+        Path bookFile = Files.write(libraryRoot.resolve("Dune.epub"), new byte[2048]);
+        BasicFileAttributes attrs = Files.readAttributes(bookFile, BasicFileAttributes.class);
+        LibraryFileStateEntity state = LibraryFileStateEntity.builder()
+                .libraryId(3L).libraryPathId(1L).fileSubPath("").fileName("Dune.epub")
+                .fileSize(attrs.size())
+                .lastModified(attrs.lastModifiedTime().toMillis())
+                .fileKey(attrs.fileKey() != null ? attrs.fileKey().toString() : null)
+                .fingerprint("old")
+                .build();
+        BookEntity book = BookEntity.builder().id(9L).fileName("Dune.epub").currentHash("old").build();
+        Book bookDto = Book.builder().id(9L).build();
+
+        // The file is rewritten in place after the last scan
+        Files.write(bookFile, new byte[4096]);
+        LibraryFile libraryFile = LibraryFile.builder()
+                .libraryEntity(library)
+                .libraryPathEntity(libraryPath)
+                .fileSubPath("")
+                .fileName("Dune.epub")
+                .bookFileType(BookFileType.EPUB)
+                .build();
+
+        LibraryRepository libraryRepository = mock(LibraryRepository.class);
+        BookRepository bookRepository = mock(BookRepository.class);
+        BookAdditionalFileRepository bookAdditionalFileRepository = mock(BookAdditionalFileRepository.class);
+        LibraryFileStateRepository libraryFileStateRepository = mock(LibraryFileStateRepository.class);
+        FileFingerprintCache fileFingerprintCache = mock(FileFingerprintCache.class);
+        LibraryFileProcessorRegistry processorRegistry = mock(LibraryFileProcessorRegistry.class);
+        LibraryFileProcessor processor = mock(LibraryFileProcessor.class);
+        LibraryFileHelper libraryFileHelper = mock(LibraryFileHelper.class);
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        BookMapper bookMapper = mock(BookMapper.class);
+        BookEventBroadcaster bookEventBroadcaster = mock(BookEventBroadcaster.class);
+
+        when(libraryRepository.findById(3L)).thenReturn(Optional.of(library));
+        when(processorRegistry.getProcessor(library)).thenReturn(processor);
+        doAnswer(invocation -> {
+            Consumer<List<LibraryFile>> batchConsumer = invocation.getArgument(3);
+            batchConsumer.accept(List.of(libraryFile));
+            return null;
+        }).when(libraryFileHelper).streamLibraryFiles(eq(library), eq(processor), anyInt(), any());
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder().incrementalRescan(true).build())
+                .build());
+        when(libraryFileStateRepository.findByLibraryId(3L)).thenReturn(List.of(state));
+        when(bookRepository.findByLibraryPath_IdAndFileSubPathAndFileName(1L, "", "Dune.epub")).thenReturn(Optional.of(book));
+        when(bookRepository.save(book)).thenReturn(book);
+        when(bookRepository.findFilePathEntriesByLibraryId(3L)).thenReturn(List.of(entry()));
+        when(bookRepository.findFilePathEntriesByLibraryIdAndFileNameIn(eq(3L), anyCollection())).thenReturn(List.of(entry()));
+        when(fileFingerprintCache.getHash(libraryFile.getFullPath())).thenReturn("new");
+        when(bookMapper.toBook(book)).thenReturn(bookDto);
+
+        LibraryFileStateService libraryFileStateService = new LibraryFileStateService(libraryFileStateRepository, bookRepository,
+                bookAdditionalFileRepository, fileFingerprintCache);
+        LibraryProcessingService service = new LibraryProcessingService(libraryRepository, mock(NotificationService.class),
+                bookAdditionalFileRepository, processorRegistry, mock(BookRestorationService.class), mock(BookDeletionService.class),
+                libraryFileHelper, libraryFileStateService, bookRepository, appSettingService, mock(BookMoveReconciler.class),
+                bookMapper, bookEventBroadcaster, mock(EntityManager.class));
+
+        service.rescanLibrary(RescanLibraryContext.builder().libraryId(3L).build());
+
+        assertThat(book.getCurrentHash()).isEqualTo("new");
+        assertThat(book.getFileSizeKb()).isEqualTo(4L);
+        verify(bookEventBroadcaster).broadcastBookUpdateEventAfterCommit(bookDto);
+        verify(processor, never()).processLibraryFiles(any(), any());
+        verify(processor, never()).processLibraryFiles(any(), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LibraryFileStateEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(libraryFileStateRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getFingerprint()).isEqualTo("new");
+            assertThat(row.getFileSize()).isEqualTo(4096);
+        });
+    }
+
+    private static BookRepository.FilePathEntry entry() {
+        return new BookRepository.FilePathEntry() {
+            @Override
+            public Long getId() {
+                return 9L;
+            }
+
+            @Override
+            public Long getLibraryPathId() {
+                return 1L;
+            }
+
+            @Override
+            public String getFileSubPath() {
+                return "";
+            }
+
+            @Override
+            public String getFileName() {
+                return "Dune.epub";
+            }
+        };
+    }
+}
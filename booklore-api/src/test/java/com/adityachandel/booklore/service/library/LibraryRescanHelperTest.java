@@ -10,6 +10,7 @@ import com.adityachandel.booklore.model.enums.MetadataReplaceMode;
 import com.adityachandel.booklore.model.enums.TaskType;
 import com.adityachandel.booklore.model.websocket.TaskProgressPayload;
 import com.adityachandel.booklore.model.websocket.Topic;
+import com.adityachandel.booklore.repository.BookRepository;
 import com.adityachandel.booklore.repository.LibraryRepository;
 import com.adityachandel.booklore.service.NotificationService;
 import com.adityachandel.booklore.service.metadata.BookMetadataUpdater;
@@ -26,6 +27,7 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -40,6 +42,8 @@ import static org.mockito.Mockito.*;
 class LibraryRescanHelperTest {
 
     @Mock private LibraryRepository libraryRepository;
+    @Mock private BookRepository bookRepository;
+    @Mock private PlatformTransactionManager transactionManager;
     @Mock private MetadataExtractorFactory metadataExtractorFactory;
     @Mock private BookMetadataUpdater bookMetadataUpdater;
     @Mock private NotificationService notificationService;
@@ -70,6 +74,16 @@ class LibraryRescanHelperTest {
                 .build();
 
         taskId = "task-123";
+
+        // Serve the books added to the library entity the way the repository queries would
+        lenient().when(bookRepository.findActiveBookIdsByLibraryId(1L)).thenAnswer(invocation -> library.getBookEntities().stream()
+                .filter(book -> book != null && !Boolean.TRUE.equals(book.getDeleted()))
+                .map(BookEntity::getId)
+                .sorted()
+                .toList());
+        lenient().when(bookRepository.findById(anyLong())).thenAnswer(invocation -> library.getBookEntities().stream()
+                .filter(book -> book != null && book.getId().equals(invocation.getArgument(0)))
+                .findFirst());
     }
 
     @Test
@@ -307,6 +321,37 @@ class LibraryRescanHelperTest {
         verify(bookMetadataUpdater).setBookMetadata(any(MetadataUpdateContext.class));
     }
 
+    @Test
+    void handleRescanOptions_shouldResumeAfterCheckpointedBook() throws Exception {
+        BookEntity book1 = createBookEntity(1L, "book1.epub", BookFileType.EPUB);
+        BookEntity book2 = createBookEntity(2L, "book2.pdf", BookFileType.PDF);
+        library.getBookEntities().add(book1);
+        library.getBookEntities().add(book2);
+
+        List<Long> reportedBookIds = new ArrayList<>();
+        List<Integer> reportedPercentages = new ArrayList<>();
+        rescanContext.setResumeAfterBookId(1L);
+        rescanContext.setProgressListener((bookId, percentage) -> {
+            reportedBookIds.add(bookId);
+            reportedPercentages.add(percentage);
+        });
+
+        when(libraryRepository.findById(1L)).thenReturn(Optional.of(library));
+        when(metadataExtractorFactory.extractMetadata(any(BookFileType.class), any(File.class))).thenReturn(new BookMetadata());
+        when(cancellationManager.isTaskCancelled(taskId)).thenReturn(false);
+
+        libraryRescanHelper.handleRescanOptions(rescanContext, taskId);
+
+        verify(metadataExtractorFactory, times(1)).extractMetadata(eq(BookFileType.PDF), any(File.class));
+        verify(bookMetadataUpdater).setBookMetadata(metadataContextCaptor.capture());
+        assertEquals(book2, metadataContextCaptor.getValue().getBookEntity());
+        assertEquals(List.of(2L), reportedBookIds);
+        assertEquals(List.of(100), reportedPercentages);
+
+        verify(notificationService, times(3)).sendMessage(eq(Topic.TASK_PROGRESS), payloadCaptor.capture());
+        assertEquals(50, payloadCaptor.getAllValues().get(0).getProgress());
+    }
+
     private BookEntity createBookEntity(Long id, String fileName, BookFileType bookType) {
         LibraryPathEntity libraryPath = new LibraryPathEntity();
         libraryPath.setPath("/test/path");
@@ -0,0 +1,118 @@
+package com.adityachandel.booklore.service.library;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.repository.LibraryPathRepository;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LibraryScanCoordinatorTest {
+
+    private LibraryScanCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        LibraryPathRepository libraryPathRepository = mock(LibraryPathRepository.class);
+        when(libraryPathRepository.findByLibraryId(anyLong())).thenReturn(List.of());
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .maxConcurrentLibraryScans(2)
+                        .maxConcurrentScansPerMount(1)
+                        .scanDbWriterBudget(1)
+                        .build())
+                .build());
+        coordinator = new LibraryScanCoordinator(libraryPathRepository, appSettingService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void run_shouldQueueSecondScanOfSameLibraryUntilFirstFinishes() throws Exception {
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        Thread first = Thread.ofVirtual().start(() -> runQuietly(1L, null, () -> {
+            firstRunning.countDown();
+            await(releaseFirst);
+        }));
+        assertThat(firstRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Integer> positions = new CopyOnWriteArrayList<>();
+        AtomicBoolean secondRan = new AtomicBoolean();
+        Thread second = Thread.ofVirtual().start(() -> runQuietly(1L, (position, queueLength) -> positions.add(position), () -> secondRan.set(true)));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (positions.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(positions).containsExactly(1);
+        assertThat(secondRan).isFalse();
+
+        releaseFirst.countDown();
+        first.join(5000);
+        second.join(5000);
+        assertThat(secondRan).isTrue();
+    }
+
+    @Test
+    void run_shouldRunDifferentLibrariesConcurrently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Thread first = Thread.ofVirtual().start(() -> runQuietly(1L, null, () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+        }));
+        Thread second = Thread.ofVirtual().start(() -> runQuietly(2L, null, () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+        }));
+
+        assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+        first.join(5000);
+        second.join(5000);
+    }
+
+    @Test
+    void acquireWriter_shouldBlockBeyondBudgetUntilReleased() throws Exception {
+        LibraryScanCoordinator.WriterPermit held = coordinator.acquireWriter();
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try (LibraryScanCoordinator.WriterPermit permit = coordinator.acquireWriter()) {
+                acquired.set(true);
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(acquired).isFalse();
+
+        held.close();
+        waiter.join(5000);
+        assertThat(acquired).isTrue();
+    }
+
+    private void runQuietly(long libraryId, LibraryScanCoordinator.QueueListener listener, Runnable work) {
+        try {
+            coordinator.run(libraryId, listener, work::run);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
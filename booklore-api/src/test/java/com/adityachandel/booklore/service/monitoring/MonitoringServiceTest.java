@@ -27,13 +27,17 @@ class MonitoringServiceTest {
     LibraryFileEventProcessor processor;
     MonitoringTask monitoringTask;
     WatchService watchService;
+    PollingDirectoryWatcher pollingDirectoryWatcher;
+    WatchRecoveryScheduler watchRecoveryScheduler;
 
     @BeforeEach
     void setup() throws Exception {
         processor = mock(LibraryFileEventProcessor.class);
         monitoringTask = mock(MonitoringTask.class);
+        pollingDirectoryWatcher = mock(PollingDirectoryWatcher.class);
+        watchRecoveryScheduler = mock(WatchRecoveryScheduler.class);
         watchService = FileSystems.getDefault().newWatchService();
-        service = Mockito.spy(new MonitoringService(processor, watchService, monitoringTask));
+        service = Mockito.spy(new MonitoringService(processor, watchService, monitoringTask, pollingDirectoryWatcher, watchRecoveryScheduler));
     }
 
     @AfterEach
@@ -64,40 +68,29 @@ class MonitoringServiceTest {
         service.registerLibrary(lib);
 
         Files.walk(root).filter(Files::isDirectory).forEach(path ->
-                verify(service).registerPath(eq(path), eq(7L))
+                verify(service, timeout(2_000)).registerPath(eq(path), eq(7L))
         );
     }
 
     @Test
     void unregisterLibrary_removesRegisteredPathsAndUpdatesMaps() throws Exception {
         Path root = tmp.resolve("libroot2");
-        Files.createDirectories(root);
-
-        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
-        pathToLibraryField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
-        map.put(root, 99L);
-
-        Field monitoredPathsField = MonitoringService.class.getDeclaredField("monitoredPaths");
-        monitoredPathsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Set<Path> monitored = (Set<Path>) monitoredPathsField.get(service);
-        monitored.add(root);
-
-        Field registeredKeysField = MonitoringService.class.getDeclaredField("registeredWatchKeys");
-        registeredKeysField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,WatchKey> keys = (Map<Path,WatchKey>) registeredKeysField.get(service);
-        WatchKey mockKey = mock(WatchKey.class);
-        keys.put(root, mockKey);
+        Path nested = root.resolve("nested");
+        Files.createDirectories(nested);
+
+        assertTrue(service.registerPath(root, 99L));
+        assertTrue(service.registerPath(nested, 99L));
+        assertTrue(service.registerPath(tmp, 100L));
+        WatchKey rootKey = registry().get(root).key();
+        WatchKey nestedKey = registry().get(nested).key();
 
         service.unregisterLibrary(99L);
 
-        assertFalse(monitored.contains(root), "monitoredPaths should no longer contain root");
-        assertFalse(map.containsKey(root), "pathToLibraryIdMap should no longer contain root");
-        assertFalse(keys.containsKey(root), "registeredWatchKeys should no longer contain root");
-        verify(mockKey).cancel();
+        assertFalse(service.isPathMonitored(root), "root should no longer be monitored");
+        assertFalse(service.isPathMonitored(nested), "nested folder should no longer be monitored");
+        assertTrue(service.isPathMonitored(tmp), "folders of other libraries should stay monitored");
+        assertFalse(rootKey.isValid());
+        assertFalse(nestedKey.isValid());
     }
 
     @Test
@@ -107,11 +100,7 @@ class MonitoringServiceTest {
         Path newDir = watched.resolve("newdir");
         Files.createDirectories(newDir);
 
-        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
-        pathToLibraryField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
-        map.put(watched, 5L);
+        watch(watched, 5L);
 
         doReturn(true).when(service).registerPath(any(Path.class), eq(5L));
 
@@ -132,11 +121,7 @@ class MonitoringServiceTest {
         Path file = watched.resolve("book.pdf");
         Files.writeString(file, "x");
 
-        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
-        pathToLibraryField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
-        map.put(watched, 123L);
+        watch(watched, 123L);
 
         java.lang.reflect.Method startMethod = MonitoringService.class.getDeclaredMethod("startProcessingThread");
         startMethod.setAccessible(true);
@@ -157,26 +142,15 @@ class MonitoringServiceTest {
         Path invalid = tmp.resolve("inv");
         Files.createDirectories(invalid);
 
-        Field monitoredPathsField = MonitoringService.class.getDeclaredField("monitoredPaths");
-        monitoredPathsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Set<Path> monitored = (Set<Path>) monitoredPathsField.get(service);
-        monitored.add(invalid);
-
-        Field registeredKeysField = MonitoringService.class.getDeclaredField("registeredWatchKeys");
-        registeredKeysField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,WatchKey> keys = (Map<Path,WatchKey>) registeredKeysField.get(service);
         WatchKey wk = mock(WatchKey.class);
-        keys.put(invalid, wk);
+        registry().putIfAbsent(invalid, new MonitoringService.WatchedPath(1L, wk));
 
         WatchKeyInvalidatedEvent ev = mock(WatchKeyInvalidatedEvent.class);
         when(ev.getInvalidPath()).thenReturn(invalid);
 
         service.handleWatchKeyInvalidation(ev);
 
-        assertFalse(monitored.contains(invalid));
-        assertFalse(keys.containsKey(invalid));
+        assertFalse(service.isPathMonitored(invalid));
         verify(wk).cancel();
     }
 
@@ -196,11 +170,7 @@ class MonitoringServiceTest {
         Path file = watched.resolve("notes.txt");
         Files.writeString(file, "notes");
 
-        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
-        pathToLibraryField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
-        map.put(watched, 11L);
+        watch(watched, 11L);
 
         java.lang.reflect.Method startMethod = MonitoringService.class.getDeclaredMethod("startProcessingThread");
         startMethod.setAccessible(true);
@@ -223,13 +193,9 @@ class MonitoringServiceTest {
         Path b = a.resolve("b");
         Files.createDirectories(b);
 
-        Field monitoredPathsField = MonitoringService.class.getDeclaredField("monitoredPaths");
-        monitoredPathsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Set<Path> monitored = (Set<Path>) monitoredPathsField.get(service);
-        monitored.add(watched);
-        monitored.add(a);
-        monitored.add(b);
+        watch(watched, 3L);
+        watch(a, 3L);
+        watch(b, 3L);
 
         FileChangeEvent ev = mock(FileChangeEvent.class);
         when(ev.getFilePath()).thenReturn(a);
@@ -238,9 +204,9 @@ class MonitoringServiceTest {
 
         service.handleFileChangeEvent(ev);
 
-        assertFalse(monitored.contains(a));
-        assertFalse(monitored.contains(b));
-        assertTrue(monitored.contains(watched));
+        assertFalse(service.isPathMonitored(a));
+        assertFalse(service.isPathMonitored(b));
+        assertTrue(service.isPathMonitored(watched));
     }
 
     @Test
@@ -249,11 +215,7 @@ class MonitoringServiceTest {
         Path sub = root.resolve("subdir");
         Files.createDirectories(sub);
 
-        Field monitoredPathsField = MonitoringService.class.getDeclaredField("monitoredPaths");
-        monitoredPathsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Set<Path> monitored = (Set<Path>) monitoredPathsField.get(service);
-        monitored.add(sub.toAbsolutePath().normalize());
+        watch(sub.toAbsolutePath().normalize(), 4L);
 
         Path nonNormalized = root.resolve("subdir/../subdir/.");
         assertTrue(service.isPathMonitored(nonNormalized));
@@ -267,22 +229,90 @@ class MonitoringServiceTest {
         boolean registered = service.registerPath(dir, 55L);
         assertTrue(registered);
 
-        Field pathToLibraryField = MonitoringService.class.getDeclaredField("pathToLibraryIdMap");
-        pathToLibraryField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path,Long> map = (Map<Path,Long>) pathToLibraryField.get(service);
-        assertEquals(55L, map.get(dir));
-
-        Field monitoredPathsField = MonitoringService.class.getDeclaredField("monitoredPaths");
-        monitoredPathsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Set<Path> monitored = (Set<Path>) monitoredPathsField.get(service);
-        assertTrue(monitored.contains(dir));
-
-        Field keysField = MonitoringService.class.getDeclaredField("registeredWatchKeys");
-        keysField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<Path, WatchKey> keys = (Map<Path, WatchKey>) keysField.get(service);
-        assertTrue(keys.containsKey(dir));
+        MonitoringService.WatchedPath watched = registry().get(dir);
+        assertNotNull(watched);
+        assertEquals(55L, watched.libraryId());
+        assertNotNull(watched.key());
+        assertTrue(service.isPathMonitored(dir));
+    }
+
+    @Test
+    void handleFileChangeEvent_modifiedBookFile_schedulesFolderRescan() throws Exception {
+        Path watched = tmp.resolve("watched-modify");
+        Files.createDirectories(watched);
+        Path file = watched.resolve("book.epub");
+        Files.writeString(file, "x");
+
+        watch(watched, 8L);
+
+        FileChangeEvent ev = mock(FileChangeEvent.class);
+        when(ev.getFilePath()).thenReturn(file);
+        doReturn(StandardWatchEventKinds.ENTRY_MODIFY).when(ev).getEventKind();
+        when(ev.getWatchedFolder()).thenReturn(watched);
+
+        service.handleFileChangeEvent(ev);
+
+        verify(watchRecoveryScheduler).schedule(8L, watched, WatchRecoveryScheduler.Reason.MODIFY, file);
+        verifyNoInteractions(processor);
+    }
+
+    @Test
+    void handleWatchOverflow_registersNewFoldersAndSchedulesSubtreeRescan() throws Exception {
+        Path watched = tmp.resolve("watched-overflow");
+        Path added = watched.resolve("added");
+        Files.createDirectories(added);
+
+        watch(watched, 9L);
+
+        doReturn(true).when(service).registerPath(any(Path.class), eq(9L));
+
+        service.handleWatchOverflow(new WatchOverflowEvent(this, watched));
+
+        verify(service).registerPath(added, 9L);
+        verify(watchRecoveryScheduler).recordOverflow();
+        verify(watchRecoveryScheduler).schedule(9L, watched, WatchRecoveryScheduler.Reason.OVERFLOW, null);
+    }
+
+    @Test
+    void handleFileChangeEvent_suppressedMove_registersNewFolderWithoutQueueingEvents() throws Exception {
+        Path watched = tmp.resolve("watched-move");
+        Path author = watched.resolve("author");
+        Files.createDirectories(author);
+        Path moved = Files.writeString(author.resolve("book.epub"), "x");
+        watch(watched, 6L);
+
+        java.lang.reflect.Method startMethod = MonitoringService.class.getDeclaredMethod("startProcessingThread");
+        startMethod.setAccessible(true);
+        startMethod.invoke(service);
+
+        service.suppressEvents(List.of(watched.resolve("old.epub"), moved, author));
+        service.handleFileChangeEvent(new FileChangeEvent(this, watched.resolve("old.epub"), StandardWatchEventKinds.ENTRY_DELETE, watched));
+        service.handleFileChangeEvent(new FileChangeEvent(this, author, StandardWatchEventKinds.ENTRY_CREATE, watched));
+
+        assertTrue(service.isPathMonitored(author));
+        verify(processor, timeout(500).times(0)).processFile(any(), anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void isSuppressed_shouldNotCoverFoldersAboveAMovedFile() {
+        Path author = tmp.resolve("library").resolve("author");
+        Path moved = author.resolve("book.epub");
+
+        service.suppressEvents(List.of(moved));
+
+        assertTrue(service.isSuppressed(moved));
+        assertFalse(service.isSuppressed(author));
+        assertFalse(service.isSuppressed(tmp.resolve("library")));
+    }
+
+    private void watch(Path path, long libraryId) throws Exception {
+        registry().putIfAbsent(path, new MonitoringService.WatchedPath(libraryId, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PathTrie<MonitoringService.WatchedPath> registry() throws Exception {
+        Field registryField = MonitoringService.class.getDeclaredField("registry");
+        registryField.setAccessible(true);
+        return (PathTrie<MonitoringService.WatchedPath>) registryField.get(service);
     }
 }
@@ -0,0 +1,39 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathTrieTest {
+
+    @Test
+    void removeSubtree_shouldDetachOnlyMatchingEntriesBelowPath() {
+        PathTrie<Long> trie = new PathTrie<>();
+        trie.putIfAbsent(Path.of("/books"), 1L);
+        trie.putIfAbsent(Path.of("/books/fantasy"), 1L);
+        trie.putIfAbsent(Path.of("/books/fantasy/nested"), 2L);
+        trie.putIfAbsent(Path.of("/books-other"), 1L);
+
+        assertThat(trie.removeSubtree(Path.of("/books"), libraryId -> libraryId == 1L))
+                .containsOnlyKeys(Path.of("/books"), Path.of("/books/fantasy"));
+
+        assertThat(trie.size()).isEqualTo(2);
+        assertThat(trie.get(Path.of("/books/fantasy/nested"))).isEqualTo(2L);
+        assertThat(trie.contains(Path.of("/books"))).isFalse();
+        assertThat(trie.contains(Path.of("/books-other"))).isTrue();
+    }
+
+    @Test
+    void remove_shouldPruneEmptyBranches() {
+        PathTrie<Long> trie = new PathTrie<>();
+        assertThat(trie.putIfAbsent(Path.of("/a/b/c"), 1L)).isTrue();
+        assertThat(trie.putIfAbsent(Path.of("/a/b/c"), 2L)).isFalse();
+
+        assertThat(trie.remove(Path.of("/a/b/c"))).isEqualTo(1L);
+
+        assertThat(trie.subtree(Path.of("/a"))).isEmpty();
+        assertThat(trie.values()).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package com.adityachandel.booklore.service.monitoring;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.model.enums.WatcherBackend;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PollingDirectoryWatcherTest {
+
+    @TempDir
+    Path root;
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private PollingDirectoryWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .watcherBackend(WatcherBackend.POLLING)
+                        .pollIntervalMinSeconds(1)
+                        .pollIntervalMaxSeconds(1)
+                        .build())
+                .build());
+        watcher = new PollingDirectoryWatcher(events::add, appSettingService, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.shutdown();
+    }
+
+    @Test
+    void watch_shouldReportNewFileInChangedDirectory() throws Exception {
+        Path series = Files.createDirectories(root.resolve("series"));
+
+        List<Path> directories = watcher.watch(1L, root);
+        assertThat(directories).containsExactlyInAnyOrder(root, series);
+        assertThat(watcher.isPolled(series)).isTrue();
+
+        Path book = Files.writeString(series.resolve("book.epub"), "x");
+
+        FileChangeEvent event = awaitEvent(book, StandardWatchEventKinds.ENTRY_CREATE);
+        assertThat(event.getWatchedFolder()).isEqualTo(series);
+    }
+
+    @Test
+    void watch_shouldReportDeletedDirectoryAndForgetItsSubtree() throws Exception {
+        Path series = Files.createDirectories(root.resolve("series"));
+        Files.writeString(series.resolve("book.epub"), "x");
+        watcher.watch(1L, root);
+
+        Files.delete(series.resolve("book.epub"));
+        Files.delete(series);
+
+        FileChangeEvent event = awaitEvent(series, StandardWatchEventKinds.ENTRY_DELETE);
+        assertThat(event.getWatchedFolder()).isEqualTo(root);
+        assertThat(watcher.watch(1L, root)).containsExactly(root);
+    }
+
+    private FileChangeEvent awaitEvent(Path path, WatchEvent.Kind<?> kind) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            for (Object event : events) {
+                if (event instanceof FileChangeEvent change && change.getFilePath().equals(path) && change.getEventKind() == kind) {
+                    return change;
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No " + kind.name() + " event for " + path + ", got " + events);
+    }
+}
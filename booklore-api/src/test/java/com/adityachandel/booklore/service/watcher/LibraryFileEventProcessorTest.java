@@ -0,0 +1,112 @@
+package com.adityachandel.booklore.service.watcher;
+
+import com.adityachandel.booklore.model.entity.LibraryEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.repository.LibraryRepository;
+import com.adityachandel.booklore.service.NotificationService;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import com.adityachandel.booklore.service.event.BookEventBroadcaster;
+import com.adityachandel.booklore.service.file.FileFingerprintCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LibraryFileEventProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void coalesce_shouldCancelCreateFollowedByDelete() {
+        LibraryFileEventProcessor.FileEvent created = event(StandardWatchEventKinds.ENTRY_CREATE);
+
+        assertThat(LibraryFileEventProcessor.coalesce(created, event(StandardWatchEventKinds.ENTRY_DELETE))).isNull();
+    }
+
+    @Test
+    void coalesce_shouldCancelDeleteFollowedByCreate() {
+        LibraryFileEventProcessor.FileEvent deleted = event(StandardWatchEventKinds.ENTRY_DELETE);
+
+        assertThat(LibraryFileEventProcessor.coalesce(deleted, event(StandardWatchEventKinds.ENTRY_CREATE))).isNull();
+    }
+
+    @Test
+    void coalesce_shouldKeepPendingCreateWhenFileIsModified() {
+        LibraryFileEventProcessor.FileEvent created = event(StandardWatchEventKinds.ENTRY_CREATE);
+
+        assertThat(LibraryFileEventProcessor.coalesce(created, event(StandardWatchEventKinds.ENTRY_MODIFY))).isSameAs(created);
+    }
+
+    @Test
+    void coalesce_shouldTurnModifyFollowedByDeleteIntoDelete() {
+        LibraryFileEventProcessor.FileEvent modified = event(StandardWatchEventKinds.ENTRY_MODIFY);
+
+        LibraryFileEventProcessor.FileEvent merged = LibraryFileEventProcessor.coalesce(modified, event(StandardWatchEventKinds.ENTRY_DELETE));
+
+        assertThat(merged.eventKind()).isEqualTo(StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    @Test
+    void rescanFolder_shouldSkipWhenLibraryRootIsEmptyButStillHasBooks() throws Exception {
+        Path root = Files.createDirectory(tempDir.resolve("library"));
+        LibraryFileEventProcessor processor = rescanProcessor(root, root.resolve("series/book.epub"));
+
+        processor.rescanFolder(1L, root, true, List.of());
+
+        verify(processor, never()).processFile(any(), anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void rescanFolder_shouldSkipWhenLibraryRootIsMissingButStillHasBooks() {
+        Path root = tempDir.resolve("unmounted");
+        LibraryFileEventProcessor processor = rescanProcessor(root, root.resolve("series/book.epub"));
+
+        processor.rescanFolder(1L, root.resolve("series"), false, List.of());
+
+        verify(processor, never()).processFile(any(), anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void rescanFolder_shouldDeleteBooksOfRemovedSubfolderWhenLibraryRootIsAvailable() throws Exception {
+        Path root = Files.createDirectory(tempDir.resolve("library"));
+        Files.createFile(root.resolve("other.epub"));
+        Path removedBook = root.resolve("series/book.epub");
+        LibraryFileEventProcessor processor = rescanProcessor(root, removedBook);
+
+        processor.rescanFolder(1L, root.resolve("series"), false, List.of());
+
+        verify(processor).processFile(StandardWatchEventKinds.ENTRY_DELETE, 1L, root.toString(), removedBook.toString());
+    }
+
+    private static LibraryFileEventProcessor.FileEvent event(WatchEvent.Kind<?> kind) {
+        return new LibraryFileEventProcessor.FileEvent(kind, 1L, "/library", "/library/series/book.epub");
+    }
+
+    private LibraryFileEventProcessor rescanProcessor(Path root, Path bookPath) {
+        LibraryPathEntity libraryPath = LibraryPathEntity.builder().id(2L).path(root.toString()).build();
+        LibraryEntity library = LibraryEntity.builder().id(1L).name("Books").libraryPaths(List.of(libraryPath)).build();
+        LibraryRepository libraryRepository = mock(LibraryRepository.class);
+        BookFilePersistenceService persistenceService = mock(BookFilePersistenceService.class);
+        when(libraryRepository.findById(1L)).thenReturn(Optional.of(library));
+        when(persistenceService.findMatchingLibraryPath(eq(library), any())).thenReturn(root.toString());
+        when(persistenceService.getLibraryPathEntityForFile(library, root.toString())).thenReturn(libraryPath);
+        when(persistenceService.findBooksInFolder(eq(libraryPath), anyString(), anyBoolean()))
+                .thenReturn(List.of(new BookFilePersistenceService.FolderBook(10L, bookPath, false, "hash", 1L)));
+
+        LibraryFileEventProcessor processor = spy(new LibraryFileEventProcessor(libraryRepository, mock(BookFileTransactionalHandler.class),
+                persistenceService, mock(NotificationService.class), mock(FileFingerprintCache.class), mock(AppSettingService.class),
+                mock(BookEventBroadcaster.class), mock(WriteStabilityGate.class)));
+        doNothing().when(processor).processFile(any(), anyLong(), anyString(), anyString());
+        return processor;
+    }
+}
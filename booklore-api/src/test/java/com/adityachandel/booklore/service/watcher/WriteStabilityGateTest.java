@@ -0,0 +1,79 @@
+package com.adityachandel.booklore.service.watcher;
+
+import com.adityachandel.booklore.model.dto.settings.AppSettings;
+import com.adityachandel.booklore.model.dto.settings.LibraryScanSettings;
+import com.adityachandel.booklore.service.appsettings.AppSettingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteStabilityGateTest {
+
+    @TempDir
+    Path root;
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private WriteStabilityGate gate;
+
+    @BeforeEach
+    void setUp() {
+        AppSettingService appSettingService = mock(AppSettingService.class);
+        when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder()
+                .libraryScanSettings(LibraryScanSettings.builder()
+                        .writeQuietPeriodSeconds(1)
+                        .writeCheckMaxIntervalSeconds(2)
+                        .build())
+                .build());
+        gate = new WriteStabilityGate(events::add, appSettingService, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.shutdown();
+    }
+
+    @Test
+    void admit_shouldHoldBackGrowingFileUntilItStopsChanging() throws Exception {
+        Path book = Files.writeString(root.resolve("book.pdf"), "part");
+
+        assertThat(gate.admit(1L, List.of(book))).isEmpty();
+        assertThat(gate.getPendingFiles()).singleElement()
+                .satisfies(status -> assertThat(status.getPath()).isEqualTo(book.toString()));
+
+        Thread.sleep(500);
+        Files.writeString(book, "part and the rest");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (events.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(events).singleElement().isInstanceOfSatisfying(FileWriteCompletedEvent.class, event -> {
+            assertThat(event.getLibraryId()).isEqualTo(1L);
+            assertThat(event.getFiles()).containsExactly(book);
+        });
+        assertThat(gate.getPendingFiles()).isEmpty();
+    }
+
+    @Test
+    void cancel_shouldDropFileDeletedWhileBeingWritten() throws Exception {
+        Path book = Files.writeString(root.resolve("book.epub"), "part");
+
+        assertThat(gate.admit(1L, List.of(book))).isEmpty();
+        gate.cancel(List.of(book));
+
+        Thread.sleep(1500);
+        assertThat(gate.getPendingFiles()).isEmpty();
+        assertThat(events).isEmpty();
+    }
+}
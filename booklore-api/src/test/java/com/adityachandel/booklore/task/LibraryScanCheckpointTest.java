@@ -0,0 +1,35 @@
+package com.adityachandel.booklore.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryScanCheckpointTest {
+
+    @Test
+    void concurrentLibraries_shouldKeepTheirOwnCursorsAcrossARestart() {
+        LibraryScanCheckpoint checkpoint = new LibraryScanCheckpoint();
+        checkpoint.setLastBookId(1L, 40L);
+        checkpoint.setLastBookId(2L, 7L);
+        checkpoint.setLastBookId(1L, 55L);
+        checkpoint.startLibrary(3L);
+        checkpoint.completeLibrary(2L);
+
+        LibraryScanCheckpoint restored = LibraryScanCheckpoint.fromMap(checkpoint.toMap());
+
+        assertThat(restored.getLastBookId(1L)).isEqualTo(55L);
+        assertThat(restored.getLastBookId(2L)).isNull();
+        assertThat(restored.getLastBookId(3L)).isNull();
+        assertThat(restored.isCompleted(2L)).isTrue();
+        assertThat(restored.isEmpty()).isFalse();
+    }
+
+    @Test
+    void progressPercentage_shouldAddUpLibrariesInProgress() {
+        LibraryScanCheckpoint checkpoint = new LibraryScanCheckpoint();
+        checkpoint.completeLibrary(1L);
+
+        assertThat(checkpoint.progressPercentage(4, 0.5 + 0.5)).isEqualTo(50);
+        assertThat(checkpoint.progressPercentage(4, 10)).isEqualTo(99);
+    }
+}
@@ -0,0 +1,137 @@
+package com.adityachandel.booklore.task.tasks;
+
+import com.adityachandel.booklore.model.dto.request.TaskCreateRequest;
+import com.adityachandel.booklore.model.entity.BookEntity;
+import com.adityachandel.booklore.model.entity.LibraryPathEntity;
+import com.adityachandel.booklore.model.enums.AdditionalFileType;
+import com.adityachandel.booklore.repository.BookAdditionalFileRepository;
+import com.adityachandel.booklore.repository.BookRepository;
+import com.adityachandel.booklore.service.file.FileContentHash;
+import com.adityachandel.booklore.service.file.IoGovernor;
+import com.adityachandel.booklore.task.TaskCancellationManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ContentHashTaskTest {
+
+    @TempDir
+    Path libraryRoot;
+
+    private BookRepository bookRepository;
+    private BookAdditionalFileRepository bookAdditionalFileRepository;
+    private PlatformTransactionManager transactionManager;
+    private IoGovernor ioGovernor;
+    private ContentHashTask task;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        bookAdditionalFileRepository = mock(BookAdditionalFileRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        ioGovernor = mock(IoGovernor.class);
+        when(ioGovernor.acquire(any(Path.class), any())).thenReturn(IoGovernor.Permit.NONE);
+        task = new ContentHashTask(bookRepository, bookAdditionalFileRepository, ioGovernor,
+                mock(TaskCancellationManager.class), transactionManager);
+    }
+
+    @Test
+    void execute_shouldOnlySelectFilesNotFailedWithinTheRetryPeriod() {
+        Instant before = Instant.now().minus(ContentHashTask.RETRY_FAILED_AFTER);
+
+        task.execute(TaskCreateRequest.builder().build());
+
+        verify(bookRepository).findIdsMissingContentHash(argThat(cutoff -> !cutoff.isBefore(before)
+                && !cutoff.isAfter(Instant.now().minus(ContentHashTask.RETRY_FAILED_AFTER))));
+        verify(bookAdditionalFileRepository).findIdsMissingContentHash(eq(AdditionalFileType.ALTERNATIVE_FORMAT), any());
+    }
+
+    @Test
+    void execute_shouldStoreContentHashOutsideTheHashingTransaction() throws IOException {
+        Path file = Files.writeString(libraryRoot.resolve("Dune.epub"), "content");
+        BookEntity book = book("Dune.epub");
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        when(transactionManager.getTransaction(any())).then(invocation -> {
+            inTransaction.set(true);
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+        when(bookRepository.findIdsMissingContentHash(any())).thenReturn(List.of(7L));
+        when(bookRepository.findById(7L)).then(invocation -> {
+            assertThat(inTransaction).isTrue();
+            return Optional.of(book);
+        });
+
+        try (MockedStatic<FileContentHash> contentHash = mockStatic(FileContentHash.class, CALLS_REAL_METHODS)) {
+            contentHash.when(() -> FileContentHash.generateHash(any(Path.class), any(IoGovernor.Permit.class))).then(invocation -> {
+                assertThat(inTransaction).isFalse();
+                return invocation.callRealMethod();
+            });
+            task.execute(TaskCreateRequest.builder().build());
+        }
+
+        assertThat(book.getContentHash()).isEqualTo(FileContentHash.generateHash(file));
+        assertThat(book.getContentHashFailedAt()).isNull();
+        verify(transactionManager, times(2)).commit(any());
+        verify(bookRepository).save(book);
+        verify(ioGovernor).acquire(file, IoGovernor.Priority.BACKGROUND);
+    }
+
+    @Test
+    void execute_shouldMarkMissingFilesInsteadOfRetryingThemEveryRun() {
+        BookEntity book = book("Missing.epub");
+        when(bookRepository.findIdsMissingContentHash(any())).thenReturn(List.of(7L));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+
+        task.execute(TaskCreateRequest.builder().build());
+
+        assertThat(book.getContentHash()).isNull();
+        assertThat(book.getContentHashFailedAt()).isNotNull();
+        verify(bookRepository).save(book);
+    }
+
+    @Test
+    void execute_shouldNotStoreHashOfFileReplacedWhileHashing() throws IOException {
+        Files.writeString(libraryRoot.resolve("Dune.epub"), "content");
+        BookEntity before = book("Dune.epub");
+        BookEntity after = book("Dune.epub");
+        after.setCurrentHash("replaced");
+        when(bookRepository.findIdsMissingContentHash(any())).thenReturn(List.of(7L));
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(before), Optional.of(after));
+
+        task.execute(TaskCreateRequest.builder().build());
+
+        assertThat(after.getContentHash()).isNull();
+        verify(bookRepository, never()).save(any());
+    }
+
+    private BookEntity book(String fileName) {
+        return BookEntity.builder()
+                .id(7L)
+                .libraryPath(LibraryPathEntity.builder().id(1L).path(libraryRoot.toString()).build())
+                .fileSubPath("")
+                .fileName(fileName)
+                .currentHash("sampled")
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.adityachandel.booklore.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ImageUtilsTest {
+
+    @Test
+    void read_shouldSubsampleToNoLessThanTheTargetBox() throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2400, 3600, BufferedImage.TYPE_INT_RGB), "JPEG", jpeg);
+
+        BufferedImage image = ImageUtils.read(new ByteArrayInputStream(jpeg.toByteArray()), 250, 350);
+
+        assertThat(image.getHeight()).isBetween(350, 700);
+        assertThat(image.getWidth() * 3).isCloseTo(image.getHeight() * 2, within(3));
+        assertThat(ImageUtils.subsamplingFor(1000, 1000, 600, 600)).isEqualTo(1);
+        assertThat(ImageUtils.read(new ByteArrayInputStream(new byte[]{1, 2, 3}), 250, 350)).isNull();
+    }
+
+    @Test
+    void scale_shouldStepDownToExactSizeAndFitWithinShouldKeepAspectRatio() {
+        BufferedImage source = new BufferedImage(1800, 2700, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage thumbnail = ImageUtils.scale(source, 250, 350);
+        assertThat(thumbnail.getWidth()).isEqualTo(250);
+        assertThat(thumbnail.getHeight()).isEqualTo(350);
+        assertThat(thumbnail.getRGB(0, 0)).isEqualTo(0xFFFFFFFF);
+
+        BufferedImage fitted = ImageUtils.fitWithin(source, 1600, 2400);
+        assertThat(fitted.getWidth()).isEqualTo(1600);
+        assertThat(fitted.getHeight()).isEqualTo(2400);
+        assertThat(ImageUtils.fitWithin(fitted, 1600, 2400)).isSameAs(fitted);
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -49,9 +50,10 @@ public class LibraryTestBuilder {
     // DTO-specific fields
     private final List<LibraryFile> libraryFiles = new ArrayList<>();
     private final Map<Path, String> libraryFileHashes = new HashMap<>();
-    private final Map<Long, BookEntity> bookRepository = new HashMap<>();
-    private final Map<String, BookEntity> bookMap = new HashMap<>();
-    private final Map<Long, BookAdditionalFileEntity> bookAdditionalFileRepository = new HashMap<>();
+    // Concurrent maps, the processor creates books of independent directories in parallel
+    private final Map<Long, BookEntity> bookRepository = new ConcurrentHashMap<>();
+    private final Map<String, BookEntity> bookMap = new ConcurrentHashMap<>();
+    private final Map<Long, BookAdditionalFileEntity> bookAdditionalFileRepository = new ConcurrentHashMap<>();
 
     public LibraryTestBuilder(MockedStatic<FileUtils> fileUtilsMock,
                               MockedStatic<FileFingerprint> fileFingerprintMock,
@@ -78,14 +80,13 @@ public class LibraryTestBuilder {
                     Long bookId = invocation.getArgument(0);
                     return getBookById(bookId);
                 });
-        when(bookRepositoryMock.findAllByLibraryPathIdAndFileSubPathStartingWith(anyLong(), any(String.class)))
+        when(bookRepositoryMock.findDirectoryEntriesByLibraryId(anyLong()))
                 .thenAnswer(invocation -> {
-                    Long libraryPathId = invocation.getArgument(0);
-                    String fileSubPath = invocation.getArgument(1);
+                    Long libraryId = invocation.getArgument(0);
                     return bookRepository.values()
                             .stream()
-                            .filter(book -> book.getLibraryPath().getId().equals(libraryPathId) &&
-                                    book.getFileSubPath().startsWith(fileSubPath))
+                            .filter(book -> isInLibrary(book, libraryId))
+                            .map(LibraryTestBuilder::toDirectoryEntry)
                             .toList();
                 });
 
@@ -335,6 +336,32 @@ public class LibraryTestBuilder {
         return additionalFile;
     }
 
+    private boolean isInLibrary(BookEntity book, Long libraryId) {
+        return libraries.stream()
+                .filter(library -> library.getId().equals(libraryId))
+                .flatMap(library -> library.getLibraryPaths().stream())
+                .anyMatch(libraryPath -> libraryPath.getId().equals(book.getLibraryPath().getId()));
+    }
+
+    private static BookRepository.DirectoryEntry toDirectoryEntry(BookEntity book) {
+        return new BookRepository.DirectoryEntry() {
+            @Override
+            public Long getId() {
+                return book.getId();
+            }
+
+            @Override
+            public Long getLibraryPathId() {
+                return book.getLibraryPath().getId();
+            }
+
+            @Override
+            public String getFileSubPath() {
+                return book.getFileSubPath();
+            }
+        };
+    }
+
     private static BookFileType getBookFileType(String fileName) {
         var extension = BookFileExtension.fromFileName(fileName);
         return extension.map(BookFileExtension::getType).orElse(null);
@@ -29,6 +29,7 @@ import {BookDialogHelperService} from '../BookDialogHelperService';
 import {MetadataFetchOptionsComponent} from '../../../../metadata/component/metadata-options-dialog/metadata-fetch-options/metadata-fetch-options.component';
 import {TaskCreateRequest, TaskType} from '../../../../settings/task-management/task.service';
 import {TaskHelperService} from '../../../../settings/task-management/task-helper.service';
+import {CoverScalePreferenceService} from '../cover-scale-preference.service';
 
 @Component({
   selector: 'app-book-card',
@@ -66,6 +67,7 @@ export class BookCardComponent implements OnInit, OnChanges, OnDestroy {
   private messageService = inject(MessageService);
   private router = inject(Router);
   protected urlHelper = inject(UrlHelperService);
+  protected coverScalePreferenceService = inject(CoverScalePreferenceService);
   private confirmationService = inject(ConfirmationService);
   private bookDialogHelperService = inject(BookDialogHelperService);
 
@@ -13,9 +13,12 @@ export interface Library {
   paths: LibraryPath[];
   scanMode?: LibraryScanMode;
   defaultBookFormat?: BookFileType;
+  contentHashEnabled?: boolean;
 }
 
 export interface LibraryPath {
   id?: number;
   path: string;
+  ioBytesPerSecond?: number;
+  ioMaxOpenFiles?: number;
 }
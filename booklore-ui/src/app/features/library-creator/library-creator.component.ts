@@ -34,6 +34,7 @@ export class LibraryCreatorComponent implements OnInit {
   watch: boolean = false;
   scanMode: LibraryScanMode = 'FILE_AS_BOOK';
   defaultBookFormat: BookFileType | undefined = undefined;
+  contentHashEnabled: boolean = false;
 
   readonly scanModeOptions = [
     {label: 'Each file is a book (Recommended)', value: 'FILE_AS_BOOK'},
@@ -61,13 +62,14 @@ export class LibraryCreatorComponent implements OnInit {
       this.mode = data.mode;
       this.library = this.libraryService.findLibraryById(data.libraryId);
       if (this.library) {
-        const {name, icon, paths, watch, scanMode, defaultBookFormat} = this.library;
+        const {name, icon, paths, watch, scanMode, defaultBookFormat, contentHashEnabled} = this.library;
         this.chosenLibraryName = name;
         this.editModeLibraryName = name;
         this.selectedIcon = `pi pi-${icon}`;
         this.watch = watch;
         this.scanMode = scanMode || 'FILE_AS_BOOK';
         this.defaultBookFormat = defaultBookFormat || undefined;
+        this.contentHashEnabled = contentHashEnabled ?? false;
         this.folders = paths.map(path => path.path);
       }
     }
@@ -143,10 +145,11 @@ export class LibraryCreatorComponent implements OnInit {
       const library: Library = {
         name: this.chosenLibraryName,
         icon: this.selectedIcon?.replace('pi pi-', '') || 'heart',
-        paths: this.folders.map(folder => ({path: folder})),
+        paths: this.folders.map(folder => this.library?.paths.find(path => path.path === folder) ?? {path: folder}),
         watch: this.watch,
         scanMode: this.scanMode,
-        defaultBookFormat: this.defaultBookFormat
+        defaultBookFormat: this.defaultBookFormat,
+        contentHashEnabled: this.contentHashEnabled
       };
       this.libraryService.updateLibrary(library, this.library?.id).subscribe({
         next: () => {
@@ -165,7 +168,8 @@ export class LibraryCreatorComponent implements OnInit {
         paths: this.folders.map(folder => ({path: folder})),
         watch: this.watch,
         scanMode: this.scanMode,
-        defaultBookFormat: this.defaultBookFormat
+        defaultBookFormat: this.defaultBookFormat,
+        contentHashEnabled: this.contentHashEnabled
       };
       this.libraryService.createLibrary(library).subscribe({
         next: (createdLibrary) => {
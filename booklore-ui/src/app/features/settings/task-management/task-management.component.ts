@@ -125,7 +125,8 @@ export class TaskManagementComponent implements OnInit, OnDestroy {
       updatedAt: new Date().toISOString(),
       completedAt: (progress.taskStatus === TaskStatus.COMPLETED || progress.taskStatus === TaskStatus.FAILED)
         ? new Date().toISOString()
-        : existingHistory?.completedAt || null
+        : existingHistory?.completedAt || null,
+      queuePosition: progress.queuePosition ?? null
     };
 
     this.taskHistories.set(progress.taskType, updatedHistory);
@@ -447,7 +448,8 @@ export class TaskManagementComponent implements OnInit, OnDestroy {
       [TaskType.UPDATE_BOOK_RECOMMENDATIONS]: 'pi-sparkles',
       [TaskType.CLEANUP_DELETED_BOOKS]: 'pi-trash',
       [TaskType.SYNC_LIBRARY_FILES]: 'pi-sync',
-      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file'
+      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file',
+      [TaskType.COMPUTE_CONTENT_HASHES]: 'pi-shield'
     };
     return icons[taskType] || 'pi-cog';
   }
@@ -484,6 +486,10 @@ export class TaskManagementComponent implements OnInit, OnDestroy {
     return this.taskHistories.get(taskType)?.progressPercentage || null;
   }
 
+  getTaskQueuePosition(taskType: string): number | null {
+    return this.taskHistories.get(taskType)?.queuePosition ?? null;
+  }
+
   getTaskUpdatedAt(taskType: string): string | null {
     return this.taskHistories.get(taskType)?.updatedAt || null;
   }
@@ -12,18 +12,20 @@ export enum TaskType {
   CLEANUP_DELETED_BOOKS = 'CLEANUP_DELETED_BOOKS',
   SYNC_LIBRARY_FILES = 'SYNC_LIBRARY_FILES',
   CLEANUP_TEMP_METADATA = 'CLEANUP_TEMP_METADATA',
+  COMPUTE_CONTENT_HASHES = 'COMPUTE_CONTENT_HASHES',
   REFRESH_METADATA_MANUAL = 'REFRESH_METADATA_MANUAL'
 }
 
 export const TASK_TYPE_CONFIG: Record<TaskType, { parallel: boolean; async: boolean; displayOrder: number }> = {
   [TaskType.REFRESH_LIBRARY_METADATA]: {parallel: false, async: true, displayOrder: 1},
-  [TaskType.SYNC_LIBRARY_FILES]: {parallel: false, async: false, displayOrder: 2},
+  [TaskType.SYNC_LIBRARY_FILES]: {parallel: false, async: true, displayOrder: 2},
   [TaskType.UPDATE_BOOK_RECOMMENDATIONS]: {parallel: false, async: true, displayOrder: 3},
   [TaskType.CLEANUP_DELETED_BOOKS]: {parallel: false, async: false, displayOrder: 4},
   [TaskType.CLEANUP_TEMP_METADATA]: {parallel: false, async: false, displayOrder: 5},
   [TaskType.REFRESH_METADATA_MANUAL]: {parallel: false, async: false, displayOrder: 6},
   [TaskType.CLEAR_CBX_CACHE]: {parallel: false, async: false, displayOrder: 7},
   [TaskType.CLEAR_PDF_CACHE]: {parallel: false, async: false, displayOrder: 8},
+  [TaskType.COMPUTE_CONTENT_HASHES]: {parallel: false, async: true, displayOrder: 9},
 };
 
 export enum MetadataReplaceMode {
@@ -91,6 +93,7 @@ export interface TaskHistory {
   createdAt: string | null;
   updatedAt: string | null;
   completedAt: string | null;
+  queuePosition?: number | null;
 }
 
 export interface TaskCancelResponse {
@@ -110,6 +113,7 @@ export interface TaskProgressPayload {
   message: string;
   progress: number; // 0-100 percentage
   taskStatus: TaskStatus;
+  queuePosition?: number | null; // set while waiting for a library scan slot
 }
 
 @Injectable({
@@ -103,6 +103,27 @@ export interface KoboSettings {
   conversionLimitInMb: number;
 }
 
+export interface LibraryScanSettings {
+  hashingConcurrency: number;
+  processingConcurrency: number;
+  pipelineWindowSize: number;
+  ingestBatchSize: number;
+  incrementalRescan: boolean;
+  ioBytesPerSecondPerPath: number;
+  ioMaxOpenFilesPerPath: number;
+  deferredEnrichment: boolean;
+  enrichmentConcurrency: number;
+  maxConcurrentLibraryScans: number;
+  maxConcurrentScansPerMount: number;
+  scanDbWriterBudget: number;
+  watcherBackend: 'AUTO' | 'NATIVE' | 'POLLING';
+  pollIntervalMinSeconds: number;
+  pollIntervalMaxSeconds: number;
+  writeQuietPeriodSeconds: number;
+  writeCheckMaxIntervalSeconds: number;
+  pdfCoverRenderTimeoutSeconds: number;
+}
+
 export interface AppSettings {
   autoBookSearch: boolean;
   similarBookRecommendation: boolean;
@@ -121,6 +142,7 @@ export interface AppSettings {
   metadataPersistenceSettings: MetadataPersistenceSettings;
   metadataPublicReviewsSettings: PublicReviewSettings;
   koboSettings: KoboSettings;
+  libraryScanSettings: LibraryScanSettings;
   metadataDownloadOnBookdrop: boolean;
 }
 
@@ -141,5 +163,6 @@ export enum AppSettingKey {
   METADATA_PERSISTENCE_SETTINGS = 'METADATA_PERSISTENCE_SETTINGS',
   METADATA_DOWNLOAD_ON_BOOKDROP = 'METADATA_DOWNLOAD_ON_BOOKDROP',
   METADATA_PUBLIC_REVIEWS_SETTINGS = 'METADATA_PUBLIC_REVIEWS_SETTINGS',
-  KOBO_SETTINGS = 'KOBO_SETTINGS'
+  KOBO_SETTINGS = 'KOBO_SETTINGS',
+  LIBRARY_SCAN_SETTINGS = 'LIBRARY_SCAN_SETTINGS'
 }
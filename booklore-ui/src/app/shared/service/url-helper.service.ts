@@ -10,6 +10,8 @@ import {CoverGeneratorComponent} from '../components/cover-generator/cover-gener
 export class UrlHelperService {
   private readonly baseUrl = API_CONFIG.BASE_URL;
   private readonly mediaBaseUrl = `${this.baseUrl}/api/v1/media`;
+  // Widths the server caches thumbnails at, requesting one of these keeps the browser cache shared
+  private readonly thumbnailWidths = [64, 128, 256, 384, 512, 768, 1024];
   private authService = inject(AuthService);
   private bookService = inject(BookService);
 
@@ -22,7 +24,7 @@ export class UrlHelperService {
     return token ? `${url}${url.includes('?') ? '&' : '?'}token=${token}` : url;
   }
 
-  getThumbnailUrl(bookId: number, coverUpdatedOn?: string): string {
+  getThumbnailUrl(bookId: number, coverUpdatedOn?: string, displayWidth?: number): string {
     if (!coverUpdatedOn) {
       const book = this.bookService.getBookByIdFromState(bookId);
       if (book && book.metadata) {
@@ -34,10 +36,23 @@ export class UrlHelperService {
         return 'assets/images/missing-cover.jpg';
       }
     }
-    const url = `${this.mediaBaseUrl}/book/${bookId}/thumbnail?${coverUpdatedOn}`;
+    let url = `${this.mediaBaseUrl}/book/${bookId}/thumbnail?v=${this.coverVersion(coverUpdatedOn)}`;
+    if (displayWidth) {
+      url += `&w=${this.thumbnailWidth(displayWidth)}`;
+    }
     return this.appendToken(url);
   }
 
+  // The server serves covers requested with their current update time as immutable
+  private coverVersion(coverUpdatedOn: string): string {
+    return encodeURIComponent(coverUpdatedOn);
+  }
+
+  private thumbnailWidth(displayWidth: number): number {
+    const devicePixels = Math.ceil(displayWidth * (window.devicePixelRatio || 1));
+    return this.thumbnailWidths.find(width => width >= devicePixels) ?? this.thumbnailWidths[this.thumbnailWidths.length - 1];
+  }
+
   getCoverUrl(bookId: number, coverUpdatedOn?: string): string {
     if (!coverUpdatedOn) {
       const book = this.bookService.getBookByIdFromState(bookId);
@@ -50,7 +65,7 @@ export class UrlHelperService {
         return 'assets/images/missing-cover.jpg';
       }
     }
-    const url = `${this.mediaBaseUrl}/book/${bookId}/cover?${coverUpdatedOn}`;
+    const url = `${this.mediaBaseUrl}/book/${bookId}/cover?v=${this.coverVersion(coverUpdatedOn)}`;
     return this.appendToken(url);
   }
 